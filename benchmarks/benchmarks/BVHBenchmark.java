@@ -0,0 +1,103 @@
+package benchmarks;
+
+import geometries.BVHBuildConfig;
+import geometries.BVHNode;
+import geometries.BVHSplitStrategy;
+import geometries.FlatBVH;
+import geometries.Intersectable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Ray;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hierarchy construction and traversal over seeded random primitives, for
+ * both split strategies and both hierarchy layouts, built sequentially or in parallel.<br/>
+ * Build scores are per hierarchy; traversal scores are per ray.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BVHBenchmark {
+    /** Rays per traversal invocation */
+    private static final int RAYS = 4096;
+
+    /** Amount of primitives */
+    @Param({ "1000", "100000" })
+    public int size;
+    /** Split strategy of the builds */
+    @Param({ "MEDIAN", "SAH", "LBVH" })
+    public BVHSplitStrategy strategy;
+    /** Range size from which the builds fork parallel tasks - 2147483647 builds sequentially */
+    @Param({ "8192", "2147483647" })
+    public int parallelThreshold;
+
+    private List<Intersectable> prims;
+    private BVHBuildConfig config;
+    private BVHNode tree;
+    private FlatBVH flat;
+    private Ray[] rays;
+
+    /** Generates the primitives and rays and builds the hierarchies to traverse. */
+    @Setup
+    public void setup() {
+        prims = BenchmarkScenes.randomPrimitives(42, size);
+        config = new BVHBuildConfig().setStrategy(strategy).setParallelThreshold(parallelThreshold);
+        tree = BVHNode.build(prims, config);
+        flat = FlatBVH.build(prims, config);
+        rays = BenchmarkScenes.randomRays(43, RAYS);
+    }
+
+    /** @return the hierarchy */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BVHNode buildTree() {
+        return BVHNode.build(prims, config);
+    }
+
+    /** @return the hierarchy */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public FlatBVH buildFlat() {
+        return FlatBVH.build(prims, config);
+    }
+
+    /** @param bh result sink */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(RAYS)
+    public void traverseTree(Blackhole bh) {
+        for (Ray ray : rays) bh.consume(tree.findClosestIntersection(ray));
+    }
+
+    /** @param bh result sink */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(RAYS)
+    public void traverseFlat(Blackhole bh) {
+        for (Ray ray : rays) bh.consume(flat.findClosestIntersection(ray));
+    }
+
+    /** @param bh result sink */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(RAYS)
+    public void occludedFlat(Blackhole bh) {
+        for (Ray ray : rays) bh.consume(flat.isOccluded(ray, BenchmarkScenes.EXTENT));
+    }
+}
@@ -0,0 +1,205 @@
+package benchmarks;
+
+import geometries.Cylinder;
+import geometries.FlatBVH;
+import geometries.Intersectable;
+import geometries.Plane;
+import geometries.Polygon;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import renderer.Camera;
+import renderer.RayTracerType;
+import scene.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded scenes and rays shared by the benchmarks.<br/>
+ * Everything here is a pure function of its seed, so a benchmark sees the same
+ * geometry and the same rays in every fork and every revision.
+ */
+final class BenchmarkScenes {
+    /** Side of the cube the random primitives are placed in */
+    static final double EXTENT = 200;
+
+    /** Utility class */
+    private BenchmarkScenes() {
+    }
+
+    /**
+     * Creates a random point inside the primitive cube.
+     *
+     * @param rnd the generator
+     * @return the point
+     */
+    private static Point randomPoint(Random rnd) {
+        return new Point((rnd.nextDouble() - 0.5) * EXTENT, (rnd.nextDouble() - 0.5) * EXTENT,
+                (rnd.nextDouble() - 0.5) * EXTENT);
+    }
+
+    /**
+     * Creates a random unit-ish direction.
+     *
+     * @param rnd the generator
+     * @return the direction
+     */
+    private static Vector randomDirection(Random rnd) {
+        return new Vector(rnd.nextGaussian(), rnd.nextGaussian(), rnd.nextGaussian() + 1e-9);
+    }
+
+    /**
+     * Creates small random primitives scattered in the cube - spheres, triangles,
+     * quads and cylinders in equal shares.
+     *
+     * @param seed  generator seed
+     * @param count amount of primitives
+     * @return the primitives
+     */
+    static List<Intersectable> randomPrimitives(long seed, int count) {
+        Random rnd = new Random(seed);
+        List<Intersectable> prims = new ArrayList<>(count);
+        Material material = new Material().setKD(0.6).setKS(0.3).setShininess(30);
+        for (int i = 0; i < count; i++) {
+            Point c = randomPoint(rnd);
+            double size = 0.5 + rnd.nextDouble() * 2;
+            Intersectable prim = switch (i % 4) {
+                case 0 -> new Sphere(c, size).setMaterial(material);
+                case 1 -> new Triangle(c, c.add(new Vector(size, 0, 0)), c.add(new Vector(0, size, size)))
+                        .setMaterial(material);
+                case 2 -> new Polygon(c, c.add(new Vector(size, 0, 0)), c.add(new Vector(size, size, 0)),
+                        c.add(new Vector(0, size, 0))).setMaterial(material);
+                default -> new Cylinder(size / 2, new Ray(c, randomDirection(rnd)), size).setMaterial(material);
+            };
+            prims.add(prim);
+        }
+        return prims;
+    }
+
+    /**
+     * Creates rays from random origins in the cube in random directions.
+     *
+     * @param seed  generator seed
+     * @param count amount of rays
+     * @return the rays
+     */
+    static Ray[] randomRays(long seed, int count) {
+        Random rnd = new Random(seed);
+        Ray[] rays = new Ray[count];
+        for (int i = 0; i < count; i++) rays[i] = new Ray(randomPoint(rnd), randomDirection(rnd));
+        return rays;
+    }
+
+    /**
+     * Creates rays from random points around a target, aimed at points near it,
+     * so that a primitive placed at the target is hit by most but not all of them.
+     *
+     * @param seed   generator seed
+     * @param count  amount of rays
+     * @param target the aimed point
+     * @param spread distance around the target the rays are aimed at
+     * @return the rays
+     */
+    static Ray[] raysAt(long seed, int count, Point target, double spread) {
+        Random rnd = new Random(seed);
+        Ray[] rays = new Ray[count];
+        for (int i = 0; i < count; i++) {
+            Point origin = target.add(randomDirection(rnd).normalize().scale(10 * spread));
+            Point aim = target.add(new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.4)
+                    .scale(2 * spread));
+            rays[i] = new Ray(origin, aim.subtract(origin));
+        }
+        return rays;
+    }
+
+    /**
+     * Creates the street scene of the house tests with seeded tree sizes:
+     * a ground plane, a street, a house and two rows of trees, lit by two
+     * directional lights and a soft point light.
+     *
+     * @param seed     generator seed of the tree sizes
+     * @param softness samples of the point light (1 for a hard shadow)
+     * @return the scene, its geometries held by a {@link FlatBVH}
+     */
+    static Scene streetScene(long seed, int softness) {
+        Random rnd = new Random(seed);
+        List<Intersectable> geometries = new ArrayList<>();
+        Material ground = new Material().setKD(0.8).setKS(0.1).setShininess(10);
+        Material wall = new Material().setKD(0.9).setKS(0.2).setShininess(20);
+        Material roof = new Material().setKD(0.7).setKS(0.3).setShininess(50);
+        Color brown = new Color(90, 50, 30), yellow = new Color(255, 220, 120), red = new Color(150, 30, 30);
+
+        geometries.add(new Plane(Point.ZERO, new Vector(0, 1, 0)).setEmission(new Color(45, 90, 45)).setMaterial(ground));
+        geometries.add(new Polygon(new Point(-25, 0.1, 200), new Point(25, 0.1, 200),
+                new Point(25, 0.1, -500), new Point(-25, 0.1, -500)).setEmission(brown).setMaterial(ground));
+
+        // house walls and roof
+        double w = 25, h = 20, d = 12.5, z = -60;
+        geometries.add(new Polygon(new Point(-w, 0, z + d), new Point(w, 0, z + d), new Point(w, h, z + d),
+                new Point(-w, h, z + d)).setEmission(yellow).setMaterial(wall));
+        geometries.add(new Polygon(new Point(-w, 0, z - d), new Point(w, 0, z - d), new Point(w, h, z - d),
+                new Point(-w, h, z - d)).setEmission(yellow).setMaterial(wall));
+        geometries.add(new Polygon(new Point(w, 0, z + d), new Point(w, 0, z - d), new Point(w, h, z - d),
+                new Point(w, h, z + d)).setEmission(yellow).setMaterial(wall));
+        geometries.add(new Polygon(new Point(-w, 0, z + d), new Point(-w, 0, z - d), new Point(-w, h, z - d),
+                new Point(-w, h, z + d)).setEmission(yellow).setMaterial(wall));
+        geometries.add(new Triangle(new Point(-w, h, z + d), new Point(w, h, z + d), new Point(0, h + 15, z + d))
+                .setEmission(red).setMaterial(roof));
+        geometries.add(new Triangle(new Point(-w, h, z - d), new Point(w, h, z - d), new Point(0, h + 15, z - d))
+                .setEmission(red).setMaterial(roof));
+        geometries.add(new Polygon(new Point(-w, h, z - d), new Point(-w, h, z + d), new Point(0, h + 15, z + d),
+                new Point(0, h + 15, z - d)).setEmission(red).setMaterial(roof));
+        geometries.add(new Polygon(new Point(w, h, z - d), new Point(w, h, z + d), new Point(0, h + 15, z + d),
+                new Point(0, h + 15, z - d)).setEmission(red).setMaterial(roof));
+
+        // trees
+        Material trunk = new Material().setKD(0.7).setKS(0.3).setShininess(20);
+        Material foliage = new Material().setKD(0.6).setKS(0.4).setShininess(60);
+        for (int i = 0; i < 13; i++) {
+            double x = i % 2 == 0 ? -60 : 70, tz = -70 - 20 * i, s = 0.8 + rnd.nextDouble() * 0.4;
+            geometries.add(new Sphere(new Point(x, 1.5 * s, tz), 1.5 * s).setEmission(brown).setMaterial(trunk));
+            geometries.add(new Sphere(new Point(x, 4 * s, tz), 1.2 * s).setEmission(brown).setMaterial(trunk));
+            geometries.add(new Sphere(new Point(x, 10 * s, tz), 6 * s)
+                    .setEmission(new Color(30, 100, 40)).setMaterial(foliage));
+            geometries.add(new Sphere(new Point(x - 2 * s, 8 * s, tz - s), 4 * s)
+                    .setEmission(new Color(25, 85, 30)).setMaterial(foliage));
+        }
+
+        Scene scene = new Scene("Benchmark street")
+                .setBackground(new Color(135, 206, 235))
+                .setAmbientLight(new AmbientLight(new Color(48, 48, 56)));
+        scene.setGeometries(FlatBVH.build(geometries));
+        scene.lights.add(new DirectionalLight(new Color(250, 230, 200), new Vector(-1, -1, -0.5)));
+        scene.lights.add(new DirectionalLight(new Color(100, 110, 120), new Vector(1, -0.5, 0.7)));
+        scene.lights.add(new PointLight(new Color(255, 220, 180), new Point(0, 150, -150))
+                .setKl(0.0001).setKq(0.00001).setRadius(25).setNumSamples(softness));
+        return scene;
+    }
+
+    /**
+     * Creates a camera looking at the street scene.
+     *
+     * @param scene  the scene
+     * @param width  image width in pixels
+     * @param height image height in pixels
+     * @return the camera builder, ready for the threading settings
+     */
+    static Camera.Builder streetCamera(Scene scene, int width, int height) {
+        return Camera.getBuilder()
+                .setRayTracer(scene, RayTracerType.SIMPLE)
+                .setLocation(new Point(-15, 12, 60))
+                .setDirection(new Vector(0.1, -0.15, -1), new Vector(0, 1, 0))
+                .setVpDistance(150)
+                .setVpSize(300, 200)
+                .setResolution(width, height);
+    }
+}
@@ -0,0 +1,102 @@
+package benchmarks;
+
+import geometries.BoundingBox;
+import geometries.Cylinder;
+import geometries.Intersectable;
+import geometries.Polygon;
+import geometries.Sphere;
+import geometries.Triangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closest-hit queries against single primitives and ray - box tests.<br/>
+ * Each invocation runs a fixed batch of rays aimed around the primitive, so
+ * that both the early-out and the full hit path are exercised; scores are
+ * per ray.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class IntersectionBenchmark {
+    /** Rays per invocation */
+    private static final int RAYS = 1024;
+
+    private final Intersectable sphere = new Sphere(Point.ZERO, 1);
+    private final Intersectable triangle = new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0));
+    private final Intersectable polygon = new Polygon(new Point(-1, -1, 0), new Point(1, -1, 0),
+            new Point(1, 1, 0), new Point(-1, 1, 0));
+    private final Intersectable cylinder = new Cylinder(0.5, new Ray(new Point(0, -1, 0), new Vector(0, 1, 0)), 2);
+    private BoundingBox box;
+    private Ray[] rays;
+
+    /** Generates the rays and the box. */
+    @Setup
+    public void setup() {
+        rays = BenchmarkScenes.raysAt(17, RAYS, Point.ZERO, 1);
+        box = new BoundingBox(new Point(-1, -1, -1), new Point(1, 1, 1));
+    }
+
+    /**
+     * Runs the batch of closest-hit queries against one primitive.
+     *
+     * @param geometry the primitive
+     * @param bh       sink of the results
+     */
+    private void closest(Intersectable geometry, Blackhole bh) {
+        for (Ray ray : rays) bh.consume(geometry.findClosestIntersection(ray));
+    }
+
+    /** @param bh result sink */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void sphere(Blackhole bh) {
+        closest(sphere, bh);
+    }
+
+    /** @param bh result sink */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void triangle(Blackhole bh) {
+        closest(triangle, bh);
+    }
+
+    /** @param bh result sink */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void polygon(Blackhole bh) {
+        closest(polygon, bh);
+    }
+
+    /** @param bh result sink */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void cylinder(Blackhole bh) {
+        closest(cylinder, bh);
+    }
+
+    /** @param bh result sink */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void boundingBox(Blackhole bh) {
+        for (Ray ray : rays) bh.consume(box.intersects(ray));
+    }
+}
@@ -0,0 +1,70 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import renderer.Camera;
+import renderer.TileOrder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full frame rendering of the seeded street scene in each threading mode of
+ * {@link Camera}. Frames are rendered into memory only - image writing is
+ * deliberately left out. Scores are per frame.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+    /** Threading modes of the camera */
+    public enum Threading {
+        /** Single thread */
+        NONE,
+        /** Parallel streams */
+        STREAMS,
+        /** Thread pool of all cores but the spare ones, per-pixel scheduling */
+        THREADS,
+        /** Thread pool with Morton ordered tiles */
+        TILES,
+        /** Virtual threads with Morton ordered tiles */
+        VIRTUAL
+    }
+
+    /** Threading mode */
+    @Param
+    public Threading threading;
+
+    private Camera camera;
+
+    /** Builds the scene and a camera rendering it in the chosen mode. */
+    @Setup
+    public void setup() {
+        Camera.Builder builder = BenchmarkScenes.streetCamera(BenchmarkScenes.streetScene(7, 9), 320, 240);
+        switch (threading) {
+            case NONE -> builder.setMultithreading(0);
+            case STREAMS -> builder.setMultithreading(-1);
+            case THREADS -> builder.setMultithreading(-2);
+            case TILES -> builder.setMultithreading(-2).setTiles(32, TileOrder.MORTON);
+            case VIRTUAL -> builder.setVirtualThreads(Runtime.getRuntime().availableProcessors());
+        }
+        camera = builder.build();
+    }
+
+    /** @return the camera, holding the rendered frame */
+    @Benchmark
+    public Camera renderImage() {
+        return camera.renderImage();
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Ray;
+import renderer.Camera;
+import renderer.SimpleRayTracer;
+import scene.Scene;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SimpleRayTracer#traceRay} on the seeded street scene: primary rays
+ * of a coarse pixel grid, each traced with its shadow, reflection and
+ * refraction rays. Scores are per primary ray.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ShadingBenchmark {
+    /** Width of the primary ray grid */
+    private static final int WIDTH = 64;
+    /** Height of the primary ray grid */
+    private static final int HEIGHT = 48;
+
+    /** Samples of the soft point light */
+    @Param({ "1", "16" })
+    public int softness;
+
+    private SimpleRayTracer tracer;
+    private Ray[] rays;
+
+    /** Builds the scene and constructs the primary rays. */
+    @Setup
+    public void setup() {
+        Scene scene = BenchmarkScenes.streetScene(7, softness);
+        Camera camera = BenchmarkScenes.streetCamera(scene, WIDTH, HEIGHT).build();
+        tracer = new SimpleRayTracer(scene);
+        rays = new Ray[WIDTH * HEIGHT];
+        for (int i = 0; i < HEIGHT; i++)
+            for (int j = 0; j < WIDTH; j++)
+                rays[i * WIDTH + j] = camera.constructRay(WIDTH, HEIGHT, j, i);
+    }
+
+    /** @param bh result sink */
+    @Benchmark
+    @OperationsPerInvocation(WIDTH * HEIGHT)
+    public void traceRay(Blackhole bh) {
+        for (Ray ray : rays) bh.consume(tracer.traceRay(ray));
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * JMH benchmarks of the ray tracer hot paths: single-primitive intersection,
+ * bounding box tests, hierarchy construction and traversal, shading and full
+ * frame rendering.<br/>
+ * Every benchmark runs on scenes and rays generated from fixed seeds by
+ * {@link benchmarks.BenchmarkScenes}, so results are comparable between runs
+ * and between revisions. Rendered frames are never written to disk.<br/>
+ * The source folder needs the JMH library and its annotation processor on the
+ * classpath; run with {@code org.openjdk.jmh.Main} and a benchmark name regex,
+ * e.g. {@code java -cp ... org.openjdk.jmh.Main "BVHBenchmark.traverse.*" -prof gc}.
+ */
+package benchmarks;
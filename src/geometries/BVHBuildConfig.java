@@ -0,0 +1,151 @@
+package geometries;
+
+/**
+ * Holds all the parameters used while building a bounding volume hierarchy:
+ * split strategy, leaf size and the cost constants of the Surface Area Heuristic.
+ */
+public class BVHBuildConfig {
+    /** Split strategy used at each internal node, the median split by default. */
+    private BVHSplitStrategy strategy = BVHSplitStrategy.MEDIAN;
+    /** Maximum amount of primitives stored in a single leaf. */
+    private int maxLeafSize = 4;
+    /** Estimated cost of visiting one node (one box test). */
+    private double traversalCost = 1.0;
+    /** Estimated cost of one ray–primitive intersection test. */
+    private double intersectionCost = 1.0;
+    /** Number of centroid bins evaluated per axis by the SAH builder. */
+    private int binCount = 16;
+    /** Amount of primitives from which a build is split into parallel tasks. */
+    private int parallelThreshold = 8192;
+    /** Whether a linear build is followed by SAH restructuring of small treelets. */
+    private boolean treeletRestructuring = false;
+    /** Growth of the SAH cost after refits that makes a hierarchy rebuild itself. */
+    private double rebuildThreshold = 1.5;
+
+    /**
+     * Sets the split strategy.
+     * @param strategy MEDIAN, SAH or LBVH
+     * @return this config for chaining
+     */
+    public BVHBuildConfig setStrategy(BVHSplitStrategy strategy) {
+        if (strategy == null)
+            throw new IllegalArgumentException("Split strategy cannot be null");
+        this.strategy = strategy;
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of primitives in a leaf.
+     * @param maxLeafSize leaf capacity (≥ 1)
+     * @return this config for chaining
+     */
+    public BVHBuildConfig setMaxLeafSize(int maxLeafSize) {
+        if (maxLeafSize < 1)
+            throw new IllegalArgumentException("Leaf size must be positive");
+        this.maxLeafSize = maxLeafSize;
+        return this;
+    }
+
+    /**
+     * Sets the SAH cost of traversing one node.
+     * @param traversalCost node traversal cost (≥ 0)
+     * @return this config for chaining
+     */
+    public BVHBuildConfig setTraversalCost(double traversalCost) {
+        if (traversalCost < 0)
+            throw new IllegalArgumentException("Traversal cost must be non-negative");
+        this.traversalCost = traversalCost;
+        return this;
+    }
+
+    /**
+     * Sets the SAH cost of intersecting one primitive.
+     * @param intersectionCost primitive intersection cost (&gt; 0)
+     * @return this config for chaining
+     */
+    public BVHBuildConfig setIntersectionCost(double intersectionCost) {
+        if (intersectionCost <= 0)
+            throw new IllegalArgumentException("Intersection cost must be positive");
+        this.intersectionCost = intersectionCost;
+        return this;
+    }
+
+    /**
+     * Sets the number of centroid bins per axis for the SAH builder.
+     * @param binCount amount of bins (≥ 2)
+     * @return this config for chaining
+     */
+    public BVHBuildConfig setBinCount(int binCount) {
+        if (binCount < 2)
+            throw new IllegalArgumentException("At least two bins are required");
+        this.binCount = binCount;
+        return this;
+    }
+
+    /**
+     * Sets the amount of primitives from which a build runs in parallel: the boxes of
+     * the primitives are gathered in parallel, and the children of every node over at
+     * least that many primitives are built by separate fork-join tasks. The hierarchy
+     * does not depend on it.
+     * @param parallelThreshold range size from which subtrees are forked (≥ 1),
+     *                          {@link Integer#MAX_VALUE} to build sequentially
+     * @return this config for chaining
+     */
+    public BVHBuildConfig setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1)
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    /**
+     * Sets whether an {@link BVHSplitStrategy#LBVH} build is followed by a pass that
+     * rearranges every treelet of up to 7 leaves into its cheapest shape according to
+     * the Surface Area Heuristic, recovering most of the quality of an SAH build.
+     * Other strategies ignore it.
+     * @param treeletRestructuring true to restructure the treelets
+     * @return this config for chaining
+     */
+    public BVHBuildConfig setTreeletRestructuring(boolean treeletRestructuring) {
+        this.treeletRestructuring = treeletRestructuring;
+        return this;
+    }
+
+    /**
+     * Sets how much the quality of a flat hierarchy may decay through refits before
+     * it is rebuilt: a refit that leaves the SAH cost above the cost right after the
+     * last build times this ratio rebuilds the hierarchy over the moved primitives.
+     * @param rebuildThreshold cost ratio (≥ 1), {@link Double#POSITIVE_INFINITY} to never rebuild
+     * @return this config for chaining
+     */
+    public BVHBuildConfig setRebuildThreshold(double rebuildThreshold) {
+        if (!(rebuildThreshold >= 1))
+            throw new IllegalArgumentException("Rebuild threshold must be at least 1");
+        this.rebuildThreshold = rebuildThreshold;
+        return this;
+    }
+
+    /** @return the split strategy */
+    public BVHSplitStrategy getStrategy() { return strategy; }
+
+    /** @return the maximum amount of primitives in a leaf */
+    public int getMaxLeafSize() { return maxLeafSize; }
+
+    /** @return the node traversal cost */
+    public double getTraversalCost() { return traversalCost; }
+
+    /** @return the primitive intersection cost */
+    public double getIntersectionCost() { return intersectionCost; }
+
+    /** @return the amount of centroid bins per axis */
+    public int getBinCount() { return binCount; }
+
+    /** @return the range size from which subtrees are built in parallel */
+    public int getParallelThreshold() { return parallelThreshold; }
+
+    /** @return whether linear builds restructure their treelets */
+    public boolean isTreeletRestructuring() { return treeletRestructuring; }
+
+    /** @return the SAH cost growth that triggers a rebuild */
+    public double getRebuildThreshold() { return rebuildThreshold; }
+}
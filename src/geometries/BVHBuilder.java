@@ -0,0 +1,897 @@
+package geometries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Top-down builder of {@link BVHNode} hierarchies.<br/>
+ * Primitive boxes and centroids are gathered once into flat arrays, and every
+ * level partitions an index range in place, so no list is sorted or copied
+ * while descending the tree. The split of each node is chosen either at the
+ * centroid median or by the binned Surface Area Heuristic, according to the
+ * {@link BVHBuildConfig}.<br/>
+ * Since every leaf owns a contiguous range of the final order, the hierarchy can
+ * also be emitted directly in the flattened layout of {@link FlatBVH}, without
+ * any node or list objects, which index-based geometries build on.<br/>
+ * Large builds run on the common {@link ForkJoinPool}: the primitive boxes and
+ * centroids are gathered in parallel, and the two children of every range at least
+ * {@link BVHBuildConfig#getParallelThreshold()} long are built by separate tasks.
+ * Sibling ranges are disjoint and each split only looks at its own range, so the
+ * hierarchy is the same as the sequential one, node for node.<br/>
+ * The linear strategy sorts the primitives by the Morton codes of their centroids
+ * with a radix sort, once, and then only looks up the split of each range in the
+ * sorted codes; node boxes are merged bottom-up from the leaves, so the build takes
+ * linear time after the sort. A {@link TreeletOptimizer} may then improve its SAH
+ * cost.
+ */
+final class BVHBuilder {
+    /** Build parameters */
+    private final BVHBuildConfig config;
+    /** The primitives being organized, null when built over raw boxes */
+    private final List<? extends Intersectable> prims;
+    /** Primitive boxes - minX, minY, minZ, maxX, maxY, maxZ per primitive */
+    private final double[] bounds;
+    /** Primitive box centroids - x, y, z per primitive */
+    private final double[] centroids;
+    /** Permutation of primitive indices, partitioned in place while building */
+    private final int[] order;
+    /** Ranges at least this long fork their children onto the pool */
+    private final int parallelThreshold;
+    /** Morton codes of the centroids in {@link #order}, sorted; null unless the build is linear */
+    private final long[] codes;
+
+    /**
+     * Prepares a builder over the given primitives.
+     * @param prims  primitives to organize
+     * @param config build parameters
+     */
+    BVHBuilder(List<? extends Intersectable> prims, BVHBuildConfig config) {
+        this(prims, boundsOf(prims, config.getParallelThreshold()), config);
+    }
+
+    /**
+     * Prepares a builder over raw primitive boxes, for {@link #buildFlat()}.
+     * @param bounds primitive boxes - minX, minY, minZ, maxX, maxY, maxZ per primitive
+     * @param config build parameters
+     */
+    BVHBuilder(double[] bounds, BVHBuildConfig config) {
+        this(null, bounds, config);
+    }
+
+    /**
+     * Prepares a builder.
+     * @param prims  primitives to organize, or null
+     * @param bounds primitive boxes
+     * @param config build parameters
+     */
+    private BVHBuilder(List<? extends Intersectable> prims, double[] bounds, BVHBuildConfig config) {
+        this.config = config;
+        this.prims  = prims;
+        this.bounds = bounds;
+        parallelThreshold = config.getParallelThreshold();
+        int n = bounds.length / 6;
+        centroids = new double[3 * n];
+        order     = new int[n];
+        range(n, parallelThreshold).forEach(i -> {
+            int o = 6 * i;
+            for (int a = 0; a < 3; a++)
+                centroids[3 * i + a] = (bounds[o + a] + bounds[o + a + 3]) * 0.5;
+            order[i] = i;
+        });
+        codes = config.getStrategy() == BVHSplitStrategy.LBVH ? mortonSort() : null;
+    }
+
+    /**
+     * Gathers the boxes of primitives into a flat array.
+     * @param prims     the primitives
+     * @param threshold amount of primitives from which the boxes are gathered in parallel
+     * @return minX, minY, minZ, maxX, maxY, maxZ per primitive
+     */
+    private static double[] boundsOf(List<? extends Intersectable> prims, int threshold) {
+        double[] bounds = new double[6 * prims.size()];
+        range(prims.size(), threshold).forEach(i -> {
+            BoundingBox b = prims.get(i).getBoundingBox();
+            for (int k = 0; k < 6; k++)
+                bounds[6 * i + k] = b.getBound(k);
+        });
+        return bounds;
+    }
+
+    /**
+     * Stream of the indices of a per-primitive loop, parallel for large builds.
+     * @param n         amount of primitives
+     * @param threshold amount of primitives from which the loop runs in parallel
+     * @return the indices 0..n-1
+     */
+    private static IntStream range(int n, int threshold) {
+        IntStream indices = IntStream.range(0, n);
+        return n >= threshold ? indices.parallel() : indices;
+    }
+
+    /**
+     * Builds the hierarchy over all the primitives.
+     * @return root of the hierarchy
+     */
+    BVHNode build() {
+        // the linear build is cheapest in the flat layout, its nodes follow from it
+        if (codes != null) return node(buildFlat(), 0);
+        int n = order.length;
+        return n >= parallelThreshold ? ForkJoinPool.commonPool().invoke(new NodeTask(0, n))
+                                      : build(0, n, new Bins());
+    }
+
+    /**
+     * A hierarchy in the flattened layout: nodes in depth-first order, the left child
+     * right after its parent. A leaf refers to a range of {@link #order}, which lists
+     * the primitive indices so that each leaf owns a contiguous range.
+     */
+    static final class FlatTree {
+        /** Node boxes - minX, minY, minZ, maxX, maxY, maxZ per node */
+        final double[] nodeBounds;
+        /** Leaf - first position in the order; internal node - index of its right child */
+        final int[] nodeOffsets;
+        /** Leaf - amount of its primitives; internal node - 0 */
+        final int[] nodeCounts;
+        /** Primitive indices in leaf order */
+        final int[] order;
+        /** Amount of nodes */
+        final int nodeCount;
+        /** Depth of the deepest node (the root is at depth 1) */
+        final int depth;
+        /** Time the build took, in nanoseconds */
+        final long buildNanos;
+
+        /**
+         * @param nodeBounds  node boxes
+         * @param nodeOffsets leaf ranges and right children
+         * @param nodeCounts  leaf sizes
+         * @param order       primitive indices in leaf order
+         * @param nodeCount   amount of nodes
+         * @param depth       depth of the hierarchy
+         * @param buildNanos  time the build took
+         */
+        FlatTree(double[] nodeBounds, int[] nodeOffsets, int[] nodeCounts, int[] order, int nodeCount, int depth,
+                 long buildNanos) {
+            this.nodeBounds  = nodeBounds;
+            this.nodeOffsets = nodeOffsets;
+            this.nodeCounts  = nodeCounts;
+            this.order       = order;
+            this.nodeCount   = nodeCount;
+            this.depth       = depth;
+            this.buildNanos  = buildNanos;
+        }
+
+        /**
+         * Computes the expected cost of tracing a ray through the hierarchy according
+         * to the Surface Area Heuristic: the costs of the nodes and of the primitives
+         * of the leaves, weighted by the chance of a ray through the root box to
+         * enter their boxes.
+         * @param config cost constants of the heuristic
+         * @return the cost, in units of the costs of the config
+         */
+        double sahCost(BVHBuildConfig config) {
+            return BVHBuilder.sahCost(nodeBounds, nodeCounts, nodeCount, order.length, config);
+        }
+    }
+
+    /**
+     * Computes the expected cost of tracing a ray through a hierarchy in the flattened
+     * layout according to the Surface Area Heuristic.
+     * @param nodeBounds node boxes
+     * @param nodeCounts leaf sizes, 0 for internal nodes
+     * @param nodeCount  amount of nodes
+     * @param primitives amount of primitives
+     * @param config     cost constants of the heuristic
+     * @return the cost - the cost of testing every primitive if the root box has no finite area
+     */
+    static double sahCost(double[] nodeBounds, int[] nodeCounts, int nodeCount, int primitives,
+                          BVHBuildConfig config) {
+        double rootArea = surfaceArea(nodeBounds, 0);
+        if (!(rootArea > 0) || Double.isInfinite(rootArea)) return config.getIntersectionCost() * primitives;
+        double cost = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            double weight = surfaceArea(nodeBounds, 6 * i) / rootArea;
+            cost += nodeCounts[i] > 0 ? weight * config.getIntersectionCost() * nodeCounts[i]
+                                      : weight * config.getTraversalCost();
+        }
+        return cost;
+    }
+
+    /**
+     * Builds the hierarchy over all the primitives directly in the flattened layout.
+     * @return the flat hierarchy; a single empty leaf if there are no primitives
+     */
+    FlatTree buildFlat() {
+        long start = System.nanoTime();
+        int n = order.length;
+        Emitter emitter;
+        if (n < parallelThreshold) {
+            emitter = new Emitter(n);
+            emitter.emit(0, n, 1);
+        } else {
+            // the subtrees are emitted apart, then placed once their sizes are known
+            Part root = ForkJoinPool.commonPool().invoke(new FlatTask(0, n));
+            emitter = new Emitter(n);
+            emitter.place(root, 0);
+            emitter.nodes = root.nodeCount;
+            emitter.depth = root.depth;
+        }
+        FlatTree tree = new FlatTree(emitter.nodeBounds, emitter.nodeOffsets, emitter.nodeCounts, order,
+                emitter.nodes, emitter.depth, 0);
+        if (codes != null && config.isTreeletRestructuring())
+            tree = new TreeletOptimizer(tree, config).optimize();
+        return new FlatTree(tree.nodeBounds, tree.nodeOffsets, tree.nodeCounts, tree.order,
+                tree.nodeCount, tree.depth, System.nanoTime() - start);
+    }
+
+    /**
+     * Creates the nodes of a flat hierarchy.
+     * @param tree  the flat hierarchy
+     * @param index index of the subtree root
+     * @return the subtree root
+     */
+    private BVHNode node(FlatTree tree, int index) {
+        int count = tree.nodeCounts[index];
+        if (count > 0 || tree.nodeCount == 1) {
+            List<Intersectable> objs = new ArrayList<>(count);
+            int first = tree.nodeOffsets[index];
+            for (int i = first; i < first + count; i++) objs.add(prims.get(tree.order[i]));
+            return new BVHNode(objs);
+        }
+        return new BVHNode(node(tree, index + 1), node(tree, tree.nodeOffsets[index]));
+    }
+
+    /**
+     * Node arrays of a hierarchy, or of a subtree of it, being emitted in the
+     * flattened layout. Each task of a parallel build emits into its own.
+     */
+    private final class Emitter {
+        /** Node boxes */
+        final double[] nodeBounds;
+        /** Leaf ranges and right children, relative to the first node of the emitter */
+        final int[] nodeOffsets;
+        /** Leaf sizes */
+        final int[] nodeCounts;
+        /** Scratch of the SAH sweep */
+        final Bins bins = new Bins();
+        /** Amount of nodes emitted so far */
+        int nodes;
+        /** Depth of the deepest node emitted so far */
+        int depth;
+
+        /**
+         * Allocates the arrays for the subtree of a range.
+         * @param count amount of primitives in the range
+         */
+        Emitter(int count) {
+            int maxNodes = Math.max(1, 2 * count - 1);
+            nodeBounds  = new double[6 * maxNodes];
+            nodeOffsets = new int[maxNodes];
+            nodeCounts  = new int[maxNodes];
+        }
+
+        /**
+         * Recursively emits the subtree over {@code order[start, end)} in depth-first order.
+         * @param start first index of the range (inclusive)
+         * @param end   last index of the range (exclusive)
+         * @param level depth of the subtree root
+         * @return index of the subtree root
+         */
+        int emit(int start, int end, int level) {
+            if (codes != null) return emitLinear(start, end, level);
+            double[] box = rangeBounds(start, end);
+            return emit(start, end, level, box, split(start, end, box, bins));
+        }
+
+        /**
+         * Emits the subtree over an already split range.
+         * @param start first index of the range (inclusive)
+         * @param end   last index of the range (exclusive)
+         * @param level depth of the subtree root
+         * @param box   box of the range
+         * @param mid   first index of the right child, or -1 for a leaf
+         * @return index of the subtree root
+         */
+        int emit(int start, int end, int level, double[] box, int mid) {
+            int index = nodes++;
+            depth = Math.max(depth, level);
+            System.arraycopy(box, 0, nodeBounds, 6 * index, 6);
+            if (mid < 0) {
+                nodeOffsets[index] = start;
+                nodeCounts[index]  = end - start;
+                return index;
+            }
+            emit(start, mid, level + 1);
+            nodeOffsets[index] = emit(mid, end, level + 1);
+            return index;
+        }
+
+        /**
+         * Recursively emits the subtree over {@code order[start, end)} split at the
+         * Morton codes. The box of an internal node is merged from the boxes of its
+         * children after they are emitted, so every primitive box is read only once.
+         * @param start first index of the range (inclusive)
+         * @param end   last index of the range (exclusive)
+         * @param level depth of the subtree root
+         * @return index of the subtree root
+         */
+        int emitLinear(int start, int end, int level) {
+            int index = nodes++;
+            depth = Math.max(depth, level);
+            int mid = mortonSplit(start, end);
+            if (mid < 0) {
+                System.arraycopy(rangeBounds(start, end), 0, nodeBounds, 6 * index, 6);
+                nodeOffsets[index] = start;
+                nodeCounts[index]  = end - start;
+                return index;
+            }
+            emitLinear(start, mid, level + 1);
+            int right = emitLinear(mid, end, level + 1);
+            nodeOffsets[index] = right;
+            setEmpty(nodeBounds, 6 * index);
+            grow(nodeBounds, 6 * index, nodeBounds, 6 * (index + 1));
+            grow(nodeBounds, 6 * index, nodeBounds, 6 * right);
+            return index;
+        }
+
+        /**
+         * Copies the nodes of a subtree built apart into place.
+         * @param part  the subtree
+         * @param index index of the subtree root in this emitter
+         */
+        void place(Part part, int index) {
+            if (part.chunk != null) {
+                Emitter chunk = part.chunk;
+                System.arraycopy(chunk.nodeBounds, 0, nodeBounds, 6 * index, 6 * chunk.nodes);
+                System.arraycopy(chunk.nodeCounts, 0, nodeCounts, index, chunk.nodes);
+                // leaves refer to the order, which is shared; right children move with the chunk
+                for (int k = 0; k < chunk.nodes; k++)
+                    nodeOffsets[index + k] = chunk.nodeCounts[k] == 0 ? chunk.nodeOffsets[k] + index
+                                                                      : chunk.nodeOffsets[k];
+                return;
+            }
+            System.arraycopy(part.box, 0, nodeBounds, 6 * index, 6);
+            nodeCounts[index] = 0;
+            place(part.left, index + 1);
+            nodeOffsets[index] = index + 1 + part.left.nodeCount;
+            place(part.right, nodeOffsets[index]);
+        }
+    }
+
+    /**
+     * A subtree of a parallel flat build: an internal node whose children were built
+     * by separate tasks, or a chunk emitted by one task.
+     */
+    private static final class Part {
+        /** Box of the internal node, null for a chunk */
+        final double[] box;
+        /** Children of the internal node, null for a chunk */
+        final Part left, right;
+        /** Nodes of the chunk, null for an internal node */
+        final Emitter chunk;
+        /** Amount of nodes in the subtree */
+        final int nodeCount;
+        /** Depth of the subtree, 1 for a single node */
+        final int depth;
+
+        /**
+         * Internal node over two subtrees.
+         * @param box   box of the node
+         * @param left  left subtree
+         * @param right right subtree
+         */
+        Part(double[] box, Part left, Part right) {
+            this.box   = box;
+            this.left  = left;
+            this.right = right;
+            chunk      = null;
+            nodeCount  = 1 + left.nodeCount + right.nodeCount;
+            depth      = 1 + Math.max(left.depth, right.depth);
+        }
+
+        /**
+         * Chunk of nodes emitted by one task.
+         * @param chunk the emitted nodes
+         */
+        Part(Emitter chunk) {
+            this.chunk = chunk;
+            box        = null;
+            left       = right = null;
+            nodeCount  = chunk.nodes;
+            depth      = chunk.depth;
+        }
+
+        /** @return box of the subtree root */
+        double[] bounds() {
+            return box != null ? box : Arrays.copyOf(chunk.nodeBounds, 6);
+        }
+    }
+
+    /** Builds the flat subtree of a range, forking the children of long ranges */
+    @SuppressWarnings("serial") // fork-join tasks are never serialized
+    private final class FlatTask extends RecursiveTask<Part> {
+        /** First index of the range (inclusive) */
+        private final int start;
+        /** Last index of the range (exclusive) */
+        private final int end;
+
+        /**
+         * @param start first index of the range (inclusive)
+         * @param end   last index of the range (exclusive)
+         */
+        FlatTask(int start, int end) {
+            this.start = start;
+            this.end   = end;
+        }
+
+        @Override
+        protected Part compute() {
+            if (end - start < parallelThreshold) {
+                Emitter chunk = new Emitter(end - start);
+                chunk.emit(start, end, 1);
+                return new Part(chunk);
+            }
+            // a linear build needs no box to split, it merges the boxes of the children
+            double[] box = codes == null ? rangeBounds(start, end) : null;
+            int mid = codes == null ? split(start, end, box, new Bins()) : mortonSplit(start, end);
+            if (mid < 0) {
+                // splitting may have reordered the range, so the leaf is not split again
+                Emitter leaf = new Emitter(1);
+                leaf.emit(start, end, 1, box != null ? box : rangeBounds(start, end), -1);
+                return new Part(leaf);
+            }
+            FlatTask left = new FlatTask(start, mid);
+            left.fork();
+            Part right = new FlatTask(mid, end).compute();
+            Part l = left.join();
+            if (box == null) {
+                box = l.bounds();
+                grow(box, 0, right.bounds(), 0);
+            }
+            return new Part(box, l, right);
+        }
+    }
+
+    /** Builds the subtree of a range, forking the children of long ranges */
+    @SuppressWarnings("serial") // fork-join tasks are never serialized
+    private final class NodeTask extends RecursiveTask<BVHNode> {
+        /** First index of the range (inclusive) */
+        private final int start;
+        /** Last index of the range (exclusive) */
+        private final int end;
+
+        /**
+         * @param start first index of the range (inclusive)
+         * @param end   last index of the range (exclusive)
+         */
+        NodeTask(int start, int end) {
+            this.start = start;
+            this.end   = end;
+        }
+
+        @Override
+        protected BVHNode compute() {
+            Bins bins = new Bins();
+            if (end - start < parallelThreshold) return build(start, end, bins);
+            int mid = split(start, end, rangeBounds(start, end), bins);
+            if (mid < 0) return leaf(start, end);
+            NodeTask left = new NodeTask(start, mid);
+            left.fork();
+            BVHNode right = new NodeTask(mid, end).compute();
+            return new BVHNode(left.join(), right);
+        }
+    }
+
+    /**
+     * Recursively builds the subtree over {@code order[start, end)}.
+     * @param start first index of the range (inclusive)
+     * @param end   last index of the range (exclusive)
+     * @param bins  scratch of the SAH sweep
+     * @return root of the subtree
+     */
+    private BVHNode build(int start, int end, Bins bins) {
+        int count = end - start;
+        if (count <= 1 || count <= config.getMaxLeafSize() && config.getStrategy() == BVHSplitStrategy.MEDIAN)
+            return leaf(start, end);
+        int mid = split(start, end, rangeBounds(start, end), bins);
+        return mid < 0 ? leaf(start, end) : new BVHNode(build(start, mid, bins), build(mid, end, bins));
+    }
+
+    /**
+     * Decides whether a range becomes a leaf, and partitions it otherwise.
+     * @param start first index of the range (inclusive)
+     * @param end   last index of the range (exclusive)
+     * @param box   box of the range
+     * @param bins  scratch of the SAH sweep
+     * @return index of the first primitive of the right child, or -1 for a leaf
+     */
+    private int split(int start, int end, double[] box, Bins bins) {
+        int count = end - start;
+        boolean small = count <= config.getMaxLeafSize();
+        if (count <= 1 || small && config.getStrategy() == BVHSplitStrategy.MEDIAN)
+            return -1;
+
+        int mid = -1;
+        if (config.getStrategy() == BVHSplitStrategy.SAH) {
+            mid = sahSplit(start, end, box, bins);
+            // splitting a small node is not worth it according to the SAH
+            if (mid == 0) return -1;
+        }
+        if (mid < 0) {
+            if (small) return -1;
+            mid = medianSplit(start, end, box);
+        }
+        return mid;
+    }
+
+    /**
+     * Creates a leaf node holding the primitives of {@code order[start, end)}.
+     * @param start first index of the range (inclusive)
+     * @param end   last index of the range (exclusive)
+     * @return the leaf
+     */
+    private BVHNode leaf(int start, int end) {
+        List<Intersectable> objs = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) objs.add(prims.get(order[i]));
+        return new BVHNode(objs);
+    }
+
+    /**
+     * Computes the Morton codes of the centroids and sorts the primitive order by them.
+     * The centroids are quantized on a grid over their bounding box, 10 bits per axis,
+     * or 21 bits per axis when there are too many primitives for 2^30 cells.
+     * @return the sorted codes, aligned with {@link #order}
+     */
+    private long[] mortonSort() {
+        int n = order.length;
+        double[] cBox = emptyBox();
+        for (int i = 0; i < n; i++)
+            for (int a = 0; a < 3; a++) {
+                cBox[a]     = Math.min(cBox[a], centroids[3 * i + a]);
+                cBox[a + 3] = Math.max(cBox[a + 3], centroids[3 * i + a]);
+            }
+        int bits = n > 1 << 20 ? 21 : 10;
+        double cells = (1 << bits) - 1;
+        double[] scale = new double[3];
+        for (int a = 0; a < 3; a++) {
+            double extent = cBox[a + 3] - cBox[a];
+            scale[a] = extent > 0 ? cells / extent : 0;
+        }
+        long[] keys = new long[n];
+        range(n, parallelThreshold).forEach(i -> {
+            long code = 0;
+            for (int a = 0; a < 3; a++)
+                code |= spread((long) ((centroids[3 * i + a] - cBox[a]) * scale[a])) << (2 - a);
+            keys[i] = code;
+        });
+        radixSort(keys, order, (3 * bits + 7) / 8);
+        return keys;
+    }
+
+    /**
+     * Spreads the lower 21 bits of a value apart, two zero bits after each.
+     * @param v the value
+     * @return the spread bits
+     */
+    private static long spread(long v) {
+        v &= 0x1fffffL;
+        v = (v | v << 32) & 0x1f00000000ffffL;
+        v = (v | v << 16) & 0x1f0000ff0000ffL;
+        v = (v | v << 8)  & 0x100f00f00f00f00fL;
+        v = (v | v << 4)  & 0x10c30c30c30c30c3L;
+        v = (v | v << 2)  & 0x1249249249249249L;
+        return v;
+    }
+
+    /**
+     * Stable least significant digit radix sort of keys and their values, a byte per
+     * pass. Large arrays are cut into chunks that count their digits and scatter them
+     * in parallel, each into its own slots of the target.
+     * @param keys   the keys
+     * @param values the values, moved along with their keys
+     * @param passes amount of low bytes of the keys to sort by
+     */
+    private void radixSort(long[] keys, int[] values, int passes) {
+        int n = keys.length;
+        int chunks = n >= parallelThreshold ? 4 * ForkJoinPool.commonPool().getParallelism() : 1;
+        int chunkSize = (n + chunks - 1) / chunks;
+        int[][] offsets = new int[chunks][256];
+        long[] srcKeys = keys, dstKeys = new long[n];
+        int[] srcValues = values, dstValues = new int[n];
+        for (int pass = 0; pass < passes; pass++) {
+            int shift = 8 * pass;
+            long[] fromKeys = srcKeys, toKeys = dstKeys;
+            int[] fromValues = srcValues, toValues = dstValues;
+            range(chunks, 2).forEach(c -> {
+                int[] count = offsets[c];
+                Arrays.fill(count, 0);
+                for (int i = c * chunkSize, end = Math.min(n, i + chunkSize); i < end; i++)
+                    count[(int) (fromKeys[i] >>> shift) & 0xff]++;
+            });
+            // each chunk writes a digit after the same digit of the chunks before it
+            int sum = 0;
+            for (int d = 0; d < 256; d++)
+                for (int c = 0; c < chunks; c++) {
+                    int count = offsets[c][d];
+                    offsets[c][d] = sum;
+                    sum += count;
+                }
+            range(chunks, 2).forEach(c -> {
+                int[] next = offsets[c];
+                for (int i = c * chunkSize, end = Math.min(n, i + chunkSize); i < end; i++) {
+                    int k = next[(int) (fromKeys[i] >>> shift) & 0xff]++;
+                    toKeys[k]   = fromKeys[i];
+                    toValues[k] = fromValues[i];
+                }
+            });
+            srcKeys = toKeys;
+            dstKeys = fromKeys;
+            srcValues = toValues;
+            dstValues = fromValues;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, n);
+            System.arraycopy(srcValues, 0, values, 0, n);
+        }
+    }
+
+    /**
+     * Finds the split of a range of a linear build: the first position where the
+     * highest bit that differs between the Morton codes of the range is set. A range
+     * of equal codes is split in the middle.
+     * @param start first index of the range (inclusive)
+     * @param end   last index of the range (exclusive)
+     * @return index of the first primitive of the right child, or -1 for a leaf
+     */
+    private int mortonSplit(int start, int end) {
+        if (end - start <= config.getMaxLeafSize()) return -1;
+        long first = codes[start], last = codes[end - 1];
+        if (first == last) return (start + end) >>> 1;
+        long bit = Long.highestOneBit(first ^ last);
+        // the codes share the bits above, so the ones with the bit set come last
+        int lo = start + 1, hi = end - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if ((codes[mid] & bit) != 0) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    /** Scratch arrays of the SAH sweep, one set per building thread */
+    private final class Bins {
+        /** Amount of primitives per bin */
+        final int[] counts = new int[config.getBinCount()];
+        /** Box of each bin - 6 doubles per bin */
+        final double[] bounds = new double[6 * counts.length];
+        /** Surface area of the boxes right of each split plane */
+        final double[] rightAreas = new double[counts.length];
+        /** Amount of primitives right of each split plane */
+        final int[] rightCounts = new int[counts.length];
+    }
+
+    /**
+     * Computes the box enclosing all the primitives of a range.
+     * @param start first index of the range (inclusive)
+     * @param end   last index of the range (exclusive)
+     * @return minX, minY, minZ, maxX, maxY, maxZ of the range
+     */
+    private double[] rangeBounds(int start, int end) {
+        double[] box = emptyBox();
+        for (int i = start; i < end; i++) grow(box, 0, bounds, 6 * order[i]);
+        return box;
+    }
+
+    /**
+     * Chooses the split by the binned Surface Area Heuristic and partitions the range.
+     * @param start first index of the range (inclusive)
+     * @param end   last index of the range (exclusive)
+     * @param box   box of the range
+     * @param bins  scratch of the sweep
+     * @return index of the first primitive of the right child, 0 if a leaf is cheaper,
+     *         or -1 if the heuristic cannot be evaluated (degenerate or unbounded boxes)
+     */
+    private int sahSplit(int start, int end, double[] box, Bins bins) {
+        int count = end - start;
+        double area = surfaceArea(box, 0);
+        if (!(area > 0) || Double.isInfinite(area)) return -1;
+
+        // centroid bounds decide the bin mapping
+        double[] cBox = emptyBox();
+        for (int i = start; i < end; i++) {
+            int c = 3 * order[i];
+            for (int a = 0; a < 3; a++) {
+                cBox[a]     = Math.min(cBox[a], centroids[c + a]);
+                cBox[a + 3] = Math.max(cBox[a + 3], centroids[c + a]);
+            }
+        }
+
+        int    binCount  = config.getBinCount();
+        double bestCost  = Double.POSITIVE_INFINITY;
+        int    bestAxis  = -1;
+        int    bestSplit = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double extent = cBox[axis + 3] - cBox[axis];
+            if (!(extent > 0) || Double.isInfinite(extent)) continue;
+
+            fillBins(start, end, axis, cBox[axis], binCount / extent, bins);
+
+            // sweep right to left accumulating the right side
+            double[] acc = emptyBox();
+            int accCount = 0;
+            for (int b = binCount - 1; b > 0; b--) {
+                grow(acc, 0, bins.bounds, 6 * b);
+                accCount += bins.counts[b];
+                bins.rightAreas[b]  = accCount == 0 ? 0 : surfaceArea(acc, 0);
+                bins.rightCounts[b] = accCount;
+            }
+            // sweep left to right evaluating each split plane
+            acc = emptyBox();
+            accCount = 0;
+            for (int b = 0; b < binCount - 1; b++) {
+                grow(acc, 0, bins.bounds, 6 * b);
+                accCount += bins.counts[b];
+                int rightCount = bins.rightCounts[b + 1];
+                if (accCount == 0 || rightCount == 0) continue;
+                double cost = surfaceArea(acc, 0) * accCount + bins.rightAreas[b + 1] * rightCount;
+                if (cost < bestCost) {
+                    bestCost  = cost;
+                    bestAxis  = axis;
+                    bestSplit = b;
+                }
+            }
+        }
+        if (bestAxis < 0) return -1;
+
+        double splitCost = config.getTraversalCost() + config.getIntersectionCost() * bestCost / area;
+        double leafCost  = config.getIntersectionCost() * count;
+        if (count <= config.getMaxLeafSize() && leafCost <= splitCost) return 0;
+
+        // partition the range by the chosen bin
+        double min   = cBox[bestAxis];
+        double scale = binCount / (cBox[bestAxis + 3] - min);
+        int i = start, j = end - 1;
+        while (i <= j) {
+            if (binOf(centroids[3 * order[i] + bestAxis], min, scale, binCount) <= bestSplit) i++;
+            else swap(i, j--);
+        }
+        return i == start || i == end ? -1 : i;
+    }
+
+    /**
+     * Distributes the primitives of a range into the centroid bins along an axis.
+     * @param start first index of the range (inclusive)
+     * @param end   last index of the range (exclusive)
+     * @param axis  the axis (0 - x, 1 - y, 2 - z)
+     * @param min   minimal centroid coordinate along the axis
+     * @param scale amount of bins per unit length
+     * @param bins  the bins to fill
+     */
+    private void fillBins(int start, int end, int axis, double min, double scale, Bins bins) {
+        int binCount = bins.counts.length;
+        for (int b = 0; b < binCount; b++) {
+            bins.counts[b] = 0;
+            setEmpty(bins.bounds, 6 * b);
+        }
+        for (int i = start; i < end; i++) {
+            int p = order[i];
+            int b = binOf(centroids[3 * p + axis], min, scale, binCount);
+            bins.counts[b]++;
+            grow(bins.bounds, 6 * b, bounds, 6 * p);
+        }
+    }
+
+    /**
+     * Splits the range at the centroid median along the longest axis of its box.
+     * The median is selected in linear expected time instead of sorting the range.
+     * @param start first index of the range (inclusive)
+     * @param end   last index of the range (exclusive)
+     * @param box   box of the range
+     * @return index of the first primitive of the right child
+     */
+    private int medianSplit(int start, int end, double[] box) {
+        double dx = box[3] - box[0], dy = box[4] - box[1], dz = box[5] - box[2];
+        int axis = dx > dy && dx > dz ? 0 : (dy > dz ? 1 : 2);
+        int mid = start + (end - start) / 2;
+        select(start, end - 1, mid, axis);
+        return mid;
+    }
+
+    /**
+     * Quick-select: rearranges {@code order[lo, hi]} so that the element at {@code k}
+     * is the one a full sort by centroid would put there, with no larger centroid before it
+     * and no smaller one after it.
+     * @param lo   first index (inclusive)
+     * @param hi   last index (inclusive)
+     * @param k    index to settle
+     * @param axis axis of the centroid coordinate
+     */
+    private void select(int lo, int hi, int k, int axis) {
+        while (hi > lo) {
+            double pivot = centroids[3 * order[(lo + hi) >>> 1] + axis];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (centroids[3 * order[i] + axis] < pivot) i++;
+                while (centroids[3 * order[j] + axis] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    /**
+     * Swaps two entries of the primitive order.
+     * @param i first index
+     * @param j second index
+     */
+    private void swap(int i, int j) {
+        int t = order[i];
+        order[i] = order[j];
+        order[j] = t;
+    }
+
+    /**
+     * Maps a centroid coordinate to its bin.
+     * @param c     the coordinate
+     * @param min   minimal coordinate of the range
+     * @param scale amount of bins per unit length
+     * @param bins  amount of bins
+     * @return bin index in [0, bins)
+     */
+    private static int binOf(double c, double min, double scale, int bins) {
+        int b = (int) ((c - min) * scale);
+        return b < 0 ? 0 : Math.min(b, bins - 1);
+    }
+
+    /** @return a new inverted (empty) box ready to be grown */
+    private static double[] emptyBox() {
+        double[] box = new double[6];
+        setEmpty(box, 0);
+        return box;
+    }
+
+    /**
+     * Resets a box stored in an array into an inverted (empty) box.
+     * @param box    the array
+     * @param offset offset of the box in the array
+     */
+    static void setEmpty(double[] box, int offset) {
+        for (int a = 0; a < 3; a++) {
+            box[offset + a]     = Double.POSITIVE_INFINITY;
+            box[offset + a + 3] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Grows a box so it encloses another box.
+     * @param box    the array of the grown box
+     * @param offset offset of the grown box
+     * @param other  the array of the enclosed box
+     * @param from   offset of the enclosed box
+     */
+    static void grow(double[] box, int offset, double[] other, int from) {
+        for (int a = 0; a < 3; a++) {
+            box[offset + a]     = Math.min(box[offset + a], other[from + a]);
+            box[offset + a + 3] = Math.max(box[offset + a + 3], other[from + a + 3]);
+        }
+    }
+
+    /**
+     * Computes the surface area of a box.
+     * @param box    the array of the box
+     * @param offset offset of the box
+     * @return surface area
+     */
+    static double surfaceArea(double[] box, int offset) {
+        double dx = box[offset + 3] - box[offset];
+        double dy = box[offset + 4] - box[offset + 1];
+        double dz = box[offset + 5] - box[offset + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+}
@@ -4,7 +4,8 @@ package geometries;
 import primitives.Ray;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Bounding Volume Hierarchy (BVH) node for accelerating ray-geometry intersections.
@@ -12,18 +13,17 @@ import java.util.Comparator;
  * in the intersection pipeline.
  */
 public class BVHNode extends Intersectable {
-    private final BoundingBox box;
+    private BoundingBox box;
     private final Intersectable left;
     private final Intersectable right;
     private final List<Intersectable> leafObjs;
-    private static final int MAX_LEAF = 4;
 
     /**
-     * Constructs a leaf BVH node containing up to MAX_LEAF primitives.
+     * Constructs a leaf BVH node containing a few primitives.
      *
      * @param objs list of intersectable primitives
      */
-    private BVHNode(List<Intersectable> objs) {
+    BVHNode(List<Intersectable> objs) {
         this.leafObjs = objs;
         this.left = null;
         this.right = null;
@@ -36,13 +36,88 @@ public class BVHNode extends Intersectable {
      * @param l left child node
      * @param r right child node
      */
-    private BVHNode(BVHNode l, BVHNode r) {
+    BVHNode(BVHNode l, BVHNode r) {
         this.leafObjs = null;
         this.left = l;
         this.right = r;
         this.box = BoundingBox.union(l.box, r.box);
     }
 
+    /**
+     * Checks whether this node is a leaf.
+     *
+     * @return true for a leaf node, false for an internal node
+     */
+    boolean isLeaf() {
+        return leafObjs != null;
+    }
+
+    /**
+     * Returns the primitives of a leaf node.
+     *
+     * @return the leaf primitives, or null for an internal node
+     */
+    List<Intersectable> getLeafObjects() {
+        return leafObjs;
+    }
+
+    /**
+     * Returns the left child of an internal node.
+     *
+     * @return left child, or null for a leaf
+     */
+    BVHNode getLeft() {
+        return (BVHNode) left;
+    }
+
+    /**
+     * Returns the right child of an internal node.
+     *
+     * @return right child, or null for a leaf
+     */
+    BVHNode getRight() {
+        return (BVHNode) right;
+    }
+
+    /**
+     * Recomputes the boxes of the subtree bottom-up after its primitives moved,
+     * keeping its structure. The primitives are refitted first; the subtrees of the
+     * top levels are refitted in parallel on the common fork-join pool.<br/>
+     * A refitted hierarchy stays correct, but its quality decays as the primitives
+     * move away from where it was built - {@link FlatBVH#refit()} watches the decay
+     * and rebuilds when needed.
+     */
+    @Override
+    public void refit() {
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        // a few more subtrees than threads, so that uneven ones balance out
+        int forkLevels = 34 - Integer.numberOfLeadingZeros(parallelism);
+        ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> refit(parallelism > 1 ? forkLevels : 0)));
+    }
+
+    /**
+     * Refits the subtree.
+     *
+     * @param forkLevels amount of levels whose children are refitted in parallel
+     */
+    private void refit(int forkLevels) {
+        if (leafObjs != null) {
+            for (Intersectable o : leafObjs) o.refit();
+            box = BoundingBox.unionOf(leafObjs);
+        } else {
+            BVHNode l = getLeft(), r = getRight();
+            if (forkLevels > 0)
+                ForkJoinTask.invokeAll(ForkJoinTask.adapt(() -> l.refit(forkLevels - 1)),
+                        ForkJoinTask.adapt(() -> r.refit(forkLevels - 1)));
+            else {
+                l.refit(0);
+                r.refit(0);
+            }
+            box = BoundingBox.union(l.box, r.box);
+        }
+        super.refit();
+    }
+
     /**
      * Returns the precomputed bounding box for this node.
      */
@@ -60,6 +135,8 @@ public class BVHNode extends Intersectable {
      */
     @Override
     protected List<Intersection> calculateIntersectionsHelper(Ray ray) {
+        TraversalStats stats = stats();
+        if (stats != null) stats.nodeVisited();
         // Leaf node: test all contained primitives
         if (leafObjs != null) {
             List<Intersection> result = null;
@@ -102,39 +179,112 @@ public class BVHNode extends Intersectable {
     }
 
     /**
-     * Builds a BVH over a flat list of primitives. Splits along the longest axis
-     * at the median until each leaf has at most MAX_LEAF primitives.
+     * Closest-hit helper: if leaf, asks each primitive for its closest hit inside the
+     * interval; otherwise, recurses into the children front to back by the distance at
+     * which the ray enters their boxes. Every hit found shrinks the interval, so farther
+     * primitives and boxes are rejected before building any record.
+     *
+     * @param ray  the ray to intersect
+     * @param tMin hits at this distance or closer are ignored
+     * @param tMax hits at this distance or farther are ignored
+     * @return the closest Intersection inside the interval, or null if none
+     */
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        TraversalStats stats = stats();
+        if (stats != null) stats.nodeVisited();
+        if (leafObjs != null) {
+            Intersection closest = null;
+            for (Intersectable o : leafObjs) {
+                Intersection hit = o.findClosestIntersection(ray, tMin, tMax);
+                if (hit != null) {
+                    closest = hit;
+                    tMax    = hit.t;
+                }
+            }
+            return closest;
+        }
+        // visit the child entered first, the other one only if it starts before the hit
+        double tl = left.getBoundingBox().entryDistance(ray, tMin, tMax);
+        double tr = right.getBoundingBox().entryDistance(ray, tMin, tMax);
+        Intersectable near = tl <= tr ? left : right, far = tl <= tr ? right : left;
+        double tNear = Math.min(tl, tr), tFar = Math.max(tl, tr);
+        if (tNear == Double.POSITIVE_INFINITY) return null;
+
+        Intersection nearHit = near.findClosestIntersectionHelper(ray, tMin, tMax);
+        if (nearHit != null) tMax = nearHit.t;
+        if (tFar == Double.POSITIVE_INFINITY) return nearHit; // the far child is missed
+        if (tFar > tMax) return nearHit;
+        Intersection farHit = far.findClosestIntersectionHelper(ray, tMin, tMax);
+        return farHit != null ? farHit : nearHit;
+    }
+
+    /**
+     * Any-hit helper: if leaf, tests each primitive until one blocks the ray;
+     * otherwise, recurses into children whose bounding box intersects the ray.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance only hits closer than this distance count
+     * @return true if any primitive blocks the ray within the distance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        TraversalStats stats = stats();
+        if (stats != null) stats.nodeVisited();
+        if (leafObjs != null) {
+            for (Intersectable o : leafObjs) {
+                if (o.isOccluded(ray, maxDistance)) return true;
+            }
+            return false;
+        }
+        return left.isOccluded(ray, maxDistance) || right.isOccluded(ray, maxDistance);
+    }
+
+    /**
+     * Builds a BVH over a flat list of primitives with the default
+     * {@link BVHBuildConfig} (median splits along the longest axis, up to 4 primitives
+     * per leaf).
      *
      * @param prims flat list of primitives to accelerate
      * @return root of the constructed BVH
      */
     public static BVHNode build(List<Intersectable> prims) {
-        if (prims.size() <= MAX_LEAF) {
-            return new BVHNode(prims);
-        }
+        return build(prims, new BVHBuildConfig());
+    }
 
-        // Determine longest axis of the bounding box
-        BoundingBox full = BoundingBox.unionOf(prims);
-        double dx = full.max.getX() - full.min.getX();
-        double dy = full.max.getY() - full.min.getY();
-        double dz = full.max.getZ() - full.min.getZ();
-        int axis = dx > dy && dx > dz ? 0 : (dy > dz ? 1 : 2);
-
-        // Sort by centroid along selected axis
-        prims.sort(Comparator.comparingDouble(o -> {
-            BoundingBox b = o.getBoundingBox();
-            return axis == 0
-                    ? (b.min.getX() + b.max.getX()) * 0.5
-                    : axis == 1
-                    ? (b.min.getY() + b.max.getY()) * 0.5
-                    : (b.min.getZ() + b.max.getZ()) * 0.5;
-        }));
-
-        // Split at median
-        int mid = prims.size() / 2;
-        List<Intersectable> leftList  = new ArrayList<>(prims.subList(0, mid));
-        List<Intersectable> rightList = new ArrayList<>(prims.subList(mid, prims.size()));
-
-        return new BVHNode(build(leftList), build(rightList));
+    /**
+     * Builds a BVH over a flat list of primitives. Each node is split according to
+     * the configured strategy - at the centroid median along the longest axis, or at
+     * the cheapest binned Surface Area Heuristic plane - until leaves are small enough.
+     *
+     * Unbounded primitives (see {@link Intersectable#isBounded()}) are kept out of the
+     * splitting: they are gathered in a single leaf beside the hierarchy of the finite
+     * ones, so their infinite boxes do not spread over the inner nodes.
+     *
+     * @param prims  flat list of primitives to accelerate
+     * @param config build parameters
+     * @return root of the constructed BVH
+     */
+    public static BVHNode build(List<Intersectable> prims, BVHBuildConfig config) {
+        List<Intersectable> bounded   = new ArrayList<>(prims.size());
+        List<Intersectable> unbounded = new ArrayList<>();
+        partition(prims, bounded, unbounded);
+        if (unbounded.isEmpty()) return new BVHBuilder(bounded, config).build();
+        if (bounded.isEmpty()) return new BVHNode(unbounded);
+        return new BVHNode(new BVHBuilder(bounded, config).build(), new BVHNode(unbounded));
+    }
+
+    /**
+     * Separates primitives with a finite bounding box from unbounded ones.
+     *
+     * @param prims     primitives to separate
+     * @param bounded   receives the primitives with a finite box
+     * @param unbounded receives the primitives without a finite box
+     */
+    static void partition(List<Intersectable> prims, List<Intersectable> bounded, List<Intersectable> unbounded) {
+        for (Intersectable prim : prims) {
+            if (prim.isBounded()) bounded.add(prim);
+            else unbounded.add(prim);
+        }
     }
 }
@@ -0,0 +1,17 @@
+package geometries;
+
+/**
+ * Strategies for choosing the split plane while building a {@link BVHNode} hierarchy.
+ */
+public enum BVHSplitStrategy {
+    /** Split at the centroid median along the longest axis of the node box */
+    MEDIAN,
+    /** Surface Area Heuristic over binned primitive centroids */
+    SAH,
+    /**
+     * Linear BVH: the primitives are sorted once along the Morton (Z-order) curve of
+     * their centroids, and every node splits where the highest bit of the codes in its
+     * range changes - the fastest build, at some cost in traversal speed
+     */
+    LBVH
+}
@@ -12,6 +12,8 @@ public class BoundingBox {
     public final Point min;
     /** Maximum corner of the box (largest x, y, z). */
     public final Point max;
+    /** The corners as plain numbers: minX, minY, minZ, maxX, maxY, maxZ. */
+    private final double[] bounds;
 
     /**
      * Constructs a BoundingBox defined by its minimum and maximum corners.
@@ -22,6 +24,10 @@ public class BoundingBox {
     public BoundingBox(Point min, Point max) {
         this.min = min;
         this.max = max;
+        this.bounds = new double[] {
+                min.getX(), min.getY(), min.getZ(),
+                max.getX(), max.getY(), max.getZ()
+        };
     }
 
     /**
@@ -61,27 +67,81 @@ public class BoundingBox {
     }
 
     /**
-     * Tests whether a ray intersects this bounding box using the slab method.
+     * Returns one coordinate of the box corners without going through {@link Point}.
+     *
+     * @param index 0..2 for the minimum corner x, y, z, 3..5 for the maximum corner
+     * @return the coordinate
+     */
+    public double getBound(int index) {
+        return bounds[index];
+    }
+
+    /**
+     * Tests whether a ray intersects this bounding box in front of its origin.
      *
      * @param ray the ray to test
      * @return true if the ray intersects, false otherwise
      */
     public boolean intersects(Ray ray) {
-        double tmin = (min.getX() - ray.getPoint().getX()) / ray.getDirection().getX();
-        double tmax = (max.getX() - ray.getPoint().getX()) / ray.getDirection().getX();
-        if (tmin > tmax) { double tmp = tmin; tmin = tmax; tmax = tmp; }
+        return entryDistance(ray, 0, Double.POSITIVE_INFINITY) != Double.POSITIVE_INFINITY;
+    }
 
-        double tymin = (min.getY() - ray.getPoint().getY()) / ray.getDirection().getY();
-        double tymax = (max.getY() - ray.getPoint().getY()) / ray.getDirection().getY();
-        if (tymin > tymax) { double tmp = tymin; tymin = tymax; tymax = tmp; }
-        if ((tmin > tymax) || (tymin > tmax)) return false;
-        if (tymin > tmin) tmin = tymin;
-        if (tymax < tmax) tmax = tymax;
+    /**
+     * Slab test of a ray against this box, restricted to a part of the ray.<br/>
+     * Works on the cached inverse direction and direction signs of the ray: the near
+     * and far planes of each slab are picked by the sign instead of being swapped, and
+     * no division or allocation happens. A zero direction component whose origin lies
+     * exactly on a slab plane gives NaN, which the comparisons ignore, so such rays are
+     * never culled wrongly.
+     *
+     * @param ray   the ray to test
+     * @param tMin  start of the interesting part of the ray
+     * @param tMax  end of the interesting part of the ray
+     * @param range receives the entry and exit distances if the box is hit, may be null
+     * @return true if the ray passes through the box within [tMin, tMax]
+     */
+    public boolean intersects(Ray ray, double tMin, double tMax, double[] range) {
+        double tNear = tMin, tFar = tMax;
+        for (int a = 0; a < 3; a++) {
+            int    s  = ray.getDirectionSign(a);
+            double o  = ray.getOrigin(a);
+            double id = ray.getInverseDirection(a);
+            double t1 = (bounds[3 * s + a] - o) * id;
+            double t2 = (bounds[3 - 3 * s + a] - o) * id;
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            if (tNear > tFar) return false;
+        }
+        if (range != null) {
+            range[0] = tNear;
+            range[1] = tFar;
+        }
+        return true;
+    }
 
-        double tzmin = (min.getZ() - ray.getPoint().getZ()) / ray.getDirection().getZ();
-        double tzmax = (max.getZ() - ray.getPoint().getZ()) / ray.getDirection().getZ();
-        if (tzmin > tzmax) { double tmp = tzmin; tzmin = tzmax; tzmax = tmp; }
-        return (!(tmin > tzmax)) && (!(tzmin > tmax));
+    /**
+     * Slab test of a ray against this box, returning only the entry distance, e.g. for
+     * ordering the children of a hierarchy node front to back.
+     *
+     * @param ray  the ray to test
+     * @param tMin start of the interesting part of the ray
+     * @param tMax end of the interesting part of the ray
+     * @return the distance at which the ray enters the box (tMin if it is already inside),
+     *         or positive infinity if the ray misses the box within [tMin, tMax]
+     */
+    public double entryDistance(Ray ray, double tMin, double tMax) {
+        double tNear = tMin, tFar = tMax;
+        for (int a = 0; a < 3; a++) {
+            int    s  = ray.getDirectionSign(a);
+            double o  = ray.getOrigin(a);
+            double id = ray.getInverseDirection(a);
+            double t1 = (bounds[3 * s + a] - o) * id;
+            double t2 = (bounds[3 - 3 * s + a] - o) * id;
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            if (tNear > tFar) return Double.POSITIVE_INFINITY;
+        }
+        return tNear;
     }
 
     /**
@@ -90,8 +150,20 @@ public class BoundingBox {
      * @return true if empty, false otherwise
      */
     public boolean isEmpty() {
-        return min.getX() > max.getX() ||
-                min.getY() > max.getY() ||
-                min.getZ() > max.getZ();
+        return bounds[0] > bounds[3] || bounds[1] > bounds[4] || bounds[2] > bounds[5];
+    }
+
+    /**
+     * Checks if every coordinate of this bounding box is finite.<br/>
+     * Unbounded shapes (planes, infinite tubes) report an infinite box which
+     * encloses everything and therefore cannot cull anything.
+     *
+     * @return true if the box is finite, false otherwise
+     */
+    public boolean isBounded() {
+        for (double b : bounds) {
+            if (!Double.isFinite(b)) return false;
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
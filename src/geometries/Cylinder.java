@@ -7,6 +7,8 @@ import primitives.Vector;
 import java.util.LinkedList;
 import java.util.List;
 
+import static primitives.Util.alignZero;
+
 /**
  * A finite cylinder: a Tube of given radius and finite height,
  * capped by two circular planes at its ends.
@@ -172,6 +174,76 @@ public class Cylinder extends Tube {
         }
     }
 
+    /**
+     * Any-hit test for shadow rays: the side within the finite height,
+     * then both caps, all on plain coordinates.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance only hits closer than this distance count
+     * @return true if the cylinder blocks the ray within the distance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        double inf = Double.POSITIVE_INFINITY;
+        return sideHit(ray, 0, maxDistance, 0, height) != inf
+                || capHit(ray, 0, maxDistance, 0) != inf
+                || capHit(ray, 0, maxDistance, height) != inf;
+    }
+
+    /**
+     * Bounded closest-hit test over the side and both caps; each part only
+     * searches closer than the best hit so far, and only the winner gets a record.
+     *
+     * @param ray  the ray to intersect
+     * @param tMin hits at this distance or closer are ignored
+     * @param tMax hits at this distance or farther are ignored
+     * @return the closest Intersection inside the interval, or null if none
+     */
+    @Override
+    protected Intersectable.Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        double tSide   = sideHit(ray, tMin, tMax, 0, height);
+        double tBottom = capHit(ray, tMin, Math.min(tMax, tSide), 0);
+        double tTop    = capHit(ray, tMin, Math.min(tMax, Math.min(tSide, tBottom)), height);
+        double t = Math.min(tSide, Math.min(tBottom, tTop));
+        if (t == Double.POSITIVE_INFINITY) return null;
+
+        Vector axisDir = getAxisRay().getDirection();
+        Point  p       = ray.getPoint(t);
+        Vector n = t == tTop ? axisDir
+                : t == tBottom ? axisDir.scale(-1)
+                : super.getNormal(p);
+        return new Intersectable.Intersection(this, p, getMaterial(), ray, n, null, t);
+    }
+
+    /**
+     * Looks for the hit of the ray with a cap disk inside an interval.
+     *
+     * @param ray     the ray to test
+     * @param tMin    hits at this distance or closer are ignored
+     * @param tMax    hits at this distance or farther are ignored
+     * @param capProj axis position of the cap (0 for the base, height for the top)
+     * @return ray parameter of the cap hit, or positive infinity if none
+     */
+    private double capHit(Ray ray, double tMin, double tMax, double capProj) {
+        Vector axisDir = getAxisRay().getDirection();
+        Point  base    = getAxisRay().getPoint();
+        Point  p0      = ray.getPoint();
+        Vector v       = ray.getDirection();
+        double ax = axisDir.getX(), ay = axisDir.getY(), az = axisDir.getZ();
+
+        double nv = alignZero(axisDir.dotProduct(v));
+        if (nv == 0) return Double.POSITIVE_INFINITY;
+        double dx = p0.getX() - base.getX(), dy = p0.getY() - base.getY(), dz = p0.getZ() - base.getZ();
+        double t  = alignZero((capProj - (dx * ax + dy * ay + dz * az)) / nv);
+        if (t <= 0 || t <= tMin || t >= tMax) return Double.POSITIVE_INFINITY;
+
+        // offset of the hit point from the cap center
+        double ox = dx + t * v.getX() - capProj * ax;
+        double oy = dy + t * v.getY() - capProj * ay;
+        double oz = dz + t * v.getZ() - capProj * az;
+        return ox * ox + oy * oy + oz * oz <= getHeight() * getHeight() ? t : Double.POSITIVE_INFINITY;
+    }
+
     /**
      * Returns the normal vector at a given point on the cylinder surface.
      * For points on the caps, returns the cap normal; otherwise delegates to Tube.
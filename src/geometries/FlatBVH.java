@@ -0,0 +1,735 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Linearized bounding volume hierarchy.<br/>
+ * The nodes of a {@link BVHNode} tree are packed in depth-first order into primitive
+ * arrays: the left child of an internal node is always stored right after its parent,
+ * and the parent keeps the index of its right child. Traversal is iterative with an
+ * explicit stack, visits the nearer child first and skips every subtree whose box is
+ * entered beyond the closest hit found so far.<br/>
+ * Primitives without a finite bounding box (planes, infinite tubes) are kept out of
+ * the hierarchy when it is built by {@link #build(List, BVHBuildConfig)}: they are
+ * stored in a separate list that every query tests directly. That build emits the
+ * flat layout straight from the {@link BVHBuilder}, without an intermediate tree.<br/>
+ * Since the hierarchy is nothing but arrays, it can be saved with
+ * {@link #write(DataOutput)} and restored with {@link #read(ByteBuffer, List)}
+ * without being rebuilt.<br/>
+ * When the primitives move, {@link #refit()} updates the node boxes in place and
+ * rebuilds the hierarchy once its SAH cost has grown past the
+ * {@link BVHBuildConfig#getRebuildThreshold() threshold} of the config.
+ */
+public class FlatBVH extends Intersectable {
+    /** Node boxes - minX, minY, minZ, maxX, maxY, maxZ per node */
+    private double[] nodeBounds;
+    /** Leaf - index of its first primitive; internal node - index of its right child */
+    private int[] nodeOffsets;
+    /** Leaf - amount of its primitives; internal node - 0 */
+    private int[] nodeCounts;
+    /** The primitives, ordered so that each leaf owns a contiguous range */
+    private Intersectable[] prims;
+    /** Unbounded primitives, outside the hierarchy and tested on every query */
+    private final Intersectable[] unbounded;
+    /** Amount of nodes */
+    private int nodeCount;
+    /** Depth of the deepest node (root depth is 1) - the size of a traversal stack */
+    private int depth;
+    /** Time the builder took, in nanoseconds - 0 for a flattened or stored hierarchy */
+    private long buildNanos;
+
+    /** Parameters of rebuilds */
+    private final BVHBuildConfig config;
+    /** SAH cost right after the hierarchy was built, the reference of its decay */
+    private double buildCost;
+    /** Amount of rebuilds triggered by refits */
+    private int rebuilds = 0;
+
+    /** Filling position of the nodes while flattening */
+    private int nextNode = 0;
+    /** Filling position of the primitives while flattening */
+    private int nextPrim = 0;
+
+    /**
+     * Flattens an existing hierarchy.
+     *
+     * @param root root of the hierarchy
+     */
+    public FlatBVH(BVHNode root) {
+        this(root, List.of());
+    }
+
+    /**
+     * Flattens an existing hierarchy of finite primitives and keeps the unbounded
+     * primitives aside.
+     *
+     * @param root      root of the hierarchy
+     * @param unbounded primitives without a finite bounding box
+     */
+    private FlatBVH(BVHNode root, List<Intersectable> unbounded) {
+        this.unbounded = unbounded.toArray(new Intersectable[0]);
+        int[] stats = new int[3]; // nodes, primitives, depth
+        count(root, 1, stats);
+        nodeCount   = stats[0];
+        depth       = stats[2];
+        buildNanos  = 0;
+        nodeBounds  = new double[6 * nodeCount];
+        nodeOffsets = new int[nodeCount];
+        nodeCounts  = new int[nodeCount];
+        prims       = new Intersectable[stats[1]];
+        flatten(root);
+        config      = new BVHBuildConfig();
+        buildCost   = getSahCost();
+    }
+
+    /**
+     * Adopts a hierarchy built directly in the flattened layout.
+     *
+     * @param tree      the flat hierarchy over the bounded primitives
+     * @param bounded   primitives with a finite bounding box, indexed by the tree order
+     * @param unbounded primitives without a finite bounding box
+     * @param config    build parameters of the tree
+     */
+    private FlatBVH(BVHBuilder.FlatTree tree, List<Intersectable> bounded, List<Intersectable> unbounded,
+                    BVHBuildConfig config) {
+        this.unbounded = unbounded.toArray(new Intersectable[0]);
+        this.config    = config;
+        adopt(tree, bounded);
+    }
+
+    /**
+     * Takes over a hierarchy built in the flattened layout.
+     *
+     * @param tree    the flat hierarchy
+     * @param bounded the primitives of the hierarchy, indexed by the tree order
+     */
+    private void adopt(BVHBuilder.FlatTree tree, List<Intersectable> bounded) {
+        Intersectable[] ordered = new Intersectable[bounded.size()];
+        for (int i = 0; i < ordered.length; i++) ordered[i] = bounded.get(tree.order[i]);
+        nodeCount   = tree.nodeCount;
+        depth       = tree.depth;
+        buildNanos  = tree.buildNanos;
+        nodeBounds  = tree.nodeBounds;
+        nodeOffsets = tree.nodeOffsets;
+        nodeCounts  = tree.nodeCounts;
+        prims       = ordered;
+        buildCost   = getSahCost();
+    }
+
+    /**
+     * Adopts stored node arrays.
+     *
+     * @param nodeBounds  node boxes
+     * @param nodeOffsets leaf ranges and right children
+     * @param nodeCounts  leaf sizes
+     * @param depth       depth of the hierarchy
+     * @param prims       primitives in leaf order
+     * @param unbounded   primitives without a finite bounding box
+     */
+    private FlatBVH(double[] nodeBounds, int[] nodeOffsets, int[] nodeCounts, int depth,
+                    Intersectable[] prims, Intersectable[] unbounded) {
+        this.nodeBounds  = nodeBounds;
+        this.nodeOffsets = nodeOffsets;
+        this.nodeCounts  = nodeCounts;
+        this.nodeCount   = nodeCounts.length;
+        this.depth       = depth;
+        this.buildNanos  = 0;
+        this.prims       = prims;
+        this.unbounded   = unbounded;
+        this.config      = new BVHBuildConfig();
+        this.buildCost   = getSahCost();
+    }
+
+    /**
+     * Builds a hierarchy with the default {@link BVHBuildConfig} and flattens it.
+     *
+     * @param prims primitives to accelerate
+     * @return the flattened hierarchy
+     */
+    public static FlatBVH build(List<Intersectable> prims) {
+        return build(prims, new BVHBuildConfig());
+    }
+
+    /**
+     * Builds a hierarchy over the primitives with a finite bounding box and flattens
+     * it; the unbounded primitives are excluded from the hierarchy and always tested.
+     *
+     * @param prims  primitives to accelerate
+     * @param config build parameters
+     * @return the flattened hierarchy
+     */
+    public static FlatBVH build(List<Intersectable> prims, BVHBuildConfig config) {
+        List<Intersectable> bounded   = new ArrayList<>(prims.size());
+        List<Intersectable> unbounded = new ArrayList<>();
+        BVHNode.partition(prims, bounded, unbounded);
+        return new FlatBVH(new BVHBuilder(bounded, config).buildFlat(), bounded, unbounded, config);
+    }
+
+    /**
+     * Counts the nodes, primitives and depth of a subtree.
+     *
+     * @param node  subtree root
+     * @param level depth of the subtree root
+     * @param stats accumulated nodes, primitives and maximal depth
+     */
+    private static void count(BVHNode node, int level, int[] stats) {
+        stats[0]++;
+        stats[2] = Math.max(stats[2], level);
+        if (node.isLeaf()) {
+            stats[1] += node.getLeafObjects().size();
+            return;
+        }
+        count(node.getLeft(), level + 1, stats);
+        count(node.getRight(), level + 1, stats);
+    }
+
+    /**
+     * Stores a subtree in depth-first order.
+     *
+     * @param node subtree root
+     */
+    private void flatten(BVHNode node) {
+        int index = nextNode++;
+        BoundingBox box = node.getBoundingBox();
+        int o = 6 * index;
+        if (box == null) {
+            // an empty hierarchy - keep an inverted box, traversal never starts
+            for (int a = 0; a < 3; a++) {
+                nodeBounds[o + a]     = Double.POSITIVE_INFINITY;
+                nodeBounds[o + a + 3] = Double.NEGATIVE_INFINITY;
+            }
+        } else {
+            for (int k = 0; k < 6; k++)
+                nodeBounds[o + k] = box.getBound(k);
+        }
+
+        if (node.isLeaf()) {
+            List<Intersectable> objs = node.getLeafObjects();
+            nodeOffsets[index] = nextPrim;
+            nodeCounts[index]  = objs.size();
+            for (Intersectable obj : objs) prims[nextPrim++] = obj;
+            return;
+        }
+        flatten(node.getLeft());
+        nodeOffsets[index] = nextNode;
+        flatten(node.getRight());
+    }
+
+    /**
+     * Returns the amount of nodes in the hierarchy.
+     *
+     * @return node count
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the depth of the hierarchy.
+     *
+     * @return depth, 1 for a single leaf
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the time the hierarchy took to build.
+     *
+     * @return build time in nanoseconds, 0 if the hierarchy was flattened from a tree
+     *         or read from a file
+     */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Returns the expected cost of a ray through the hierarchy according to the
+     * Surface Area Heuristic, with the cost constants of its config.
+     *
+     * @return the cost, in units of the costs of the config
+     */
+    public double getSahCost() {
+        return BVHBuilder.sahCost(nodeBounds, nodeCounts, nodeCount, prims.length, config);
+    }
+
+    /**
+     * Returns the amount of times refits found the hierarchy decayed and rebuilt it.
+     *
+     * @return rebuild count
+     */
+    public int getRebuildCount() {
+        return rebuilds;
+    }
+
+    /**
+     * Refits the primitives and the node boxes bottom-up, keeping the structure -
+     * subtrees of at least {@link BVHBuildConfig#getParallelThreshold()} nodes are
+     * refitted in parallel. If the SAH cost then exceeds the cost after the last
+     * build by the {@link BVHBuildConfig#getRebuildThreshold() rebuild threshold},
+     * the hierarchy is rebuilt over the primitives where they are now.
+     */
+    @Override
+    public void refit() {
+        for (Intersectable prim : unbounded) prim.refit();
+        int threshold = config.getParallelThreshold();
+        refit(nodeBounds, nodeOffsets, nodeCounts, nodeCount, threshold, (first, count, box, o) -> {
+            BVHBuilder.setEmpty(box, o);
+            for (int p = first; p < first + count; p++) {
+                prims[p].refit();
+                BoundingBox b = prims[p].getBoundingBox();
+                for (int a = 0; a < 3; a++) {
+                    box[o + a]     = Math.min(box[o + a], b.getBound(a));
+                    box[o + a + 3] = Math.max(box[o + a + 3], b.getBound(a + 3));
+                }
+            }
+        });
+        if (getSahCost() > buildCost * config.getRebuildThreshold()) {
+            List<Intersectable> bounded = Arrays.asList(prims);
+            adopt(new BVHBuilder(bounded, config).buildFlat(), bounded);
+            rebuilds++;
+        }
+        super.refit();
+    }
+
+    /**
+     * Computes the box of a leaf of a flat hierarchy from its primitives.
+     */
+    interface LeafBounds {
+        /**
+         * @param first  first primitive of the leaf
+         * @param count  amount of primitives of the leaf
+         * @param box    receives the box - minX, minY, minZ, maxX, maxY, maxZ
+         * @param offset offset of the box in the array
+         */
+        void compute(int first, int count, double[] box, int offset);
+    }
+
+    /**
+     * Recomputes the node boxes of a flat hierarchy bottom-up. A subtree occupies
+     * a contiguous range of nodes with its children after its root, so going down the
+     * range from its end meets every node after its children.
+     *
+     * @param nodeBounds  node boxes, updated
+     * @param nodeOffsets leaf ranges and right children
+     * @param nodeCounts  leaf sizes
+     * @param nodeCount   amount of nodes
+     * @param threshold   amount of nodes from which subtrees are refitted in parallel
+     * @param leaves      computes the box of each leaf
+     */
+    static void refit(double[] nodeBounds, int[] nodeOffsets, int[] nodeCounts, int nodeCount, int threshold,
+                      LeafBounds leaves) {
+        RefitTask root = new RefitTask(nodeBounds, nodeOffsets, nodeCounts, nodeCount, threshold, leaves,
+                0, nodeCount);
+        if (nodeCount < threshold) root.compute();
+        else ForkJoinPool.commonPool().invoke(root);
+    }
+
+    /** Refits a subtree of a flat hierarchy, forking the children of large subtrees */
+    @SuppressWarnings("serial") // fork-join tasks are never serialized
+    private static final class RefitTask extends RecursiveAction {
+        /** Node boxes */
+        private final double[] nodeBounds;
+        /** Leaf ranges and right children */
+        private final int[] nodeOffsets;
+        /** Leaf sizes */
+        private final int[] nodeCounts;
+        /** Amount of nodes of the whole hierarchy */
+        private final int nodeCount;
+        /** Amount of nodes from which subtrees are forked */
+        private final int threshold;
+        /** Leaf box computation */
+        private final LeafBounds leaves;
+        /** Subtree root */
+        private final int root;
+        /** End of the subtree range (exclusive) */
+        private final int end;
+
+        /**
+         * @param nodeBounds  node boxes
+         * @param nodeOffsets leaf ranges and right children
+         * @param nodeCounts  leaf sizes
+         * @param nodeCount   amount of nodes
+         * @param threshold   amount of nodes from which subtrees are forked
+         * @param leaves      leaf box computation
+         * @param root        subtree root
+         * @param end         end of the subtree range (exclusive)
+         */
+        RefitTask(double[] nodeBounds, int[] nodeOffsets, int[] nodeCounts, int nodeCount, int threshold,
+                  LeafBounds leaves, int root, int end) {
+            this.nodeBounds  = nodeBounds;
+            this.nodeOffsets = nodeOffsets;
+            this.nodeCounts  = nodeCounts;
+            this.nodeCount   = nodeCount;
+            this.threshold   = threshold;
+            this.leaves      = leaves;
+            this.root        = root;
+            this.end         = end;
+        }
+
+        /**
+         * @param node a node
+         * @return whether the node is a leaf - a single empty node counts as a leaf
+         */
+        private boolean isLeaf(int node) {
+            return nodeCounts[node] > 0 || nodeCount == 1;
+        }
+
+        /**
+         * Merges the boxes of the children of an internal node into its box.
+         *
+         * @param node the node
+         */
+        private void merge(int node) {
+            BVHBuilder.setEmpty(nodeBounds, 6 * node);
+            BVHBuilder.grow(nodeBounds, 6 * node, nodeBounds, 6 * (node + 1));
+            BVHBuilder.grow(nodeBounds, 6 * node, nodeBounds, 6 * nodeOffsets[node]);
+        }
+
+        /**
+         * @param from subtree root
+         * @param to   end of the subtree range (exclusive)
+         * @return the task refitting the subtree
+         */
+        private RefitTask subtree(int from, int to) {
+            return new RefitTask(nodeBounds, nodeOffsets, nodeCounts, nodeCount, threshold, leaves, from, to);
+        }
+
+        @Override
+        protected void compute() {
+            if (end - root >= threshold && !isLeaf(root)) {
+                int right = nodeOffsets[root];
+                invokeAll(subtree(root + 1, right), subtree(right, end));
+                merge(root);
+                return;
+            }
+            for (int node = end - 1; node >= root; node--) {
+                if (isLeaf(node)) leaves.compute(nodeOffsets[node], nodeCounts[node], nodeBounds, 6 * node);
+                else merge(node);
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of primitives in the hierarchy.
+     *
+     * @return primitives with a finite bounding box
+     */
+    public int getBoundedCount() {
+        return prims.length;
+    }
+
+    /**
+     * Returns the amount of primitives excluded from the hierarchy because their
+     * bounding box is infinite.
+     *
+     * @return primitives tested on every query
+     */
+    public int getUnboundedCount() {
+        return unbounded.length;
+    }
+
+    /**
+     * Returns all the primitives: the ones in the hierarchy in leaf order, followed
+     * by the unbounded ones. This is the order {@link #read(ByteBuffer, List)} expects.
+     *
+     * @return unmodifiable list of the primitives
+     */
+    public List<Intersectable> getPrimitives() {
+        List<Intersectable> all = new ArrayList<>(prims.length + unbounded.length);
+        all.addAll(Arrays.asList(prims));
+        all.addAll(Arrays.asList(unbounded));
+        return List.copyOf(all);
+    }
+
+    /**
+     * Writes the structure of the hierarchy - the primitive counts and the node
+     * arrays. The primitives themselves are stored by the caller, in the order of
+     * {@link #getPrimitives()}.
+     *
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(prims.length);
+        out.writeInt(unbounded.length);
+        out.writeInt(nodeCount);
+        out.writeInt(depth);
+        writeDoubles(out, nodeBounds, 6 * nodeCount);
+        writeInts(out, nodeOffsets, nodeCount);
+        writeInts(out, nodeCounts, nodeCount);
+    }
+
+    /**
+     * Restores a hierarchy stored by {@link #write(DataOutput)}, without rebuilding it.
+     *
+     * @param in    buffer positioned at the stored structure, e.g. a mapped file
+     * @param prims the primitives in the order of {@link #getPrimitives()}
+     * @return the hierarchy
+     * @throws IOException if the stored structure does not match the primitives
+     */
+    public static FlatBVH read(ByteBuffer in, List<? extends Intersectable> prims) throws IOException {
+        int bounded = in.getInt(), unbounded = in.getInt(), nodeCount = in.getInt(), depth = in.getInt();
+        if (bounded < 0 || unbounded < 0 || bounded + unbounded != prims.size() || nodeCount < 1 || depth < 1)
+            throw new IOException("Stored hierarchy does not match its primitives");
+        double[] nodeBounds  = readDoubles(in, 6 * nodeCount);
+        int[]    nodeOffsets = readInts(in, nodeCount);
+        int[]    nodeCounts  = readInts(in, nodeCount);
+        return new FlatBVH(nodeBounds, nodeOffsets, nodeCounts, depth,
+                prims.subList(0, bounded).toArray(new Intersectable[0]),
+                prims.subList(bounded, prims.size()).toArray(new Intersectable[0]));
+    }
+
+    /**
+     * Writes the first elements of an array.
+     *
+     * @param out   the output
+     * @param array the array
+     * @param count amount of elements
+     * @throws IOException if writing fails
+     */
+    static void writeDoubles(DataOutput out, double[] array, int count) throws IOException {
+        for (int i = 0; i < count; i++) out.writeDouble(array[i]);
+    }
+
+    /**
+     * Writes the first elements of an array.
+     *
+     * @param out   the output
+     * @param array the array
+     * @param count amount of elements
+     * @throws IOException if writing fails
+     */
+    static void writeInts(DataOutput out, int[] array, int count) throws IOException {
+        for (int i = 0; i < count; i++) out.writeInt(array[i]);
+    }
+
+    /**
+     * Reads an array with one bulk copy.
+     *
+     * @param in    the buffer, advanced past the array
+     * @param count amount of elements
+     * @return the array
+     */
+    static double[] readDoubles(ByteBuffer in, int count) {
+        double[] array = new double[count];
+        in.asDoubleBuffer().get(array);
+        in.position(in.position() + Double.BYTES * count);
+        return array;
+    }
+
+    /**
+     * Reads an array with one bulk copy.
+     *
+     * @param in    the buffer, advanced past the array
+     * @param count amount of elements
+     * @return the array
+     */
+    static int[] readInts(ByteBuffer in, int count) {
+        int[] array = new int[count];
+        in.asIntBuffer().get(array);
+        in.position(in.position() + Integer.BYTES * count);
+        return array;
+    }
+
+    @Override
+    protected BoundingBox computeBoundingBox() {
+        if (unbounded.length > 0) return unbounded[0].getBoundingBox();
+        if (prims.length == 0) return null;
+        return new BoundingBox(
+                new Point(nodeBounds[0], nodeBounds[1], nodeBounds[2]),
+                new Point(nodeBounds[3], nodeBounds[4], nodeBounds[5]));
+    }
+
+    /**
+     * Slab test of a ray against a node box.
+     *
+     * @param nodeBounds node boxes of a flat hierarchy
+     * @param node       index of the node
+     * @param ox         ray origin x
+     * @param oy         ray origin y
+     * @param oz         ray origin z
+     * @param ix         inverse of ray direction x
+     * @param iy         inverse of ray direction y
+     * @param iz         inverse of ray direction z
+     * @param tMax       farthest distance of interest
+     * @return distance at which the ray enters the box (0 if it starts inside),
+     *         or positive infinity if it misses the box within [0, tMax]
+     */
+    static double enter(double[] nodeBounds, int node, double ox, double oy, double oz,
+                        double ix, double iy, double iz, double tMax) {
+        int o = 6 * node;
+        double tNear = 0, tFar = tMax;
+
+        double t1 = (nodeBounds[o] - ox) * ix, t2 = (nodeBounds[o + 3] - ox) * ix;
+        if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        t1 = (nodeBounds[o + 1] - oy) * iy;
+        t2 = (nodeBounds[o + 4] - oy) * iy;
+        if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        t1 = (nodeBounds[o + 2] - oz) * iz;
+        t2 = (nodeBounds[o + 5] - oz) * iz;
+        if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+
+        return tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        TraversalStats stats = stats();
+        // unbounded primitives first: a near ground plane shrinks the interval for the tree
+        Intersection closest = null;
+        double best = tMax;
+        for (Intersectable prim : unbounded) {
+            Intersection hit = prim.findClosestIntersection(ray, tMin, best);
+            if (hit != null) {
+                best    = hit.t;
+                closest = hit;
+            }
+        }
+        if (prims.length == 0) return closest;
+
+        double ox = ray.getOrigin(0), oy = ray.getOrigin(1), oz = ray.getOrigin(2);
+        double ix = ray.getInverseDirection(0), iy = ray.getInverseDirection(1), iz = ray.getInverseDirection(2);
+
+        int[]    stack  = new int[depth + 1];
+        double[] enters = new double[depth + 1];
+        int sp = 0;
+        double t0 = enter(nodeBounds, 0, ox, oy, oz, ix, iy, iz, best);
+        if (t0 == Double.POSITIVE_INFINITY) return closest;
+        stack[sp] = 0;
+        enters[sp++] = t0;
+
+        while (sp > 0) {
+            int node = stack[--sp];
+            if (enters[sp] > best) continue; // a closer hit was found meanwhile
+            if (stats != null) stats.nodeVisited();
+
+            int count = nodeCounts[node];
+            if (count > 0) {
+                int first = nodeOffsets[node];
+                for (int i = first; i < first + count; i++) {
+                    Intersection hit = prims[i].findClosestIntersection(ray, tMin, best);
+                    if (hit != null) {
+                        best    = hit.t;
+                        closest = hit;
+                    }
+                }
+                continue;
+            }
+
+            int left = node + 1, right = nodeOffsets[node];
+            double tl = enter(nodeBounds, left, ox, oy, oz, ix, iy, iz, best);
+            double tr = enter(nodeBounds, right, ox, oy, oz, ix, iy, iz, best);
+            boolean hitL = tl != Double.POSITIVE_INFINITY, hitR = tr != Double.POSITIVE_INFINITY;
+            if (hitL && hitR) {
+                // push the farther child first so the nearer one is visited next
+                if (tl <= tr) {
+                    stack[sp] = right; enters[sp++] = tr;
+                    stack[sp] = left;  enters[sp++] = tl;
+                } else {
+                    stack[sp] = left;  enters[sp++] = tl;
+                    stack[sp] = right; enters[sp++] = tr;
+                }
+            } else if (hitL) {
+                stack[sp] = left;  enters[sp++] = tl;
+            } else if (hitR) {
+                stack[sp] = right; enters[sp++] = tr;
+            }
+        }
+        return closest;
+    }
+
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        TraversalStats stats = stats();
+        for (Intersectable prim : unbounded) {
+            if (prim.isOccluded(ray, maxDistance)) return true;
+        }
+        if (prims.length == 0) return false;
+        double ox = ray.getOrigin(0), oy = ray.getOrigin(1), oz = ray.getOrigin(2);
+        double ix = ray.getInverseDirection(0), iy = ray.getInverseDirection(1), iz = ray.getInverseDirection(2);
+        double inf = Double.POSITIVE_INFINITY;
+
+        int[] stack = new int[depth + 1];
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int node = stack[--sp];
+            if (stats != null) stats.nodeVisited();
+            if (enter(nodeBounds, node, ox, oy, oz, ix, iy, iz, maxDistance) == inf) continue;
+
+            int count = nodeCounts[node];
+            if (count > 0) {
+                int first = nodeOffsets[node];
+                for (int i = first; i < first + count; i++) {
+                    if (prims[i].isOccluded(ray, maxDistance)) return true;
+                }
+                continue;
+            }
+            stack[sp++] = nodeOffsets[node];
+            stack[sp++] = node + 1;
+        }
+        return false;
+    }
+
+    @Override
+    protected List<Intersection> calculateIntersectionsHelper(Ray ray) {
+        TraversalStats stats = stats();
+        List<Intersection> result = null;
+        for (Intersectable prim : unbounded) {
+            List<Intersection> hits = prim.calculateIntersections(ray);
+            if (hits != null) {
+                if (result == null) result = new ArrayList<>();
+                result.addAll(hits);
+            }
+        }
+        if (prims.length == 0) return result;
+
+        double ox = ray.getOrigin(0), oy = ray.getOrigin(1), oz = ray.getOrigin(2);
+        double ix = ray.getInverseDirection(0), iy = ray.getInverseDirection(1), iz = ray.getInverseDirection(2);
+        double inf = Double.POSITIVE_INFINITY;
+
+        int[] stack = new int[depth + 1];
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int node = stack[--sp];
+            if (stats != null) stats.nodeVisited();
+            if (enter(nodeBounds, node, ox, oy, oz, ix, iy, iz, inf) == inf) continue;
+
+            int count = nodeCounts[node];
+            if (count > 0) {
+                int first = nodeOffsets[node];
+                for (int i = first; i < first + count; i++) {
+                    List<Intersection> hits = prims[i].calculateIntersections(ray);
+                    if (hits != null) {
+                        if (result == null) result = new ArrayList<>();
+                        result.addAll(hits);
+                    }
+                }
+                continue;
+            }
+            stack[sp++] = nodeOffsets[node];
+            stack[sp++] = node + 1;
+        }
+        return result;
+    }
+}
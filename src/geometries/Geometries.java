@@ -39,6 +39,12 @@ public class Geometries extends Intersectable {
         return BoundingBox.unionOf(children);
     }
 
+    @Override
+    public void refit() {
+        for (Intersectable child : children) child.refit();
+        super.refit();
+    }
+
     @Override
     protected List<Intersection> calculateIntersectionsHelper(Ray ray) {
         List<Intersection> result = null;
@@ -52,7 +58,86 @@ public class Geometries extends Intersectable {
         return result;
     }
 
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        Intersection closest = null;
+        for (Intersectable g : children) {
+            // every hit shrinks the interval, so farther children reject early
+            Intersection hit = g.findClosestIntersection(ray, tMin, tMax);
+            if (hit != null) {
+                closest = hit;
+                tMax    = hit.t;
+            }
+        }
+        return closest;
+    }
+
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        for (Intersectable g : children) {
+            if (g.isOccluded(ray, maxDistance)) return true;
+        }
+        return false;
+    }
+
     public boolean isEmpty() {
         return children.isEmpty();
     }
+
+    /**
+     * Expands a composite into the geometries it is made of, looking through nested
+     * {@link Geometries}, {@link BVHNode} trees and {@link FlatBVH} hierarchies.
+     *
+     * @param root the composite, or a single geometry
+     * @return the geometries in traversal order
+     * @throws IllegalArgumentException if an element is neither a composite nor a geometry
+     */
+    public static List<Geometry> primitivesOf(Intersectable root) {
+        List<Intersectable> parts = new ArrayList<>();
+        collect(root, parts, false);
+        List<Geometry> result = new ArrayList<>(parts.size());
+        for (Intersectable part : parts) result.add((Geometry) part);
+        return result;
+    }
+
+    /**
+     * Expands a composite like {@link #primitivesOf(Intersectable)}, but keeps every
+     * {@link Instance} whole instead of failing on it, since its shared shape lives
+     * in another space.
+     *
+     * @param root the composite, or a single geometry or instance
+     * @return the geometries and instances in traversal order
+     * @throws IllegalArgumentException if an element is neither a composite, a geometry nor an instance
+     */
+    public static List<Intersectable> partsOf(Intersectable root) {
+        List<Intersectable> result = new ArrayList<>();
+        collect(root, result, true);
+        return result;
+    }
+
+    /**
+     * Appends the geometries of a composite.
+     *
+     * @param node          the composite or geometry
+     * @param result        receives the geometries
+     * @param keepInstances true to append instances as they are
+     */
+    private static void collect(Intersectable node, List<Intersectable> result, boolean keepInstances) {
+        if (node instanceof Geometry || keepInstances && node instanceof Instance) {
+            result.add(node);
+        } else if (node instanceof Geometries group) {
+            for (Intersectable child : group.children) collect(child, result, keepInstances);
+        } else if (node instanceof FlatBVH bvh) {
+            for (Intersectable child : bvh.getPrimitives()) collect(child, result, keepInstances);
+        } else if (node instanceof BVHNode bvh) {
+            if (bvh.isLeaf()) {
+                for (Intersectable child : bvh.getLeafObjects()) collect(child, result, keepInstances);
+            } else {
+                collect(bvh.getLeft(), result, keepInstances);
+                collect(bvh.getRight(), result, keepInstances);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot expand " + node.getClass().getSimpleName());
+        }
+    }
 }
@@ -0,0 +1,145 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A placement of a shared shape in the scene by an affine {@link Transform}.<br/>
+ * The shape - typically a pre-built bottom-level hierarchy such as a {@link FlatBVH}
+ * or a {@link TriangleMesh} - is kept in its own object space and is never copied:
+ * any number of instances may reference it, so a forest of ten thousand identical
+ * trees costs the memory of one tree plus a transform per tree. A query maps the ray
+ * into object space, asks the shape and maps the hits back. The ray direction is
+ * renormalized in object space, so the hit distances are rescaled on the way in and
+ * out.<br/>
+ * A two-level acceleration structure is simply a hierarchy over instances, e.g.
+ * {@code FlatBVH.build(instances)}: its leaves hold the transformed boxes of the
+ * instances and the shared hierarchies below them are traversed in object space.<br/>
+ * The hits report the geometries of the shared shape; their points and normals are
+ * in world space.<br/>
+ * Refitting an instance does not refit the shared shape: when the shape moves,
+ * refit it once and then refit the hierarchy over its instances.
+ */
+public class Instance extends Intersectable {
+    /** The shared shape, in object space */
+    private final Intersectable object;
+    /** Transformation from object space to world space */
+    private final Transform transform;
+
+    /**
+     * Places a shared shape in the scene.
+     *
+     * @param object    the shape, in its object space
+     * @param transform transformation from object space to world space
+     */
+    public Instance(Intersectable object, Transform transform) {
+        this.object    = object;
+        this.transform = transform;
+    }
+
+    /**
+     * @return the shared shape
+     */
+    public Intersectable getObject() {
+        return object;
+    }
+
+    /**
+     * @return the transformation from object space to world space
+     */
+    public Transform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Maps a world ray into object space.
+     *
+     * @param ray       the world ray
+     * @param direction the ray direction in object space, not normalized
+     * @return the object ray, with a unit direction
+     */
+    private Ray toObject(Ray ray, Vector direction) {
+        return new Ray(transform.inverseTransform(ray.getPoint()), direction);
+    }
+
+    /**
+     * Maps a hit on the shared shape back to world space.
+     *
+     * @param hit   the object space hit
+     * @param ray   the world ray
+     * @param scale object space length of a world unit along the ray
+     * @return the world space hit
+     */
+    private Intersection toWorld(Intersection hit, Ray ray, double scale) {
+        return new Intersection(hit.geometry, transform.transform(hit.point), hit.material, ray,
+                hit.normal == null ? null : transform.transformNormal(hit.normal), hit.lightSource, hit.t / scale);
+    }
+
+    @Override
+    protected BoundingBox computeBoundingBox() {
+        BoundingBox box = object.getBoundingBox();
+        if (box == null || !box.isBounded()) return null;
+        // the box around the transformed corners of the object box
+        double[] bounds = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (int corner = 0; corner < 8; corner++) {
+            Point p = transform.transform(new Point(
+                    (corner & 1) == 0 ? box.min.getX() : box.max.getX(),
+                    (corner & 2) == 0 ? box.min.getY() : box.max.getY(),
+                    (corner & 4) == 0 ? box.min.getZ() : box.max.getZ()));
+            double[] xyz = { p.getX(), p.getY(), p.getZ() };
+            for (int axis = 0; axis < 3; axis++) {
+                bounds[axis]     = Math.min(bounds[axis], xyz[axis]);
+                bounds[axis + 3] = Math.max(bounds[axis + 3], xyz[axis]);
+            }
+        }
+        return new BoundingBox(new Point(bounds[0], bounds[1], bounds[2]), new Point(bounds[3], bounds[4], bounds[5]));
+    }
+
+    /**
+     * Drops the cached box of this instance only. The shared shape is not refitted
+     * here: any number of instances, possibly refitted in parallel by the hierarchy
+     * above them, would refit it again and again and race on its arrays. After the
+     * shared shape changes, refit it once, then refit the hierarchy over its
+     * instances.
+     */
+    @Override
+    public void refit() {
+        super.refit();
+    }
+
+    @Override
+    protected List<Intersection> calculateIntersectionsHelper(Ray ray) {
+        Vector direction = transform.inverseTransform(ray.getDirection());
+        List<Intersection> hits = object.calculateIntersections(toObject(ray, direction));
+        if (hits == null) return null;
+        double scale = direction.length();
+        List<Intersection> result = new ArrayList<>(hits.size());
+        for (Intersection hit : hits) result.add(toWorld(hit, ray, scale));
+        return result;
+    }
+
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        Vector direction = transform.inverseTransform(ray.getDirection());
+        double scale = direction.length();
+        Intersection hit = object.findClosestIntersection(toObject(ray, direction), tMin * scale, tMax * scale);
+        return hit == null ? null : toWorld(hit, ray, scale);
+    }
+
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        Vector direction = transform.inverseTransform(ray.getDirection());
+        return object.isOccluded(toObject(ray, direction), maxDistance * direction.length());
+    }
+
+    @Override
+    public String toString() {
+        return "Instance [object=" + object + ", transform=" + transform + "]";
+    }
+}
@@ -7,6 +7,7 @@ import primitives.Material;
 import primitives.Vector;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract base for all geometric shapes that can be intersected by a ray.
@@ -18,6 +19,53 @@ public abstract class Intersectable {
     // Bounding box is computed lazily after subclass initialization
     private BoundingBox bbox;
 
+    /** Statistics receiver of each thread, absent while its queries are not counted */
+    private static final ThreadLocal<TraversalStats> STATS = new ThreadLocal<>();
+    /**
+     * Amount of threads with a receiver installed. While there are none the queries
+     * skip the thread-local lookup and pay a single read of this counter.
+     */
+    private static final AtomicInteger receivers = new AtomicInteger();
+
+    /**
+     * Installs the receiver of intersection statistics for the calling thread, or
+     * removes it with null. Only the queries made by this thread are counted, so
+     * renders running side by side each count into their own receiver; a render
+     * installs its receiver in every thread that traces its rays.
+     *
+     * @param receiver the statistics receiver, or null to stop counting
+     */
+    public static void setTraversalStats(TraversalStats receiver) {
+        TraversalStats old = STATS.get();
+        if (receiver == null) {
+            if (old == null) return;
+            STATS.remove();
+            receivers.decrementAndGet();
+        } else {
+            STATS.set(receiver);
+            if (old == null) receivers.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gives the statistics receiver of the calling thread.
+     *
+     * @return the receiver, or null if the queries of this thread are not counted
+     */
+    static TraversalStats stats() {
+        return receivers.get() == 0 ? null : STATS.get();
+    }
+
+    /**
+     * Counts a primitive test of this shape if statistics are collected. Hierarchies
+     * and groups are not primitives - they count the nodes they visit instead. A
+     * {@link TriangleMesh} is a hierarchy too: it counts its own triangle tests.
+     */
+    private void countTest() {
+        TraversalStats s = stats();
+        if (s != null && this instanceof Geometry && !(this instanceof TriangleMesh)) s.primitiveTested(getClass());
+    }
+
     protected Intersectable() {
         // delay compute until after subclass fields are initialized
     }
@@ -27,6 +75,16 @@ public abstract class Intersectable {
      */
     protected abstract BoundingBox computeBoundingBox();
 
+    /**
+     * Brings the bounding box up to date after the shape moved or changed, by
+     * dropping the cached box. Shapes made of other shapes refit their parts first,
+     * so refitting the root of a scene updates every box bottom-up.<br/>
+     * Not thread safe: no query may run during a refit.
+     */
+    public void refit() {
+        bbox = null;
+    }
+
     /**
      * @return the lazily computed bounding box for this shape, or null if none
      */
@@ -37,6 +95,17 @@ public abstract class Intersectable {
         return bbox;
     }
 
+    /**
+     * Checks whether this shape has a finite bounding box, i.e. whether it can be
+     * placed in a bounding volume hierarchy without defeating its culling.
+     *
+     * @return true if the bounding box exists and is finite
+     */
+    public final boolean isBounded() {
+        BoundingBox b = getBoundingBox();
+        return b != null && b.isBounded();
+    }
+
     /**
      * Public entry point: test the ray against the AABB first (if present), then
      * call the subclass’s intersection code.
@@ -45,6 +114,7 @@ public abstract class Intersectable {
      * @return list of detailed Intersection records, or null if none
      */
     public final List<Intersection> calculateIntersections(Ray ray) {
+        countTest();
         BoundingBox b = getBoundingBox();
         // if there's a bounding box and the ray misses it, cull early
         if (b != null && !b.intersects(ray)) {
@@ -61,6 +131,74 @@ public abstract class Intersectable {
      */
     protected abstract List<Intersection> calculateIntersectionsHelper(Ray ray);
 
+    /**
+     * Public entry point for closest-hit queries along the whole ray.
+     *
+     * @param ray the ray to intersect
+     * @return the Intersection closest to the ray origin, or null if none
+     */
+    public final Intersection findClosestIntersection(Ray ray) {
+        return findClosestIntersection(ray, 0, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Public entry point for bounded closest-hit queries: test the ray against the
+     * AABB first (if present), then look for the nearest hit whose ray parameter
+     * lies strictly inside (tMin, tMax).
+     *
+     * @param ray  the ray to intersect
+     * @param tMin hits at this distance or closer are ignored
+     * @param tMax hits at this distance or farther are ignored
+     * @return the closest Intersection inside the interval, or null if none
+     */
+    public final Intersection findClosestIntersection(Ray ray, double tMin, double tMax) {
+        countTest();
+        BoundingBox b = getBoundingBox();
+        if (b != null && !b.intersects(ray, tMin, tMax, null)) {
+            return null;
+        }
+        return findClosestIntersectionHelper(ray, tMin, tMax);
+    }
+
+    /**
+     * Subclasses override this method with their bounded closest-hit test. Hits
+     * outside the interval must be rejected by their ray parameter before any
+     * point, normal or Intersection is built for them.
+     *
+     * @param ray  the ray to intersect
+     * @param tMin hits at this distance or closer are ignored
+     * @param tMax hits at this distance or farther are ignored
+     * @return the closest Intersection inside the interval (with its {@code t}), or null
+     */
+    protected abstract Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax);
+
+    /**
+     * Public entry point for occlusion-only (shadow) queries: test the ray against
+     * the AABB first (if present), then look for any blocker.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance only hits closer than this distance from the ray origin count
+     * @return true if the ray hits the shape at a distance in (0, maxDistance)
+     */
+    public final boolean isOccluded(Ray ray, double maxDistance) {
+        countTest();
+        BoundingBox b = getBoundingBox();
+        if (b != null && !b.intersects(ray, 0, maxDistance, null)) {
+            return false;
+        }
+        return isOccludedHelper(ray, maxDistance);
+    }
+
+    /**
+     * Subclasses override this method with an any-hit test that returns as soon as
+     * one blocker is found, without building any Intersection or list.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance only hits closer than this distance from the ray origin count
+     * @return true if there is a hit at a distance in (0, maxDistance)
+     */
+    protected abstract boolean isOccludedHelper(Ray ray, double maxDistance);
+
     /**
      * Legacy support: convert the detailed Intersection list into GeoPoint pairs.
      *
@@ -108,6 +246,8 @@ public abstract class Intersectable {
         public final Ray ray;
         public final Vector normal;
         public final double dotProduct;
+        /** Distance of the hit from the ray origin along the ray (the ray parameter). */
+        public final double t;
         public LightSource lightSource;
 
         public Intersection(Geometry geometry,
@@ -116,6 +256,22 @@ public abstract class Intersectable {
                             Ray ray,
                             Vector normal,
                             LightSource lightSource) {
+            this(geometry, point, material, ray, normal, lightSource,
+                    ray != null ? ray.getPoint().distance(point) : Double.NaN);
+        }
+
+        /**
+         * Constructs an intersection whose ray parameter is already known,
+         * so no distance has to be recomputed from the point.
+         */
+        public Intersection(Geometry geometry,
+                            Point point,
+                            Material material,
+                            Ray ray,
+                            Vector normal,
+                            LightSource lightSource,
+                            double t) {
+            this.t           = t;
             this.geometry    = geometry;
             this.point       = point;
             this.material    = material != null ? material : new Material();
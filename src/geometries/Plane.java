@@ -138,6 +138,57 @@ public class Plane extends Geometry {
         ));
     }
 
+    /**
+     * Computes the distance along the ray to its hit with the plane,
+     * using plain coordinates so nothing is allocated.
+     *
+     * @param ray the ray to intersect with this plane
+     * @return the (positive) ray parameter of the hit, or positive infinity
+     *         if the ray is parallel to the plane or the plane is behind it
+     */
+    double rayParameter(Ray ray) {
+        Point  p0 = ray.getPoint();
+        double nv = alignZero(normal.dotProduct(ray.getDirection()));
+        if (nv == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double nq = normal.getX() * (q0.getX() - p0.getX())
+                + normal.getY() * (q0.getY() - p0.getY())
+                + normal.getZ() * (q0.getZ() - p0.getZ());
+        double t = alignZero(nq / nv);
+        return t > 0 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Any-hit test for shadow rays.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance only hits closer than this distance count
+     * @return true if the plane blocks the ray within the distance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        return rayParameter(ray) < maxDistance;
+    }
+
+    /**
+     * Bounded closest-hit test: the hit point is built only when the
+     * ray parameter lies inside the interval.
+     *
+     * @param ray  the ray to intersect
+     * @param tMin hits at this distance or closer are ignored
+     * @param tMax hits at this distance or farther are ignored
+     * @return the Intersection inside the interval, or null if none
+     */
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        double t = rayParameter(ray);
+        if (!(t > tMin && t < tMax)) {
+            return null;
+        }
+        return new Intersection(this, ray.getPoint(t), getMaterial(), ray, normal, null, t);
+    }
+
     @Override
     public String toString() {
         return "Plane{" +
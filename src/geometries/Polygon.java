@@ -2,6 +2,7 @@ package geometries;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3;
 import primitives.Vector;
 
 import java.util.List;
@@ -109,25 +110,7 @@ public class Polygon extends Geometry {
         Vector n = plane.getNormal(p);
 
         // 2) Inside–outside test against each edge:
-        for (int i = 0; i < size; ++i) {
-            Point vi = vertices.get(i);
-            Point vj = vertices.get((i + 1) % size);
-
-            Vector edge = vj.subtract(vi);
-            Vector vp   = p.subtract(vi);
-
-            Vector cross;
-            try {
-                cross = edge.crossProduct(vp);
-            } catch (IllegalArgumentException e) {
-                // On an edge or vertex → count as inside
-                continue;
-            }
-
-            // If cross·n is negative → outside
-            if (alignZero(cross.dotProduct(n)) < 0)
-                return null;
-        }
+        if (!contains(p, n)) return null;
 
         // 3) All tests passed: build full Intersection record
         return List.of(new Intersectable.Intersection(
@@ -140,6 +123,82 @@ public class Polygon extends Geometry {
         ));
     }
 
+    /**
+     * Any-hit test for shadow rays: plane distance first, then the
+     * inside–outside test only for a hit within the distance.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance only hits closer than this distance count
+     * @return true if the polygon blocks the ray within the distance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        double t = plane.rayParameter(ray);
+        if (!(t < maxDistance)) return false;
+        Vector v = ray.getDirection();
+        return contains(ray.getOrigin(0) + v.getX() * t, ray.getOrigin(1) + v.getY() * t,
+                ray.getOrigin(2) + v.getZ() * t, plane.getNormal());
+    }
+
+    /**
+     * Bounded closest-hit test: plane distance first, the inside–outside test
+     * and the Intersection record only for a hit inside the interval.
+     *
+     * @param ray  the ray to intersect
+     * @param tMin hits at this distance or closer are ignored
+     * @param tMax hits at this distance or farther are ignored
+     * @return the Intersection inside the interval, or null if none
+     */
+    @Override
+    protected Intersectable.Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        double t = plane.rayParameter(ray);
+        if (!(t > tMin && t < tMax)) return null;
+        Point  p = ray.getPoint(t);
+        Vector n = plane.getNormal();
+        if (!contains(p, n)) return null;
+        return new Intersectable.Intersection(this, p, getMaterial(), ray, n, null, t);
+    }
+
+    /**
+     * Inside–outside test of a point of the polygon plane against each edge.
+     *
+     * @param p point in the polygon plane
+     * @param n the plane normal
+     * @return true if the point is inside the polygon or on its boundary
+     */
+    private boolean contains(Point p, Vector n) {
+        return contains(p.getX(), p.getY(), p.getZ(), n);
+    }
+
+    /**
+     * Inside–outside test of a point of the polygon plane against each edge, on
+     * plain coordinates so that no vector is allocated per edge.
+     *
+     * @param px point x
+     * @param py point y
+     * @param pz point z
+     * @param n  the plane normal
+     * @return true if the point is inside the polygon or on its boundary
+     */
+    private boolean contains(double px, double py, double pz, Vector n) {
+        double nx = n.getX(), ny = n.getY(), nz = n.getZ();
+        for (int i = 0; i < size; ++i) {
+            Point vi = vertices.get(i);
+            Point vj = vertices.get((i + 1) % size);
+            double ix = vi.getX(), iy = vi.getY(), iz = vi.getZ();
+
+            double ex = vj.getX() - ix, ey = vj.getY() - iy, ez = vj.getZ() - iz;
+            double qx = px - ix, qy = py - iy, qz = pz - iz;
+
+            // (edge × vp)·n negative → outside; a point on an edge or vertex gives a
+            // zero product and counts as inside
+            double cx = ey * qz - ez * qy, cy = ez * qx - ex * qz, cz = ex * qy - ey * qx;
+            if (alignZero(Vec3.dot(cx, cy, cz, nx, ny, nz)) < 0)
+                return false;
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         return "Polygon" + vertices;
@@ -14,4 +14,12 @@ public abstract class RadialGeometry extends Geometry {
     public RadialGeometry(double radius) {
         this.radius = radius;
     }
+
+    /**
+     * Getter for the radius
+     * @return the radius
+     */
+    public double getRadius() {
+        return radius;
+    }
 }
\ No newline at end of file
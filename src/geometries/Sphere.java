@@ -96,6 +96,68 @@ public class Sphere extends RadialGeometry {
         return "Sphere{" + center + ", r=" + radius + "}";
     }
 
+    /**
+     * Any-hit test for shadow rays.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance only hits closer than this distance count
+     * @return true if the sphere blocks the ray within the distance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        return nearestRoot(ray, 0, maxDistance) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Bounded closest-hit test: the point and normal are built only for the
+     * nearest root inside the interval.
+     *
+     * @param ray  the ray to intersect
+     * @param tMin hits at this distance or closer are ignored
+     * @param tMax hits at this distance or farther are ignored
+     * @return the closest Intersection inside the interval, or null if none
+     */
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        double t = nearestRoot(ray, tMin, tMax);
+        if (t == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        Point p = ray.getPoint(t);
+        return new Intersection(this, p, getMaterial(), ray, p.subtract(center).normalize(), null, t);
+    }
+
+    /**
+     * Solves the same quadratic as the full intersection on plain coordinates
+     * and picks the nearest root inside the interval.
+     *
+     * @param ray  the ray to intersect
+     * @param tMin roots at this distance or closer are ignored
+     * @param tMax roots at this distance or farther are ignored
+     * @return the nearest accepted root, or positive infinity if none
+     */
+    private double nearestRoot(Ray ray, double tMin, double tMax) {
+        Point  p0 = ray.getPoint();
+        Vector v  = ray.getDirection();
+        double ux = center.getX() - p0.getX();
+        double uy = center.getY() - p0.getY();
+        double uz = center.getZ() - p0.getZ();
+
+        double tm = alignZero(v.getX() * ux + v.getY() * uy + v.getZ() * uz);
+        double d2 = alignZero(ux * ux + uy * uy + uz * uz - tm * tm);
+        double r2 = radius * radius;
+        if (d2 >= r2) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double th = alignZero(Math.sqrt(r2 - d2));
+        double t1 = alignZero(tm - th);
+        double t2 = alignZero(tm + th);
+        if (t1 > 0 && t1 > tMin && t1 < tMax) return t1;
+        if (t2 > 0 && t2 > tMin && t2 < tMax) return t2;
+        return Double.POSITIVE_INFINITY;
+    }
+
     /**
      * Internal helper for calculating all ray–sphere intersections.
      * The public NVI method in Intersectable will have already done
@@ -0,0 +1,22 @@
+package geometries;
+
+/**
+ * Receiver of the intersection work counted while statistics are collected.<br/>
+ * Installed per thread with {@link Intersectable#setTraversalStats(TraversalStats)},
+ * so every render counts only the queries of its own threads; while no thread has
+ * one installed the queries pay a single counter read. One receiver is called
+ * concurrently from all the threads of its render.
+ */
+public interface TraversalStats {
+    /**
+     * Counts one hierarchy node visited by a traversal.
+     */
+    void nodeVisited();
+
+    /**
+     * Counts one intersection test against a primitive.
+     *
+     * @param type the class of the primitive
+     */
+    void primitiveTested(Class<? extends Intersectable> type);
+}
@@ -0,0 +1,217 @@
+package geometries;
+
+/**
+ * Restructures a hierarchy treelet by treelet to lower its cost according to the
+ * Surface Area Heuristic, keeping its leaves (Karras and Aila, "Fast Parallel
+ * Construction of High-Quality Bounding Volume Hierarchies").<br/>
+ * Going up from the leaves, every internal node grows a treelet: starting from its
+ * two children, the treelet leaf with the largest surface area is replaced by its
+ * children until there are {@value #TREELET_LEAVES} treelet leaves. Every subset of
+ * the treelet leaves is then given the cheapest binary tree over it, smaller subsets
+ * first, and the treelet is rebuilt in the cheapest shape with the same internal
+ * nodes if that is cheaper than its current shape.<br/>
+ * The work is done on explicit child links; the result is emitted again in the
+ * flattened layout of {@link BVHBuilder.FlatTree}, with a new primitive order.
+ */
+final class TreeletOptimizer {
+    /** Amount of leaves of a full treelet */
+    private static final int TREELET_LEAVES = 7;
+    /** Relative cost gain below which a treelet is left as it is */
+    private static final double MIN_GAIN = 1e-9;
+
+    /** The hierarchy being restructured */
+    private final BVHBuilder.FlatTree tree;
+    /** Cost of visiting a node */
+    private final double traversalCost;
+    /** Cost of intersecting a primitive */
+    private final double intersectionCost;
+
+    /** Left child of each node, -1 for a leaf */
+    private final int[] left;
+    /** Right child of each node, -1 for a leaf */
+    private final int[] right;
+    /** Box of each node - 6 doubles per node */
+    private final double[] boxes;
+    /** SAH cost of the subtree of each node, not normalized */
+    private final double[] costs;
+
+    /** Leaves of the treelet being optimized */
+    private final int[] treeletLeaves = new int[TREELET_LEAVES];
+    /** Internal nodes of the treelet being optimized, reused by its new shape */
+    private final int[] treeletNodes = new int[TREELET_LEAVES - 1];
+    /** Box of every subset of the treelet leaves - 6 doubles per subset */
+    private final double[] subsetBoxes = new double[6 << TREELET_LEAVES];
+    /** Cheapest cost of a tree over every subset of the treelet leaves */
+    private final double[] subsetCosts = new double[1 << TREELET_LEAVES];
+    /** Left part of the cheapest tree over every subset */
+    private final int[] subsetSplits = new int[1 << TREELET_LEAVES];
+    /** Amount of internal nodes of the treelet handed out while rebuilding it */
+    private int usedNodes;
+
+    /** Node arrays of the emitted hierarchy */
+    private double[] outBounds;
+    /** Leaf ranges and right children of the emitted hierarchy */
+    private int[] outOffsets;
+    /** Leaf sizes of the emitted hierarchy */
+    private int[] outCounts;
+    /** Primitive order of the emitted hierarchy */
+    private int[] outOrder;
+    /** Amount of nodes and primitives emitted so far */
+    private int outNodes, outPrims;
+    /** Depth of the deepest node emitted so far */
+    private int outDepth;
+
+    /**
+     * Prepares the restructuring of a hierarchy.
+     * @param tree   the hierarchy, not modified
+     * @param config cost constants of the heuristic
+     */
+    TreeletOptimizer(BVHBuilder.FlatTree tree, BVHBuildConfig config) {
+        this.tree        = tree;
+        traversalCost    = config.getTraversalCost();
+        intersectionCost = config.getIntersectionCost();
+        int n = tree.nodeCount;
+        left  = new int[n];
+        right = new int[n];
+        boxes = new double[6 * n];
+        costs = new double[n];
+        System.arraycopy(tree.nodeBounds, 0, boxes, 0, 6 * n);
+        for (int i = 0; i < n; i++) {
+            boolean leaf = tree.nodeCounts[i] > 0 || n == 1;
+            left[i]  = leaf ? -1 : i + 1;
+            right[i] = leaf ? -1 : tree.nodeOffsets[i];
+        }
+    }
+
+    /**
+     * Restructures the hierarchy.
+     * @return the restructured hierarchy, with build time 0
+     */
+    BVHBuilder.FlatTree optimize() {
+        optimize(0);
+        int n = tree.nodeCount;
+        outBounds  = new double[6 * n];
+        outOffsets = new int[n];
+        outCounts  = new int[n];
+        outOrder   = new int[tree.order.length];
+        emit(0, 1);
+        return new BVHBuilder.FlatTree(outBounds, outOffsets, outCounts, outOrder, outNodes, outDepth, 0);
+    }
+
+    /**
+     * Restructures the treelets of a subtree, bottom-up, and computes its cost.
+     * @param node the subtree root
+     */
+    private void optimize(int node) {
+        if (left[node] < 0) {
+            costs[node] = intersectionCost * tree.nodeCounts[node] * BVHBuilder.surfaceArea(boxes, 6 * node);
+            return;
+        }
+        optimize(left[node]);
+        optimize(right[node]);
+        costs[node] = traversalCost * BVHBuilder.surfaceArea(boxes, 6 * node)
+                + costs[left[node]] + costs[right[node]];
+        restructure(node);
+    }
+
+    /**
+     * Grows the treelet of a node and rebuilds it in its cheapest shape.
+     * @param root the treelet root
+     */
+    private void restructure(int root) {
+        // grow the treelet by opening its largest leaf
+        int leaves = 2, nodes = 1;
+        treeletNodes[0]  = root;
+        treeletLeaves[0] = left[root];
+        treeletLeaves[1] = right[root];
+        while (leaves < TREELET_LEAVES) {
+            int largest = -1;
+            double largestArea = -1;
+            for (int k = 0; k < leaves; k++) {
+                int node = treeletLeaves[k];
+                double a = BVHBuilder.surfaceArea(boxes, 6 * node);
+                if (left[node] >= 0 && a > largestArea) {
+                    largest     = k;
+                    largestArea = a;
+                }
+            }
+            if (largest < 0) break;
+            int node = treeletLeaves[largest];
+            treeletNodes[nodes++]  = node;
+            treeletLeaves[largest] = left[node];
+            treeletLeaves[leaves++] = right[node];
+        }
+
+        // cheapest tree over every subset of the leaves, smaller subsets first
+        int full = (1 << leaves) - 1;
+        for (int s = 1; s <= full; s++) {
+            int low = Integer.numberOfTrailingZeros(s);
+            int o   = 6 * s;
+            if ((s & s - 1) == 0) {
+                System.arraycopy(boxes, 6 * treeletLeaves[low], subsetBoxes, o, 6);
+                subsetCosts[s] = costs[treeletLeaves[low]];
+                continue;
+            }
+            int rest = s & ~(1 << low);
+            System.arraycopy(subsetBoxes, 6 * rest, subsetBoxes, o, 6);
+            BVHBuilder.grow(subsetBoxes, o, boxes, 6 * treeletLeaves[low]);
+            // the part holding the lowest leaf goes left, so every split is seen once
+            double best = Double.POSITIVE_INFINITY;
+            int bestSplit = 0;
+            for (int p = (s - 1) & s; p != 0; p = (p - 1) & s) {
+                if ((p & 1 << low) == 0) continue;
+                double cost = subsetCosts[p] + subsetCosts[s & ~p];
+                if (cost < best) {
+                    best      = cost;
+                    bestSplit = p;
+                }
+            }
+            subsetCosts[s]  = traversalCost * BVHBuilder.surfaceArea(subsetBoxes, o) + best;
+            subsetSplits[s] = bestSplit;
+        }
+        if (subsetCosts[full] >= costs[root] * (1 - MIN_GAIN)) return;
+
+        usedNodes = 0;
+        rebuild(full);
+    }
+
+    /**
+     * Rebuilds the cheapest tree over a subset of the treelet leaves out of the
+     * treelet internal nodes, the treelet root first.
+     * @param s the subset
+     * @return root of the tree
+     */
+    private int rebuild(int s) {
+        if ((s & s - 1) == 0) return treeletLeaves[Integer.numberOfTrailingZeros(s)];
+        int node = treeletNodes[usedNodes++];
+        left[node]  = rebuild(subsetSplits[s]);
+        right[node] = rebuild(s & ~subsetSplits[s]);
+        System.arraycopy(subsetBoxes, 6 * s, boxes, 6 * node, 6);
+        costs[node] = subsetCosts[s];
+        return node;
+    }
+
+    /**
+     * Emits a subtree in depth-first order, its leaves taking the next primitives of
+     * the new order.
+     * @param node  the subtree root
+     * @param level depth of the subtree root
+     * @return index of the emitted subtree root
+     */
+    private int emit(int node, int level) {
+        int index = outNodes++;
+        outDepth = Math.max(outDepth, level);
+        System.arraycopy(boxes, 6 * node, outBounds, 6 * index, 6);
+        if (left[node] < 0) {
+            int count = tree.nodeCounts[node];
+            System.arraycopy(tree.order, tree.nodeOffsets[node], outOrder, outPrims, count);
+            outOffsets[index] = outPrims;
+            outCounts[index]  = count;
+            outPrims += count;
+            return index;
+        }
+        emit(left[node], level + 1);
+        outOffsets[index] = emit(right[node], level + 1);
+        return index;
+    }
+}
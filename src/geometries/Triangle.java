@@ -48,6 +48,63 @@ public class Triangle extends Polygon {
         return new BoundingBox(min, max);
     }
 
+    /**
+     * Any-hit test for shadow rays: plane distance first, then the sign test.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance only hits closer than this distance count
+     * @return true if the triangle blocks the ray within the distance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        return plane.rayParameter(ray) < maxDistance && crossesInside(ray);
+    }
+
+    /**
+     * Bounded closest-hit test: plane distance first, then the sign test, and
+     * the Intersection record only for a hit inside the interval.
+     *
+     * @param ray  the ray to intersect
+     * @param tMin hits at this distance or closer are ignored
+     * @param tMax hits at this distance or farther are ignored
+     * @return the Intersection inside the interval, or null if none
+     */
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        double t = plane.rayParameter(ray);
+        if (!(t > tMin && t < tMax) || !crossesInside(ray)) {
+            return null;
+        }
+        return new Intersection(this, ray.getPoint(t), getMaterial(), ray, plane.getNormal(), null, t);
+    }
+
+    /**
+     * The sub-triangle sign test of the full intersection, on plain coordinates:
+     * the ray passes inside the triangle iff it sees all three edges on the same side.
+     *
+     * @param ray the ray to test
+     * @return true if the ray line passes through the triangle interior
+     */
+    private boolean crossesInside(Ray ray) {
+        Point  p0  = ray.getPoint();
+        Vector dir = ray.getDirection();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+
+        // Vectors from ray origin to triangle vertices
+        Point v1 = vertices.get(0), v2 = vertices.get(1), v3 = vertices.get(2);
+        double ux = v1.getX() - ox, uy = v1.getY() - oy, uz = v1.getZ() - oz;
+        double vx = v2.getX() - ox, vy = v2.getY() - oy, vz = v2.getZ() - oz;
+        double wx = v3.getX() - ox, wy = v3.getY() - oy, wz = v3.getZ() - oz;
+
+        // dir · (a × b) for the three sub-triangles
+        double s1 = alignZero(dx * (uy * vz - uz * vy) + dy * (uz * vx - ux * vz) + dz * (ux * vy - uy * vx));
+        double s2 = alignZero(dx * (vy * wz - vz * wy) + dy * (vz * wx - vx * wz) + dz * (vx * wy - vy * wx));
+        double s3 = alignZero(dx * (wy * uz - wz * uy) + dy * (wz * ux - wx * uz) + dz * (wx * uy - wy * ux));
+
+        return s1 > 0 && s2 > 0 && s3 > 0 || s1 < 0 && s2 < 0 && s3 < 0;
+    }
+
     @Override
     public String toString() {
         return "Triangle{" + vertices + "}";
@@ -0,0 +1,493 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+
+/**
+ * A triangle mesh stored as structure of arrays.<br/>
+ * Vertex coordinates live in one flat {@code double[]} (x, y, z per vertex) and the
+ * triangles in one flat {@code int[]} (three vertex indices per triangle), so a mesh
+ * of a million triangles is a handful of arrays instead of millions of
+ * {@link Triangle} and {@link Point} objects. The mesh keeps its own bounding volume
+ * hierarchy over the triangles, in the flattened layout of {@link FlatBVH}, and tests
+ * the triangles with the Möller–Trumbore algorithm on plain doubles: a query allocates
+ * nothing but its traversal stack and the final {@link Intersection}.<br/>
+ * The surface normal is the geometric normal of the hit triangle, in the winding
+ * order of its vertices. Points on a shared edge belong to both of its triangles, so
+ * rays never slip through the seams of a closed mesh.<br/>
+ * The arrays and the hierarchy can be saved with {@link #write(DataOutput)} and
+ * restored with {@link #read(ByteBuffer)} without rebuilding the hierarchy.<br/>
+ * The vertices may be moved in place for animation, keeping the triangles, as long as
+ * {@link #refit()} is called before the next query.
+ */
+public class TriangleMesh extends Geometry {
+    /** Vertex coordinates - x, y, z per vertex */
+    private final double[] vertices;
+    /** Vertex indices - three per triangle, in the leaf order of the hierarchy */
+    private int[] indices;
+    /** Node boxes of the hierarchy - minX, minY, minZ, maxX, maxY, maxZ per node */
+    private double[] nodeBounds;
+    /** Leaf - index of its first triangle; internal node - index of its right child */
+    private int[] nodeOffsets;
+    /** Leaf - amount of its triangles; internal node - 0 */
+    private int[] nodeCounts;
+    /** Amount of nodes in the hierarchy */
+    private int nodeCount;
+    /** Depth of the hierarchy - the size of a traversal stack */
+    private int depth;
+    /** Parameters of rebuilds */
+    private final BVHBuildConfig config;
+    /** SAH cost of the hierarchy right after it was built */
+    private double buildCost;
+    /** Amount of rebuilds triggered by refits */
+    private int rebuilds = 0;
+
+    /**
+     * Constructs a mesh with the default {@link BVHBuildConfig}.
+     *
+     * @param vertices vertex coordinates - x, y, z per vertex
+     * @param indices  vertex indices - three per triangle
+     * @throws IllegalArgumentException if the arrays are not made of triples or an index is out of range
+     */
+    public TriangleMesh(double[] vertices, int[] indices) {
+        this(vertices, indices, new BVHBuildConfig());
+    }
+
+    /**
+     * Constructs a mesh and builds its hierarchy.<br/>
+     * The vertex array is kept as is, not copied; its coordinates may only change if
+     * {@link #refit()} follows.
+     *
+     * @param vertices vertex coordinates - x, y, z per vertex
+     * @param indices  vertex indices - three per triangle
+     * @param config   build parameters of the hierarchy
+     * @throws IllegalArgumentException if the arrays are not made of triples or an index is out of range
+     */
+    public TriangleMesh(double[] vertices, int[] indices, BVHBuildConfig config) {
+        if (vertices.length % 3 != 0)
+            throw new IllegalArgumentException("Vertex coordinates must come in triples");
+        if (indices.length % 3 != 0)
+            throw new IllegalArgumentException("Triangle indices must come in triples");
+        int vertexCount = vertices.length / 3;
+        for (int index : indices) {
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("Vertex index out of range: " + index);
+        }
+        this.vertices = vertices;
+        this.config   = config;
+        build(indices);
+    }
+
+    /**
+     * Builds the hierarchy over the triangles where their vertices are now.
+     *
+     * @param triangles vertex indices - three per triangle, in any order
+     */
+    private void build(int[] triangles) {
+        int n = triangles.length / 3;
+        double[] bounds = new double[6 * n];
+        for (int tri = 0; tri < n; tri++)
+            triangleBounds(triangles, tri, bounds, 6 * tri);
+
+        BVHBuilder.FlatTree tree = new BVHBuilder(bounds, config).buildFlat();
+        nodeBounds  = tree.nodeBounds;
+        nodeOffsets = tree.nodeOffsets;
+        nodeCounts  = tree.nodeCounts;
+        nodeCount   = tree.nodeCount;
+        depth       = tree.depth;
+        // store the triangles in leaf order, so every leaf owns a contiguous range
+        indices = new int[triangles.length];
+        for (int i = 0; i < n; i++)
+            System.arraycopy(triangles, 3 * tree.order[i], indices, 3 * i, 3);
+        buildCost = getSahCost();
+    }
+
+    /**
+     * Computes the box of a triangle.
+     *
+     * @param triangles vertex indices - three per triangle
+     * @param tri       index of the triangle
+     * @param box       receives the box - minX, minY, minZ, maxX, maxY, maxZ
+     * @param o         offset of the box in the array
+     */
+    private void triangleBounds(int[] triangles, int tri, double[] box, int o) {
+        for (int a = 0; a < 3; a++) {
+            box[o + a]     = Double.POSITIVE_INFINITY;
+            box[o + a + 3] = Double.NEGATIVE_INFINITY;
+        }
+        for (int k = 0; k < 3; k++) {
+            int v = 3 * triangles[3 * tri + k];
+            for (int a = 0; a < 3; a++) {
+                box[o + a]     = Math.min(box[o + a], vertices[v + a]);
+                box[o + a + 3] = Math.max(box[o + a + 3], vertices[v + a]);
+            }
+        }
+    }
+
+    /**
+     * Returns the expected cost of a ray through the hierarchy of the triangles
+     * according to the Surface Area Heuristic.
+     *
+     * @return the cost, in units of the costs of the build config
+     */
+    public double getSahCost() {
+        return BVHBuilder.sahCost(nodeBounds, nodeCounts, nodeCount, indices.length / 3, config);
+    }
+
+    /**
+     * Returns the amount of times refits found the hierarchy decayed and rebuilt it.
+     *
+     * @return rebuild count
+     */
+    public int getRebuildCount() {
+        return rebuilds;
+    }
+
+    /**
+     * Refits the hierarchy to the vertices after they moved: the boxes are
+     * recomputed bottom-up, large subtrees in parallel, keeping the structure. If
+     * the SAH cost then exceeds the cost after the last build by the
+     * {@link BVHBuildConfig#getRebuildThreshold() rebuild threshold}, the hierarchy is
+     * rebuilt instead.
+     */
+    @Override
+    public void refit() {
+        FlatBVH.refit(nodeBounds, nodeOffsets, nodeCounts, nodeCount, config.getParallelThreshold(),
+                (first, count, box, o) -> {
+                    double[] tri = new double[6];
+                    BVHBuilder.setEmpty(box, o);
+                    for (int t = first; t < first + count; t++) {
+                        triangleBounds(indices, t, tri, 0);
+                        BVHBuilder.grow(box, o, tri, 0);
+                    }
+                });
+        if (getSahCost() > buildCost * config.getRebuildThreshold()) {
+            build(indices);
+            rebuilds++;
+        }
+        super.refit();
+    }
+
+    /**
+     * Adopts stored arrays.
+     *
+     * @param vertices    vertex coordinates
+     * @param indices     vertex indices in leaf order
+     * @param nodeBounds  node boxes
+     * @param nodeOffsets leaf ranges and right children
+     * @param nodeCounts  leaf sizes
+     * @param depth       depth of the hierarchy
+     */
+    private TriangleMesh(double[] vertices, int[] indices, double[] nodeBounds,
+                         int[] nodeOffsets, int[] nodeCounts, int depth) {
+        this.vertices    = vertices;
+        this.indices     = indices;
+        this.nodeBounds  = nodeBounds;
+        this.nodeOffsets = nodeOffsets;
+        this.nodeCounts  = nodeCounts;
+        this.nodeCount   = nodeCounts.length;
+        this.depth       = depth;
+        this.config      = new BVHBuildConfig();
+        this.buildCost   = getSahCost();
+    }
+
+    /**
+     * Writes the vertices, the triangles and the hierarchy of the mesh.
+     *
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(vertices.length);
+        out.writeInt(indices.length);
+        out.writeInt(nodeCount);
+        out.writeInt(depth);
+        FlatBVH.writeDoubles(out, vertices, vertices.length);
+        FlatBVH.writeInts(out, indices, indices.length);
+        FlatBVH.writeDoubles(out, nodeBounds, 6 * nodeCount);
+        FlatBVH.writeInts(out, nodeOffsets, nodeCount);
+        FlatBVH.writeInts(out, nodeCounts, nodeCount);
+    }
+
+    /**
+     * Restores a mesh stored by {@link #write(DataOutput)}, without rebuilding its hierarchy.
+     *
+     * @param in buffer positioned at the stored mesh, e.g. a mapped file
+     * @return the mesh
+     * @throws IOException if the stored sizes are invalid
+     */
+    public static TriangleMesh read(ByteBuffer in) throws IOException {
+        int coordinates = in.getInt(), indexCount = in.getInt(), nodeCount = in.getInt(), depth = in.getInt();
+        if (coordinates < 0 || coordinates % 3 != 0 || indexCount < 0 || indexCount % 3 != 0
+                || nodeCount < 1 || depth < 1)
+            throw new IOException("Invalid stored mesh");
+        double[] vertices    = FlatBVH.readDoubles(in, coordinates);
+        int[]    indices     = FlatBVH.readInts(in, indexCount);
+        double[] nodeBounds  = FlatBVH.readDoubles(in, 6 * nodeCount);
+        int[]    nodeOffsets = FlatBVH.readInts(in, nodeCount);
+        int[]    nodeCounts  = FlatBVH.readInts(in, nodeCount);
+        return new TriangleMesh(vertices, indices, nodeBounds, nodeOffsets, nodeCounts, depth);
+    }
+
+    /**
+     * Returns the amount of triangles.
+     *
+     * @return triangle count
+     */
+    public int getTriangleCount() {
+        return indices.length / 3;
+    }
+
+    /**
+     * Returns the amount of vertices.
+     *
+     * @return vertex count
+     */
+    public int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    @Override
+    protected BoundingBox computeBoundingBox() {
+        if (indices.length == 0) return null;
+        return new BoundingBox(
+                new Point(nodeBounds[0], nodeBounds[1], nodeBounds[2]),
+                new Point(nodeBounds[3], nodeBounds[4], nodeBounds[5]));
+    }
+
+    /**
+     * Returns the normal of the triangle the point lies on - the nearest triangle
+     * plane among the triangles whose interior contains the projection of the point.<br/>
+     * The triangles are scanned one by one; the normals of ray hits come with the
+     * {@link Intersection} and do not need this search.
+     *
+     * @param p a point on the mesh
+     * @return unit normal of the triangle at the point
+     * @throws IllegalArgumentException if the point is not over any triangle of the mesh
+     */
+    @Override
+    public Vector getNormal(Point p) {
+        double px = p.getX(), py = p.getY(), pz = p.getZ();
+        int    nearest  = -1;
+        double bestDist = Double.POSITIVE_INFINITY;
+        for (int tri = 0; tri < getTriangleCount(); tri++) {
+            int a = 3 * indices[3 * tri], b = 3 * indices[3 * tri + 1], c = 3 * indices[3 * tri + 2];
+            double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1], e1z = vertices[b + 2] - vertices[a + 2];
+            double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1], e2z = vertices[c + 2] - vertices[a + 2];
+            double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+            double nn = nx * nx + ny * ny + nz * nz;
+            if (nn == 0) continue;
+
+            // barycentric coordinates of the projection of p onto the triangle plane
+            double wx = px - vertices[a], wy = py - vertices[a + 1], wz = pz - vertices[a + 2];
+            double u = (nx * (wy * e2z - wz * e2y) + ny * (wz * e2x - wx * e2z) + nz * (wx * e2y - wy * e2x)) / nn;
+            double v = (nx * (e1y * wz - e1z * wy) + ny * (e1z * wx - e1x * wz) + nz * (e1x * wy - e1y * wx)) / nn;
+            if (alignZero(u) < 0 || alignZero(v) < 0 || alignZero(1 - u - v) < 0) continue;
+
+            double dist = Math.abs(nx * wx + ny * wy + nz * wz) / Math.sqrt(nn);
+            if (dist < bestDist) {
+                bestDist = dist;
+                nearest  = tri;
+            }
+        }
+        if (nearest < 0)
+            throw new IllegalArgumentException("The point is not on the mesh");
+        return faceNormal(nearest);
+    }
+
+    /**
+     * Computes the unit geometric normal of a triangle.
+     *
+     * @param tri index of the triangle
+     * @return the normal, in the winding order of the triangle vertices
+     */
+    private Vector faceNormal(int tri) {
+        int a = 3 * indices[3 * tri], b = 3 * indices[3 * tri + 1], c = 3 * indices[3 * tri + 2];
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1], e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1], e2z = vertices[c + 2] - vertices[a + 2];
+        return new Vector(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x).normalize();
+    }
+
+    /**
+     * Möller–Trumbore ray-triangle test, counted as a {@link Triangle} test while
+     * statistics are collected.
+     *
+     * @param tri index of the triangle
+     * @param ox  ray origin x
+     * @param oy  ray origin y
+     * @param oz  ray origin z
+     * @param dx  ray direction x
+     * @param dy  ray direction y
+     * @param dz  ray direction z
+     * @return the positive ray parameter of the hit, or positive infinity if the ray
+     *         misses the triangle or is parallel to it
+     */
+    private double intersect(int tri, double ox, double oy, double oz, double dx, double dy, double dz) {
+        TraversalStats stats = stats();
+        if (stats != null) stats.primitiveTested(Triangle.class);
+        int a = 3 * indices[3 * tri], b = 3 * indices[3 * tri + 1], c = 3 * indices[3 * tri + 2];
+        double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+        double e1x = vertices[b] - ax, e1y = vertices[b + 1] - ay, e1z = vertices[b + 2] - az;
+        double e2x = vertices[c] - ax, e2y = vertices[c + 1] - ay, e2z = vertices[c + 2] - az;
+
+        // p = d x e2, det = e1 . p
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = alignZero(e1x * px + e1y * py + e1z * pz);
+        if (det == 0) return Double.POSITIVE_INFINITY;
+        double inv = 1 / det;
+
+        double sx = ox - ax, sy = oy - ay, sz = oz - az;
+        double u = (sx * px + sy * py + sz * pz) * inv;
+        if (u < 0 || u > 1) return Double.POSITIVE_INFINITY;
+
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inv;
+        if (v < 0 || u + v > 1) return Double.POSITIVE_INFINITY;
+
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inv);
+        return t > 0 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        TraversalStats stats = stats();
+        if (indices.length == 0) return null;
+        double ox = ray.getOrigin(0), oy = ray.getOrigin(1), oz = ray.getOrigin(2);
+        double ix = ray.getInverseDirection(0), iy = ray.getInverseDirection(1), iz = ray.getInverseDirection(2);
+        Vector dir = ray.getDirection();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+
+        int    closest = -1;
+        double best    = tMax;
+        int[]    stack  = new int[depth + 1];
+        double[] enters = new double[depth + 1];
+        int sp = 0;
+        double t0 = FlatBVH.enter(nodeBounds, 0, ox, oy, oz, ix, iy, iz, best);
+        if (t0 == Double.POSITIVE_INFINITY) return null;
+        stack[sp] = 0;
+        enters[sp++] = t0;
+
+        while (sp > 0) {
+            int node = stack[--sp];
+            if (enters[sp] > best) continue; // a closer hit was found meanwhile
+            if (stats != null) stats.nodeVisited();
+
+            int count = nodeCounts[node];
+            if (count > 0) {
+                int first = nodeOffsets[node];
+                for (int tri = first; tri < first + count; tri++) {
+                    double t = intersect(tri, ox, oy, oz, dx, dy, dz);
+                    if (t > tMin && t < best) {
+                        best    = t;
+                        closest = tri;
+                    }
+                }
+                continue;
+            }
+
+            int left = node + 1, right = nodeOffsets[node];
+            double tl = FlatBVH.enter(nodeBounds, left, ox, oy, oz, ix, iy, iz, best);
+            double tr = FlatBVH.enter(nodeBounds, right, ox, oy, oz, ix, iy, iz, best);
+            boolean hitL = tl != Double.POSITIVE_INFINITY, hitR = tr != Double.POSITIVE_INFINITY;
+            if (hitL && hitR) {
+                // push the farther child first so the nearer one is visited next
+                if (tl <= tr) {
+                    stack[sp] = right; enters[sp++] = tr;
+                    stack[sp] = left;  enters[sp++] = tl;
+                } else {
+                    stack[sp] = left;  enters[sp++] = tl;
+                    stack[sp] = right; enters[sp++] = tr;
+                }
+            } else if (hitL) {
+                stack[sp] = left;  enters[sp++] = tl;
+            } else if (hitR) {
+                stack[sp] = right; enters[sp++] = tr;
+            }
+        }
+        if (closest < 0) return null;
+        return new Intersection(this, ray.getPoint(best), getMaterial(), ray, faceNormal(closest), null, best);
+    }
+
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        TraversalStats stats = stats();
+        if (indices.length == 0) return false;
+        double ox = ray.getOrigin(0), oy = ray.getOrigin(1), oz = ray.getOrigin(2);
+        double ix = ray.getInverseDirection(0), iy = ray.getInverseDirection(1), iz = ray.getInverseDirection(2);
+        Vector dir = ray.getDirection();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double inf = Double.POSITIVE_INFINITY;
+
+        int[] stack = new int[depth + 1];
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int node = stack[--sp];
+            if (stats != null) stats.nodeVisited();
+            if (FlatBVH.enter(nodeBounds, node, ox, oy, oz, ix, iy, iz, maxDistance) == inf) continue;
+
+            int count = nodeCounts[node];
+            if (count > 0) {
+                int first = nodeOffsets[node];
+                for (int tri = first; tri < first + count; tri++) {
+                    if (intersect(tri, ox, oy, oz, dx, dy, dz) < maxDistance) return true;
+                }
+                continue;
+            }
+            stack[sp++] = nodeOffsets[node];
+            stack[sp++] = node + 1;
+        }
+        return false;
+    }
+
+    @Override
+    protected List<Intersection> calculateIntersectionsHelper(Ray ray) {
+        TraversalStats stats = stats();
+        if (indices.length == 0) return null;
+        double ox = ray.getOrigin(0), oy = ray.getOrigin(1), oz = ray.getOrigin(2);
+        double ix = ray.getInverseDirection(0), iy = ray.getInverseDirection(1), iz = ray.getInverseDirection(2);
+        Vector dir = ray.getDirection();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double inf = Double.POSITIVE_INFINITY;
+
+        List<Intersection> result = null;
+        int[] stack = new int[depth + 1];
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int node = stack[--sp];
+            if (stats != null) stats.nodeVisited();
+            if (FlatBVH.enter(nodeBounds, node, ox, oy, oz, ix, iy, iz, inf) == inf) continue;
+
+            int count = nodeCounts[node];
+            if (count > 0) {
+                int first = nodeOffsets[node];
+                for (int tri = first; tri < first + count; tri++) {
+                    double t = intersect(tri, ox, oy, oz, dx, dy, dz);
+                    if (t == inf) continue;
+                    if (result == null) result = new ArrayList<>();
+                    result.add(new Intersection(this, ray.getPoint(t), getMaterial(), ray, faceNormal(tri), null, t));
+                }
+                continue;
+            }
+            stack[sp++] = nodeOffsets[node];
+            stack[sp++] = node + 1;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TriangleMesh{" + getTriangleCount() + " triangles, " + getVertexCount() + " vertices}";
+    }
+}
@@ -68,30 +68,110 @@ public class Tube extends RadialGeometry {
     }
 
     /**
-     * Compute a bounded AABB for culling (approximates the infinite extent).
+     * An infinite tube has no finite extent, so its box is infinite like a plane's;
+     * acceleration structures keep it out of their hierarchy and test it directly.
      */
     @Override
     protected BoundingBox computeBoundingBox() {
-        Point  origin = axisRay.getPoint();
-        Vector dir    = axisRay.getDirection().normalize();
-        double EXTENT = 1000.0;
-        Point axisMin = origin.add(dir.scale(-EXTENT));
-        Point axisMax = origin.add(dir.scale( EXTENT));
-        double r = radius;
-
-        double minX = Math.min(axisMin.getX(), axisMax.getX()) - r;
-        double minY = Math.min(axisMin.getY(), axisMax.getY()) - r;
-        double minZ = Math.min(axisMin.getZ(), axisMax.getZ()) - r;
-        double maxX = Math.max(axisMin.getX(), axisMax.getX()) + r;
-        double maxY = Math.max(axisMin.getY(), axisMax.getY()) + r;
-        double maxZ = Math.max(axisMin.getZ(), axisMax.getZ()) + r;
-
         return new BoundingBox(
-                new Point(minX, minY, minZ),
-                new Point(maxX, maxY, maxZ)
+                new Point(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY),
+                new Point(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY)
         );
     }
 
+    /**
+     * Any-hit test for shadow rays.
+     *
+     * @param ray         the ray to test
+     * @param maxDistance only hits closer than this distance count
+     * @return true if the tube blocks the ray within the distance
+     */
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        return sideHit(ray, 0, maxDistance, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)
+                != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Bounded closest-hit test: the point and normal are built only for the
+     * nearest root inside the interval.
+     *
+     * @param ray  the ray to intersect
+     * @param tMin hits at this distance or closer are ignored
+     * @param tMax hits at this distance or farther are ignored
+     * @return the closest Intersection inside the interval, or null if none
+     */
+    @Override
+    protected Intersectable.Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        double t = sideHit(ray, tMin, tMax, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        if (t == Double.POSITIVE_INFINITY) return null;
+        Point p = ray.getPoint(t);
+        return new Intersectable.Intersection(this, p, getMaterial(), ray, getNormal(p), null, t);
+    }
+
+    /**
+     * Allocation-free search for the nearest hit of the ray with the tube side inside
+     * an interval, at a point whose projection on the axis lies in the given range.
+     * Solves the same quadratic as the full intersection on plain coordinates.
+     *
+     * @param ray     the ray to test
+     * @param tMin    hits at this distance or closer are ignored
+     * @param tMax    hits at this distance or farther are ignored
+     * @param minProj lowest accepted axis projection (from the axis origin)
+     * @param maxProj highest accepted axis projection (from the axis origin)
+     * @return ray parameter of the nearest accepted side hit, or positive infinity if none
+     */
+    protected final double sideHit(Ray ray, double tMin, double tMax, double minProj, double maxProj) {
+        Point  p0 = ray.getPoint();
+        Vector v  = ray.getDirection();
+        Point  pa = axisRay.getPoint();
+        Vector va = axisRay.getDirection();
+        double vx = v.getX(), vy = v.getY(), vz = v.getZ();
+        double ax = va.getX(), ay = va.getY(), az = va.getZ();
+        double dx = p0.getX() - pa.getX(), dy = p0.getY() - pa.getY(), dz = p0.getZ() - pa.getZ();
+
+        double vDotVa = vx * ax + vy * ay + vz * az;
+        // if parallel, no side intersections
+        if (Math.abs(Math.abs(vDotVa) - 1) < 1e-10) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double dDotVa = dx * ax + dy * ay + dz * az;
+
+        // perpendicular components
+        double px = dx - ax * dDotVa, py = dy - ay * dDotVa, pz = dz - az * dDotVa;
+        double wx = vx - ax * vDotVa, wy = vy - ay * vDotVa, wz = vz - az * vDotVa;
+
+        double a = wx * wx + wy * wy + wz * wz;
+        if (isZero(a)) return Double.POSITIVE_INFINITY;
+        double b = 2 * (wx * px + wy * py + wz * pz);
+        double c = px * px + py * py + pz * pz - radius * radius;
+        double disc = b * b - 4 * a * c;
+        if (disc <= 0) return Double.POSITIVE_INFINITY;
+
+        double sqrtD = Math.sqrt(disc);
+        double t1 = (-b - sqrtD) / (2 * a);
+        double t2 = (-b + sqrtD) / (2 * a);
+        if (isAcceptedRoot(t1, tMin, tMax, dDotVa + t1 * vDotVa, minProj, maxProj)) return t1;
+        if (isAcceptedRoot(t2, tMin, tMax, dDotVa + t2 * vDotVa, minProj, maxProj)) return t2;
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Checks one root of the side quadratic against the interval and axis limits.
+     *
+     * @param t       ray parameter of the root
+     * @param tMin    roots at this distance or closer are rejected
+     * @param tMax    roots at this distance or farther are rejected
+     * @param proj    axis projection of the hit point
+     * @param minProj lowest accepted axis projection
+     * @param maxProj highest accepted axis projection
+     * @return true if the root is an accepted hit
+     */
+    private static boolean isAcceptedRoot(double t, double tMin, double tMax,
+                                          double proj, double minProj, double maxProj) {
+        return t > 0 && t > tMin && t < tMax && proj >= minProj && proj <= maxProj;
+    }
+
     /**
      * Ray–tube intersection using the quadratic formula for the perpendicular components.
      */
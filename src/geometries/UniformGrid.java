@@ -0,0 +1,367 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Uniform voxel grid over the primitives of a scene.<br/>
+ * The bounding box of the primitives is cut into equal cells, about
+ * {@value #DENSITY} per primitive, shaped to the box. Every cell lists the primitives
+ * whose bounding box overlaps it; the lists of all the cells are packed into one
+ * index array. A query walks the cells pierced by the ray in order with a 3D-DDA
+ * (Amanatides &amp; Woo) and stops at the first cell whose exit lies beyond the
+ * closest hit found so far - a primitive hit there cannot be beaten by anything in
+ * the cells behind it.<br/>
+ * Building is a pair of linear passes over the primitive boxes, much cheaper than a
+ * hierarchy, and for evenly spread scenes the walk is competitive with it. Like
+ * {@link FlatBVH}, primitives without a finite bounding box are kept out of the grid
+ * and tested by every query.
+ */
+public class UniformGrid extends Intersectable {
+    /** Cells per primitive the resolution aims at */
+    static final double DENSITY = 3;
+    /** Largest amount of cells along an axis */
+    static final int MAX_RESOLUTION = 256;
+
+    /** Grid box - minX, minY, minZ, maxX, maxY, maxZ */
+    private final double[] bounds = new double[6];
+    /** Cells along each axis */
+    private final int[] resolution = new int[3];
+    /** Cell edge along each axis */
+    private final double[] cellSize = new double[3];
+    /** Start of each cell's list in {@link #cellPrims}, plus the end of the last one */
+    private final int[] cellStart;
+    /** Primitive indices of all the cells, cell after cell */
+    private final int[] cellPrims;
+    /** The primitives with a finite bounding box */
+    private final Intersectable[] prims;
+    /** Unbounded primitives, outside the grid and tested on every query */
+    private final Intersectable[] unbounded;
+    /** Grid box, null if there are no bounded primitives */
+    private final BoundingBox box;
+
+    /**
+     * Builds a grid over the primitives with a finite bounding box; the unbounded
+     * primitives are excluded from the grid and always tested.
+     *
+     * @param primitives primitives to accelerate
+     */
+    public UniformGrid(List<? extends Intersectable> primitives) {
+        List<Intersectable> bounded = new ArrayList<>(primitives.size());
+        List<Intersectable> rest    = new ArrayList<>();
+        BVHNode.partition(new ArrayList<>(primitives), bounded, rest);
+        prims     = bounded.toArray(new Intersectable[0]);
+        unbounded = rest.toArray(new Intersectable[0]);
+
+        for (int a = 0; a < 3; a++) {
+            bounds[a]     = Double.POSITIVE_INFINITY;
+            bounds[a + 3] = Double.NEGATIVE_INFINITY;
+        }
+        for (Intersectable prim : prims) {
+            BoundingBox box = prim.getBoundingBox();
+            for (int a = 0; a < 3; a++) {
+                bounds[a]     = Math.min(bounds[a], box.getBound(a));
+                bounds[a + 3] = Math.max(bounds[a + 3], box.getBound(a + 3));
+            }
+        }
+        chooseResolution();
+        box = prims.length == 0 ? null
+                : new BoundingBox(new Point(bounds[0], bounds[1], bounds[2]), new Point(bounds[3], bounds[4], bounds[5]));
+
+        int cells = resolution[0] * resolution[1] * resolution[2];
+        cellStart = new int[cells + 1];
+        int[] range = new int[6];
+        // first pass - count the primitives of each cell
+        for (Intersectable prim : prims) {
+            cellRange(prim.getBoundingBox(), range);
+            for (int z = range[2]; z <= range[5]; z++)
+                for (int y = range[1]; y <= range[4]; y++)
+                    for (int x = range[0]; x <= range[3]; x++)
+                        cellStart[cell(x, y, z) + 1]++;
+        }
+        for (int c = 0; c < cells; c++) cellStart[c + 1] += cellStart[c];
+        // second pass - fill the lists
+        cellPrims = new int[cellStart[cells]];
+        int[] fill = new int[cells];
+        for (int p = 0; p < prims.length; p++) {
+            cellRange(prims[p].getBoundingBox(), range);
+            for (int z = range[2]; z <= range[5]; z++)
+                for (int y = range[1]; y <= range[4]; y++)
+                    for (int x = range[0]; x <= range[3]; x++) {
+                        int c = cell(x, y, z);
+                        cellPrims[cellStart[c] + fill[c]++] = p;
+                    }
+        }
+    }
+
+    /**
+     * Chooses the cells along each axis in proportion to the box extent, so that the
+     * cells are about cubes and number about {@value #DENSITY} per primitive. Flat
+     * boxes get a single cell across their thin axis.
+     */
+    private void chooseResolution() {
+        if (prims.length == 0) {
+            resolution[0] = resolution[1] = resolution[2] = 1;
+            return;
+        }
+        double[] extent = new double[3];
+        double longest = 0;
+        for (int a = 0; a < 3; a++) {
+            extent[a] = bounds[a + 3] - bounds[a];
+            longest = Math.max(longest, extent[a]);
+        }
+        // thin axes take a small share of the longest one, so that the volume is never zero
+        double volume = 1;
+        for (int a = 0; a < 3; a++) volume *= Math.max(extent[a], longest * 1e-3);
+        double perUnit = volume == 0 ? 0 : Math.cbrt(DENSITY * prims.length / volume);
+        for (int a = 0; a < 3; a++) {
+            int n = (int) Math.ceil(extent[a] * perUnit);
+            resolution[a] = Math.max(1, Math.min(MAX_RESOLUTION, n));
+            cellSize[a] = extent[a] == 0 ? 1 : extent[a] / resolution[a];
+        }
+    }
+
+    /**
+     * Cell index along an axis of a coordinate, clamped into the grid.
+     *
+     * @param a     the axis
+     * @param coord the coordinate
+     * @return the cell index
+     */
+    private int cellOf(int a, double coord) {
+        int c = (int) Math.floor((coord - bounds[a]) / cellSize[a]);
+        return Math.max(0, Math.min(resolution[a] - 1, c));
+    }
+
+    /**
+     * Cells overlapped by a box.
+     *
+     * @param box   the box
+     * @param range receives the first and last cell along each axis - minX, minY,
+     *              minZ, maxX, maxY, maxZ
+     */
+    private void cellRange(BoundingBox box, int[] range) {
+        for (int a = 0; a < 3; a++) {
+            range[a]     = cellOf(a, box.getBound(a));
+            range[a + 3] = cellOf(a, box.getBound(a + 3));
+        }
+    }
+
+    /**
+     * Linear index of a cell.
+     *
+     * @param x cell column
+     * @param y cell row
+     * @param z cell layer
+     * @return the index
+     */
+    private int cell(int x, int y, int z) {
+        return (z * resolution[1] + y) * resolution[0] + x;
+    }
+
+    /**
+     * Returns the amount of cells along each axis.
+     *
+     * @return cells along x, y and z
+     */
+    public int[] getResolution() {
+        return resolution.clone();
+    }
+
+    /**
+     * Returns the amount of primitive references over all the cells - a primitive
+     * is referenced once by every cell it overlaps.
+     *
+     * @return reference count
+     */
+    public int getReferenceCount() {
+        return cellPrims.length;
+    }
+
+    @Override
+    protected BoundingBox computeBoundingBox() {
+        if (unbounded.length > 0) return unbounded[0].getBoundingBox();
+        return box;
+    }
+
+    /**
+     * Walker of the cells pierced by a ray, front to back (3D-DDA).
+     */
+    private final class Walk {
+        /** Current cell along each axis */
+        final int[] cell = new int[3];
+        /** Cell step along each axis - +1, -1, or 0 for a ray parallel to the axis */
+        private final int[] step = new int[3];
+        /** Ray distance at which the next cell boundary of each axis is crossed */
+        private final double[] next = new double[3];
+        /** Ray distance between two boundaries of each axis */
+        private final double[] delta = new double[3];
+        /** Ray distance at which the walk leaves the grid */
+        private final double end;
+        /** Ray distance at which the ray enters the current cell */
+        double entry;
+
+        /**
+         * Starts a walk at the cell where the ray enters the grid.
+         *
+         * @param ray   the ray
+         * @param start ray distance where the ray enters the grid box
+         * @param end   ray distance where the ray leaves the grid box
+         */
+        Walk(Ray ray, double start, double end) {
+            this.end = end;
+            entry = start;
+            Vector dir = ray.getDirection();
+            double[] d = { dir.getX(), dir.getY(), dir.getZ() };
+            for (int a = 0; a < 3; a++) {
+                double o = ray.getOrigin(a);
+                cell[a] = cellOf(a, o + d[a] * start);
+                if (d[a] > 0) {
+                    step[a]  = 1;
+                    next[a]  = (bounds[a] + (cell[a] + 1) * cellSize[a] - o) / d[a];
+                    delta[a] = cellSize[a] / d[a];
+                } else if (d[a] < 0) {
+                    step[a]  = -1;
+                    next[a]  = (bounds[a] + cell[a] * cellSize[a] - o) / d[a];
+                    delta[a] = -cellSize[a] / d[a];
+                } else {
+                    next[a] = Double.POSITIVE_INFINITY;
+                }
+            }
+        }
+
+        /**
+         * @return ray distance at which the ray leaves the current cell
+         */
+        double exit() {
+            return Math.min(end, Math.min(next[0], Math.min(next[1], next[2])));
+        }
+
+        /**
+         * Moves to the next cell along the ray.
+         *
+         * @return false if the ray left the grid
+         */
+        boolean advance() {
+            int a = next[0] < next[1] ? (next[0] < next[2] ? 0 : 2) : (next[1] < next[2] ? 1 : 2);
+            if (next[a] >= end) return false;
+            entry = next[a];
+            cell[a] += step[a];
+            if (cell[a] < 0 || cell[a] >= resolution[a]) return false;
+            next[a] += delta[a];
+            return true;
+        }
+
+        /**
+         * @return linear index of the current cell
+         */
+        int index() {
+            return cell(cell[0], cell[1], cell[2]);
+        }
+    }
+
+    /**
+     * Clips a ray interval to the grid box.
+     *
+     * @param ray  the ray
+     * @param tMin start of the interval
+     * @param tMax end of the interval
+     * @return entry and exit distances, or null if the ray misses the grid within the interval
+     */
+    private double[] clip(Ray ray, double tMin, double tMax) {
+        if (box == null) return null;
+        double[] range = new double[2];
+        return box.intersects(ray, tMin, tMax, range) ? range : null;
+    }
+
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+        TraversalStats stats = stats();
+        Intersection closest = null;
+        double best = tMax;
+        for (Intersectable prim : unbounded) {
+            Intersection hit = prim.findClosestIntersection(ray, tMin, best);
+            if (hit != null) {
+                best    = hit.t;
+                closest = hit;
+            }
+        }
+        double[] range = clip(ray, tMin, best);
+        if (range == null) return closest;
+
+        Walk walk = new Walk(ray, range[0], range[1]);
+        do {
+            if (stats != null) stats.nodeVisited();
+            int c = walk.index();
+            for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                Intersection hit = prims[cellPrims[k]].findClosestIntersection(ray, tMin, best);
+                if (hit != null) {
+                    best    = hit.t;
+                    closest = hit;
+                }
+            }
+            // a hit inside this cell is closer than anything in the cells behind it
+            if (best <= walk.exit()) break;
+        } while (walk.advance());
+        return closest;
+    }
+
+    @Override
+    protected boolean isOccludedHelper(Ray ray, double maxDistance) {
+        TraversalStats stats = stats();
+        for (Intersectable prim : unbounded) {
+            if (prim.isOccluded(ray, maxDistance)) return true;
+        }
+        double[] range = clip(ray, 0, maxDistance);
+        if (range == null) return false;
+
+        Walk walk = new Walk(ray, range[0], range[1]);
+        do {
+            if (stats != null) stats.nodeVisited();
+            int c = walk.index();
+            for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                if (prims[cellPrims[k]].isOccluded(ray, maxDistance)) return true;
+            }
+        } while (walk.advance());
+        return false;
+    }
+
+    @Override
+    protected List<Intersection> calculateIntersectionsHelper(Ray ray) {
+        TraversalStats stats = stats();
+        List<Intersection> result = null;
+        for (Intersectable prim : unbounded) {
+            List<Intersection> hits = prim.calculateIntersections(ray);
+            if (hits != null) {
+                if (result == null) result = new ArrayList<>();
+                result.addAll(hits);
+            }
+        }
+        double[] range = clip(ray, 0, Double.POSITIVE_INFINITY);
+        if (range == null) return result;
+
+        // a primitive overlapping several cells is intersected once
+        BitSet tested = new BitSet(prims.length);
+        Walk walk = new Walk(ray, range[0], range[1]);
+        do {
+            if (stats != null) stats.nodeVisited();
+            int c = walk.index();
+            for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                int p = cellPrims[k];
+                if (tested.get(p)) continue;
+                tested.set(p);
+                List<Intersection> hits = prims[p].calculateIntersections(ray);
+                if (hits != null) {
+                    if (result == null) result = new ArrayList<>();
+                    result.addAll(hits);
+                }
+            }
+        } while (walk.advance());
+        return result;
+    }
+}
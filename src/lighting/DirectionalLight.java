@@ -23,6 +23,15 @@ public class DirectionalLight extends Light implements LightSource {
         this.direction = direction.normalize();
     }
 
+    /**
+     * Returns the direction of the light.
+     *
+     * @return unit direction
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
     @Override
     public Color getIntensity(Point p) {
         return intensity;
@@ -121,6 +121,34 @@ public class PointLight extends Light implements LightSource {
      */
     public double getRadius() { return radius; }
 
+    /**
+     * Returns the position of the light.
+     *
+     * @return the position
+     */
+    public Point getPosition() { return position; }
+
+    /**
+     * Returns the constant attenuation factor.
+     *
+     * @return kC
+     */
+    public double getKc() { return kC; }
+
+    /**
+     * Returns the linear attenuation factor.
+     *
+     * @return kL
+     */
+    public double getKl() { return kL; }
+
+    /**
+     * Returns the quadratic attenuation factor.
+     *
+     * @return kQ
+     */
+    public double getKq() { return kQ; }
+
     /**
      * Returns the number of samples for soft shadows.
      *
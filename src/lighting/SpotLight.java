@@ -33,6 +33,24 @@ public class SpotLight extends PointLight {
         return this;
     }
 
+    /**
+     * Returns the direction of the light beam.
+     *
+     * @return The unit direction.
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
+    /**
+     * Returns the narrow beam factor.
+     *
+     * @return The narrow beam factor.
+     */
+    public double getNarrowBeam() {
+        return narrowBeam;
+    }
+
     @Override
     public Color getIntensity(Point p) {
         double cosTheta = alignZero(direction.dotProduct(getL(p)));
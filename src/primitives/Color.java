@@ -120,6 +120,24 @@ public class Color {
       return new Color(rgb.reduce(k));
    }
 
+   /**
+    * The components, for the in-place arithmetic of {@link Vec3}.
+    * @return red, green and blue
+    */
+   Double3 rgb() {
+      return rgb;
+   }
+
+   /**
+    * The largest difference between matching components of two colors.
+    * @param other the color to compare with
+    * @return maximal absolute difference of the red, green and blue components
+    */
+   public double difference(Color other) {
+      return Math.max(Math.abs(rgb.d1() - other.rgb.d1()),
+            Math.max(Math.abs(rgb.d2() - other.rgb.d2()), Math.abs(rgb.d3() - other.rgb.d3())));
+   }
+
    @Override
    public boolean equals(Object obj) {
       if (this == obj) return true;
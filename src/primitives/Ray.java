@@ -18,6 +18,12 @@ public class Ray {
     private final Point p0;
     /** The ray’s normalized direction vector. */
     private final Vector direction;
+    /** Origin coordinates, cached for box tests. */
+    private final double[] origin = new double[3];
+    /** Component-wise inverse of the direction (±infinity for zero components). */
+    private final double[] invDirection = new double[3];
+    /** Per axis: 1 if the inverse direction is negative, 0 otherwise. */
+    private final int[] directionSigns = new int[3];
 
     /**
      * Constructs a ray from an origin and direction.
@@ -27,6 +33,7 @@ public class Ray {
     public Ray(Point p0, Vector dir) {
         this.p0 = p0;
         this.direction = dir.normalize();
+        cacheComponents();
     }
 
     /**
@@ -40,6 +47,24 @@ public class Ray {
         double sign = dir.dotProduct(normal) < 0 ? -1 : 1;
         this.p0  = head.add(normal.scale(sign * SimpleRayTracer.DELTA));
         this.direction = dir.normalize();
+        cacheComponents();
+    }
+
+    /**
+     * Fills the cached origin, inverse direction and direction signs.<br/>
+     * The sign is taken from the inverse so that a negative zero component,
+     * whose inverse is negative infinity, is treated as negative.
+     */
+    private void cacheComponents() {
+        origin[0] = p0.getX();
+        origin[1] = p0.getY();
+        origin[2] = p0.getZ();
+        invDirection[0] = 1 / direction.getX();
+        invDirection[1] = 1 / direction.getY();
+        invDirection[2] = 1 / direction.getZ();
+        for (int a = 0; a < 3; a++) {
+            directionSigns[a] = invDirection[a] < 0 ? 1 : 0;
+        }
     }
 
     /**
@@ -58,6 +83,33 @@ public class Ray {
         return direction;
     }
 
+    /**
+     * Returns one coordinate of the ray origin.
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the origin coordinate
+     */
+    public double getOrigin(int axis) {
+        return origin[axis];
+    }
+
+    /**
+     * Returns the inverse of one direction component.
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return 1 / direction component, ±infinity for a zero component
+     */
+    public double getInverseDirection(int axis) {
+        return invDirection[axis];
+    }
+
+    /**
+     * Returns the sign of one direction component.
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return 1 if the component is negative, 0 otherwise
+     */
+    public int getDirectionSign(int axis) {
+        return directionSigns[axis];
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -0,0 +1,241 @@
+package primitives;
+
+import java.util.Arrays;
+
+import static primitives.Util.isZero;
+
+/**
+ * The {@code Transform} class represents an invertible affine transformation of 3D
+ * space - a linear part (rotation, scaling, shear) followed by a translation.<br/>
+ * It is immutable and keeps its inverse, so points and vectors can be mapped both
+ * ways with a few multiplications. Transformations are composed with
+ * {@link #then(Transform)}.
+ */
+public final class Transform {
+    /** The identity transformation */
+    public static final Transform IDENTITY = new Transform(new double[] { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0 });
+
+    /** Row-major 3x4 matrix - the linear part in columns 0-2, the translation in column 3 */
+    private final double[] m;
+    /** The matrix of the inverse transformation */
+    private final double[] inv;
+
+    /**
+     * Constructs a transformation from its matrix, inverting it.
+     * @param m row-major 3x4 matrix
+     * @throws IllegalArgumentException if the linear part is singular
+     */
+    private Transform(double[] m) {
+        this.m = m;
+        // inverse of the linear part by cofactors, then the translation moved back
+        double c00 = m[5] * m[10] - m[6] * m[9];
+        double c01 = m[6] * m[8] - m[4] * m[10];
+        double c02 = m[4] * m[9] - m[5] * m[8];
+        double det = m[0] * c00 + m[1] * c01 + m[2] * c02;
+        if (isZero(det))
+            throw new IllegalArgumentException("Transformation is not invertible");
+        double d = 1 / det;
+        inv = new double[12];
+        inv[0]  = c00 * d;
+        inv[1]  = (m[2] * m[9] - m[1] * m[10]) * d;
+        inv[2]  = (m[1] * m[6] - m[2] * m[5]) * d;
+        inv[4]  = c01 * d;
+        inv[5]  = (m[0] * m[10] - m[2] * m[8]) * d;
+        inv[6]  = (m[2] * m[4] - m[0] * m[6]) * d;
+        inv[8]  = c02 * d;
+        inv[9]  = (m[1] * m[8] - m[0] * m[9]) * d;
+        inv[10] = (m[0] * m[5] - m[1] * m[4]) * d;
+        for (int r = 0; r < 3; r++)
+            inv[4 * r + 3] = -(inv[4 * r] * m[3] + inv[4 * r + 1] * m[7] + inv[4 * r + 2] * m[11]);
+    }
+
+    /**
+     * Constructs a transformation from a matrix and its known inverse.
+     * @param m   row-major 3x4 matrix
+     * @param inv matrix of the inverse
+     */
+    private Transform(double[] m, double[] inv) {
+        this.m   = m;
+        this.inv = inv;
+    }
+
+    /**
+     * Creates a translation.
+     * @param offset the translation vector
+     * @return the transformation
+     */
+    public static Transform translation(Vector offset) {
+        return new Transform(new double[] {
+                1, 0, 0, offset.getX(),
+                0, 1, 0, offset.getY(),
+                0, 0, 1, offset.getZ() });
+    }
+
+    /**
+     * Creates a uniform scaling about the origin.
+     * @param factor the scale factor
+     * @return the transformation
+     * @throws IllegalArgumentException if the factor is zero
+     */
+    public static Transform scaling(double factor) {
+        return scaling(factor, factor, factor);
+    }
+
+    /**
+     * Creates a scaling about the origin along the axes.
+     * @param sx scale factor along x
+     * @param sy scale factor along y
+     * @param sz scale factor along z
+     * @return the transformation
+     * @throws IllegalArgumentException if a factor is zero
+     */
+    public static Transform scaling(double sx, double sy, double sz) {
+        return new Transform(new double[] { sx, 0, 0, 0, 0, sy, 0, 0, 0, 0, sz, 0 });
+    }
+
+    /**
+     * Creates a rotation about an axis through the origin (Rodrigues' formula).
+     * @param axis  the axis to rotate around (will be normalized internally)
+     * @param angle rotation angle in radians, counter-clockwise looking against the axis
+     * @return the transformation
+     */
+    public static Transform rotation(Vector axis, double angle) {
+        Vector k = axis.normalize();
+        double x = k.getX(), y = k.getY(), z = k.getZ();
+        double c = Math.cos(angle), s = Math.sin(angle), t = 1 - c;
+        double[] r = {
+                t * x * x + c,     t * x * y - s * z, t * x * z + s * y, 0,
+                t * x * y + s * z, t * y * y + c,     t * y * z - s * x, 0,
+                t * x * z - s * y, t * y * z + s * x, t * z * z + c,     0 };
+        // the inverse of a rotation is its transpose
+        double[] inverse = { r[0], r[4], r[8], 0, r[1], r[5], r[9], 0, r[2], r[6], r[10], 0 };
+        return new Transform(r, inverse);
+    }
+
+    /**
+     * Composes this transformation with another one applied after it.
+     * @param next the transformation applied to the result of this one
+     * @return the transformation doing this one, then the next one
+     */
+    public Transform then(Transform next) {
+        return new Transform(multiply(next.m, m), multiply(inv, next.inv));
+    }
+
+    /**
+     * Returns the inverse transformation.
+     * @return the transformation undoing this one
+     */
+    public Transform inverse() {
+        return new Transform(inv, m);
+    }
+
+    /**
+     * Multiplies two affine matrices.
+     * @param a the matrix applied second
+     * @param b the matrix applied first
+     * @return the matrix of a after b
+     */
+    private static double[] multiply(double[] a, double[] b) {
+        double[] r = new double[12];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 4; j++)
+                r[4 * i + j] = a[4 * i] * b[j] + a[4 * i + 1] * b[4 + j] + a[4 * i + 2] * b[8 + j];
+            r[4 * i + 3] += a[4 * i + 3];
+        }
+        return r;
+    }
+
+    /**
+     * Transforms a point.
+     * @param p the point
+     * @return the transformed point
+     */
+    public Point transform(Point p) {
+        return point(m, p.getX(), p.getY(), p.getZ());
+    }
+
+    /**
+     * Transforms a point back by the inverse transformation.
+     * @param p the point
+     * @return the point this transformation maps onto p
+     */
+    public Point inverseTransform(Point p) {
+        return point(inv, p.getX(), p.getY(), p.getZ());
+    }
+
+    /**
+     * Transforms a direction - the translation does not apply to it.
+     * @param v the direction
+     * @return the transformed direction, not normalized
+     */
+    public Vector transform(Vector v) {
+        return direction(m, v);
+    }
+
+    /**
+     * Transforms a direction back by the inverse transformation.
+     * @param v the direction
+     * @return the direction this transformation maps onto v, not normalized
+     */
+    public Vector inverseTransform(Vector v) {
+        return direction(inv, v);
+    }
+
+    /**
+     * Transforms a surface normal. Normals are mapped by the inverse transpose of the
+     * linear part, so they stay perpendicular to the transformed surface.
+     * @param n the normal
+     * @return the transformed unit normal
+     */
+    public Vector transformNormal(Vector n) {
+        double x = n.getX(), y = n.getY(), z = n.getZ();
+        return new Vector(
+                inv[0] * x + inv[4] * y + inv[8] * z,
+                inv[1] * x + inv[5] * y + inv[9] * z,
+                inv[2] * x + inv[6] * y + inv[10] * z).normalize();
+    }
+
+    /**
+     * Applies a matrix to a point.
+     * @param a the matrix
+     * @param x point x
+     * @param y point y
+     * @param z point z
+     * @return the mapped point
+     */
+    private static Point point(double[] a, double x, double y, double z) {
+        return new Point(
+                a[0] * x + a[1] * y + a[2] * z + a[3],
+                a[4] * x + a[5] * y + a[6] * z + a[7],
+                a[8] * x + a[9] * y + a[10] * z + a[11]);
+    }
+
+    /**
+     * Applies the linear part of a matrix to a direction.
+     * @param a the matrix
+     * @param v the direction
+     * @return the mapped direction
+     */
+    private static Vector direction(double[] a, Vector v) {
+        double x = v.getX(), y = v.getY(), z = v.getZ();
+        return new Vector(
+                a[0] * x + a[1] * y + a[2] * z,
+                a[4] * x + a[5] * y + a[6] * z,
+                a[8] * x + a[9] * y + a[10] * z);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof Transform other && Arrays.equals(m, other.m);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(m);
+    }
+
+    @Override
+    public String toString() {
+        return "Transform" + Arrays.toString(m);
+    }
+}
@@ -0,0 +1,215 @@
+package primitives;
+
+/**
+ * Mutable triple of doubles for the hot paths of the tracer.<br/>
+ * The immutable {@link Point}, {@link Vector} and {@link Color} allocate a new
+ * {@link Double3} and a wrapper for every operation, which is fine for building
+ * scenes but dominates the cost of shading. A Vec3 is a scratch value: the
+ * operations update it in place and return it for chaining, and it is converted to
+ * the immutable types only where a result leaves the hot path. It serves both as a
+ * vector and as an RGB accumulator.
+ */
+public final class Vec3 {
+    /** First component (x, or red) */
+    public double x;
+    /** Second component (y, or green) */
+    public double y;
+    /** Third component (z, or blue) */
+    public double z;
+
+    /** Creates a zero triple */
+    public Vec3() { }
+
+    /**
+     * Creates a triple with the given components.
+     * @param x first component
+     * @param y second component
+     * @param z third component
+     */
+    public Vec3(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    /**
+     * @param x first component
+     * @param y second component
+     * @param z third component
+     * @return this
+     */
+    public Vec3 set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    /**
+     * Copies the coordinates of a point (or vector).
+     * @param p the point
+     * @return this
+     */
+    public Vec3 set(Point p) {
+        return set(p.xyz.d1(), p.xyz.d2(), p.xyz.d3());
+    }
+
+    /**
+     * Copies the components of a color.
+     * @param c the color
+     * @return this
+     */
+    public Vec3 set(Color c) {
+        Double3 rgb = c.rgb();
+        return set(rgb.d1(), rgb.d2(), rgb.d3());
+    }
+
+    /**
+     * this += v
+     * @param v the added triple
+     * @return this
+     */
+    public Vec3 add(Vec3 v) {
+        x += v.x;
+        y += v.y;
+        z += v.z;
+        return this;
+    }
+
+    /**
+     * this -= v
+     * @param v the subtracted triple
+     * @return this
+     */
+    public Vec3 subtract(Vec3 v) {
+        x -= v.x;
+        y -= v.y;
+        z -= v.z;
+        return this;
+    }
+
+    /**
+     * this *= k
+     * @param k the scale factor
+     * @return this
+     */
+    public Vec3 scale(double k) {
+        x *= k;
+        y *= k;
+        z *= k;
+        return this;
+    }
+
+    /**
+     * this += p * k, e.g. moving a point along a direction
+     * @param p the added point or vector
+     * @param k its scale factor
+     * @return this
+     */
+    public Vec3 addScaled(Point p, double k) {
+        x += p.xyz.d1() * k;
+        y += p.xyz.d2() * k;
+        z += p.xyz.d3() * k;
+        return this;
+    }
+
+    /**
+     * this += c * k component-wise, for accumulating light contributions
+     * @param c the added color
+     * @param k per-component scale factors
+     * @return this
+     */
+    public Vec3 addScaled(Color c, Double3 k) {
+        Double3 rgb = c.rgb();
+        x += rgb.d1() * k.d1();
+        y += rgb.d2() * k.d2();
+        z += rgb.d3() * k.d3();
+        return this;
+    }
+
+    /**
+     * this = a × b
+     * @param a left operand
+     * @param b right operand
+     * @return this
+     */
+    public Vec3 cross(Vec3 a, Vec3 b) {
+        return set(a.y * b.z - a.z * b.y, a.z * b.x - a.x * b.z, a.x * b.y - a.y * b.x);
+    }
+
+    /**
+     * @param v the other operand
+     * @return this · v
+     */
+    public double dot(Vec3 v) {
+        return x * v.x + y * v.y + z * v.z;
+    }
+
+    /**
+     * @param v the other operand
+     * @return this · v
+     */
+    public double dot(Point v) {
+        return x * v.xyz.d1() + y * v.xyz.d2() + z * v.xyz.d3();
+    }
+
+    /** @return squared length */
+    public double lengthSquared() {
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * Scales to unit length; a zero triple stays zero.
+     * @return this
+     */
+    public Vec3 normalize() {
+        double len = Math.sqrt(lengthSquared());
+        return len == 0 ? this : scale(1 / len);
+    }
+
+    /** @return the components as an immutable point */
+    public Point toPoint() {
+        return new Point(x, y, z);
+    }
+
+    /**
+     * @return the components as an immutable vector
+     * @throws IllegalArgumentException if the triple is zero
+     */
+    public Vector toVector() {
+        return new Vector(x, y, z);
+    }
+
+    /**
+     * Normalizes the components into an immutable unit vector, through the
+     * unchecked factory of {@link Vector} since a unit vector is never zero.
+     * This triple is left unchanged.
+     * @return the unit vector in the direction of this triple
+     * @throws ArithmeticException if the triple is zero
+     */
+    public Vector toUnitVector() {
+        double len = Math.sqrt(lengthSquared());
+        if (Util.isZero(len))
+            throw new ArithmeticException("Cannot normalize zero vector");
+        double k = 1.0 / len;
+        return Vector.unchecked(x * k, y * k, z * k);
+    }
+
+    /** @return the components as an immutable color */
+    public Color toColor() {
+        return new Color(x, y, z);
+    }
+
+    /**
+     * Dot product of two vectors given by components.
+     * @return (ax, ay, az) · (bx, by, bz)
+     */
+    public static double dot(double ax, double ay, double az, double bx, double by, double bz) {
+        return ax * bx + ay * by + az * bz;
+    }
+
+    @Override
+    public String toString() {
+        return "Vec3(" + x + "," + y + "," + z + ")";
+    }
+}
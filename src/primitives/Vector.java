@@ -32,6 +32,25 @@ public class Vector extends Point {
             throw new IllegalArgumentException("Zero vector is not allowed");
     }
 
+    /**
+     * Trusted constructor for results that cannot be zero by construction - skips
+     * the zero check of the public constructors.
+     * @param xyz     the (non-zero) triple
+     * @param trusted marker to tell this constructor apart
+     */
+    private Vector(Double3 xyz, boolean trusted) {
+        super(xyz);
+    }
+
+    /**
+     * Unchecked factory for internal arithmetic whose result is known to be
+     * non-zero, e.g. a normalized vector.
+     * @return the vector, without the zero check
+     */
+    static Vector unchecked(double x, double y, double z) {
+        return new Vector(new Double3(x, y, z), true);
+    }
+
     /** Vector-vector addition */
     public Vector add(Vector other) {
         return new Vector(this.xyz.add(other.xyz));
@@ -42,9 +61,13 @@ public class Vector extends Point {
         return new Vector(this.xyz.subtract(other.xyz));
     }
 
-    /** Scale this vector by a scalar */
+    /**
+     * Scale this vector by a scalar. A factor of magnitude 1 or more cannot shrink
+     * the largest (non-zero) component, so the zero check is skipped for it.
+     */
     public Vector scale(double scalar) {
-        return new Vector(this.xyz.scale(scalar));
+        Double3 scaled = this.xyz.scale(scalar);
+        return Math.abs(scalar) >= 1 ? new Vector(scaled, true) : new Vector(scaled);
     }
 
     /** Dot product */
@@ -87,7 +110,8 @@ public class Vector extends Point {
         double len = length();
         if (isZero(len))
             throw new ArithmeticException("Cannot normalize zero vector");
-        return scale(1.0 / len);
+        // a unit vector is never zero
+        return new Vector(this.xyz.scale(1.0 / len), true);
     }
 
     /**
@@ -0,0 +1,57 @@
+package renderer;
+
+import primitives.Color;
+import primitives.Vec3;
+
+/**
+ * Per-pixel running sums of the samples traced so far, for rendering that
+ * refines an image over several passes.<br/>
+ * Each pixel keeps the RGB sum of its samples and their count; the pixel color is
+ * their average. A pixel is only ever updated by one thread per pass, so the
+ * buffer takes no locks.
+ */
+final class AccumulationBuffer {
+   /** Image width in pixels */
+   private final int      nX;
+   /** RGB sums, three per pixel in row-major order */
+   private final double[] sums;
+   /** Amount of samples per pixel */
+   private final int[]    counts;
+
+   /**
+    * Creates an empty buffer
+    * @param nX image width in pixels
+    * @param nY image height in pixels
+    */
+   AccumulationBuffer(int nX, int nY) {
+      this.nX = nX;
+      sums    = new double[3 * nX * nY];
+      counts  = new int[nX * nY];
+   }
+
+   /**
+    * Adds a sample to a pixel
+    * @param j      pixel column
+    * @param i      pixel row
+    * @param sample color of the sample
+    * @return the new average color of the pixel
+    */
+   Color add(int j, int i, Color sample) {
+      int   p   = i * nX + j;
+      Vec3  rgb = new Vec3().set(sample);
+      sums[3 * p]     += rgb.x;
+      sums[3 * p + 1] += rgb.y;
+      sums[3 * p + 2] += rgb.z;
+      return new Color(sums[3 * p], sums[3 * p + 1], sums[3 * p + 2]).scale(1.0 / ++counts[p]);
+   }
+
+   /**
+    * Amount of samples accumulated in a pixel
+    * @param j pixel column
+    * @param i pixel row
+    * @return the sample count
+    */
+   int count(int j, int i) {
+      return counts[i * nX + j];
+   }
+}
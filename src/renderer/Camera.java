@@ -1,16 +1,25 @@
 // src/main/java/renderer/Camera.java
 package renderer;
 
+import geometries.Intersectable;
 import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
+import renderer.sampling.AdaptiveSampler;
 import renderer.sampling.SamplingConfig;
 import renderer.sampling.SuperSamplingBlackboard;
 import scene.Scene;
+import scene.SceneFile;
 
-import java.awt.geom.Point2D;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
 import static primitives.Util.isZero;
@@ -23,23 +32,46 @@ import static primitives.Util.isZero;
 public class Camera implements Cloneable {
     // === super‐sampling fields ===
     private SamplingConfig samplingConfig = new SamplingConfig();
-    private SuperSamplingBlackboard blackboard = new SuperSamplingBlackboard(samplingConfig);
+    private SuperSamplingBlackboard blackboard;
+    private AdaptiveSampler adaptiveSampler;
 
     /**
      * Configure anti‐aliasing parameters.
+     * The configuration is read when each render starts, so changes made to it
+     * after this call apply to the next render.
      */
     public Camera setSamplingConfig(SamplingConfig config) {
         this.samplingConfig = config;
-        this.blackboard = new SuperSamplingBlackboard(config);
         return this;
     }
 
+    /**
+     * Builds the samplers of a render from the current sampling configuration.
+     */
+    private void prepareSampling() {
+        blackboard      = new SuperSamplingBlackboard(samplingConfig);
+        adaptiveSampler = samplingConfig.isAdaptive() ? AdaptiveSampler.of(samplingConfig) : null;
+    }
+
     // === multithreading & progress tracking fields ===
     private int threadsCount       = 0;
     private static final int SPARE_THREADS = 2;
     private double printInterval   = 0;
     private PixelManager pixelManager;
 
+    // === tile scheduling (0 = per-pixel PixelManager) ===
+    private int tileSize           = 0;
+    private TileOrder tileOrder    = TileOrder.MORTON;
+    private TileScheduler tileScheduler;
+    private static final int DEFAULT_TILE_SIZE = 32;
+
+    // === virtual threads (0 = off) ===
+    private int virtualParallelism = 0;
+
+    // === render statistics (null = off) ===
+    private boolean collectStats   = false;
+    private RenderStats renderStats;
+
     // === camera coordinate frame & view-plane ===
     private Vector vTo, vUp, vRight;
     private Point  p0, pcenter;
@@ -74,30 +106,74 @@ public class Camera implements Cloneable {
     }
 
     /**
-     * Single-pixel rendering with optional super-sampling.
+     * Single-pixel rendering with per-pixel progress tracking.
      */
     private void castRay(int nX, int nY, int j, int i) {
+        renderPixel(nX, nY, j, i);
+        pixelManager.pixelDone();
+    }
+
+    /**
+     * Single-pixel rendering with optional (fixed or adaptive) super-sampling.
+     */
+    private void renderPixel(int nX, int nY, int j, int i) {
         double pixelW = width  / nX;
         double pixelH = height / nY;
 
-        List<Point2D.Double> samples = blackboard.getSampleOffsets(pixelW, pixelH);
+        if (adaptiveSampler != null) {
+            imageWriter.writePixel(j, i,
+                    adaptiveSampler.sample(pixelW, pixelH, (dx, dy) -> traceSample(nX, nY, j, i, dx, dy)));
+            return;
+        }
+
+        double[] offsets = blackboard.getSampleTable(j, i);
         Color pixelColor = new Color(0, 0, 0);
 
-        for (Point2D.Double off : samples) {
-            double xJ = (j - (nX - 1) / 2.0) * pixelW + off.x;
-            double yI = (i - (nY - 1) / 2.0) * pixelH + off.y;
+        for (int k = 0; k < offsets.length; k += 2) {
+            pixelColor = pixelColor.add(traceSample(nX, nY, j, i, offsets[k] * pixelW, offsets[k + 1] * pixelH));
+        }
 
-            Point pIJ = pcenter;
-            if (xJ != 0) pIJ = pIJ.add(vRight.scale(xJ));
-            if (yI != 0) pIJ = pIJ.add(vUp.scale(-yI));
+        pixelColor = pixelColor.scale(2.0 / offsets.length);
+        imageWriter.writePixel(j, i, pixelColor);
+    }
 
-            Ray sampleRay = new Ray(p0, pIJ.subtract(p0));
-            pixelColor = pixelColor.add(rayTracer.traceRay(sampleRay));
+    /**
+     * Traces the ray through an offset from the center of pixel (j,i).
+     */
+    private Color traceSample(int nX, int nY, int j, int i, double dx, double dy) {
+        double pixelW = width  / nX;
+        double pixelH = height / nY;
+        double xJ = (j - (nX - 1) / 2.0) * pixelW + dx;
+        double yI = (i - (nY - 1) / 2.0) * pixelH + dy;
+
+        Point pIJ = pcenter;
+        if (xJ != 0) pIJ = pIJ.add(vRight.scale(xJ));
+        if (yI != 0) pIJ = pIJ.add(vUp.scale(-yI));
+
+        Ray ray = new Ray(p0, pIJ.subtract(p0));
+        RenderStats stats = renderStats;
+        if (stats == null) return rayTracer.traceRay(ray);
+        // the intersection work is counted per thread, so other renders do not mix in
+        stats.primaryRay();
+        Intersectable.setTraversalStats(stats);
+        try {
+            return rayTracer.traceRay(ray);
+        } finally {
+            Intersectable.setTraversalStats(null);
         }
+    }
 
-        pixelColor = pixelColor.scale(1.0 / samples.size());
-        imageWriter.writePixel(j, i, pixelColor);
-        pixelManager.pixelDone();
+    /**
+     * Renders all the pixels of one tile and reports it as done.
+     */
+    private void renderTile(int nX, int nY, int tile) {
+        long start = renderStats == null ? 0 : System.nanoTime();
+        int endRow = tileScheduler.endRow(tile), endCol = tileScheduler.endCol(tile);
+        for (int i = tileScheduler.firstRow(tile); i < endRow; i++)
+            for (int j = tileScheduler.firstCol(tile); j < endCol; j++)
+                renderPixel(nX, nY, j, i);
+        if (renderStats != null) renderStats.tileDone(System.nanoTime() - start);
+        tileScheduler.tileDone(tile);
     }
 
     // ─── rendering strategies ─────────────────────────────────────────────────────
@@ -139,13 +215,253 @@ public class Camera implements Cloneable {
         return this;
     }
 
+    /**
+     * Tile rendering via TileScheduler: the workers claim tiles through an atomic
+     * counter, so faster threads take more tiles and no lock is taken per pixel.
+     * Uses threadsCount workers, one per core for -1, or the calling thread for 0.
+     */
+    private Camera renderImageTiles() {
+        int nX = imageWriter.nX(), nY = imageWriter.nY();
+        Runnable worker = () -> {
+            int tile;
+            while ((tile = tileScheduler.nextTile()) >= 0) {
+                renderTile(nX, nY, tile);
+            }
+        };
+        int workers = threadsCount == -1 ? Runtime.getRuntime().availableProcessors() : threadsCount;
+        if (workers == 0) {
+            worker.run();
+            return this;
+        }
+        List<Thread> threads = new java.util.LinkedList<>();
+        for (int t = 0; t < workers; t++) threads.add(new Thread(worker));
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            try { t.join(); } catch (InterruptedException ignored) {}
+        }
+        return this;
+    }
+
+    /**
+     * Virtual-thread rendering: every tile is submitted as its own task to a
+     * virtual-thread-per-task executor, while a semaphore keeps at most
+     * virtualParallelism tiles in flight. Many cameras can render side by side this
+     * way without each holding platform threads. On JDKs without virtual threads a
+     * fixed pool of virtualParallelism platform threads is used. If a tile fails, the
+     * render fails with its exception once all the other tiles are done.
+     */
+    private Camera renderImageVirtual() {
+        int nX = imageWriter.nX(), nY = imageWriter.nY();
+        ExecutorService executor = VirtualThreads.newExecutor(virtualParallelism);
+        Semaphore inFlight = new Semaphore(virtualParallelism);
+        List<Future<?>> tiles = new java.util.ArrayList<>();
+        try {
+            int tile;
+            while ((tile = tileScheduler.nextTile()) >= 0) {
+                int claimed = tile;
+                inFlight.acquireUninterruptibly();
+                boolean submitted = false;
+                try {
+                    tiles.add(executor.submit(() -> {
+                        try {
+                            renderTile(nX, nY, claimed);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                    submitted = true;
+                } finally {
+                    // a rejected tile never runs, so its permit is given back here
+                    if (!submitted) inFlight.release();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // wait for every tile, then fail with the first tile that failed
+        Throwable failure = null;
+        for (Future<?> f : tiles) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                if (failure == null) failure = e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Rendering interrupted", e);
+            }
+        }
+        if (failure instanceof RuntimeException r) throw r;
+        if (failure instanceof Error e) throw e;
+        if (failure != null) throw new IllegalStateException("Tile rendering failed", failure);
+        return this;
+    }
+
     /**
      * Render the image using the chosen strategy:
+     *   virtual threads   → tiles on virtual threads, see {@link #renderImageVirtual()}
+     *   tileSize     > 0  → tiles, see {@link #renderImageTiles()}
      *   threadsCount = 0  → no threads
      *                 -1 → parallel streams
      *                 >0 → raw threads
+     * If statistics are enabled they are collected for this render and available
+     * from {@link #getRenderStats()} afterwards.
      */
     public Camera renderImage() {
+        return withStats(this::render);
+    }
+
+    /**
+     * Runs a render with samplers of the current sampling configuration,
+     * collecting statistics around it if they are enabled.
+     */
+    private Camera withStats(Supplier<Camera> render) {
+        prepareSampling();
+        if (!collectStats) return render.get();
+        renderStats = new RenderStats();
+        rayTracer.stats = renderStats;
+        renderStats.start();
+        try {
+            return render.get();
+        } finally {
+            renderStats.stop();
+            rayTracer.stats = null;
+        }
+    }
+
+    /**
+     * Statistics of the last render.
+     *
+     * @return the statistics, or null if they are not enabled or nothing was rendered yet
+     */
+    public RenderStats getRenderStats() {
+        return renderStats;
+    }
+
+    // ─── progressive rendering ────────────────────────────────────────────────────
+
+    /** Pixel spacing of the first, sparsest preview pass */
+    private static final int PREVIEW_STEP = 8;
+
+    /**
+     * Report of one finished pass of progressive rendering.
+     *
+     * @param index           pass number, from 0
+     * @param step            pixel spacing of the pass - the sparse preview passes halve
+     *                        it down to 1, the refinement passes after them have step 1
+     * @param samplesPerPixel samples traced per pixel once the pass is complete
+     * @param elapsedNanos    time since rendering started
+     * @param last            true if no pass follows - all samples are traced or the time
+     *                        budget ran out
+     */
+    public record Pass(int index, int step, int samplesPerPixel, long elapsedNanos, boolean last) {
+    }
+
+    /**
+     * Progressive rendering: a usable image first, refined pass after pass.<br/>
+     * The first pass traces one sample on every 8th pixel of every 8th row and fills
+     * the block around it; the following passes halve the spacing until every pixel
+     * has its first sample. Then each pass adds one more sample of the sampling
+     * configuration to every pixel, averaged in an accumulation buffer, until all the
+     * samples are traced - the final image is the one {@link #renderImage()} renders
+     * with fixed sampling. Adaptive sampling does not apply here.<br/>
+     * After each pass the listener is called, e.g. to write a preview image. Rows are
+     * rendered by parallel streams unless multithreading is off. The first pass always
+     * completes; after it, once the time budget is spent no more rows are started and
+     * the pass in progress is the last one.
+     *
+     * @param budgetMillis time budget in milliseconds, 0 for no limit
+     * @param listener     called after every pass, may be null
+     * @return this camera
+     */
+    public Camera renderProgressive(long budgetMillis, Consumer<Pass> listener) {
+        if (budgetMillis < 0)
+            throw new IllegalArgumentException("Time budget must be non-negative");
+        return withStats(() -> progressive(budgetMillis, listener));
+    }
+
+    /** Runs the passes of progressive rendering. */
+    private Camera progressive(long budgetMillis, Consumer<Pass> listener) {
+        int nX = imageWriter.nX(), nY = imageWriter.nY();
+        AccumulationBuffer buffer = new AccumulationBuffer(nX, nY);
+        long start = System.nanoTime();
+        long deadline = budgetMillis == 0 ? Long.MAX_VALUE : start + budgetMillis * 1_000_000;
+        int samples = blackboard.getSampleTable(0, 0).length / 2;
+
+        int index = 0;
+        for (int step = PREVIEW_STEP; step >= 1; step /= 2, index++) {
+            int s = step;
+            // the first pass always completes, so there is a whole preview
+            boolean done = renderPass(nY, s, step == PREVIEW_STEP ? Long.MAX_VALUE : deadline, i -> {
+                for (int j = 0; j < nX; j += s)
+                    if (s == PREVIEW_STEP || j % (2 * s) != 0 || i % (2 * s) != 0)
+                        previewPixel(nX, nY, j, i, s, buffer);
+            });
+            boolean last = !done || (step == 1 && samples == 1);
+            if (listener != null) listener.accept(new Pass(index, step, 1, System.nanoTime() - start, last));
+            if (last) return this;
+        }
+        for (int k = 1; k < samples; k++, index++) {
+            int sample = k;
+            boolean done = renderPass(nY, 1, deadline, i -> {
+                for (int j = 0; j < nX; j++)
+                    refinePixel(nX, nY, j, i, sample, buffer);
+            });
+            boolean last = !done || k == samples - 1;
+            if (listener != null) listener.accept(new Pass(index, 1, k + 1, System.nanoTime() - start, last));
+            if (last) break;
+        }
+        return this;
+    }
+
+    /**
+     * Renders every step-th row of a pass, in parallel unless multithreading is off.
+     *
+     * @return true if all the rows were rendered before the deadline
+     */
+    private boolean renderPass(int nY, int step, long deadline, IntConsumer row) {
+        IntStream rows = IntStream.range(0, (nY + step - 1) / step);
+        if (threadsCount != 0) rows = rows.parallel();
+        return rows.map(r -> {
+            if (System.nanoTime() > deadline) return 0;
+            row.accept(r * step);
+            return 1;
+        }).sum() == (nY + step - 1) / step;
+    }
+
+    /**
+     * Traces the first sample of a pixel and fills the step×step block it starts.
+     */
+    private void previewPixel(int nX, int nY, int j, int i, int step, AccumulationBuffer buffer) {
+        double[] offsets = blackboard.getSampleTable(j, i);
+        Color color = buffer.add(j, i,
+                traceSample(nX, nY, j, i, offsets[0] * (width / nX), offsets[1] * (height / nY)));
+        int endRow = Math.min(nY, i + step), endCol = Math.min(nX, j + step);
+        for (int y = i; y < endRow; y++)
+            for (int x = j; x < endCol; x++)
+                imageWriter.writePixel(x, y, color);
+    }
+
+    /**
+     * Adds sample k of the pixel's sample table to the pixel.
+     */
+    private void refinePixel(int nX, int nY, int j, int i, int k, AccumulationBuffer buffer) {
+        double[] offsets = blackboard.getSampleTable(j, i);
+        imageWriter.writePixel(j, i, buffer.add(j, i,
+                traceSample(nX, nY, j, i, offsets[2 * k] * (width / nX), offsets[2 * k + 1] * (height / nY))));
+    }
+
+    /** Renders the image with the strategy chosen by the settings. */
+    private Camera render() {
+        if (tileSize > 0 || virtualParallelism > 0) {
+            tileScheduler = new TileScheduler(
+                    imageWriter.nY(),
+                    imageWriter.nX(),
+                    tileSize > 0 ? tileSize : DEFAULT_TILE_SIZE,
+                    tileOrder,
+                    printInterval
+            );
+            return virtualParallelism > 0 ? renderImageVirtual() : renderImageTiles();
+        }
         pixelManager = new PixelManager(
                 imageWriter.nY(),
                 imageWriter.nX(),
@@ -178,6 +494,9 @@ public class Camera implements Cloneable {
     public static class Builder {
         private final Camera camera = new Camera();
         private Point target = null;
+        private int nX, nY;
+        private boolean offHeap = false;
+        private ToneMapping toneMapping = ToneMapping.CLAMP;
 
         public Builder setLocation(Point p0) {
             camera.p0 = p0;
@@ -214,13 +533,49 @@ public class Camera implements Cloneable {
         }
 
         public Builder setResolution(int nX, int nY) {
-            camera.imageWriter = new ImageWriter(nX, nY);
+            this.nX = nX;
+            this.nY = nY;
+            return this;
+        }
+
+        /**
+         * Keep the float framebuffer of the image in a direct buffer outside the
+         * heap (off by default), e.g. for very large images.
+         */
+        public Builder setOffHeapFramebuffer(boolean offHeap) {
+            this.offHeap = offHeap;
             return this;
         }
 
+        /**
+         * Conversion of the framebuffer colors to 8 bit channels when the image is
+         * written (default {@link ToneMapping#CLAMP}).
+         */
+        public Builder setToneMapping(ToneMapping toneMapping) {
+            if (toneMapping == null)
+                throw new IllegalArgumentException("Tone mapping must not be null");
+            this.toneMapping = toneMapping;
+            return this;
+        }
+
+        /**
+         * Places the camera as stored with a compiled scene.
+         *
+         * @param view the stored view
+         * @return this builder
+         */
+        public Builder setView(SceneFile.View view) {
+            return setLocation(view.location())
+                    .setDirection(view.to(), view.up())
+                    .setVpDistance(view.distance())
+                    .setVpSize(view.width(), view.height())
+                    .setResolution(view.resolutionX(), view.resolutionY());
+        }
+
         public Builder setRayTracer(Scene scene, RayTracerType type) {
             switch (type) {
                 case SIMPLE -> camera.rayTracer = new SimpleRayTracer(scene);
+                case GRID -> camera.rayTracer = new GridRayTracer(scene);
                 default -> throw new IllegalArgumentException("Unsupported RayTracerType");
             }
             return this;
@@ -255,6 +610,42 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * Enable tile scheduling: the image is cut into tileSize×tileSize tiles which
+         * the rendering threads claim in the given order (0 = off, per-pixel
+         * scheduling). Applies to every multithreading setting.
+         */
+        public Builder setTiles(int tileSize, TileOrder order) {
+            if (tileSize < 0)
+                throw new IllegalArgumentException("Tile size must be non-negative");
+            if (order == null)
+                throw new IllegalArgumentException("Tile order must not be null");
+            camera.tileSize = tileSize;
+            camera.tileOrder = order;
+            return this;
+        }
+
+        /**
+         * Render tiles on virtual threads with at most `parallelism` tiles in flight
+         * (0 = off). Overrides setMultithreading; uses the setTiles size and order,
+         * or 32-pixel Morton tiles if none were set.
+         */
+        public Builder setVirtualThreads(int parallelism) {
+            if (parallelism < 0)
+                throw new IllegalArgumentException("Virtual thread parallelism must be non-negative");
+            camera.virtualParallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Collect {@link RenderStats} on every render (off by default): ray counts,
+         * hierarchy and primitive work, tile times and allocation rate.
+         */
+        public Builder setStatistics(boolean enabled) {
+            camera.collectStats = enabled;
+            return this;
+        }
+
         public Camera build() {
             if (camera.p0 == null) camera.p0 = Point.ZERO;
             if (camera.distance == 0) throw new IllegalStateException("View-plane distance not set");
@@ -285,6 +676,9 @@ public class Camera implements Cloneable {
 
             camera.vRight = camera.vTo.crossProduct(camera.vUp).normalize();
             camera.pcenter = camera.p0.add(camera.vTo.scale(camera.distance));
+            // every camera built gets its own framebuffer
+            if (nX > 0 && nY > 0)
+                camera.imageWriter = new ImageWriter(nX, nY, offHeap).setToneMapping(toneMapping);
 
             return camera.clone();
         }
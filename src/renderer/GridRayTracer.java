@@ -0,0 +1,38 @@
+package renderer;
+
+import geometries.Geometries;
+import geometries.Intersectable;
+import geometries.UniformGrid;
+import scene.Scene;
+
+/**
+ * {@code GridRayTracer} shades like {@link SimpleRayTracer}, but traces the rays
+ * through a {@link UniformGrid} built over the primitives and instances of the
+ * scene on the first query. The scene geometry must not change afterwards.
+ */
+public class GridRayTracer extends SimpleRayTracer {
+    /** The grid over the scene geometry, null until the first query */
+    private volatile UniformGrid grid;
+
+    /**
+     * Constructs a GridRayTracer for the given scene. The grid is built when the
+     * first ray is traced, so the scene geometries may still be set after this.
+     *
+     * @param scene the scene to be rendered
+     */
+    public GridRayTracer(Scene scene) {
+        super(scene);
+    }
+
+    @Override
+    protected Intersectable geometries() {
+        UniformGrid g = grid;
+        if (g == null) {
+            synchronized (this) {
+                g = grid;
+                if (g == null) grid = g = new UniformGrid(Geometries.partsOf(scene.getGeometries()));
+            }
+        }
+        return g;
+    }
+}
@@ -2,16 +2,25 @@ package renderer;
 
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 
 import javax.imageio.ImageIO;
 
 import primitives.Color;
+import primitives.Vec3;
 
 /**
  * Image writer class combines accumulation of pixel color matrix and finally
  * producing a non-optimized jpeg image from this matrix. The class although is
  * responsible of holding image related parameters of View Plane - pixel matrix
- * size and resolution
+ * size and resolution<br/>
+ * The pixels are kept unclamped in a framebuffer of floats, three per pixel in
+ * row-major order, on the heap or off-heap in a direct buffer. Every pixel is
+ * written by a single rendering thread (it owns the pixel's tile or row), so
+ * writes take no locks. Tone mapping and quantization to 8 bits happen once, for
+ * the whole image, when it is written.
  * @author Dan
  */
 final class ImageWriter {
@@ -26,20 +35,37 @@ final class ImageWriter {
     */
    private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
-   /** Image generation buffer (the matrix of the pixels) */
-   private final BufferedImage image;
+   /** Framebuffer - red, green and blue of every pixel, unclamped */
+   private final FloatBuffer   pixels;
+   /** Conversion of the framebuffer colors to 8 bit channels */
+   private ToneMapping         toneMapping = ToneMapping.CLAMP;
 
    // ***************** Constructors ********************** //
    /**
     * Image Writer constructor accepting image name and View Plane parameters,
+    * with the framebuffer on the heap
     * @param nX amount of pixels by Width
     * @param nY amount of pixels by height
     */
    ImageWriter(int nX, int nY) {
+      this(nX, nY, false);
+   }
+
+   /**
+    * Image Writer constructor accepting View Plane parameters and framebuffer
+    * placement
+    * @param nX      amount of pixels by Width
+    * @param nY      amount of pixels by height
+    * @param offHeap true to keep the framebuffer in a direct buffer outside the heap
+    */
+   ImageWriter(int nX, int nY, boolean offHeap) {
       this.nX = nX;
       this.nY = nY;
 
-      image   = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+      int floats = 3 * nX * nY;
+      pixels = offHeap
+            ? ByteBuffer.allocateDirect(4 * floats).order(ByteOrder.nativeOrder()).asFloatBuffer()
+            : FloatBuffer.allocate(floats);
    }
 
    // ***************** Getters ********************** //
@@ -55,6 +81,16 @@ final class ImageWriter {
     */
    int nX() { return nX; }
 
+   /**
+    * Sets the conversion of the colors to 8 bit channels
+    * @param toneMapping the tone mapping operator
+    * @return this writer
+    */
+   ImageWriter setToneMapping(ToneMapping toneMapping) {
+      this.toneMapping = toneMapping;
+      return this;
+   }
+
    // ***************** Operations ******************** //
 
    /**
@@ -65,12 +101,35 @@ final class ImageWriter {
    void writeToImage(String imageName) {
       try {
          File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-         ImageIO.write(image, "png", file);
+         ImageIO.write(toImage(), "png", file);
       } catch (IOException e) {
          throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
       }
    }
 
+   /**
+    * Tone maps and quantizes the whole framebuffer into an 8 bit RGB image
+    * @return the image
+    */
+   BufferedImage toImage() {
+      int[] rgb = new int[nX * nY];
+      for (int p = 0, f = 0; p < rgb.length; p++, f += 3)
+         rgb[p] = quantize(pixels.get(f)) << 16 | quantize(pixels.get(f + 1)) << 8 | quantize(pixels.get(f + 2));
+      BufferedImage image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+      image.setRGB(0, 0, nX, nY, rgb, 0, nX);
+      return image;
+   }
+
+   /**
+    * Converts a channel of the framebuffer to 8 bits
+    * @param channel the channel, 0..255 for printed white or more for lights
+    * @return the 8 bit channel
+    */
+   private int quantize(float channel) {
+      double c = toneMapping == ToneMapping.REINHARD ? 255 * channel / (255 + channel) : channel;
+      return Math.min((int) c, 255);
+   }
+
    /**
     * The function writePixel writes a color of a specific pixel into pixel color
     * matrix
@@ -78,6 +137,33 @@ final class ImageWriter {
     * @param yIndex Y axis index of the pixel
     * @param color  final color of the pixel
     */
-   void writePixel(int xIndex, int yIndex, Color color) { image.setRGB(xIndex, yIndex, color.getColor().getRGB()); }
+   void writePixel(int xIndex, int yIndex, Color color) {
+      Vec3 rgb = new Vec3().set(color);
+      int  f   = 3 * (yIndex * nX + xIndex);
+      pixels.put(f, toFloat(rgb.x));
+      pixels.put(f + 1, toFloat(rgb.y));
+      pixels.put(f + 2, toFloat(rgb.z));
+   }
 
+   /**
+    * Narrows a channel to a float rounding down, so that truncating the float gives
+    * the same integer as truncating the channel itself
+    * @param channel the channel
+    * @return the largest float not above the channel
+    */
+   private static float toFloat(double channel) {
+      float f = (float) channel;
+      return f > channel ? Math.nextDown(f) : f;
+   }
+
+   /**
+    * Reads the unclamped color of a pixel from the framebuffer
+    * @param xIndex X axis index of the pixel
+    * @param yIndex Y axis index of the pixel
+    * @return the color
+    */
+   Color readPixel(int xIndex, int yIndex) {
+      int f = 3 * (yIndex * nX + xIndex);
+      return new Color(pixels.get(f), pixels.get(f + 1), pixels.get(f + 2));
+   }
 }
@@ -16,6 +16,12 @@ public abstract class RayTracerBase {
      */
     protected final Scene scene;
 
+    /**
+     * Statistics of the current render, null when none are collected.
+     * Set by the camera before the rendering threads start.
+     */
+    RenderStats stats;
+
     /**
      * Constructs a ray tracer with the specified scene.
      *
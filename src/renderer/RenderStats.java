@@ -0,0 +1,272 @@
+package renderer;
+
+import geometries.Intersectable;
+import geometries.TraversalStats;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of one render, collected when enabled with
+ * {@link Camera.Builder#setStatistics(boolean)} and returned by
+ * {@link Camera#getRenderStats()}.<br/>
+ * All the counters are {@link LongAdder}s, striped per thread, so the rendering
+ * threads never contend on them. Counted are the rays by kind, the hierarchy
+ * nodes visited and the primitive tests per geometry type, the time of every
+ * tile in a power-of-two histogram, and the peak allocation rate of the
+ * platform threads, sampled every {@value #SAMPLE_MILLIS} milliseconds.
+ */
+public final class RenderStats implements TraversalStats {
+    /** Allocation sampling period */
+    private static final long SAMPLE_MILLIS = 50;
+    /** Tile time histogram buckets - bucket b holds tiles of [2^b, 2^(b+1)) microseconds */
+    private static final int BUCKETS = 40;
+
+    private final LongAdder primaryRays    = new LongAdder();
+    private final LongAdder shadowRays     = new LongAdder();
+    private final LongAdder reflectionRays = new LongAdder();
+    private final LongAdder refractionRays = new LongAdder();
+    private final LongAdder nodesVisited   = new LongAdder();
+    private final Map<Class<?>, LongAdder> tests = new ConcurrentHashMap<>();
+    private final LongAdder[] tileTimes = new LongAdder[BUCKETS];
+
+    private long startNanos;
+    private long elapsedNanos;
+
+    /** Allocation sampler, null if thread allocation is not measurable */
+    private Thread sampler;
+    /** Allocated bytes per thread at the previous sample */
+    private final Map<Long, Long> allocated = new HashMap<>();
+    private long allocatedBytes;
+    private double peakAllocationRate = -1;
+
+    /** Creates empty statistics */
+    RenderStats() {
+        for (int b = 0; b < BUCKETS; b++) tileTimes[b] = new LongAdder();
+    }
+
+    // ─── recording ───────────────────────────────────────────────────────────────
+
+    /** Counts a ray cast through a pixel */
+    void primaryRay() {
+        primaryRays.increment();
+    }
+
+    /** Counts a ray cast toward a light */
+    void shadowRay() {
+        shadowRays.increment();
+    }
+
+    /** Counts a reflected ray */
+    void reflectionRay() {
+        reflectionRays.increment();
+    }
+
+    /** Counts a refracted ray */
+    void refractionRay() {
+        refractionRays.increment();
+    }
+
+    /**
+     * Counts a rendered tile in the time histogram.
+     * @param nanos rendering time of the tile
+     */
+    void tileDone(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        tileTimes[Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros))].increment();
+    }
+
+    @Override
+    public void nodeVisited() {
+        nodesVisited.increment();
+    }
+
+    @Override
+    public void primitiveTested(Class<? extends Intersectable> type) {
+        LongAdder counter = tests.get(type);
+        if (counter == null) counter = tests.computeIfAbsent(type, t -> new LongAdder());
+        counter.increment();
+    }
+
+    /**
+     * Starts the clock and the allocation sampler. The camera installs these
+     * statistics as the intersection count receiver of each thread tracing its rays.
+     */
+    void start() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            peakAllocationRate = 0;
+            sampleAllocation(threads, 0);
+            sampler = new Thread(() -> {
+                long last = System.nanoTime();
+                while (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        Thread.sleep(SAMPLE_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long now = System.nanoTime();
+                    sampleAllocation(threads, now - last);
+                    last = now;
+                }
+            }, "render-stats");
+            sampler.setDaemon(true);
+            sampler.start();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops the clock and the allocation sampler.
+     */
+    void stop() {
+        elapsedNanos = System.nanoTime() - startNanos;
+        if (sampler != null) {
+            sampler.interrupt();
+            try {
+                sampler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sampler = null;
+        }
+    }
+
+    /**
+     * Adds the bytes allocated by each live thread since the previous sample and
+     * updates the peak rate. Threads that ended between two samples lose their
+     * last interval.
+     * @param threads     the thread management bean
+     * @param periodNanos time since the previous sample, 0 for the first one
+     */
+    private synchronized void sampleAllocation(com.sun.management.ThreadMXBean threads, long periodNanos) {
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        long delta = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] < 0) continue;
+            Long previous = allocated.put(ids[i], bytes[i]);
+            // threads first seen after the start are the renderer's own
+            if (periodNanos > 0) delta += bytes[i] - (previous == null ? 0 : previous);
+        }
+        if (periodNanos == 0) return;
+        allocatedBytes += delta;
+        peakAllocationRate = Math.max(peakAllocationRate, delta * 1e9 / periodNanos);
+    }
+
+    // ─── results ─────────────────────────────────────────────────────────────────
+
+    /** @return amount of rays cast through the pixels */
+    public long getPrimaryRays() {
+        return primaryRays.sum();
+    }
+
+    /** @return amount of rays cast toward the lights */
+    public long getShadowRays() {
+        return shadowRays.sum();
+    }
+
+    /** @return amount of reflected rays */
+    public long getReflectionRays() {
+        return reflectionRays.sum();
+    }
+
+    /** @return amount of refracted rays */
+    public long getRefractionRays() {
+        return refractionRays.sum();
+    }
+
+    /** @return amount of rays of all kinds */
+    public long getTotalRays() {
+        return getPrimaryRays() + getShadowRays() + getReflectionRays() + getRefractionRays();
+    }
+
+    /** @return amount of hierarchy nodes visited by all the traversals */
+    public long getNodesVisited() {
+        return nodesVisited.sum();
+    }
+
+    /** @return amount of primitive tests per geometry type (simple class name), sorted by name */
+    public Map<String, Long> getPrimitiveTests() {
+        Map<String, Long> result = new TreeMap<>();
+        tests.forEach((type, counter) -> result.merge(type.getSimpleName(), counter.sum(), Long::sum));
+        return result;
+    }
+
+    /**
+     * @return the tile time histogram - element b is the amount of tiles which took
+     *         [2^b, 2^(b+1)) microseconds; all zero if the image was not rendered in tiles
+     */
+    public long[] getTileHistogram() {
+        long[] result = new long[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) result[b] = tileTimes[b].sum();
+        return result;
+    }
+
+    /** @return wall-clock time of the render in nanoseconds */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /** @return rays of all kinds per second of wall-clock time */
+    public double getRaysPerSecond() {
+        return elapsedNanos == 0 ? 0 : getTotalRays() * 1e9 / elapsedNanos;
+    }
+
+    /** @return bytes allocated by the platform threads during the render, -1 if not measurable */
+    public long getAllocatedBytes() {
+        return peakAllocationRate < 0 ? -1 : allocatedBytes;
+    }
+
+    /** @return highest allocation rate in bytes per second over a sampling period, -1 if not measurable */
+    public double getPeakAllocationRate() {
+        return peakAllocationRate;
+    }
+
+    /**
+     * Formats the statistics as a JSON object.
+     * @return the JSON text
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"elapsedMillis\":").append(elapsedNanos / 1_000_000)
+                .append(",\"rays\":{\"primary\":").append(getPrimaryRays())
+                .append(",\"shadow\":").append(getShadowRays())
+                .append(",\"reflection\":").append(getReflectionRays())
+                .append(",\"refraction\":").append(getRefractionRays())
+                .append(",\"total\":").append(getTotalRays())
+                .append("},\"raysPerSecond\":").append(Math.round(getRaysPerSecond()))
+                .append(",\"nodesVisited\":").append(getNodesVisited())
+                .append(",\"primitiveTests\":{");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : getPrimitiveTests().entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            separator = ",";
+        }
+        json.append("},\"tileMicros\":[");
+        separator = "";
+        long[] histogram = getTileHistogram();
+        for (int b = 0; b < BUCKETS; b++) {
+            if (histogram[b] == 0) continue;
+            json.append(separator).append("{\"from\":").append(1L << b)
+                    .append(",\"tiles\":").append(histogram[b]).append('}');
+            separator = ",";
+        }
+        return json.append("],\"allocatedBytes\":").append(getAllocatedBytes())
+                .append(",\"peakAllocationBytesPerSecond\":").append(Math.round(getPeakAllocationRate()))
+                .append('}').toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ms, %d rays (%d primary, %d shadow, %d reflection, %d refraction), "
+                        + "%.0f rays/s, %d nodes visited, tests %s, peak allocation %.1f MB/s",
+                elapsedNanos / 1_000_000, getTotalRays(), getPrimaryRays(), getShadowRays(),
+                getReflectionRays(), getRefractionRays(), getRaysPerSecond(), getNodesVisited(),
+                getPrimitiveTests(), getPeakAllocationRate() / (1 << 20));
+    }
+}
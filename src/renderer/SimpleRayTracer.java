@@ -1,13 +1,13 @@
 // renderer/SimpleRayTracer.java
 package renderer;
 
+import geometries.Intersectable;
 import geometries.Intersectable.Intersection;
 import lighting.LightSource;
 import lighting.PointLight;
 import primitives.*;
 import scene.Scene;
 
-import java.util.List;
 
 import static primitives.Util.alignZero;
 
@@ -38,6 +38,16 @@ public class SimpleRayTracer extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Gives the geometry the rays are traced against. It is looked up on every query,
+     * so the scene geometries may be set after the tracer was created.
+     *
+     * @return the scene geometries, or an acceleration structure over them
+     */
+    protected Intersectable geometries() {
+        return scene.getGeometries();
+    }
+
     @Override
     public Color traceRay(Ray ray) {
         Intersection ip = findClosestIntersection(ray);
@@ -65,73 +75,75 @@ public class SimpleRayTracer extends RayTracerBase {
         return local.add(calcGlobalEffects(ip, ray, level, kAcc));
     }
 
+    /**
+     * Phong shading of a hit. The vector algebra runs on plain doubles and the light
+     * contributions are summed in a {@link Vec3}, so a hit allocates only what the
+     * lights and shadow rays themselves need.
+     */
     private Color calcLocalEffects(Intersection ip, Ray ray) {
-        Color  result = ip.geometry.getEmission();
-        Vector v      = ray.getDirection();
-        Vector n      = ip.geometry.getNormal(ip.point);
-        double nv     = alignZero(n.dotProduct(v));
+        Color  emission = ip.geometry.getEmission();
+        Vector v        = ray.getDirection();
+        Vector n        = ip.normal;
+        double nv       = alignZero(n.dotProduct(v));
         if (nv == 0) {
-            return result;
+            return emission;
         }
+        double nx = n.getX(), ny = n.getY(), nz = n.getZ();
+        double vx = v.getX(), vy = v.getY(), vz = v.getZ();
 
-        Material m = ip.geometry.getMaterial();
+        Material m   = ip.geometry.getMaterial();
+        Double3  kD  = m.getKD(), kS = m.getKS();
+        Vec3     sum = null;
         for (LightSource light : scene.getLights()) {
             Vector l  = light.getL(ip.point);        // direction from point to light
             double nl = alignZero(n.dotProduct(l));
             if (nl * nv > 0) {
-                Double3 ktr = transparency(ip, light, l, n, nl);
+                Double3 ktr = transparency(ip, light, l, nx, ny, nz, nl);
                 if (!ktr.lowerThan(MIN_K)) {
-                    Color   iL   = light.getIntensity(ip.point).scale(ktr);
-                    Double3 diff = calcDiffusive(m, nl);
-                    Double3 spec = calcSpecular(m, n, l, nl, v);
-                    result = result.add(iL.scale(diff.add(spec)));
+                    double  spec = calcSpecular(m, nx, ny, nz, l, nl, vx, vy, vz);
+                    double  diff = Math.abs(nl);
+                    Double3 k    = new Double3(
+                            ktr.d1() * (kD.d1() * diff + kS.d1() * spec),
+                            ktr.d2() * (kD.d2() * diff + kS.d2() * spec),
+                            ktr.d3() * (kD.d3() * diff + kS.d3() * spec));
+                    if (sum == null) sum = new Vec3().set(emission);
+                    sum.addScaled(light.getIntensity(ip.point), k);
                 }
             }
         }
-        return result;
+        return sum == null ? emission : sum.toColor();
     }
 
     private Double3 transparency(Intersection ip,
                                  LightSource light,
                                  Vector l,
-                                 Vector n,
+                                 double nx, double ny, double nz,
                                  double nl) {
         // avoid self-intersection
-        Vector bias = n.scale(nl < 0 ? EPS : -EPS);
-        Point  p0   = ip.point.add(bias);
+        double bias = nl < 0 ? EPS : -EPS;
+        Point  p0   = new Vec3().set(ip.point).addScaled(ip.normal, bias).toPoint();
 
         // soft shadows: area light sampling (uses jitter method)
         if (light instanceof PointLight pl && pl.getNumSamples() > 1 && pl.getRadius() > 0)
         {
             int     samples   = pl.getNumSamples();         // e.g. 81, 300, etc.
-            double  lightDist = light.getDistance(ip.point);
-            Double3 sumK = Double3.ZERO;
+            int     lit       = 0;
             for (int i = 0; i < samples; i++) {
                 Point samplePos  = pl.getSamplePoint(ip.point);
                 Vector dirSample = samplePos.subtract(p0).normalize();
                 double  maxDist  = p0.distance(samplePos);    // ← correct per‐sample threshold
                 Ray     shadow   = new Ray(p0, dirSample);
-                List<Intersection> hits =
-                        scene.getGeometries().calculateIntersections(shadow);
-                boolean blocked = hits != null &&
-                        hits.stream().anyMatch(inter ->
-                                p0.distance(inter.point) < maxDist
-                        );
-                sumK = sumK.add(blocked ? Double3.ZERO : Double3.ONE);
+                if (stats != null) stats.shadowRay();
+                if (!geometries().isOccluded(shadow, maxDist)) lit++;
             }
-            return sumK.scale(1.0 / samples);
+            return new Double3((double) lit / samples);
         }
 
         // hard shadows: single shadow ray toward light
         Ray shadowRay = new Ray(p0, l);
-        List<Intersection> blockers =
-                scene.getGeometries().calculateIntersections(shadowRay);
-        if (blockers != null &&
-                blockers.stream()
-                        .anyMatch(i -> ip.point.distance(i.point) < light.getDistance(ip.point))) {
-            return Double3.ZERO;
-        }
-        return Double3.ONE;
+        if (stats != null) stats.shadowRay();
+        return geometries().isOccluded(shadowRay, light.getDistance(ip.point))
+                ? Double3.ZERO : Double3.ONE;
     }
 
     private int pl() {
@@ -147,10 +159,12 @@ public class SimpleRayTracer extends RayTracerBase {
 
         if (!m.getKR().lowerThan(MIN_K)) {
             Ray   reflRay = constructReflectedRay(ip, ray);
+            if (stats != null) stats.reflectionRay();
             result = result.add(calcGlobalEffect(reflRay, level, kAcc, m.getKR()));
         }
         if (!m.getKT().lowerThan(MIN_K)) {
             Ray   refrRay = constructRefractedRay(ip, ray);
+            if (stats != null) stats.refractionRay();
             result = result.add(calcGlobalEffect(refrRay, level, kAcc, m.getKT()));
         }
         return result;
@@ -170,51 +184,33 @@ public class SimpleRayTracer extends RayTracerBase {
 
     private Ray constructReflectedRay(Intersection ip, Ray ray) {
         Vector v = ray.getDirection();
-        Vector n = ip.geometry.getNormal(ip.point);
-        Vector r = v.subtract(n.scale(2 * v.dotProduct(n))).normalize();
+        Vector n = ip.normal;
+        Vector r = new Vec3().set(v).addScaled(n, -2 * v.dotProduct(n)).toUnitVector();
         return new Ray(ip.point, r, n);
     }
 
     private Ray constructRefractedRay(Intersection ip, Ray ray) {
-        return new Ray(ip.point, ray.getDirection(), ip.geometry.getNormal(ip.point));
+        return new Ray(ip.point, ray.getDirection(), ip.normal);
     }
 
     private Intersection findClosestIntersection(Ray ray) {
-        List<Intersection> lst = scene.getGeometries().calculateIntersections(ray);
-        if (lst == null || lst.isEmpty()) {
-            return null;
-        }
-        return findClosestIntersection(ray.getPoint(), lst);
+        return geometries().findClosestIntersection(ray);
     }
 
-    private Intersection findClosestIntersection(Point origin,
-                                                 List<Intersection> intersections) {
-        Intersection closest = null;
-        double      minD    = Double.POSITIVE_INFINITY;
-        for (Intersection i : intersections) {
-            double d = origin.distance(i.point);
-            if (d < minD) {
-                minD    = d;
-                closest = i;
-            }
-        }
-        return closest;
-    }
-
-    private Double3 calcDiffusive(Material m, double nl) {
-        return m.getKD().scale(Math.abs(nl));
-    }
-
-    private Double3 calcSpecular(Material m,
-                                 Vector n,
-                                 Vector l,
-                                 double nl,
-                                 Vector v) {
-        Vector r  = l.subtract(n.scale(2 * nl));
-        double vr = alignZero(-v.dotProduct(r));
+    /**
+     * Specular factor (-v·r)^shininess, with r = l - 2(n·l)n computed on components.
+     */
+    private double calcSpecular(Material m,
+                                double nx, double ny, double nz,
+                                Vector l,
+                                double nl,
+                                double vx, double vy, double vz) {
+        double k  = 2 * nl;
+        double rx = l.getX() - nx * k, ry = l.getY() - ny * k, rz = l.getZ() - nz * k;
+        double vr = alignZero(-Vec3.dot(vx, vy, vz, rx, ry, rz));
         if (vr <= 0) {
-            return Double3.ZERO;
+            return 0;
         }
-        return m.getKS().scale(Math.pow(vr, m.getShininess()));
+        return Math.pow(vr, m.getShininess());
     }
 }
@@ -0,0 +1,13 @@
+package renderer;
+
+/**
+ * Order in which the tiles of an image are handed out to the rendering threads
+ */
+public enum TileOrder {
+   /** Row after row, left to right */
+   SCANLINE,
+   /** Z-order (Morton) curve - consecutive tiles stay close to each other in the image */
+   MORTON,
+   /** Rings around the image center, center first */
+   SPIRAL
+}
@@ -0,0 +1,181 @@
+package renderer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TileScheduler is a lock-free alternative to {@link PixelManager} for
+ * multi-threading in the renderer.<br/>
+ * The image is cut into square tiles which are ordered once, up front; the
+ * threads then claim tiles by incrementing a shared atomic counter, so a thread
+ * that finishes early simply takes more tiles. Progress is counted per tile in a
+ * {@link LongAdder}, so no lock is taken on the rendering path.
+ */
+class TileScheduler {
+   /** Image width in pixels */
+   private final int   maxCols;
+   /** Image height in pixels */
+   private final int   maxRows;
+   /** Tile edge in pixels (border tiles may be smaller) */
+   private final int   tileSize;
+   /** Tile origins in hand-out order - column and row of the top-left pixel per tile */
+   private final int[] tiles;
+   /** Total amount of pixels in the generated image */
+   private final long  totalPixels;
+
+   /** Index of the next tile to hand out */
+   private final AtomicInteger next        = new AtomicInteger();
+   /** Amount of pixels that have been processed */
+   private final LongAdder     pixels      = new LongAdder();
+   /** Last printed progress update, in tenths of a percent */
+   private final AtomicInteger lastPrinted = new AtomicInteger();
+
+   /** Flag of debug printing of progress percentage */
+   private final boolean       print;
+   /** Progress percentage printing interval, in tenths of a percent */
+   private final long          printInterval;
+   /** Printing format */
+   private static final String PRINT_FORMAT = "%5.1f%%\n";
+
+   /**
+    * Cut the image into tiles and order them
+    * @param maxRows  the amount of pixel rows
+    * @param maxCols  the amount of pixel columns
+    * @param tileSize tile edge in pixels
+    * @param order    tile hand-out order
+    * @param interval progress printing interval in percents, 0 if printing is not
+    *                 required
+    */
+   TileScheduler(int maxRows, int maxCols, int tileSize, TileOrder order, double interval) {
+      if (tileSize <= 0) throw new IllegalArgumentException("Tile size must be positive");
+      this.maxRows  = maxRows;
+      this.maxCols  = maxCols;
+      this.tileSize = tileSize;
+      totalPixels   = (long) maxRows * maxCols;
+      printInterval = (long) (interval * 10);
+      print         = printInterval != 0;
+
+      int tilesX = (maxCols + tileSize - 1) / tileSize;
+      int tilesY = (maxRows + tileSize - 1) / tileSize;
+      Integer[] ids = new Integer[tilesX * tilesY];
+      for (int i = 0; i < ids.length; ++i) ids[i] = i;
+      Arrays.sort(ids, comparator(order, tilesX, tilesY));
+
+      tiles = new int[2 * ids.length];
+      for (int i = 0; i < ids.length; ++i) {
+         tiles[2 * i]     = ids[i] % tilesX * tileSize;
+         tiles[2 * i + 1] = ids[i] / tilesX * tileSize;
+      }
+      if (print) System.out.printf(PRINT_FORMAT, 0d);
+   }
+
+   /**
+    * Ordering of tile indices (row-major in the tile grid) for a hand-out order
+    * @param order  the hand-out order
+    * @param tilesX amount of tile columns
+    * @param tilesY amount of tile rows
+    * @return comparator of tile indices
+    */
+   private static Comparator<Integer> comparator(TileOrder order, int tilesX, int tilesY) {
+      return switch (order) {
+         case SCANLINE -> Comparator.naturalOrder();
+         case MORTON   -> Comparator.comparingLong(id -> morton(id % tilesX, id / tilesX));
+         case SPIRAL   -> {
+            double cx = (tilesX - 1) / 2d, cy = (tilesY - 1) / 2d;
+            Comparator<Integer> ring = Comparator.comparingDouble(
+                  id -> Math.max(Math.abs(id % tilesX - cx), Math.abs(id / tilesX - cy)));
+            yield ring.thenComparingDouble(id -> Math.atan2(id / tilesX - cy, id % tilesX - cx));
+         }
+      };
+   }
+
+   /**
+    * Interleave the bits of two tile coordinates into a Morton (Z-order) code
+    * @param x tile column
+    * @param y tile row
+    * @return the Morton code
+    */
+   static long morton(int x, int y) {
+      return spread(x) | spread(y) << 1;
+   }
+
+   /**
+    * Spread the lower 32 bits of a number to the even bits of a long
+    * @param v the number
+    * @return the spread bits
+    */
+   private static long spread(int v) {
+      long x = v & 0xFFFFFFFFL;
+      x = (x | x << 16) & 0x0000FFFF0000FFFFL;
+      x = (x | x << 8)  & 0x00FF00FF00FF00FFL;
+      x = (x | x << 4)  & 0x0F0F0F0F0F0F0F0FL;
+      x = (x | x << 2)  & 0x3333333333333333L;
+      x = (x | x << 1)  & 0x5555555555555555L;
+      return x;
+   }
+
+   /**
+    * The amount of tiles in the image
+    * @return tile count
+    */
+   int tileCount() { return tiles.length / 2; }
+
+   /**
+    * Claim the next available tile - lock free, safe for any number of threads
+    * @return tile index, or -1 when all the tiles have been handed out
+    */
+   int nextTile() {
+      int tile = next.getAndIncrement();
+      return tile < tiles.length / 2 ? tile : -1;
+   }
+
+   /**
+    * First pixel column of a tile
+    * @param tile tile index
+    * @return the column
+    */
+   int firstCol(int tile) { return tiles[2 * tile]; }
+
+   /**
+    * First pixel row of a tile
+    * @param tile tile index
+    * @return the row
+    */
+   int firstRow(int tile) { return tiles[2 * tile + 1]; }
+
+   /**
+    * Pixel column after the last one of a tile
+    * @param tile tile index
+    * @return the column bound (exclusive)
+    */
+   int endCol(int tile) { return Math.min(tiles[2 * tile] + tileSize, maxCols); }
+
+   /**
+    * Pixel row after the last one of a tile
+    * @param tile tile index
+    * @return the row bound (exclusive)
+    */
+   int endRow(int tile) { return Math.min(tiles[2 * tile + 1] + tileSize, maxRows); }
+
+   /**
+    * Finish tile processing by updating and printing of progress percentage.
+    * Only one of the threads that cross a printing step wins the update and prints.
+    * @param tile tile index
+    */
+   void tileDone(int tile) {
+      pixels.add((long) (endCol(tile) - firstCol(tile)) * (endRow(tile) - firstRow(tile)));
+      if (!print) return;
+      int percentage = (int) (1000L * pixels.sum() / totalPixels);
+      int last       = lastPrinted.get();
+      if (percentage - last >= printInterval && lastPrinted.compareAndSet(last, percentage))
+         System.out.printf(PRINT_FORMAT, percentage / 10d);
+   }
+
+   /**
+    * Amount of pixels in the finished tiles
+    * @return processed pixels
+    */
+   long donePixels() { return pixels.sum(); }
+}
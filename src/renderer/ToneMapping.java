@@ -0,0 +1,12 @@
+package renderer;
+
+/**
+ * Conversion of the high dynamic range colors of the framebuffer into the 8 bit
+ * channels of the written image
+ */
+public enum ToneMapping {
+   /** Each channel is truncated to an integer and clamped to 255 */
+   CLAMP,
+   /** Reinhard operator c / (1 + c) on the 0..1 scale - bright lights fade out instead of clipping */
+   REINHARD
+}
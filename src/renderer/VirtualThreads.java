@@ -0,0 +1,55 @@
+package renderer;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to a virtual-thread-per-task executor without requiring a JDK that has one
+ * at compile time.<br/>
+ * On a JDK with virtual threads (21+) the executor is looked up reflectively; on
+ * older JDKs a fixed pool of platform threads of the requested size is used instead,
+ * so the rendering code does not need to know which one it got.
+ */
+final class VirtualThreads {
+   /** {@code Executors.newVirtualThreadPerTaskExecutor()}, or null if the JDK lacks it */
+   private static final Method FACTORY = lookup();
+
+   /** Don't let anyone instantiate this class. */
+   private VirtualThreads() {}
+
+   /**
+    * Find the virtual-thread executor factory of the running JDK
+    * @return the factory method, or null if there is none
+    */
+   private static Method lookup() {
+      try {
+         return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      } catch (NoSuchMethodException e) {
+         return null;
+      }
+   }
+
+   /**
+    * Check whether the running JDK supports virtual threads
+    * @return true if executors from {@link #newExecutor(int)} use virtual threads
+    */
+   static boolean isAvailable() { return FACTORY != null; }
+
+   /**
+    * Create an executor that runs every task in its own virtual thread, or a fixed
+    * pool of platform threads where virtual threads are not available
+    * @param parallelism size of the fallback pool
+    * @return a new executor, to be shut down by the caller
+    */
+   static ExecutorService newExecutor(int parallelism) {
+      if (FACTORY != null) {
+         try {
+            return (ExecutorService) FACTORY.invoke(null);
+         } catch (ReflectiveOperationException e) {
+            // fall through to platform threads
+         }
+      }
+      return Executors.newFixedThreadPool(parallelism);
+   }
+}
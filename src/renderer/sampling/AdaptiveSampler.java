@@ -0,0 +1,125 @@
+// AdaptiveSampler.java
+package renderer.sampling;
+
+import primitives.Color;
+
+/**
+ * Adaptive super-sampling of a pixel.<br/>
+ * The pixel is first sampled at its four corners and its centre. A region whose
+ * samples all agree within the contrast threshold is averaged as is; otherwise it is
+ * split into four quadrants, which reuse the samples already taken on their corners,
+ * and each quadrant is refined the same way until the depth cap. Flat pixels thus cost
+ * five rays, and only edges and other high-contrast pixels pay for the fine lattice.
+ */
+public class AdaptiveSampler {
+    /**
+     * Traces one sample of the pixel.
+     */
+    @FunctionalInterface
+    public interface SampleSource {
+        /**
+         * @param dx horizontal offset from the pixel center
+         * @param dy vertical offset from the pixel center
+         * @return color seen through the offset point
+         */
+        Color trace(double dx, double dy);
+    }
+
+    private final double threshold;
+    private final int maxDepth;
+
+    /**
+     * @param threshold largest color component difference treated as flat
+     * @param maxDepth  maximal amount of subdivisions; at depth d the corners form a
+     *                  (2^d+1)×(2^d+1) lattice
+     */
+    public AdaptiveSampler(double threshold, int maxDepth) {
+        if (threshold < 0) throw new IllegalArgumentException("Contrast threshold must be non-negative");
+        if (maxDepth < 0) throw new IllegalArgumentException("Adaptive depth must be non-negative");
+        this.threshold = threshold;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Builds a sampler from the adaptive settings of a configuration.
+     *
+     * @param config sampling configuration
+     * @return the sampler
+     */
+    public static AdaptiveSampler of(SamplingConfig config) {
+        int depth = config.getMaxDepth() > 0 ? config.getMaxDepth() : depthFor(config.getSampleCount());
+        return new AdaptiveSampler(config.getContrastThreshold(), depth);
+    }
+
+    /**
+     * Smallest depth whose corner lattice is at least as dense as a fixed pattern of
+     * the given size, e.g. 3 (a 9×9 lattice) for 81 samples.
+     *
+     * @param sampleCount sample count of the fixed pattern
+     * @return the depth cap
+     */
+    public static int depthFor(int sampleCount) {
+        int depth = 0;
+        while (((1L << depth) + 1) * ((1L << depth) + 1) < sampleCount) depth++;
+        return depth;
+    }
+
+    /**
+     * @param pixelWidth  width of a pixel on the view-plane
+     * @param pixelHeight height of a pixel on the view-plane
+     * @param source      tracer of a single sample
+     * @return the averaged pixel color
+     */
+    public Color sample(double pixelWidth, double pixelHeight, SampleSource source) {
+        double hw = pixelWidth / 2, hh = pixelHeight / 2;
+        return refine(0, 0, hw, hh,
+                source.trace(-hw, -hh), source.trace(hw, -hh),
+                source.trace(-hw, hh), source.trace(hw, hh),
+                0, source);
+    }
+
+    /**
+     * Samples the centre of a region and averages it, subdividing if it is contrasted.
+     *
+     * @param cx     region centre x offset
+     * @param cy     region centre y offset
+     * @param hw     region half width
+     * @param hh     region half height
+     * @param c00    color at the (-x, -y) corner
+     * @param c10    color at the (+x, -y) corner
+     * @param c01    color at the (-x, +y) corner
+     * @param c11    color at the (+x, +y) corner
+     * @param depth  current subdivision depth
+     * @param source tracer of a single sample
+     * @return averaged color of the region
+     */
+    private Color refine(double cx, double cy, double hw, double hh,
+                         Color c00, Color c10, Color c01, Color c11,
+                         int depth, SampleSource source) {
+        Color center = source.trace(cx, cy);
+        if (depth >= maxDepth || !contrasted(c00, c10, c01, c11, center))
+            return c00.add(c10, c01, c11, center).reduce(5);
+
+        double qw = hw / 2, qh = hh / 2;
+        Color top    = source.trace(cx, cy - hh);
+        Color bottom = source.trace(cx, cy + hh);
+        Color left   = source.trace(cx - hw, cy);
+        Color right  = source.trace(cx + hw, cy);
+        int next = depth + 1;
+        return refine(cx - qw, cy - qh, qw, qh, c00, top, left, center, next, source)
+                .add(refine(cx + qw, cy - qh, qw, qh, top, c10, center, right, next, source),
+                        refine(cx - qw, cy + qh, qw, qh, left, center, c01, bottom, next, source),
+                        refine(cx + qw, cy + qh, qw, qh, center, right, bottom, c11, next, source))
+                .reduce(4);
+    }
+
+    /**
+     * @return true if any two of the region samples differ by more than the threshold
+     */
+    private boolean contrasted(Color... samples) {
+        for (int i = 0; i < samples.length; i++)
+            for (int k = i + 1; k < samples.length; k++)
+                if (samples[i].difference(samples[k]) > threshold) return true;
+        return false;
+    }
+}
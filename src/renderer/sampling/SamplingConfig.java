@@ -8,6 +8,9 @@ public class SamplingConfig {
     private int sampleCount = 1;
     private TargetShape targetShape = TargetShape.RECTANGLE;
     private SamplingPattern samplingPattern = SamplingPattern.GRID;
+    private boolean adaptive = false;
+    private double contrastThreshold = 10;
+    private int maxDepth = 0;
 
     public SamplingConfig() { }
 
@@ -37,4 +40,40 @@ public class SamplingConfig {
     public void setSamplingPattern(SamplingPattern samplingPattern) {
         this.samplingPattern = samplingPattern;
     }
+
+    /**
+     * @return true if pixels are sampled adaptively instead of with the fixed pattern
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * @return largest color component difference (0..255 scale) between samples
+     *         of a region that is still treated as flat by adaptive sampling
+     */
+    public double getContrastThreshold() {
+        return contrastThreshold;
+    }
+    public void setContrastThreshold(double contrastThreshold) {
+        if (contrastThreshold < 0)
+            throw new IllegalArgumentException("Contrast threshold must be non-negative");
+        this.contrastThreshold = contrastThreshold;
+    }
+
+    /**
+     * @return subdivision depth cap of adaptive sampling; 0 derives it from the sample
+     *         count, see {@link AdaptiveSampler#depthFor(int)}
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0)
+            throw new IllegalArgumentException("Adaptive depth must be non-negative");
+        this.maxDepth = maxDepth;
+    }
 }
@@ -3,90 +3,161 @@ package renderer.sampling;
 
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Random;
 
 /**
  * Generates 2D sample-offsets (relative to pixel center)
- * according to the SamplingConfig.
+ * according to the SamplingConfig.<br/>
+ * The offsets are computed once, at construction, into flat tables of
+ * (dx, dy) pairs in pixel units, i.e. in [-0.5, 0.5]. GRID needs a single table;
+ * JITTERED and RANDOM get a pool of independently generated and shuffled tables
+ * and every pixel picks one by its coordinates, so neighbouring pixels do not
+ * repeat the same pattern while rendering allocates nothing.<br/>
+ * The tables follow the configuration as it is at construction; the camera builds
+ * a new blackboard when each render starts.
  */
 public class SuperSamplingBlackboard {
+    /** Amount of tables generated for the random patterns */
+    static final int POOL_SIZE = 32;
+    /** Fixed seed, so that the same configuration always renders the same image */
+    private static final long SEED = 0x5EED;
+
     private final SamplingConfig config;
+    private final double[][] tables;
 
     public SuperSamplingBlackboard(SamplingConfig config) {
         this.config = config;
+        int pool = config.getSamplingPattern() == SamplingPattern.GRID ? 1 : POOL_SIZE;
+        Random rnd = new Random(SEED);
+        tables = new double[pool][];
+        for (int t = 0; t < pool; t++) {
+            tables[t] = buildTable(rnd);
+        }
+    }
+
+    /**
+     * The offset table of a pixel - (dx, dy) pairs in pixel units, to be scaled by
+     * the pixel width and height. The returned array is shared and must not be modified.
+     *
+     * @param j pixel column
+     * @param i pixel row
+     * @return flat table of sample offsets
+     */
+    public double[] getSampleTable(int j, int i) {
+        if (tables.length == 1) return tables[0];
+        int h = j * 73856093 ^ i * 19349663;
+        return tables[(h & Integer.MAX_VALUE) % tables.length];
+    }
+
+    /**
+     * @return amount of different offset tables the pixels rotate through
+     */
+    public int getTableCount() {
+        return tables.length;
     }
 
     /**
      * @param pixelWidth  width of a pixel on the view-plane
      * @param pixelHeight height of a pixel on the view-plane
-     * @return list of (dx,dy) offsets from the pixel center
+     * @return list of (dx,dy) offsets from the pixel center (of the first table)
      */
     public List<Point2D.Double> getSampleOffsets(double pixelWidth, double pixelHeight) {
-        int nSamples = config.getSampleCount();
-        List<Point2D.Double> samples = new ArrayList<>(nSamples);
-
-        switch (config.getSamplingPattern()) {
-            case GRID      -> generateGrid(samples, pixelWidth, pixelHeight);
-            case JITTERED  -> generateJittered(samples, pixelWidth, pixelHeight);
-            case RANDOM    -> generateRandom(samples, pixelWidth, pixelHeight);
-            default        -> generateGrid(samples, pixelWidth, pixelHeight);
+        double[] table = tables[0];
+        List<Point2D.Double> samples = new ArrayList<>(table.length / 2);
+        for (int k = 0; k < table.length; k += 2) {
+            samples.add(new Point2D.Double(table[k] * pixelWidth, table[k + 1] * pixelHeight));
         }
+        return samples;
+    }
 
+    /**
+     * Generates one table according to the pattern and target shape.
+     *
+     * @param rnd random source of the jittered and random patterns
+     * @return flat table of (dx, dy) pairs in pixel units
+     */
+    private double[] buildTable(Random rnd) {
+        double[] table = switch (config.getSamplingPattern()) {
+            case JITTERED -> generateJittered(rnd);
+            case RANDOM   -> generateRandom(rnd);
+            default       -> generateGrid();
+        };
         if (config.getTargetShape() == TargetShape.CIRCLE) {
-            samples = cropToCircle(samples, pixelWidth, pixelHeight);
+            table = cropToCircle(table);
         }
-
-        return samples;
+        if (config.getSamplingPattern() != SamplingPattern.GRID) {
+            shuffle(table, rnd);
+        }
+        return table;
     }
 
-    private void generateGrid(List<Point2D.Double> out, double pw, double ph) {
+    private int gridSize() {
         int n = (int)Math.sqrt(config.getSampleCount());
-        if (n < 1) n = 1;
-        double dx = pw / n, dy = ph / n;
+        return n < 1 ? 1 : n;
+    }
+
+    private double[] generateGrid() {
+        int n = gridSize();
+        double[] out = new double[2 * n * n];
+        int k = 0;
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
-                double ox = (j + 0.5) * dx - pw/2.0;
-                double oy = (i + 0.5) * dy - ph/2.0;
-                out.add(new Point2D.Double(ox, oy));
+                out[k++] = (j + 0.5) / n - 0.5;
+                out[k++] = (i + 0.5) / n - 0.5;
             }
         }
+        return out;
     }
 
-    private void generateJittered(List<Point2D.Double> out, double pw, double ph) {
-        int n = (int)Math.sqrt(config.getSampleCount());
-        if (n < 1) n = 1;
-        double cellW = pw / n, cellH = ph / n;
-        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    private double[] generateJittered(Random rnd) {
+        int n = gridSize();
+        double[] out = new double[2 * n * n];
+        int k = 0;
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
-                double x0 = j * cellW - pw/2.0;
-                double y0 = i * cellH - ph/2.0;
-                double ox = x0 + rnd.nextDouble(cellW);
-                double oy = y0 + rnd.nextDouble(cellH);
-                out.add(new Point2D.Double(ox, oy));
+                out[k++] = (j + rnd.nextDouble()) / n - 0.5;
+                out[k++] = (i + rnd.nextDouble()) / n - 0.5;
             }
         }
+        return out;
     }
 
-    private void generateRandom(List<Point2D.Double> out, double pw, double ph) {
-        ThreadLocalRandom rnd = ThreadLocalRandom.current();
-        for (int i = 0; i < config.getSampleCount(); i++) {
-            double ox = rnd.nextDouble(-pw/2.0, pw/2.0);
-            double oy = rnd.nextDouble(-ph/2.0, ph/2.0);
-            out.add(new Point2D.Double(ox, oy));
+    private double[] generateRandom(Random rnd) {
+        double[] out = new double[2 * Math.max(1, config.getSampleCount())];
+        for (int k = 0; k < out.length; k++) {
+            out[k] = rnd.nextDouble() - 0.5;
         }
+        return out;
     }
 
-    private List<Point2D.Double> cropToCircle(List<Point2D.Double> in, double pw, double ph) {
-        List<Point2D.Double> circle = new ArrayList<>(in.size());
-        double rx = pw/2.0, ry = ph/2.0;
-        for (Point2D.Double p : in) {
-            double nx = p.x/rx, ny = p.y/ry;
+    /**
+     * Keeps the offsets inside the circle inscribed in the pixel; if none is left,
+     * the pixel center is kept so that every pixel has a sample.
+     */
+    private double[] cropToCircle(double[] in) {
+        double[] circle = new double[in.length];
+        int k = 0;
+        for (int s = 0; s < in.length; s += 2) {
+            double nx = 2 * in[s], ny = 2 * in[s + 1];
             if (nx*nx + ny*ny <= 1.0) {
-                circle.add(p);
+                circle[k++] = in[s];
+                circle[k++] = in[s + 1];
             }
         }
-        return circle;
+        return k == 0 ? new double[2] : Arrays.copyOf(circle, k);
+    }
+
+    /** Fisher-Yates shuffle of the (dx, dy) pairs */
+    private static void shuffle(double[] table, Random rnd) {
+        for (int s = table.length / 2 - 1; s > 0; s--) {
+            int r = rnd.nextInt(s + 1);
+            double x = table[2 * s], y = table[2 * s + 1];
+            table[2 * s]     = table[2 * r];
+            table[2 * s + 1] = table[2 * r + 1];
+            table[2 * r]     = x;
+            table[2 * r + 1] = y;
+        }
     }
 }
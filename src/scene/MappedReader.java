@@ -0,0 +1,196 @@
+package scene;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader over a memory-mapped file.<br/>
+ * The file is mapped in windows, so files larger than a single mapping (2GB) are read
+ * as well; the operating system pages the data in on demand and nothing is copied into
+ * the Java heap. Text is read byte by byte, binary values in a chosen byte order.
+ */
+final class MappedReader implements AutoCloseable {
+    /** Size of a mapping window */
+    private static final long WINDOW = 1L << 28;
+
+    /** The mapped file */
+    private final FileChannel channel;
+    /** Size of the file */
+    private final long size;
+    /** File position of the current window */
+    private long windowStart = 0;
+    /** The current window */
+    private MappedByteBuffer buffer;
+    /** Byte order of binary values */
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+
+    /**
+     * Opens and maps a file.
+     * @param path the file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    MappedReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size    = channel.size();
+        map(0);
+    }
+
+    /**
+     * Maps the window starting at a file position.
+     * @param position the file position
+     * @throws IOException if the window cannot be mapped
+     */
+    private void map(long position) throws IOException {
+        windowStart = position;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+        buffer.order(order);
+    }
+
+    /**
+     * Makes sure the current window holds the next bytes, moving it if needed.
+     * @param count amount of bytes needed
+     * @return true if they are in the window, false if the file ends before them
+     * @throws IOException if the next window cannot be mapped
+     */
+    private boolean ensure(int count) throws IOException {
+        if (buffer.remaining() >= count) return true;
+        long position = windowStart + buffer.position();
+        if (size - position < count) return false;
+        map(position);
+        return true;
+    }
+
+    /**
+     * Sets the byte order of binary values.
+     * @param order the byte order
+     */
+    void setOrder(ByteOrder order) {
+        this.order = order;
+        buffer.order(order);
+    }
+
+    /**
+     * Returns the position in the file.
+     * @return bytes read so far
+     */
+    long position() {
+        return windowStart + buffer.position();
+    }
+
+    /**
+     * Reads a byte.
+     * @return the byte value in [0, 255], or -1 at the end of the file
+     * @throws IOException if the next window cannot be mapped
+     */
+    int read() throws IOException {
+        if (!ensure(1)) return -1;
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Looks at the next byte without consuming it.
+     * @return the byte value in [0, 255], or -1 at the end of the file
+     * @throws IOException if the next window cannot be mapped
+     */
+    int peek() throws IOException {
+        if (!ensure(1)) return -1;
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    /**
+     * Reads a line of ASCII text.
+     * @return the line without its terminator, or null at the end of the file
+     * @throws IOException if the next window cannot be mapped
+     */
+    String readLine() throws IOException {
+        int c = read();
+        if (c < 0) return null;
+        StringBuilder line = new StringBuilder();
+        while (c >= 0 && c != '\n') {
+            if (c != '\r') line.append((char) c);
+            c = read();
+        }
+        return line.toString();
+    }
+
+    /**
+     * Skips bytes.
+     * @param count amount of bytes
+     * @throws IOException if the file ends before them
+     */
+    void skip(long count) throws IOException {
+        long target = position() + count;
+        if (target > size) throw new EOFException("Unexpected end of file");
+        if (target - windowStart <= buffer.limit()) buffer.position((int) (target - windowStart));
+        else map(target);
+    }
+
+    /**
+     * Ensures a binary value is available.
+     * @param count its size in bytes
+     * @throws IOException if the file ends before it
+     */
+    private void require(int count) throws IOException {
+        if (!ensure(count)) throw new EOFException("Unexpected end of file");
+    }
+
+    /**
+     * Reads a signed 8-bit value.
+     * @return the value
+     * @throws IOException if the file ends
+     */
+    byte readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    /**
+     * Reads a signed 16-bit value.
+     * @return the value
+     * @throws IOException if the file ends
+     */
+    short readShort() throws IOException {
+        require(2);
+        return buffer.getShort();
+    }
+
+    /**
+     * Reads a signed 32-bit value.
+     * @return the value
+     * @throws IOException if the file ends
+     */
+    int readInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a 32-bit floating point value.
+     * @return the value
+     * @throws IOException if the file ends
+     */
+    float readFloat() throws IOException {
+        require(4);
+        return buffer.getFloat();
+    }
+
+    /**
+     * Reads a 64-bit floating point value.
+     * @return the value
+     * @throws IOException if the file ends
+     */
+    double readDouble() throws IOException {
+        require(8);
+        return buffer.getDouble();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
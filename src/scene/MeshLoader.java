@@ -0,0 +1,542 @@
+package scene;
+
+import geometries.BVHBuildConfig;
+import geometries.TriangleMesh;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming loader of triangle meshes from Wavefront OBJ and PLY files.<br/>
+ * The file is read through a memory mapping and parsed in a single pass straight
+ * into the flat vertex and index arrays of a {@link TriangleMesh}: no line strings,
+ * no {@code String.split}, and no per-triangle objects. Numbers are parsed in place;
+ * only the rare numbers that cannot be converted exactly on the fast path go through
+ * {@link Double#parseDouble(String)}. Polygons are triangulated as fans.
+ */
+public final class MeshLoader {
+    /** Exact powers of ten for the fast number conversion */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /** Flat vertex coordinates read so far */
+    private double[] vertices = new double[3 * 1024];
+    /** Amount of coordinates read so far */
+    private int vertexSize = 0;
+    /** Flat triangle indices read so far */
+    private int[] indices = new int[3 * 2048];
+    /** Amount of indices read so far */
+    private int indexSize = 0;
+
+    /** The file being read */
+    private final MappedReader in;
+    /** Current line of a text file, for error messages */
+    private int line = 1;
+    /** Characters of the current number, kept for the slow conversion path */
+    private final StringBuilder token = new StringBuilder();
+
+    /**
+     * Prepares a loader of one file.
+     * @param in the opened file
+     */
+    private MeshLoader(MappedReader in) {
+        this.in = in;
+    }
+
+    /**
+     * Loads a mesh, choosing the format by the file extension, with the default
+     * {@link BVHBuildConfig}.
+     * @param path an {@code .obj} or {@code .ply} file
+     * @return the mesh
+     * @throws IOException if the file cannot be read, is malformed or has an unknown extension
+     */
+    public static TriangleMesh load(Path path) throws IOException {
+        return load(path, new BVHBuildConfig());
+    }
+
+    /**
+     * Loads a mesh, choosing the format by the file extension.
+     * @param path   an {@code .obj} or {@code .ply} file
+     * @param config build parameters of the mesh hierarchy
+     * @return the mesh
+     * @throws IOException if the file cannot be read, is malformed or has an unknown extension
+     */
+    public static TriangleMesh load(Path path, BVHBuildConfig config) throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".obj")) return loadObj(path, config);
+        if (name.endsWith(".ply")) return loadPly(path, config);
+        throw new IOException("Unknown mesh format: " + path);
+    }
+
+    /**
+     * Loads a Wavefront OBJ mesh. Only vertex positions ({@code v}) and faces
+     * ({@code f}) are used; texture and normal references of face corners, negative
+     * (relative) indices and all other statements are accepted and ignored.
+     * @param path   the file
+     * @param config build parameters of the mesh hierarchy
+     * @return the mesh
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static TriangleMesh loadObj(Path path, BVHBuildConfig config) throws IOException {
+        try (MappedReader in = new MappedReader(path)) {
+            MeshLoader loader = new MeshLoader(in);
+            loader.readObj();
+            return loader.toMesh(config);
+        }
+    }
+
+    /**
+     * Loads a PLY mesh in any of its formats - binary little endian, binary big endian
+     * or ASCII. The {@code x}, {@code y}, {@code z} properties of the {@code vertex}
+     * element and the index list of the {@code face} element are used; all other
+     * elements and properties are skipped.
+     * @param path   the file
+     * @param config build parameters of the mesh hierarchy
+     * @return the mesh
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static TriangleMesh loadPly(Path path, BVHBuildConfig config) throws IOException {
+        try (MappedReader in = new MappedReader(path)) {
+            MeshLoader loader = new MeshLoader(in);
+            loader.readPly();
+            return loader.toMesh(config);
+        }
+    }
+
+    /**
+     * Builds the mesh from the arrays read.
+     * @param config build parameters of the mesh hierarchy
+     * @return the mesh
+     */
+    private TriangleMesh toMesh(BVHBuildConfig config) {
+        return new TriangleMesh(Arrays.copyOf(vertices, vertexSize), Arrays.copyOf(indices, indexSize), config);
+    }
+
+    /**
+     * Appends a vertex.
+     * @param x coordinate x
+     * @param y coordinate y
+     * @param z coordinate z
+     */
+    private void addVertex(double x, double y, double z) {
+        if (vertexSize + 3 > vertices.length)
+            vertices = Arrays.copyOf(vertices, vertices.length * 2);
+        vertices[vertexSize++] = x;
+        vertices[vertexSize++] = y;
+        vertices[vertexSize++] = z;
+    }
+
+    /**
+     * Appends a triangle.
+     * @param a index of the first vertex
+     * @param b index of the second vertex
+     * @param c index of the third vertex
+     */
+    private void addTriangle(int a, int b, int c) {
+        if (indexSize + 3 > indices.length)
+            indices = Arrays.copyOf(indices, indices.length * 2);
+        indices[indexSize++] = a;
+        indices[indexSize++] = b;
+        indices[indexSize++] = c;
+    }
+
+    // ********************************* OBJ **********************************
+
+    /**
+     * Reads the statements of an OBJ file.
+     * @throws IOException if the file is malformed
+     */
+    private void readObj() throws IOException {
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (isBlank(c)) {
+                skipSpaces();
+                c = in.read();
+            }
+            if (c == 'v' && isBlank(in.peek())) {
+                addVertex(readNumber(), readNumber(), readNumber());
+            } else if (c == 'f' && isBlank(in.peek())) {
+                readObjFace();
+            }
+            skipLine(c);
+        }
+    }
+
+    /**
+     * Reads the corners of an OBJ face and triangulates it as a fan.
+     * @throws IOException if the face is malformed
+     */
+    private void readObjFace() throws IOException {
+        int first = readObjCorner(), previous = readObjCorner();
+        skipSpaces();
+        if (isLineEnd(in.peek())) throw malformed("A face needs at least three vertices");
+        do {
+            int current = readObjCorner();
+            addTriangle(first, previous, current);
+            previous = current;
+            skipSpaces();
+        } while (!isLineEnd(in.peek()));
+    }
+
+    /**
+     * Reads one face corner ({@code v}, {@code v/t}, {@code v//n} or {@code v/t/n})
+     * and resolves its vertex index.
+     * @return zero-based vertex index
+     * @throws IOException if the corner is malformed or refers to a missing vertex
+     */
+    private int readObjCorner() throws IOException {
+        int index = readInteger();
+        // texture and normal references are not used
+        while (in.peek() == '/') {
+            in.read();
+            int c = in.peek();
+            if (c == '-' || c >= '0' && c <= '9') readInteger();
+        }
+        int count = vertexSize / 3;
+        long resolved = index < 0 ? count + index : index - 1;
+        if (index == 0 || resolved < 0 || resolved >= count)
+            throw malformed("Face refers to a missing vertex " + index);
+        return (int) resolved;
+    }
+
+    /**
+     * Skips the rest of the current line.
+     * @param last the last character read
+     * @throws IOException if the next window cannot be mapped
+     */
+    private void skipLine(int last) throws IOException {
+        int c = last;
+        while (c >= 0 && c != '\n') c = in.read();
+        line++;
+    }
+
+    // ********************************* PLY **********************************
+
+    /** Scalar types of PLY properties */
+    private enum PlyType {
+        INT8, UINT8, INT16, UINT16, INT32, UINT32, FLOAT32, FLOAT64;
+
+        /**
+         * Finds a type by any of its PLY names.
+         * @param name the name in the header
+         * @return the type, or null if unknown
+         */
+        static PlyType of(String name) {
+            return switch (name) {
+                case "char", "int8" -> INT8;
+                case "uchar", "uint8" -> UINT8;
+                case "short", "int16" -> INT16;
+                case "ushort", "uint16" -> UINT16;
+                case "int", "int32" -> INT32;
+                case "uint", "uint32" -> UINT32;
+                case "float", "float32" -> FLOAT32;
+                case "double", "float64" -> FLOAT64;
+                default -> null;
+            };
+        }
+    }
+
+    /** A property of a PLY element: a scalar, or a list with its count type */
+    private record PlyProperty(String name, PlyType type, PlyType countType) {
+        /** @return true for a list property */
+        boolean isList() {
+            return countType != null;
+        }
+    }
+
+    /** An element of a PLY file with its declared properties */
+    private record PlyElement(String name, long count, List<PlyProperty> properties) {
+    }
+
+    /** Whether the PLY data is ASCII text */
+    private boolean ascii;
+
+    /**
+     * Reads the header and the data of a PLY file.
+     * @throws IOException if the file is malformed
+     */
+    private void readPly() throws IOException {
+        if (!"ply".equals(in.readLine())) throw new IOException("Not a PLY file");
+        List<PlyElement> elements = new ArrayList<>();
+        for (String header = in.readLine(); ; header = in.readLine()) {
+            if (header == null) throw new IOException("PLY header is not terminated");
+            String[] words = header.trim().split("\\s+");
+            switch (words[0]) {
+                case "format" -> {
+                    if (words.length < 2) throw new IOException("Malformed PLY format: " + header);
+                    switch (words[1]) {
+                        case "ascii" -> ascii = true;
+                        case "binary_little_endian" -> in.setOrder(ByteOrder.LITTLE_ENDIAN);
+                        case "binary_big_endian" -> in.setOrder(ByteOrder.BIG_ENDIAN);
+                        default -> throw new IOException("Unknown PLY format: " + words[1]);
+                    }
+                }
+                case "element" -> {
+                    if (words.length != 3) throw new IOException("Malformed PLY element: " + header);
+                    elements.add(new PlyElement(words[1], Long.parseLong(words[2]), new ArrayList<>()));
+                }
+                case "property" -> {
+                    if (elements.isEmpty()) throw new IOException("PLY property outside an element: " + header);
+                    elements.get(elements.size() - 1).properties().add(parseProperty(words, header));
+                }
+                case "end_header" -> {
+                    for (PlyElement element : elements) readPlyElement(element);
+                    return;
+                }
+                default -> { } // comment, obj_info and blank lines
+            }
+        }
+    }
+
+    /**
+     * Parses a property declaration of the PLY header.
+     * @param words  the words of the declaration
+     * @param header the declaration, for error messages
+     * @return the property
+     * @throws IOException if the declaration is malformed
+     */
+    private static PlyProperty parseProperty(String[] words, String header) throws IOException {
+        if (words.length == 5 && "list".equals(words[1])) {
+            PlyType countType = PlyType.of(words[2]), type = PlyType.of(words[3]);
+            if (countType != null && type != null) return new PlyProperty(words[4], type, countType);
+        } else if (words.length == 3) {
+            PlyType type = PlyType.of(words[1]);
+            if (type != null) return new PlyProperty(words[2], type, null);
+        }
+        throw new IOException("Malformed PLY property: " + header);
+    }
+
+    /**
+     * Reads the data of one PLY element, keeping vertex positions and face indices.
+     * @param element the element
+     * @throws IOException if the data is malformed
+     */
+    private void readPlyElement(PlyElement element) throws IOException {
+        List<PlyProperty> properties = element.properties();
+        boolean vertex = "vertex".equals(element.name());
+        boolean face   = "face".equals(element.name());
+        int n = properties.size();
+        // position of each property in the vertex (x, y, z) or which list holds the face
+        int[] role = new int[n];
+        for (int p = 0; p < n; p++) {
+            String name = properties.get(p).name();
+            role[p] = -1;
+            if (vertex && !properties.get(p).isList()) {
+                if (name.equals("x")) role[p] = 0;
+                else if (name.equals("y")) role[p] = 1;
+                else if (name.equals("z")) role[p] = 2;
+            } else if (face && properties.get(p).isList()
+                    && (name.equals("vertex_indices") || name.equals("vertex_index"))) {
+                role[p] = 0;
+            }
+        }
+
+        double[] position = new double[3];
+        for (long i = 0; i < element.count(); i++) {
+            for (int p = 0; p < n; p++) {
+                PlyProperty property = properties.get(p);
+                if (!property.isList()) {
+                    double value = readPlyValue(property.type());
+                    if (role[p] >= 0) position[role[p]] = value;
+                } else if (role[p] < 0) {
+                    long count = (long) readPlyValue(property.countType());
+                    for (long k = 0; k < count; k++) readPlyValue(property.type());
+                } else {
+                    readPlyFace(property);
+                }
+            }
+            if (vertex) addVertex(position[0], position[1], position[2]);
+        }
+    }
+
+    /**
+     * Reads the index list of a PLY face and triangulates it as a fan.
+     * @param property the index list property
+     * @throws IOException if the face is malformed
+     */
+    private void readPlyFace(PlyProperty property) throws IOException {
+        long count = (long) readPlyValue(property.countType());
+        if (count < 3) throw new IOException("A PLY face needs at least three vertices");
+        int first = plyIndex(property), previous = plyIndex(property);
+        for (long k = 2; k < count; k++) {
+            int current = plyIndex(property);
+            addTriangle(first, previous, current);
+            previous = current;
+        }
+    }
+
+    /**
+     * Reads a vertex index of a PLY face.
+     * @param property the index list property
+     * @return the index
+     * @throws IOException if the index refers to a missing vertex
+     */
+    private int plyIndex(PlyProperty property) throws IOException {
+        double index = readPlyValue(property.type());
+        if (index < 0 || index >= vertexSize / 3)
+            throw new IOException("PLY face refers to a missing vertex " + (long) index);
+        return (int) index;
+    }
+
+    /**
+     * Reads one scalar of PLY data.
+     * @param type its type
+     * @return its value
+     * @throws IOException if the data is malformed or ends
+     */
+    private double readPlyValue(PlyType type) throws IOException {
+        if (ascii) {
+            skipWhiteSpace();
+            return readNumber();
+        }
+        return switch (type) {
+            case INT8 -> in.readByte();
+            case UINT8 -> in.readByte() & 0xFF;
+            case INT16 -> in.readShort();
+            case UINT16 -> in.readShort() & 0xFFFF;
+            case INT32 -> in.readInt();
+            case UINT32 -> in.readInt() & 0xFFFFFFFFL;
+            case FLOAT32 -> in.readFloat();
+            case FLOAT64 -> in.readDouble();
+        };
+    }
+
+    // ******************************** Numbers *******************************
+
+    /**
+     * Checks for a space or a tab.
+     * @param c the character
+     * @return true if it separates words on a line
+     */
+    private static boolean isBlank(int c) {
+        return c == ' ' || c == '\t';
+    }
+
+    /**
+     * Checks for the end of a line.
+     * @param c the character, or -1 at the end of the file
+     * @return true if a line ends there
+     */
+    private static boolean isLineEnd(int c) {
+        return c == '\n' || c == '\r' || c == '#' || c < 0;
+    }
+
+    /**
+     * Skips spaces and tabs.
+     * @throws IOException if the next window cannot be mapped
+     */
+    private void skipSpaces() throws IOException {
+        while (isBlank(in.peek())) in.read();
+    }
+
+    /**
+     * Skips any white space, line breaks included, as ASCII PLY data allows.
+     * @throws IOException if the next window cannot be mapped
+     */
+    private void skipWhiteSpace() throws IOException {
+        int c = in.peek();
+        while (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+            if (c == '\n') line++;
+            in.read();
+            c = in.peek();
+        }
+    }
+
+    /**
+     * Reads a signed decimal integer.
+     * @return the value
+     * @throws IOException if there is no integer
+     */
+    private int readInteger() throws IOException {
+        skipSpaces();
+        boolean negative = in.peek() == '-';
+        if (negative || in.peek() == '+') in.read();
+        int c = in.peek();
+        if (c < '0' || c > '9') throw malformed("Integer expected");
+        long value = 0;
+        while ((c = in.peek()) >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) throw malformed("Integer out of range");
+            in.read();
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Reads a decimal floating point number in place, after spaces on the same line. Up to 15 significant digits
+     * with a small exponent are converted exactly by a single multiplication or
+     * division; longer numbers fall back to {@link Double#parseDouble(String)}.
+     * @return the value
+     * @throws IOException if there is no number
+     */
+    private double readNumber() throws IOException {
+        skipSpaces();
+        token.setLength(0);
+        int c = in.peek();
+        boolean negative = c == '-';
+        if (negative || c == '+') token.append((char) in.read());
+
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean any = false;
+        while ((c = in.peek()) >= '0' && c <= '9') {
+            token.append((char) in.read());
+            any = true;
+            if (digits > 0 || c != '0') {
+                if (digits < 18) mantissa = mantissa * 10 + (c - '0');
+                else exponent++;
+                digits++;
+            }
+        }
+        if (c == '.') {
+            token.append((char) in.read());
+            while ((c = in.peek()) >= '0' && c <= '9') {
+                token.append((char) in.read());
+                any = true;
+                if (digits > 0 || c != '0') {
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        exponent--;
+                    }
+                    digits++;
+                } else {
+                    exponent--;
+                }
+            }
+        }
+        if (!any) throw malformed("Number expected");
+        if (c == 'e' || c == 'E') {
+            token.append((char) in.read());
+            c = in.peek();
+            boolean negativeExp = c == '-';
+            if (negativeExp || c == '+') token.append((char) in.read());
+            if ((c = in.peek()) < '0' || c > '9') throw malformed("Malformed exponent");
+            int exp = 0;
+            while ((c = in.peek()) >= '0' && c <= '9') {
+                token.append((char) in.read());
+                if (exp < 100000) exp = exp * 10 + (c - '0');
+            }
+            exponent += negativeExp ? -exp : exp;
+        }
+
+        if (digits > 15 || exponent < -22 || exponent > 22)
+            return Double.parseDouble(token.toString());
+        double value = exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Creates an error report pointing at the current line.
+     * @param message what is wrong
+     * @return the exception
+     */
+    private IOException malformed(String message) {
+        return new IOException(message + " at line " + line);
+    }
+}
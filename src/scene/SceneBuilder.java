@@ -2,107 +2,456 @@ package scene;
 
 import java.io.File;
 import java.io.IOException;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
-import geometries.Geometries;
+import geometries.Cylinder;
+import geometries.Geometry;
+import geometries.Plane;
+import geometries.Polygon;
 import geometries.Sphere;
 import geometries.Triangle;
+import geometries.TriangleMesh;
+import geometries.Tube;
 import lighting.AmbientLight;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
 import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
 
 /**
- * Utility class for building Scene objects from XML definitions.
+ * Utility class for building Scene objects from XML definitions.<br/>
+ * The document is streamed with StAX: every element becomes its geometry or light
+ * as soon as it is read, so no document tree is held in memory and the heap needed
+ * depends on the scene, not on the size of its text. Elements may appear at any
+ * depth, e.g. grouped under {@code <geometries>} and {@code <lights>}.
+ * <pre>{@code
+ * <scene background-color="R G B">
+ *   <ambient-light color="R G B"/>
+ *   <sphere center="x y z" radius="r"/>
+ *   <triangle p0="x y z" p1="x y z" p2="x y z"/>
+ *   <polygon p0="x y z" p1="x y z" p2="x y z" p3="x y z" .../>
+ *   <plane q0="x y z" normal="x y z"/>            (or p0, p1, p2)
+ *   <tube radius="r" origin="x y z" direction="x y z"/>
+ *   <cylinder radius="r" origin="x y z" direction="x y z" height="h"/>
+ *   <mesh file="model.obj"/>                       (OBJ or PLY, relative to the scene file)
+ *   <directional-light color="R G B" direction="x y z"/>
+ *   <point-light color="R G B" position="x y z" kc="1" kl="0" kq="0" radius="0" samples="1"/>
+ *   <spot-light color="R G B" position="x y z" direction="x y z" narrow-beam="1" .../>
+ * </scene>
+ * }</pre>
+ * Every geometry also accepts an {@code emission} color and the material attributes
+ * {@code ka}, {@code kd}, {@code ks}, {@code kt}, {@code kr} (one number, or three
+ * per color channel) and {@code shininess}. Unknown elements are ignored.
  */
 public class SceneBuilder {
 
+    /**
+     * Statistics of one scene file load.
+     *
+     * @param bytes      size of the file
+     * @param elements   amount of XML elements read
+     * @param geometries amount of geometries created
+     * @param lights     amount of light sources created
+     * @param nanos      time taken to parse the file and build the scene
+     */
+    public record ParseReport(long bytes, long elements, int geometries, int lights, long nanos) {
+        /**
+         * Returns the parse throughput in bytes.
+         * @return megabytes (2^20 bytes) per second
+         */
+        public double megabytesPerSecond() {
+            return bytes / (double) (1 << 20) / seconds();
+        }
+
+        /**
+         * Returns the parse throughput in elements.
+         * @return elements per second
+         */
+        public double elementsPerSecond() {
+            return elements / seconds();
+        }
+
+        /** @return the time taken in seconds, at least one nanosecond */
+        private double seconds() {
+            return Math.max(nanos, 1) / 1e9;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d bytes, %d elements (%d geometries, %d lights) in %.1f ms: %.1f MB/s, %.0f elements/s",
+                    bytes, elements, geometries, lights, nanos / 1e6, megabytesPerSecond(), elementsPerSecond());
+        }
+    }
+
     /**
      * Parses and constructs a Scene from the given XML file.
      *
      * @param file XML file containing the scene definition
      * @return the constructed Scene instance
-     * @throws ParserConfigurationException if a parser cannot be created
-     * @throws SAXException                 if XML parsing fails
-     * @throws IOException                  if an I/O error occurs while reading the file
-     */
-    public static Scene loadSceneFromFile(File file)
-            throws ParserConfigurationException, SAXException, IOException {
-        // Set up XML parser
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document document = builder.parse(file);
-        document.getDocumentElement().normalize();
-
-        // Root element: <scene>
-        Element sceneElement = document.getDocumentElement();
-
-        // Parse background color attribute ("R G B")
-        String[] bgColorComponents = sceneElement
-                .getAttribute("background-color").split(" ");
-        Color backgroundColor = new Color(
-                Integer.parseInt(bgColorComponents[0]),
-                Integer.parseInt(bgColorComponents[1]),
-                Integer.parseInt(bgColorComponents[2])
-        );
-
-        // Parse ambient light element <ambient-light color="R G B"/>
-        Element ambientElement =
-                (Element) sceneElement.getElementsByTagName("ambient-light").item(0);
-        String[] ambientColorComponents = ambientElement
-                .getAttribute("color").split(" ");
-        AmbientLight ambientLight = new AmbientLight(
-                new Color(
-                        Integer.parseInt(ambientColorComponents[0]),
-                        Integer.parseInt(ambientColorComponents[1]),
-                        Integer.parseInt(ambientColorComponents[2])
-                )
-        );
-
-        // Parse geometry elements
-        Geometries geometries = new Geometries();
-
-        // -- Parse <sphere center="x y z" radius="r" /> --
-        NodeList spheres = sceneElement.getElementsByTagName("sphere");
-        for (int i = 0; i < spheres.getLength(); i++) {
-            Element sphereElement = (Element) spheres.item(i);
-            Point center = parsePoint(sphereElement.getAttribute("center"));
-            double radius = Double.parseDouble(sphereElement.getAttribute("radius"));
-            geometries.add(new Sphere(center, radius));
+     * @throws XMLStreamException if XML parsing fails or a value is malformed
+     * @throws IOException        if an I/O error occurs while reading the file or a mesh
+     */
+    public static Scene loadSceneFromFile(File file) throws XMLStreamException, IOException {
+        return loadSceneFromFile(file, null);
+    }
+
+    /**
+     * Parses and constructs a Scene from the given XML file and reports the parse throughput.
+     *
+     * @param file   XML file containing the scene definition
+     * @param report receives the statistics of the load, may be null
+     * @return the constructed Scene instance
+     * @throws XMLStreamException if XML parsing fails or a value is malformed
+     * @throws IOException        if an I/O error occurs while reading the file or a mesh
+     */
+    public static Scene loadSceneFromFile(File file, Consumer<ParseReport> report)
+            throws XMLStreamException, IOException {
+        long start = System.nanoTime();
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // scene files never need a DTD, and external entities would read arbitrary files
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        Scene scene = new Scene("XML Scene");
+        long elements = 0;
+        int geometryCount = 0;
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) continue;
+                    elements++;
+                    try {
+                        if (readElement(reader, scene, file)) geometryCount++;
+                    } catch (IllegalArgumentException e) {
+                        // invalid geometry or light parameters
+                        throw new XMLStreamException(e.getMessage(), reader.getLocation(), e);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
         }
 
-        // -- Parse <triangle p0="x y z" p1="x y z" p2="x y z" /> --
-        NodeList triangles = sceneElement.getElementsByTagName("triangle");
-        for (int i = 0; i < triangles.getLength(); i++) {
-            Element triangleElement = (Element) triangles.item(i);
-            Point p0 = parsePoint(triangleElement.getAttribute("p0"));
-            Point p1 = parsePoint(triangleElement.getAttribute("p1"));
-            Point p2 = parsePoint(triangleElement.getAttribute("p2"));
-            geometries.add(new Triangle(p0, p1, p2));
+        if (report != null)
+            report.accept(new ParseReport(file.length(), elements, geometryCount,
+                    scene.getLights().size(), System.nanoTime() - start));
+        return scene;
+    }
+
+    /**
+     * Adds the content of one element to the scene.
+     *
+     * @param reader the reader, positioned at the element start
+     * @param scene  the scene being built
+     * @param file   the scene file, for relative mesh paths
+     * @return true if the element was a geometry
+     * @throws XMLStreamException if an attribute is missing or malformed
+     * @throws IOException        if a mesh cannot be read
+     */
+    private static boolean readElement(XMLStreamReader reader, Scene scene, File file)
+            throws XMLStreamException, IOException {
+        String tag = reader.getLocalName();
+        switch (tag) {
+            case "scene" -> {
+                String background = reader.getAttributeValue(null, "background-color");
+                if (background != null) scene.setBackground(parseColor(reader, background));
+            }
+            case "ambient-light" -> scene.setAmbientLight(new AmbientLight(color(reader, "color")));
+            case "directional-light" ->
+                    scene.addLight(new DirectionalLight(color(reader, "color"), vector(reader, "direction")));
+            case "point-light" ->
+                    scene.addLight(pointLight(reader, new PointLight(color(reader, "color"), point(reader, "position"))));
+            case "spot-light" -> {
+                SpotLight light = new SpotLight(color(reader, "color"),
+                        point(reader, "position"), vector(reader, "direction"));
+                String beam = reader.getAttributeValue(null, "narrow-beam");
+                if (beam != null) light.setNarrowBeam(parseNumber(reader, beam));
+                scene.addLight(pointLight(reader, light));
+            }
+            default -> {
+                Geometry geometry = geometry(reader, tag, file);
+                if (geometry == null) return false;
+                scene.getGeometries().add(material(reader, geometry));
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * Creates the geometry of an element.
+     *
+     * @param reader the reader, positioned at the element start
+     * @param tag    name of the element
+     * @param file   the scene file, for relative mesh paths
+     * @return the geometry, or null if the element is not a geometry
+     * @throws XMLStreamException if an attribute is missing or malformed
+     * @throws IOException        if a mesh cannot be read
+     */
+    private static Geometry geometry(XMLStreamReader reader, String tag, File file)
+            throws XMLStreamException, IOException {
+        return switch (tag) {
+            case "sphere" -> new Sphere(point(reader, "center"), number(reader, "radius"));
+            case "triangle" -> new Triangle(point(reader, "p0"), point(reader, "p1"), point(reader, "p2"));
+            case "polygon" -> {
+                int count = 0;
+                while (reader.getAttributeValue(null, "p" + count) != null) count++;
+                Point[] vertices = new Point[count];
+                for (int i = 0; i < count; i++) vertices[i] = point(reader, "p" + i);
+                yield new Polygon(vertices);
+            }
+            case "plane" -> reader.getAttributeValue(null, "q0") != null
+                    ? new Plane(point(reader, "q0"), vector(reader, "normal"))
+                    : new Plane(point(reader, "p0"), point(reader, "p1"), point(reader, "p2"));
+            case "tube" -> new Tube(number(reader, "radius"), axis(reader));
+            case "cylinder" -> new Cylinder(number(reader, "radius"), axis(reader), number(reader, "height"));
+            case "mesh" -> loadMesh(file, attribute(reader, "file"));
+            default -> null;
+        };
+    }
+
+    /**
+     * Applies the optional emission and material attributes of a geometry element.
+     *
+     * @param reader   the reader, positioned at the element start
+     * @param geometry the geometry of the element
+     * @return the geometry
+     * @throws XMLStreamException if an attribute is malformed
+     */
+    private static Geometry material(XMLStreamReader reader, Geometry geometry) throws XMLStreamException {
+        String emission = reader.getAttributeValue(null, "emission");
+        if (emission != null) geometry.setEmission(parseColor(reader, emission));
+
+        Material material = null;
+        String[] names = { "ka", "kd", "ks", "kt", "kr", "shininess" };
+        for (String name : names) {
+            String value = reader.getAttributeValue(null, name);
+            if (value == null) continue;
+            if (material == null) material = new Material();
+            if (name.equals("shininess")) {
+                material.setShininess((int) parseNumber(reader, value));
+                continue;
+            }
+            Double3 k = parseFactor(reader, value);
+            switch (name) {
+                case "ka" -> material.setKA(k);
+                case "kd" -> material.setKD(k);
+                case "ks" -> material.setKS(k);
+                case "kt" -> material.setKT(k);
+                default -> material.setKR(k);
+            }
+        }
+        if (material != null) geometry.setMaterial(material);
+        return geometry;
+    }
+
+    /**
+     * Applies the optional attenuation and soft shadow attributes of a light element.
+     *
+     * @param reader the reader, positioned at the element start
+     * @param light  the light of the element
+     * @return the light
+     * @throws XMLStreamException if an attribute is malformed
+     */
+    private static PointLight pointLight(XMLStreamReader reader, PointLight light) throws XMLStreamException {
+        String value;
+        if ((value = reader.getAttributeValue(null, "kc")) != null) light.setKc(parseNumber(reader, value));
+        if ((value = reader.getAttributeValue(null, "kl")) != null) light.setKl(parseNumber(reader, value));
+        if ((value = reader.getAttributeValue(null, "kq")) != null) light.setKq(parseNumber(reader, value));
+        if ((value = reader.getAttributeValue(null, "radius")) != null) light.setRadius(parseNumber(reader, value));
+        if ((value = reader.getAttributeValue(null, "samples")) != null)
+            light.setNumSamples((int) parseNumber(reader, value));
+        return light;
+    }
+
+    /**
+     * Loads an OBJ or PLY mesh referenced by a scene file.
+     *
+     * @param sceneFile the scene file
+     * @param meshFile  path of the mesh, absolute or relative to the scene file
+     * @return the mesh
+     * @throws IOException if the mesh cannot be read
+     */
+    static TriangleMesh loadMesh(File sceneFile, String meshFile) throws IOException {
+        Path path = Path.of(meshFile);
+        File dir = sceneFile.getAbsoluteFile().getParentFile();
+        if (!path.isAbsolute() && dir != null) path = dir.toPath().resolve(path);
+        return MeshLoader.load(path);
+    }
+
+    // ******************************* Attributes *******************************
 
-        // Build and return the Scene
-        return new Scene("XML Scene", backgroundColor, ambientLight, geometries);
+    /**
+     * Returns a required attribute of the current element.
+     *
+     * @param reader the reader, positioned at the element start
+     * @param name   the attribute
+     * @return its value
+     * @throws XMLStreamException if the attribute is missing
+     */
+    private static String attribute(XMLStreamReader reader, String name) throws XMLStreamException {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null)
+            throw new XMLStreamException("<" + reader.getLocalName() + "> needs the attribute " + name,
+                    reader.getLocation());
+        return value;
+    }
+
+    /**
+     * Reads a required numeric attribute.
+     *
+     * @param reader the reader, positioned at the element start
+     * @param name   the attribute
+     * @return its value
+     * @throws XMLStreamException if the attribute is missing or malformed
+     */
+    private static double number(XMLStreamReader reader, String name) throws XMLStreamException {
+        return parseNumber(reader, attribute(reader, name));
+    }
+
+    /**
+     * Reads a required "x y z" attribute as a point.
+     *
+     * @param reader the reader, positioned at the element start
+     * @param name   the attribute
+     * @return the point
+     * @throws XMLStreamException if the attribute is missing or malformed
+     */
+    private static Point point(XMLStreamReader reader, String name) throws XMLStreamException {
+        double[] xyz = parseNumbers(reader, attribute(reader, name), 3);
+        return new Point(xyz[0], xyz[1], xyz[2]);
+    }
+
+    /**
+     * Reads a required "x y z" attribute as a vector.
+     *
+     * @param reader the reader, positioned at the element start
+     * @param name   the attribute
+     * @return the vector
+     * @throws XMLStreamException if the attribute is missing, malformed or the zero vector
+     */
+    private static Vector vector(XMLStreamReader reader, String name) throws XMLStreamException {
+        double[] xyz = parseNumbers(reader, attribute(reader, name), 3);
+        return new Vector(xyz[0], xyz[1], xyz[2]);
+    }
+
+    /**
+     * Reads a required "R G B" attribute as a color.
+     *
+     * @param reader the reader, positioned at the element start
+     * @param name   the attribute
+     * @return the color
+     * @throws XMLStreamException if the attribute is missing or malformed
+     */
+    private static Color color(XMLStreamReader reader, String name) throws XMLStreamException {
+        return parseColor(reader, attribute(reader, name));
+    }
+
+    /**
+     * Reads the "origin" and "direction" attributes as an axis ray.
+     *
+     * @param reader the reader, positioned at the element start
+     * @return the axis
+     * @throws XMLStreamException if an attribute is missing or malformed
+     */
+    private static Ray axis(XMLStreamReader reader) throws XMLStreamException {
+        return new Ray(point(reader, "origin"), vector(reader, "direction"));
+    }
+
+    /**
+     * Converts an "R G B" string into a Color.
+     *
+     * @param reader the reader, for the error location
+     * @param value  the string
+     * @return the color
+     * @throws XMLStreamException if the string is malformed
+     */
+    private static Color parseColor(XMLStreamReader reader, String value) throws XMLStreamException {
+        double[] rgb = parseNumbers(reader, value, 3);
+        return new Color(rgb[0], rgb[1], rgb[2]);
+    }
+
+    /**
+     * Converts a material factor, one number or three per color channel.
+     *
+     * @param reader the reader, for the error location
+     * @param value  the string
+     * @return the factor
+     * @throws XMLStreamException if the string is malformed
+     */
+    private static Double3 parseFactor(XMLStreamReader reader, String value) throws XMLStreamException {
+        if (value.trim().indexOf(' ') < 0) return new Double3(parseNumber(reader, value));
+        double[] k = parseNumbers(reader, value, 3);
+        return new Double3(k[0], k[1], k[2]);
+    }
+
+    /**
+     * Converts a string into a number.
+     *
+     * @param reader the reader, for the error location
+     * @param value  the string
+     * @return the number
+     * @throws XMLStreamException if the string is not a number
+     */
+    private static double parseNumber(XMLStreamReader reader, String value) throws XMLStreamException {
+        return parseNumbers(reader, value, 1)[0];
+    }
+
+    /**
+     * Converts a string of numbers separated by white space or commas, scanning it
+     * once instead of splitting it into an array of strings.
+     *
+     * @param reader the reader, for the error location
+     * @param value  the string
+     * @param count  the amount of numbers expected
+     * @return the numbers
+     * @throws XMLStreamException if the string does not hold exactly that many numbers
+     */
+    private static double[] parseNumbers(XMLStreamReader reader, String value, int count)
+            throws XMLStreamException {
+        double[] numbers = new double[count];
+        int found = 0, i = 0, length = value.length();
+        try {
+            while (true) {
+                while (i < length && isSeparator(value.charAt(i))) i++;
+                if (i == length) break;
+                int start = i;
+                while (i < length && !isSeparator(value.charAt(i))) i++;
+                if (found == count) {
+                    found = -1; // too many numbers
+                    break;
+                }
+                numbers[found++] = Double.parseDouble(value.substring(start, i));
+            }
+        } catch (NumberFormatException e) {
+            found = -1;
+        }
+        if (found != count || i != length)
+            throw new XMLStreamException("Expected " + count + " number(s) but got \"" + value + "\"",
+                    reader.getLocation());
+        return numbers;
     }
 
     /**
-     * Converts a space-separated coordinate string into a Point.
+     * Checks for a separator between numbers.
      *
-     * @param attribute space-delimited coordinates "x y z"
-     * @return Point instance at the specified coordinates
-     * @throws NumberFormatException if the string cannot be parsed as doubles
+     * @param c the character
+     * @return true for white space or a comma
      */
-    private static Point parsePoint(String attribute) {
-        String[] coords = attribute.split(" ");
-        return new Point(
-                Double.parseDouble(coords[0]),
-                Double.parseDouble(coords[1]),
-                Double.parseDouble(coords[2])
-        );
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == ',' || c == '\t' || c == '\n' || c == '\r';
     }
 }
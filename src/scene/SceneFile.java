@@ -0,0 +1,433 @@
+package scene;
+
+import geometries.Cylinder;
+import geometries.FlatBVH;
+import geometries.Geometries;
+import geometries.Geometry;
+import geometries.Intersectable;
+import geometries.Plane;
+import geometries.Polygon;
+import geometries.Sphere;
+import geometries.Triangle;
+import geometries.TriangleMesh;
+import geometries.Tube;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.LightSource;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vec3;
+import primitives.Vector;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled binary scene files.<br/>
+ * A scene is compiled once - parsed, and its {@link FlatBVH} built - and written with
+ * {@link #write(Path, Scene, View)}. {@link #read(Path)} maps the file into memory and
+ * restores the scene with bulk array copies: triangle meshes and the scene hierarchy
+ * come back exactly as they were built, so nothing is parsed or rebuilt and a worker
+ * can start tracing right after loading.<br/>
+ * Layout (big endian): the magic {@code RTSC} and the format version, the scene name,
+ * background and ambient light, the material table, the lights, the geometries in
+ * the leaf order of the hierarchy, the hierarchy itself, and an optional camera view.
+ * Files are limited to a single mapping (2GB).
+ */
+public final class SceneFile {
+    /** File signature - "RTSC" */
+    private static final int MAGIC = 0x52545343;
+    /** Version of the layout */
+    private static final int VERSION = 1;
+
+    /** Light record types */
+    private static final byte DIRECTIONAL = 0, POINT = 1, SPOT = 2;
+    /** Geometry record types */
+    private static final byte SPHERE = 0, TRIANGLE = 1, POLYGON = 2, PLANE = 3, TUBE = 4, CYLINDER = 5, MESH = 6;
+
+    /** Utility class */
+    private SceneFile() {
+    }
+
+    /**
+     * Camera placement stored with a compiled scene, to be applied with
+     * {@code Camera.Builder.setView}.
+     *
+     * @param location   camera location
+     * @param to         direction the camera looks at
+     * @param up         up direction of the camera
+     * @param distance   view plane distance
+     * @param width      view plane width
+     * @param height     view plane height
+     * @param resolutionX image width in pixels
+     * @param resolutionY image height in pixels
+     */
+    public record View(Point location, Vector to, Vector up, double distance,
+                       double width, double height, int resolutionX, int resolutionY) {
+    }
+
+    /**
+     * A scene restored from a compiled file.
+     *
+     * @param scene the scene, its geometries held by the stored hierarchy
+     * @param view  the stored camera view, or null if none was stored
+     */
+    public record Compiled(Scene scene, View view) {
+    }
+
+    /**
+     * Compiles a scene: builds a {@link FlatBVH} over all its geometries and writes
+     * the scene together with the hierarchy.
+     *
+     * @param path  the file to write
+     * @param scene the scene
+     * @param view  camera view to store, may be null
+     * @throws IOException if writing fails or a geometry or light type cannot be stored
+     */
+    public static void write(Path path, Scene scene, View view) throws IOException {
+        List<Intersectable> prims = new ArrayList<>(Geometries.primitivesOf(scene.getGeometries()));
+        FlatBVH bvh = FlatBVH.build(prims);
+        List<Intersectable> ordered = bvh.getPrimitives();
+
+        // materials are shared between geometries - store each once
+        Map<Material, Integer> materials = new IdentityHashMap<>();
+        List<Material> table = new ArrayList<>();
+        for (Intersectable prim : ordered) {
+            Material material = ((Geometry) prim).getMaterial();
+            if (!materials.containsKey(material)) {
+                materials.put(material, table.size());
+                table.add(material);
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            byte[] name = (scene.getName() == null ? "" : scene.getName()).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            writeColor(out, scene.getBackground());
+            writeColor(out, scene.getAmbientLight().getIntensity());
+
+            out.writeInt(table.size());
+            for (Material material : table) {
+                writeDouble3(out, material.getKA());
+                writeDouble3(out, material.getKD());
+                writeDouble3(out, material.getKS());
+                writeDouble3(out, material.getKT());
+                writeDouble3(out, material.getKR());
+                out.writeInt(material.getShininess());
+            }
+
+            out.writeInt(scene.getLights().size());
+            for (LightSource light : scene.getLights()) writeLight(out, light);
+
+            out.writeInt(ordered.size());
+            for (Intersectable prim : ordered) {
+                Geometry geometry = (Geometry) prim;
+                writeGeometry(out, geometry);
+                out.writeInt(materials.get(geometry.getMaterial()));
+                writeColor(out, geometry.getEmission());
+            }
+            bvh.write(out);
+
+            out.writeBoolean(view != null);
+            if (view != null) {
+                writePoint(out, view.location());
+                writePoint(out, view.to());
+                writePoint(out, view.up());
+                out.writeDouble(view.distance());
+                out.writeDouble(view.width());
+                out.writeDouble(view.height());
+                out.writeInt(view.resolutionX());
+                out.writeInt(view.resolutionY());
+            }
+        }
+    }
+
+    /**
+     * Loads a compiled scene through a memory mapping of the file.
+     *
+     * @param path the compiled file
+     * @return the scene, with the stored camera view if any
+     * @throws IOException if the file cannot be read, is not a compiled scene or is truncated
+     */
+    public static Compiled read(Path path) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Compiled scene exceeds 2GB: " + path);
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (in.getInt() != MAGIC) throw new IOException("Not a compiled scene: " + path);
+            int version = in.getInt();
+            if (version != VERSION) throw new IOException("Unsupported compiled scene version " + version);
+
+            byte[] name = new byte[in.getInt()];
+            in.get(name);
+            Scene scene = new Scene(new String(name, StandardCharsets.UTF_8))
+                    .setBackground(readColor(in))
+                    .setAmbientLight(new AmbientLight(readColor(in)));
+
+            Material[] materials = new Material[in.getInt()];
+            for (int i = 0; i < materials.length; i++) {
+                materials[i] = new Material()
+                        .setKA(readDouble3(in)).setKD(readDouble3(in)).setKS(readDouble3(in))
+                        .setKT(readDouble3(in)).setKR(readDouble3(in)).setShininess(in.getInt());
+            }
+
+            int lights = in.getInt();
+            for (int i = 0; i < lights; i++) scene.addLight(readLight(in));
+
+            int count = in.getInt();
+            List<Geometry> prims = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Geometry geometry = readGeometry(in);
+                geometry.setMaterial(materials[in.getInt()]);
+                geometry.setEmission(readColor(in));
+                prims.add(geometry);
+            }
+            scene.setGeometries(FlatBVH.read(in, prims));
+
+            View view = null;
+            if (in.get() != 0) {
+                view = new View(readPoint(in), readVector(in), readVector(in),
+                        in.getDouble(), in.getDouble(), in.getDouble(), in.getInt(), in.getInt());
+            }
+            return new Compiled(scene, view);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated or corrupt compiled scene: " + path, e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid value in compiled scene: " + e.getMessage(), e);
+        }
+    }
+
+    // ******************************* Lights *******************************
+
+    /**
+     * Writes a light record.
+     *
+     * @param out   the output
+     * @param light the light
+     * @throws IOException if writing fails or the light type cannot be stored
+     */
+    private static void writeLight(DataOutputStream out, LightSource light) throws IOException {
+        if (light instanceof DirectionalLight directional) {
+            out.writeByte(DIRECTIONAL);
+            writeColor(out, directional.getIntensity());
+            writePoint(out, directional.getDirection());
+            return;
+        }
+        if (!(light instanceof PointLight point))
+            throw new IOException("Cannot compile light " + light.getClass().getSimpleName());
+        if (point instanceof SpotLight spot) {
+            out.writeByte(SPOT);
+            writePoint(out, spot.getDirection());
+            out.writeDouble(spot.getNarrowBeam());
+        } else {
+            out.writeByte(POINT);
+        }
+        writeColor(out, point.getIntensity());
+        writePoint(out, point.getPosition());
+        out.writeDouble(point.getKc());
+        out.writeDouble(point.getKl());
+        out.writeDouble(point.getKq());
+        out.writeDouble(point.getRadius());
+        out.writeInt(point.getNumSamples());
+    }
+
+    /**
+     * Reads a light record.
+     *
+     * @param in the buffer
+     * @return the light
+     * @throws IOException if the record type is unknown
+     */
+    private static LightSource readLight(ByteBuffer in) throws IOException {
+        byte type = in.get();
+        if (type == DIRECTIONAL) return new DirectionalLight(readColor(in), readVector(in));
+
+        PointLight light;
+        if (type == SPOT) {
+            Vector direction = readVector(in);
+            double narrowBeam = in.getDouble();
+            light = new SpotLight(readColor(in), readPoint(in), direction).setNarrowBeam(narrowBeam);
+        } else if (type == POINT) {
+            light = new PointLight(readColor(in), readPoint(in));
+        } else {
+            throw new IOException("Unknown light record " + type);
+        }
+        return light.setKc(in.getDouble()).setKl(in.getDouble()).setKq(in.getDouble())
+                .setRadius(in.getDouble()).setNumSamples(in.getInt());
+    }
+
+    // ****************************** Geometries ******************************
+
+    /**
+     * Writes the type and shape of a geometry.
+     *
+     * @param out      the output
+     * @param geometry the geometry
+     * @throws IOException if writing fails or the geometry type cannot be stored
+     */
+    private static void writeGeometry(DataOutputStream out, Geometry geometry) throws IOException {
+        if (geometry instanceof Sphere sphere) {
+            out.writeByte(SPHERE);
+            writePoint(out, sphere.getCenter());
+            out.writeDouble(sphere.getRadius());
+        } else if (geometry instanceof Triangle triangle) {
+            out.writeByte(TRIANGLE);
+            for (Point p : triangle.vertices) writePoint(out, p);
+        } else if (geometry instanceof Polygon polygon) {
+            out.writeByte(POLYGON);
+            out.writeInt(polygon.vertices.size());
+            for (Point p : polygon.vertices) writePoint(out, p);
+        } else if (geometry instanceof Plane plane) {
+            out.writeByte(PLANE);
+            writePoint(out, plane.getQ0());
+            writePoint(out, plane.getNormal());
+        } else if (geometry instanceof Cylinder cylinder) {
+            out.writeByte(CYLINDER);
+            out.writeDouble(cylinder.getRadius());
+            writePoint(out, cylinder.getAxisRay().getPoint());
+            writePoint(out, cylinder.getAxisRay().getDirection());
+            out.writeDouble(cylinder.getHeight());
+        } else if (geometry instanceof Tube tube) {
+            out.writeByte(TUBE);
+            out.writeDouble(tube.getRadius());
+            writePoint(out, tube.getAxisRay().getPoint());
+            writePoint(out, tube.getAxisRay().getDirection());
+        } else if (geometry instanceof TriangleMesh mesh) {
+            out.writeByte(MESH);
+            mesh.write(out);
+        } else {
+            throw new IOException("Cannot compile geometry " + geometry.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Reads the type and shape of a geometry.
+     *
+     * @param in the buffer
+     * @return the geometry
+     * @throws IOException if the record type is unknown
+     */
+    private static Geometry readGeometry(ByteBuffer in) throws IOException {
+        byte type = in.get();
+        return switch (type) {
+            case SPHERE -> new Sphere(readPoint(in), in.getDouble());
+            case TRIANGLE -> new Triangle(readPoint(in), readPoint(in), readPoint(in));
+            case POLYGON -> {
+                Point[] vertices = new Point[in.getInt()];
+                for (int i = 0; i < vertices.length; i++) vertices[i] = readPoint(in);
+                yield new Polygon(vertices);
+            }
+            case PLANE -> new Plane(readPoint(in), readVector(in));
+            case TUBE -> new Tube(in.getDouble(), new Ray(readPoint(in), readVector(in)));
+            case CYLINDER -> new Cylinder(in.getDouble(), new Ray(readPoint(in), readVector(in)), in.getDouble());
+            case MESH -> TriangleMesh.read(in);
+            default -> throw new IOException("Unknown geometry record " + type);
+        };
+    }
+
+    // ******************************** Values ********************************
+
+    /**
+     * Writes the coordinates of a point or vector.
+     *
+     * @param out the output
+     * @param p   the point or vector
+     * @throws IOException if writing fails
+     */
+    private static void writePoint(DataOutputStream out, Point p) throws IOException {
+        out.writeDouble(p.getX());
+        out.writeDouble(p.getY());
+        out.writeDouble(p.getZ());
+    }
+
+    /**
+     * Writes the channels of a color.
+     *
+     * @param out   the output
+     * @param color the color
+     * @throws IOException if writing fails
+     */
+    private static void writeColor(DataOutputStream out, Color color) throws IOException {
+        Vec3 rgb = new Vec3().set(color);
+        out.writeDouble(rgb.x);
+        out.writeDouble(rgb.y);
+        out.writeDouble(rgb.z);
+    }
+
+    /**
+     * Writes a triple of factors.
+     *
+     * @param out the output
+     * @param k   the factors
+     * @throws IOException if writing fails
+     */
+    private static void writeDouble3(DataOutputStream out, Double3 k) throws IOException {
+        out.writeDouble(k.d1());
+        out.writeDouble(k.d2());
+        out.writeDouble(k.d3());
+    }
+
+    /**
+     * Reads a point.
+     *
+     * @param in the buffer
+     * @return the point
+     */
+    private static Point readPoint(ByteBuffer in) {
+        return new Point(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Reads a vector.
+     *
+     * @param in the buffer
+     * @return the vector
+     */
+    private static Vector readVector(ByteBuffer in) {
+        return new Vector(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Reads a color.
+     *
+     * @param in the buffer
+     * @return the color
+     */
+    private static Color readColor(ByteBuffer in) {
+        return new Color(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Reads a triple of factors.
+     *
+     * @param in the buffer
+     * @return the factors
+     */
+    private static Double3 readDouble3(ByteBuffer in) {
+        return new Double3(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+}
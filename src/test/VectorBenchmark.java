@@ -0,0 +1,121 @@
+package test;
+
+import static java.lang.System.out;
+
+import primitives.*;
+
+import java.util.Arrays;
+
+/**
+ * Micro-benchmark of the zero check in {@link Vector} construction.<br/>
+ * {@link Vector#scale(double)} by a factor of magnitude 1 or more goes through the
+ * unchecked internal factory, while a factor below 1 still goes through the checked
+ * constructor. Scaling by 1.0001 and by 0.9999 is the same arithmetic, so the
+ * difference between the two loops is the cost of the zero check.
+ * {@link Vector#normalize()}, which is unchecked as well, is measured for reference.
+ * The loops are interleaved in alternating order after a warm-up and store their
+ * results, so that the JIT cannot drop the allocations. The measurement is repeated
+ * in {@value #TRIALS} trials, and the median and the range of the zero check cost
+ * over the trials are printed, so that a difference can be told from noise.<br/>
+ * On JDK 17 the median stayed within a few percent of zero while single trials
+ * spread over more than 20%: the zero check is too cheap to be measured this way.
+ */
+public final class VectorBenchmark {
+    /** Amount of vectors per round */
+    private static final int      SIZE   = 1 << 16;
+    /** Amount of measured rounds per trial */
+    private static final int      ROUNDS = 100;
+    /** Amount of trials */
+    private static final int      TRIALS = 21;
+    /** Results of the last loop */
+    private static final Vector[] RESULT = new Vector[SIZE];
+
+    /** Don't let anyone instantiate this class. */
+    private VectorBenchmark() {}
+
+    /**
+     * Runs the benchmark and prints the time per operation
+     * @param args irrelevant here
+     */
+    public static void main(String[] args) {
+        Vector[] input = new Vector[SIZE];
+        java.util.Random rnd = new java.util.Random(1);
+        for (int i = 0; i < SIZE; ++i)
+            input[i] = new Vector(rnd.nextDouble() + 1, rnd.nextDouble() * 10 + 2, -rnd.nextDouble() - 3);
+
+        // warm-up: every loop compiled before any trial is measured
+        double sum = 0;
+        for (int r = 0; r < ROUNDS; ++r) sum += scale(input, 0.9999) + scale(input, 1.0001) + normalize(input);
+
+        double[] checked = new double[TRIALS], unchecked = new double[TRIALS], normalize = new double[TRIALS];
+        double[] cost = new double[TRIALS];
+        for (int trial = 0; trial < TRIALS; ++trial) {
+            long c = 0, u = 0, n = 0;
+            for (int r = 0; r < ROUNDS; ++r) {
+                // alternate the order, so that neither loop always runs right after the other
+                boolean checkedFirst = (r & 1) == 0;
+                long t0 = System.nanoTime();
+                sum += scale(input, checkedFirst ? 0.9999 : 1.0001);
+                long t1 = System.nanoTime();
+                sum += scale(input, checkedFirst ? 1.0001 : 0.9999);
+                long t2 = System.nanoTime();
+                sum += normalize(input);
+                long t3 = System.nanoTime();
+                c += checkedFirst ? t1 - t0 : t2 - t1;
+                u += checkedFirst ? t2 - t1 : t1 - t0;
+                n += t3 - t2;
+            }
+            double ops = (double) SIZE * ROUNDS;
+            checked[trial]   = c / ops;
+            unchecked[trial] = u / ops;
+            normalize[trial] = n / ops;
+            cost[trial]      = 100.0 * (c - u) / c;
+        }
+
+        out.printf("scale, checked   : %6.2f ns/op (median of %d trials)%n", median(checked), TRIALS);
+        out.printf("scale, unchecked : %6.2f ns/op%n", median(unchecked));
+        out.printf("normalize        : %6.2f ns/op%n", median(normalize));
+        Arrays.sort(cost);
+        out.printf("zero check costs : %5.1f%% of a checked scale, %5.1f%% to %5.1f%% over the trials"
+                + "  (checksum %.3f)%n", median(cost), cost[0], cost[TRIALS - 1], sum);
+    }
+
+    /**
+     * Finds the median of measurements
+     * @param values the measurements, reordered
+     * @return the median
+     */
+    private static double median(double[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    /**
+     * Scales all the vectors
+     * @param input  the vectors
+     * @param factor scale factor
+     * @return checksum
+     */
+    private static double scale(Vector[] input, double factor) {
+        double sum = 0;
+        for (int i = 0; i < SIZE; ++i) {
+            RESULT[i] = input[i].scale(factor);
+            sum += RESULT[i].getX();
+        }
+        return sum;
+    }
+
+    /**
+     * Normalizes all the vectors
+     * @param input the vectors
+     * @return checksum
+     */
+    private static double normalize(Vector[] input) {
+        double sum = 0;
+        for (int i = 0; i < SIZE; ++i) {
+            RESULT[i] = input[i].normalize();
+            sum += RESULT[i].getX();
+        }
+        return sum;
+    }
+}
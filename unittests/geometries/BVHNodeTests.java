@@ -0,0 +1,218 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link geometries.BVHNode} and its builders.
+ * Every hierarchy must report exactly the hits a flat {@link Geometries} reports.
+ */
+class BVHNodeTests {
+    /** Fixed seed so the random scene is the same on every run */
+    private static final long SEED = 5234;
+
+    /**
+     * Builds a scene of random small spheres and triangles.
+     * @param count amount of primitives
+     * @return the primitives
+     */
+    static List<Intersectable> randomScene(int count) {
+        Random rnd = new Random(SEED);
+        List<Intersectable> prims = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Point p = new Point(rnd.nextDouble() * 100 - 50, rnd.nextDouble() * 100 - 50, rnd.nextDouble() * 100 - 50);
+            if (i % 2 == 0)
+                prims.add(new Sphere(p, 0.5 + rnd.nextDouble()));
+            else
+                prims.add(new Triangle(p, p.add(new Vector(2, 0, 0.3)), p.add(new Vector(0, 2, -0.4))));
+        }
+        return prims;
+    }
+
+    /**
+     * Creates a build config with SAH splits.
+     * @return the config
+     */
+    static BVHBuildConfig sah() {
+        return new BVHBuildConfig().setStrategy(BVHSplitStrategy.SAH);
+    }
+
+    /**
+     * Shoots rays from the origin area and compares hit counts against brute force.
+     * @param prims primitives of the scene
+     * @param bvh   hierarchy over the primitives
+     */
+    static void assertSameHits(List<Intersectable> prims, Intersectable bvh) {
+        Geometries flat = new Geometries(prims.toArray(new Intersectable[0]));
+        Random rnd = new Random(SEED + 1);
+        for (int i = 0; i < 300; i++) {
+            Ray ray = new Ray(new Point(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5),
+                    new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5));
+            var expected = flat.calculateIntersections(ray);
+            var actual   = bvh.calculateIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), actual == null ? 0 : actual.size(),
+                    "BVH reported different hits than brute force for " + ray);
+        }
+    }
+
+    /**
+     * Test method for {@link BVHNode#build(List, BVHBuildConfig)} with the median strategy.
+     */
+    @Test
+    void testBuildMedian() {
+        List<Intersectable> prims = randomScene(500);
+        BVHNode root = BVHNode.build(new ArrayList<>(prims),
+                new BVHBuildConfig().setStrategy(BVHSplitStrategy.MEDIAN));
+        assertSameHits(prims, root);
+    }
+
+    /**
+     * Test method for {@link BVHNode#build(List, BVHBuildConfig)} with the SAH strategy.
+     */
+    @Test
+    void testBuildSAH() {
+        List<Intersectable> prims = randomScene(500);
+        // TC01: default SAH parameters
+        assertSameHits(prims, BVHNode.build(new ArrayList<>(prims), sah()));
+        // TC02: single-primitive leaves and expensive primitives
+        assertSameHits(prims, BVHNode.build(new ArrayList<>(prims),
+                sah().setMaxLeafSize(1).setIntersectionCost(4).setBinCount(8)));
+        // TC03: all the primitives at the same place cannot be binned
+        List<Intersectable> same = new ArrayList<>();
+        for (int i = 0; i < 20; i++) same.add(new Sphere(new Point(0, 0, 10), 1));
+        assertSameHits(same, BVHNode.build(new ArrayList<>(same), sah()));
+    }
+
+    /**
+     * Test method for {@link BVHNode#findClosestIntersection(Ray)}.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        // a triangle whose box the ray enters without hitting it, and one off the ray
+        List<Intersectable> prims = List.of(
+                new Triangle(new Point(0, 0, 0), new Point(2, 0, 0.5), new Point(0, 2, 1)),
+                new Triangle(new Point(10, 0, 0), new Point(12, 0, 0.5), new Point(10, 2, 1)));
+        BVHNode root = BVHNode.build(new ArrayList<>(prims), new BVHBuildConfig().setMaxLeafSize(1));
+        int[] nodes = { 0 };
+        Intersectable.setTraversalStats(new TraversalStats() {
+            @Override
+            public void nodeVisited() { nodes[0]++; }
+
+            @Override
+            public void primitiveTested(Class<? extends Intersectable> type) { }
+        });
+        try {
+            // =============== Boundary Values Tests ==================
+            // TC10: near child missed inside its box, far child not entered - the far child is skipped
+            assertNull(root.findClosestIntersection(new Ray(new Point(1.8, 1.8, 5), new Vector(0, 0, -1))),
+                    "Hit where both triangles are missed");
+            assertEquals(2, nodes[0], "Visited a child the ray does not enter");
+        } finally {
+            Intersectable.setTraversalStats(null);
+        }
+    }
+
+    /**
+     * Test method for the validation of {@link BVHBuildConfig} parameters.
+     */
+    @Test
+    void testConfig() {
+        BVHBuildConfig config = new BVHBuildConfig();
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxLeafSize(0), "Leaf size 0 accepted");
+        assertThrows(IllegalArgumentException.class, () -> config.setBinCount(1), "Single bin accepted");
+        assertThrows(IllegalArgumentException.class, () -> config.setIntersectionCost(0), "Zero cost accepted");
+        assertThrows(IllegalArgumentException.class, () -> config.setStrategy(null), "Null strategy accepted");
+        assertThrows(IllegalArgumentException.class, () -> config.setParallelThreshold(0), "Zero threshold accepted");
+        assertThrows(IllegalArgumentException.class, () -> config.setRebuildThreshold(0.5), "Shrinking threshold accepted");
+    }
+
+    /**
+     * Checks that two hierarchies have the same nodes with the same primitives in the same order.
+     * @param expected the expected hierarchy
+     * @param actual   the hierarchy to check
+     */
+    static void assertSameTree(BVHNode expected, BVHNode actual) {
+        assertEquals(expected.isLeaf(), actual.isLeaf(), "Different node kinds");
+        assertEquals(expected.getBoundingBox().min, actual.getBoundingBox().min, "Different node boxes");
+        assertEquals(expected.getBoundingBox().max, actual.getBoundingBox().max, "Different node boxes");
+        if (expected.isLeaf()) {
+            assertEquals(expected.getLeafObjects(), actual.getLeafObjects(), "Different leaf primitives");
+            return;
+        }
+        assertSameTree(expected.getLeft(), actual.getLeft());
+        assertSameTree(expected.getRight(), actual.getRight());
+    }
+
+    /**
+     * Test method for {@link BVHNode#build(List, BVHBuildConfig)} split into parallel tasks.
+     */
+    @Test
+    void testBuildParallel() {
+        List<Intersectable> prims = randomScene(3000);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: SAH splits - forked subtrees give the sequential hierarchy
+        BVHNode sequential = BVHNode.build(new ArrayList<>(prims),
+                sah().setParallelThreshold(Integer.MAX_VALUE));
+        BVHNode parallel = BVHNode.build(new ArrayList<>(prims), sah().setParallelThreshold(64));
+        assertSameTree(sequential, parallel);
+        assertSameHits(prims, parallel);
+        // TC02: median splits
+        assertSameTree(BVHNode.build(new ArrayList<>(prims), new BVHBuildConfig().setStrategy(BVHSplitStrategy.MEDIAN)),
+                BVHNode.build(new ArrayList<>(prims),
+                        new BVHBuildConfig().setStrategy(BVHSplitStrategy.MEDIAN).setParallelThreshold(64)));
+
+        // =============== Boundary Values Tests ==================
+        // TC10: every range forked, down to single primitives
+        assertSameTree(sequential, BVHNode.build(new ArrayList<>(prims), sah().setParallelThreshold(1)));
+        // TC11: leaves larger than the threshold are not split again
+        List<Intersectable> same = new ArrayList<>();
+        for (int i = 0; i < 20; i++) same.add(new Sphere(new Point(0, 0, 10), 1));
+        assertSameTree(BVHNode.build(new ArrayList<>(same), sah().setMaxLeafSize(32)),
+                BVHNode.build(new ArrayList<>(same), sah().setMaxLeafSize(32).setParallelThreshold(2)));
+    }
+
+    /**
+     * Test method for {@link BVHNode#build(List, BVHBuildConfig)} with the linear strategy.
+     */
+    @Test
+    void testBuildLinear() {
+        List<Intersectable> prims = randomScene(3000);
+        BVHBuildConfig linear = new BVHBuildConfig().setStrategy(BVHSplitStrategy.LBVH);
+        BVHBuildConfig treelets = new BVHBuildConfig().setStrategy(BVHSplitStrategy.LBVH).setTreeletRestructuring(true);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Morton order splits
+        assertSameHits(prims, BVHNode.build(new ArrayList<>(prims), linear));
+        // TC02: restructured treelets keep all the primitives and lower the SAH cost
+        assertSameHits(prims, BVHNode.build(new ArrayList<>(prims), treelets));
+        BVHBuilder.FlatTree plain = new BVHBuilder(prims, linear).buildFlat();
+        BVHBuilder.FlatTree restructured = new BVHBuilder(prims, treelets).buildFlat();
+        assertEquals(plain.nodeCount, restructured.nodeCount, "Restructuring changed the node count");
+        assertTrue(restructured.sahCost(treelets) < plain.sahCost(linear), "Restructuring did not lower the cost");
+        int[] sorted = restructured.order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) assertEquals(i, sorted[i], "Primitive lost by restructuring");
+        // TC03: forked subtrees give the sequential hierarchy
+        assertSameTree(BVHNode.build(new ArrayList<>(prims), linear),
+                BVHNode.build(new ArrayList<>(prims),
+                        new BVHBuildConfig().setStrategy(BVHSplitStrategy.LBVH).setParallelThreshold(64)));
+
+        // =============== Boundary Values Tests ==================
+        // TC10: all the primitives at the same place have equal codes
+        List<Intersectable> same = new ArrayList<>();
+        for (int i = 0; i < 20; i++) same.add(new Sphere(new Point(0, 0, 10), 1));
+        assertSameHits(same, BVHNode.build(new ArrayList<>(same), treelets));
+        // TC11: a single primitive
+        assertTrue(BVHNode.build(new ArrayList<>(prims.subList(0, 1)), treelets).isLeaf(), "Single primitive not in a leaf");
+    }
+}
@@ -0,0 +1,71 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link geometries.BoundingBox}.
+ */
+class BoundingBoxTests {
+    /** Unit cube from (0,0,0) to (1,1,1) */
+    private final BoundingBox box = new BoundingBox(Point.ZERO, new Point(1, 1, 1));
+
+    /**
+     * Test method for {@link BoundingBox#intersects(Ray, double, double, double[])}.
+     */
+    @Test
+    void testIntersects() {
+        double[] range = new double[2];
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: ray crosses the box
+        assertTrue(box.intersects(new Ray(new Point(-1, 0.5, 0.5), new Vector(1, 0, 0)), 0, 10, range),
+                "Ray through the box missed");
+        assertEquals(1, range[0], 1e-12, "Wrong entry distance");
+        assertEquals(2, range[1], 1e-12, "Wrong exit distance");
+        // TC02: ray passes beside the box
+        assertFalse(box.intersects(new Ray(new Point(-1, 2, 0.5), new Vector(1, 0, 0))), "Ray beside the box hit");
+        // TC03: box is behind the ray
+        assertFalse(box.intersects(new Ray(new Point(2, 0.5, 0.5), new Vector(1, 0, 0))), "Box behind the ray hit");
+        // TC04: ray starts inside the box
+        assertTrue(box.intersects(new Ray(new Point(0.5, 0.5, 0.5), new Vector(-1, -1, 0)), 0, 10, range),
+                "Ray from inside missed");
+        assertEquals(0, range[0], 1e-12, "Entry of an inside ray must be the interval start");
+        // TC05: box is farther than the interval
+        assertFalse(box.intersects(new Ray(new Point(-1, 0.5, 0.5), new Vector(1, 0, 0)), 0, 0.5, null),
+                "Box beyond the interval hit");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: ray parallel to a slab, origin on its plane
+        assertTrue(box.intersects(new Ray(new Point(-1, 0, 0.5), new Vector(1, 0, 0))), "Ray along a face missed");
+        // TC11: negative zero direction component
+        assertTrue(box.intersects(new Ray(new Point(0.5, 0.5, 2), new Vector(-0.0, 0, -1))),
+                "Ray with negative zero component missed");
+        // TC12: flat box
+        BoundingBox flat = new BoundingBox(Point.ZERO, new Point(1, 1, 0));
+        assertTrue(flat.intersects(new Ray(new Point(0.5, 0.5, 1), new Vector(0, 0, -1))), "Flat box missed");
+    }
+
+    /**
+     * Test method for {@link BoundingBox#entryDistance(Ray, double, double)}.
+     */
+    @Test
+    void testEntryDistance() {
+        // TC01: entry from the negative side
+        assertEquals(2, box.entryDistance(new Ray(new Point(0.5, 0.5, 3), new Vector(0, 0, -1)), 0, 10), 1e-12,
+                "Wrong entry distance");
+        // TC02: miss
+        assertEquals(Double.POSITIVE_INFINITY,
+                box.entryDistance(new Ray(new Point(0.5, 0.5, 3), new Vector(0, 0, 1)), 0, 10), "Miss must be infinite");
+        // TC03: infinite box is entered at the interval start
+        BoundingBox all = new Plane(Point.ZERO, new Vector(0, 0, 1)).getBoundingBox();
+        assertEquals(0, all.entryDistance(new Ray(new Point(5, 5, 5), new Vector(1, 2, 3)), 0, 10), 1e-12,
+                "Infinite box entry");
+        assertFalse(all.isBounded(), "Infinite box is not bounded");
+        assertTrue(box.isBounded(), "Finite box is bounded");
+    }
+}
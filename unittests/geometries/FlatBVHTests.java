@@ -0,0 +1,236 @@
+package geometries;
+
+import geometries.Intersectable.Intersection;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link geometries.FlatBVH}.
+ */
+class FlatBVHTests {
+
+    /**
+     * Test method for {@link FlatBVH#calculateIntersections(Ray)}.
+     */
+    @Test
+    void testCalculateIntersections() {
+        List<Intersectable> prims = BVHNodeTests.randomScene(400);
+        FlatBVH bvh = FlatBVH.build(new ArrayList<>(prims));
+        BVHNodeTests.assertSameHits(prims, bvh);
+    }
+
+    /**
+     * Test method for {@link FlatBVH#findClosestIntersection(Ray)}.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        List<Intersectable> prims = BVHNodeTests.randomScene(400);
+        Geometries flat = new Geometries(prims.toArray(new Intersectable[0]));
+        FlatBVH bvh = FlatBVH.build(new ArrayList<>(prims),
+                new BVHBuildConfig().setStrategy(BVHSplitStrategy.MEDIAN).setMaxLeafSize(2));
+        FlatBVH lbvh = FlatBVH.build(new ArrayList<>(prims),
+                new BVHBuildConfig().setStrategy(BVHSplitStrategy.LBVH).setTreeletRestructuring(true));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: random rays through the scene hit the same closest primitive
+        Random rnd = new Random(17);
+        for (int i = 0; i < 300; i++) {
+            Ray ray = new Ray(Point.ZERO, new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5));
+            Intersection expected = ray.findClosestIntersection(flat.calculateIntersections(ray));
+            for (FlatBVH hierarchy : List.of(bvh, lbvh)) {
+                Intersection actual = hierarchy.findClosestIntersection(ray);
+                if (expected == null)
+                    assertNull(actual, "BVH found a hit that does not exist");
+                else {
+                    assertNotNull(actual, "BVH missed the closest hit");
+                    assertEquals(expected.point, actual.point, "BVH returned a farther hit");
+                }
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: empty hierarchy
+        FlatBVH empty = FlatBVH.build(new ArrayList<>());
+        assertNull(empty.findClosestIntersection(new Ray(Point.ZERO, new Vector(0, 0, 1))), "Empty BVH has hits");
+        assertNull(empty.calculateIntersections(new Ray(Point.ZERO, new Vector(0, 0, 1))), "Empty BVH has hits");
+        FlatBVH emptyLinear = FlatBVH.build(new ArrayList<>(),
+                new BVHBuildConfig().setStrategy(BVHSplitStrategy.LBVH).setTreeletRestructuring(true));
+        assertNull(emptyLinear.findClosestIntersection(new Ray(Point.ZERO, new Vector(0, 0, 1))), "Empty BVH has hits");
+    }
+
+    /**
+     * Test method for {@link FlatBVH#isOccluded(Ray, double)}.
+     */
+    @Test
+    void testIsOccluded() {
+        List<Intersectable> prims = BVHNodeTests.randomScene(400);
+        Geometries flat = new Geometries(prims.toArray(new Intersectable[0]));
+        FlatBVH bvh = FlatBVH.build(new ArrayList<>(prims));
+        BVHNode tree = BVHNode.build(new ArrayList<>(prims));
+        Random rnd = new Random(23);
+        for (int i = 0; i < 300; i++) {
+            Ray ray = new Ray(Point.ZERO, new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5));
+            double maxDistance = rnd.nextDouble() * 80;
+            boolean expected = flat.isOccluded(ray, maxDistance);
+            assertEquals(expected, bvh.isOccluded(ray, maxDistance), "Flat BVH occlusion differs from brute force");
+            assertEquals(expected, tree.isOccluded(ray, maxDistance), "BVH tree occlusion differs from brute force");
+        }
+    }
+
+    /**
+     * Stored form of a hierarchy, which holds all its node arrays.
+     *
+     * @param bvh the hierarchy
+     * @return the bytes written by {@link FlatBVH#write(java.io.DataOutput)}
+     */
+    private static byte[] bytesOf(FlatBVH bvh) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            bvh.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Test method for {@link FlatBVH#build(List, BVHBuildConfig)} split into parallel tasks.
+     */
+    @Test
+    void testBuildParallel() {
+        List<Intersectable> prims = BVHNodeTests.randomScene(3000);
+        FlatBVH sequential = FlatBVH.build(new ArrayList<>(prims),
+                BVHNodeTests.sah().setParallelThreshold(Integer.MAX_VALUE));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: forked subtrees are placed into the same node arrays, with the same primitive order
+        FlatBVH parallel = FlatBVH.build(new ArrayList<>(prims), BVHNodeTests.sah().setParallelThreshold(64));
+        assertArrayEquals(bytesOf(sequential), bytesOf(parallel), "Parallel build differs from the sequential one");
+        assertEquals(sequential.getPrimitives(), parallel.getPrimitives(), "Different primitive order");
+        assertEquals(sequential.getDepth(), parallel.getDepth(), "Different depth");
+        assertTrue(parallel.getBuildNanos() > 0, "Build time not reported");
+        BVHNodeTests.assertSameHits(prims, parallel);
+        // TC02: linear build, with its radix sort split into chunks
+        BVHBuildConfig linear = new BVHBuildConfig().setStrategy(BVHSplitStrategy.LBVH).setTreeletRestructuring(true);
+        assertArrayEquals(bytesOf(FlatBVH.build(new ArrayList<>(prims), linear)),
+                bytesOf(FlatBVH.build(new ArrayList<>(prims), linear.setParallelThreshold(64))),
+                "Parallel linear build differs from the sequential one");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: every range forked, down to single primitives
+        FlatBVH all = FlatBVH.build(new ArrayList<>(prims), BVHNodeTests.sah().setParallelThreshold(1));
+        assertArrayEquals(bytesOf(sequential), bytesOf(all), "Parallel build differs from the sequential one");
+        // TC11: a flattened tree reports no build time
+        assertEquals(0, new FlatBVH(BVHNode.build(new ArrayList<>(prims))).getBuildNanos(), "Flattening is not a build");
+    }
+
+    /**
+     * Test method for {@link FlatBVH#build(List, BVHBuildConfig)} with unbounded primitives.
+     */
+    @Test
+    void testUnbounded() {
+        List<Intersectable> prims = BVHNodeTests.randomScene(300);
+        prims.add(new Plane(new Point(0, -40, 0), new Vector(0, 1, 0)));
+        prims.add(new Tube(2, new Ray(new Point(0, 0, 30), new Vector(1, 0, 0))));
+        FlatBVH bvh = FlatBVH.build(new ArrayList<>(prims));
+
+        // TC01: the plane and the tube are kept out of the hierarchy
+        assertEquals(2, bvh.getUnboundedCount(), "Wrong amount of excluded primitives");
+        assertEquals(300, bvh.getBoundedCount(), "Wrong amount of primitives in the hierarchy");
+        assertTrue(Double.isFinite(BVHNode.build(new ArrayList<>(prims.subList(0, 300))).getBoundingBox().max.getX()),
+                "Hierarchy box must be finite");
+
+        // TC02: excluded primitives are still hit by every query
+        BVHNodeTests.assertSameHits(prims, bvh);
+        BVHNodeTests.assertSameHits(prims, BVHNode.build(new ArrayList<>(prims)));
+        Geometries flat = new Geometries(prims.toArray(new Intersectable[0]));
+        Random rnd = new Random(29);
+        for (int i = 0; i < 300; i++) {
+            Ray ray = new Ray(Point.ZERO, new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5));
+            Intersection expected = flat.findClosestIntersection(ray);
+            Intersection actual   = bvh.findClosestIntersection(ray);
+            if (expected == null)
+                assertNull(actual, "BVH found a hit that does not exist");
+            else {
+                assertNotNull(actual, "BVH missed the closest hit");
+                assertEquals(expected.t, actual.t, 1e-9, "BVH returned a farther hit");
+            }
+            assertEquals(flat.isOccluded(ray, 60), bvh.isOccluded(ray, 60), "Occlusion differs from brute force");
+        }
+
+        // TC03: only unbounded primitives
+        FlatBVH planes = FlatBVH.build(new ArrayList<>(List.of(new Plane(new Point(0, 0, 5), new Vector(0, 0, 1)))));
+        assertEquals(0, planes.getBoundedCount(), "Plane must not enter the hierarchy");
+        assertNotNull(planes.findClosestIntersection(new Ray(Point.ZERO, new Vector(0, 0, 1))), "Plane was not hit");
+    }
+
+    /**
+     * Test method for {@link FlatBVH#refit()} and {@link BVHNode#refit()}.
+     */
+    @Test
+    void testRefit() {
+        // small meshes as primitives, moved through their vertex arrays
+        Random rnd = new Random(61);
+        List<double[]> vertexArrays = new ArrayList<>();
+        List<Intersectable> meshes = new ArrayList<>();
+        for (int m = 0; m < 200; m++) {
+            double[] vertices = new double[9 * 4];
+            double cx = rnd.nextDouble() * 100 - 50, cy = rnd.nextDouble() * 100 - 50, cz = rnd.nextDouble() * 100 - 50;
+            for (int v = 0; v < vertices.length; v += 3) {
+                vertices[v]     = cx + rnd.nextDouble() * 4;
+                vertices[v + 1] = cy + rnd.nextDouble() * 4;
+                vertices[v + 2] = cz + rnd.nextDouble() * 4;
+            }
+            vertexArrays.add(vertices);
+            meshes.add(new TriangleMesh(vertices, new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 }));
+        }
+        FlatBVH bvh = FlatBVH.build(new ArrayList<>(meshes), new BVHBuildConfig().setParallelThreshold(8));
+        BVHNode tree = BVHNode.build(new ArrayList<>(meshes));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: every other mesh moved a little - boxes refitted, no rebuild
+        for (int m = 0; m < meshes.size(); m += 2) {
+            double[] vertices = vertexArrays.get(m);
+            for (int v = 0; v < vertices.length; v += 3) vertices[v] += 3;
+        }
+        bvh.refit();
+        tree.refit();
+        assertEquals(0, bvh.getRebuildCount(), "Small motion rebuilt the hierarchy");
+        BVHNodeTests.assertSameHits(meshes, bvh);
+        BVHNodeTests.assertSameHits(meshes, tree);
+
+        // TC02: the meshes swap places - the hierarchy decays and is rebuilt
+        for (int m = 0; m < meshes.size(); m++) {
+            double[] vertices = vertexArrays.get(m), other = vertexArrays.get(meshes.size() - 1 - m);
+            double dx = other[0] - vertices[0], dy = other[1] - vertices[1], dz = other[2] - vertices[2];
+            if (m < meshes.size() / 2)
+                for (int v = 0; v < vertices.length; v += 3) {
+                    vertices[v] += dx;
+                    vertices[v + 1] += dy;
+                    vertices[v + 2] += dz;
+                    other[v] -= dx;
+                    other[v + 1] -= dy;
+                    other[v + 2] -= dz;
+                }
+        }
+        bvh.refit();
+        tree.refit();
+        assertEquals(1, bvh.getRebuildCount(), "Decayed hierarchy was not rebuilt");
+        assertEquals(FlatBVH.build(new ArrayList<>(meshes)).getSahCost(), bvh.getSahCost(), 1e-9,
+                "Rebuilt hierarchy differs from a new one");
+        BVHNodeTests.assertSameHits(meshes, bvh);
+        BVHNodeTests.assertSameHits(meshes, tree);
+    }
+}
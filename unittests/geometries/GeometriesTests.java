@@ -103,4 +103,93 @@ public class GeometriesTests {
         assertNotNull(result4, "Expected intersections with all shapes");
         assertEquals(3, result4.size(), "Wrong number of total intersections");
     }
+
+    /**
+     * Test method for {@link Intersectable#isOccluded(Ray, double)}.
+     * For every kind of geometry the any-hit answer must agree with the
+     * distances of the full intersection list.
+     */
+    @Test
+    public void testIsOccluded() {
+        Intersectable[] shapes = {
+                new Sphere(new Point(0, 0, 5), 2),
+                new Plane(new Point(0, 0, 3), new Vector(0.2, 0.1, 1)),
+                new Triangle(new Point(-3, -3, 4), new Point(3, -3, 4), new Point(0, 3, 4)),
+                new Polygon(new Point(-2, -2, 2), new Point(2, -2, 2), new Point(2, 2, 2), new Point(-2, 2, 2)),
+                new Tube(1, new Ray(new Point(0, 0, 6), new Vector(1, 0, 0))),
+                new Cylinder(1, new Ray(new Point(0, -1, 6), new Vector(0, 1, 0)), 2)
+        };
+        java.util.Random rnd = new java.util.Random(1716);
+        for (Intersectable shape : shapes) {
+            for (int i = 0; i < 200; i++) {
+                Ray ray = new Ray(new Point(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, 0),
+                        new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, 1));
+                double maxDistance = rnd.nextDouble() * 10;
+                var hits = shape.calculateIntersections(ray);
+                boolean expected = hits != null && hits.stream()
+                        .anyMatch(h -> ray.getPoint().distance(h.point) < maxDistance);
+                assertEquals(expected, shape.isOccluded(ray, maxDistance),
+                        "Wrong occlusion of " + shape + " for " + ray + " within " + maxDistance);
+            }
+        }
+
+        // Composite: blocked only when a member is closer than the limit
+        Geometries geo = new Geometries(shapes[0], shapes[2]);
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, 1));
+        assertTrue(geo.isOccluded(ray, 3.5), "Sphere at distance 3 should block");
+        assertFalse(geo.isOccluded(ray, 2.5), "Nothing should block before distance 3");
+        assertFalse(new Geometries().isOccluded(ray, 100), "Empty collection should not block");
+    }
+
+    /**
+     * Test method for {@link Intersectable#findClosestIntersection(Ray, double, double)}.
+     * For every kind of geometry the bounded query must return the nearest hit of the
+     * full intersection list inside the interval, together with its distance.
+     */
+    @Test
+    public void testFindClosestIntersectionBounded() {
+        Intersectable[] shapes = {
+                new Sphere(new Point(0, 0, 5), 2),
+                new Plane(new Point(0, 0, 3), new Vector(0.2, 0.1, 1)),
+                new Triangle(new Point(-3, -3, 4), new Point(3, -3, 4), new Point(0, 3, 4)),
+                new Polygon(new Point(-2, -2, 2), new Point(2, -2, 2), new Point(2, 2, 2), new Point(-2, 2, 2)),
+                new Tube(1, new Ray(new Point(0, 0, 6), new Vector(1, 0, 0))),
+                new Cylinder(1, new Ray(new Point(0, -1, 6), new Vector(0, 1, 0)), 2)
+        };
+        java.util.Random rnd = new java.util.Random(5234);
+        for (Intersectable shape : shapes) {
+            for (int i = 0; i < 200; i++) {
+                Ray ray = new Ray(new Point(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, 0),
+                        new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, 1));
+                double tMin = rnd.nextDouble() * 4;
+                double tMax = tMin + rnd.nextDouble() * 6;
+                var hits = shape.calculateIntersections(ray);
+                Point expected = null;
+                double best = tMax;
+                if (hits != null)
+                    for (var h : hits) {
+                        double d = ray.getPoint().distance(h.point);
+                        if (d > tMin && d < best) {
+                            best     = d;
+                            expected = h.point;
+                        }
+                    }
+                var actual = shape.findClosestIntersection(ray, tMin, tMax);
+                if (expected == null)
+                    assertNull(actual, "Unexpected hit of " + shape + " for " + ray);
+                else {
+                    assertNotNull(actual, "Missed hit of " + shape + " for " + ray);
+                    assertEquals(expected, actual.point, "Wrong closest hit of " + shape);
+                    assertEquals(best, actual.t, 1e-9, "Wrong distance of the closest hit of " + shape);
+                }
+            }
+        }
+
+        // Composite: the interval excludes the nearer shape
+        Geometries geo = new Geometries(shapes[0], shapes[2]);
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, 1));
+        assertEquals(3, geo.findClosestIntersection(ray).t, 1e-9, "Sphere front should be the closest");
+        assertEquals(4, geo.findClosestIntersection(ray, 3.5, 10).t, 1e-9, "Triangle should be next");
+        assertNull(geo.findClosestIntersection(ray, 0, 2.5), "Nothing should be hit before distance 3");
+    }
 }
@@ -0,0 +1,247 @@
+package geometries;
+
+import geometries.Intersectable.Intersection;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link geometries.Instance}.
+ */
+class InstanceTests {
+    /** Delta for comparing ray parameters */
+    private static final double DELTA = 1e-9;
+
+    /** Scaling, rotation and translation of the shared shapes */
+    private static final Transform PLACEMENT = Transform.scaling(2, 0.5, 1.5)
+            .then(Transform.rotation(new Vector(1, 2, -1), 0.8))
+            .then(Transform.translation(new Vector(3, -2, 5)));
+
+    /**
+     * Builds random triangles around the origin.
+     * @param count amount of triangles
+     * @param rnd   random source
+     * @return the triangle corners, three per triangle
+     */
+    private static List<Point> randomCorners(int count, Random rnd) {
+        List<Point> corners = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double cx = rnd.nextDouble() * 10 - 5, cy = rnd.nextDouble() * 10 - 5, cz = rnd.nextDouble() * 10 - 5;
+            for (int k = 0; k < 3; k++)
+                corners.add(new Point(cx + rnd.nextDouble() * 2 - 1, cy + rnd.nextDouble() * 2 - 1, cz + rnd.nextDouble() * 2 - 1));
+        }
+        return corners;
+    }
+
+    /**
+     * Builds triangles over corners, each moved by a transformation.
+     * @param corners   the corners, three per triangle
+     * @param transform the transformation
+     * @return the triangles
+     */
+    private static List<Intersectable> trianglesOf(List<Point> corners, Transform transform) {
+        List<Intersectable> triangles = new ArrayList<>();
+        for (int i = 0; i < corners.size(); i += 3)
+            triangles.add(new Triangle(transform.transform(corners.get(i)), transform.transform(corners.get(i + 1)),
+                    transform.transform(corners.get(i + 2))));
+        return triangles;
+    }
+
+    /**
+     * Builds a random ray aimed at a region.
+     * @param rnd    random source
+     * @param target center of the region
+     * @param spread size of the region
+     * @return the ray
+     */
+    private static Ray randomRay(Random rnd, Point target, double spread) {
+        Point origin = target.add(new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5)
+                .normalize().scale(4 * spread));
+        Point aim = target.add(new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5)
+                .scale(spread));
+        return new Ray(origin, aim.subtract(origin));
+    }
+
+    /**
+     * Checks that an instance answers a ray like the shape it stands for.
+     * @param expected the shape placed directly in world space
+     * @param actual   the instance
+     * @param ray      the ray
+     */
+    private static void assertSameHits(Intersectable expected, Intersectable actual, Ray ray) {
+        Intersection e = expected.findClosestIntersection(ray);
+        Intersection a = actual.findClosestIntersection(ray);
+        if (e == null) {
+            assertNull(a, "Instance hit where the shape is missed");
+            assertFalse(actual.isOccluded(ray, 1e6), "Instance occludes where the shape is missed");
+            return;
+        }
+        assertNotNull(a, "Instance missed the shape");
+        assertEquals(e.t, a.t, DELTA, "Wrong distance");
+        assertEquals(e.point, a.point, "Wrong point");
+        assertEquals(e.normal, a.normal, "Wrong normal");
+        assertSame(ray, a.ray, "Hit is not on the world ray");
+        assertTrue(actual.isOccluded(ray, e.t + 1e-6), "Instance does not occlude before the hit");
+        assertEquals(expected.isOccluded(ray, e.t - 1e-6), actual.isOccluded(ray, e.t - 1e-6),
+                "Wrong occlusion before the hit");
+        assertEquals(expected.calculateIntersections(ray).size(), actual.calculateIntersections(ray).size(),
+                "Wrong amount of hits");
+    }
+
+    /**
+     * Test method for {@link Instance#findClosestIntersection(Ray)}.
+     */
+    @Test
+    void testIntersections() {
+        Random rnd = new Random(5);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: scaled and moved sphere
+        Instance sphere = new Instance(new Sphere(Point.ZERO, 1),
+                Transform.scaling(2).then(Transform.translation(new Vector(5, 0, 0))));
+        Sphere direct = new Sphere(new Point(5, 0, 0), 2);
+        for (int i = 0; i < 200; i++)
+            assertSameHits(direct, sphere, randomRay(rnd, new Point(5, 0, 0), 3));
+
+        // TC02: hierarchy of triangles under rotation and non-uniform scaling
+        List<Point> corners = randomCorners(100, rnd);
+        Instance mesh = new Instance(FlatBVH.build(trianglesOf(corners, Transform.IDENTITY)), PLACEMENT);
+        Geometries world = new Geometries();
+        for (Intersectable t : trianglesOf(corners, PLACEMENT)) world.add(t);
+        Point center = PLACEMENT.transform(Point.ZERO);
+        for (int i = 0; i < 300; i++)
+            assertSameHits(world, mesh, randomRay(rnd, center, 10));
+
+        // =============== Boundary Values Tests ==================
+        // TC10: distance interval is measured in world units
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(1, 0, 0));
+        assertEquals(3, sphere.findClosestIntersection(ray).t, DELTA, "Wrong entry distance");
+        assertEquals(7, sphere.findClosestIntersection(ray, 3, 10).t, DELTA, "Wrong exit distance");
+        assertNull(sphere.findClosestIntersection(ray, 0, 3), "Hit beyond the interval");
+        assertFalse(sphere.isOccluded(ray, 3), "Occluded beyond the distance");
+    }
+
+    /**
+     * Test method for {@link Instance#getBoundingBox()}.
+     */
+    @Test
+    void testBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: box holds every transformed corner
+        List<Point> corners = randomCorners(20, new Random(9));
+        BoundingBox box = new Instance(FlatBVH.build(trianglesOf(corners, Transform.IDENTITY)), PLACEMENT)
+                .getBoundingBox();
+        for (Point p : corners) {
+            Point q = PLACEMENT.transform(p);
+            for (int axis = 0; axis < 3; axis++) {
+                double c = axis == 0 ? q.getX() : axis == 1 ? q.getY() : q.getZ();
+                assertTrue(box.getBound(axis) <= c + DELTA && c - DELTA <= box.getBound(axis + 3),
+                        "Corner outside the box");
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: unbounded shape
+        Instance plane = new Instance(new Plane(Point.ZERO, new Vector(0, 0, 1)), PLACEMENT);
+        assertFalse(plane.isBounded(), "Unbounded shape got a finite box");
+    }
+
+    /**
+     * Test method for a two-level hierarchy - a {@link FlatBVH} over instances of a
+     * shared {@link FlatBVH}.
+     */
+    @Test
+    void testTwoLevel() {
+        Random rnd = new Random(17);
+        List<Point> corners = randomCorners(30, rnd);
+        FlatBVH shared = FlatBVH.build(trianglesOf(corners, Transform.IDENTITY));
+        List<Intersectable> instances = new ArrayList<>();
+        Geometries world = new Geometries();
+        for (int i = 0; i < 500; i++) {
+            Transform t = Transform.scaling(0.5 + rnd.nextDouble())
+                    .then(Transform.rotation(new Vector(0, 0, 1), rnd.nextDouble() * 6))
+                    .then(Transform.translation(new Vector(rnd.nextDouble() * 400 - 200, rnd.nextDouble() * 400 - 200, 0)));
+            instances.add(new Instance(shared, t));
+            for (Intersectable triangle : trianglesOf(corners, t)) world.add(triangle);
+        }
+        FlatBVH top = FlatBVH.build(instances);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the two levels answer like the transformed triangles
+        for (int i = 0; i < 300; i++) {
+            Ray ray = randomRay(rnd, new Point(0, 0, 0), 200);
+            Intersection e = world.findClosestIntersection(ray);
+            Intersection a = top.findClosestIntersection(ray);
+            if (e == null) {
+                assertNull(a, "Two levels hit where the triangles are missed");
+            } else {
+                assertNotNull(a, "Two levels missed the triangles");
+                assertEquals(e.t, a.t, DELTA, "Wrong distance");
+                assertEquals(e.point, a.point, "Wrong point");
+            }
+            assertEquals(e != null, top.isOccluded(ray, 1e6), "Wrong occlusion");
+        }
+        // TC02: the instances keep the shared hierarchy, not copies of it
+        for (Intersectable part : Geometries.partsOf(top))
+            assertSame(shared, ((Instance) part).getObject(), "Instance does not share the hierarchy");
+        assertThrows(IllegalArgumentException.class, () -> Geometries.primitivesOf(top),
+                "Expanded instances into shared geometries");
+    }
+
+    /**
+     * Test method for {@link Instance#refit()}.
+     */
+    @Test
+    void testRefit() {
+        Random rnd = new Random(23);
+        List<Point> corners = randomCorners(40, rnd);
+        double[] vertices = new double[3 * corners.size()];
+        int[] indices = new int[corners.size()];
+        for (int v = 0; v < corners.size(); v++) {
+            vertices[3 * v]     = corners.get(v).getX();
+            vertices[3 * v + 1] = corners.get(v).getY();
+            vertices[3 * v + 2] = corners.get(v).getZ();
+            indices[v] = v;
+        }
+        TriangleMesh shared = new TriangleMesh(vertices, indices);
+        List<Transform> placements = new ArrayList<>();
+        List<Intersectable> instances = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Transform t = Transform.rotation(new Vector(0, 0, 1), rnd.nextDouble() * 6)
+                    .then(Transform.translation(new Vector(rnd.nextDouble() * 300 - 150, rnd.nextDouble() * 300 - 150, 0)));
+            placements.add(t);
+            instances.add(new Instance(shared, t));
+        }
+        FlatBVH top = FlatBVH.build(instances, new BVHBuildConfig().setParallelThreshold(8));
+        for (int v = 0; v < vertices.length; v += 3) vertices[v + 2] += 7;
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: refitting the instances leaves the shared shape alone
+        BoundingBox stale = shared.getBoundingBox();
+        top.refit();
+        assertSame(stale, shared.getBoundingBox(), "Instance refitted the shared shape");
+
+        // TC02: the shared shape refitted once, then the instances - the two levels follow the motion
+        shared.refit();
+        top.refit();
+        List<Point> moved = new ArrayList<>();
+        for (int v = 0; v < vertices.length; v += 3) moved.add(new Point(vertices[v], vertices[v + 1], vertices[v + 2]));
+        Geometries world = new Geometries();
+        for (Transform t : placements)
+            for (Intersectable triangle : trianglesOf(moved, t)) world.add(triangle);
+        for (int i = 0; i < 200; i++) {
+            Ray ray = randomRay(rnd, new Point(0, 0, 7), 150);
+            Intersection e = world.findClosestIntersection(ray);
+            Intersection a = top.findClosestIntersection(ray);
+            assertEquals(e == null, a == null, "Wrong hit after the refit");
+            if (e != null) assertEquals(e.t, a.t, DELTA, "Wrong distance after the refit");
+        }
+    }
+}
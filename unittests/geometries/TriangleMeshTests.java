@@ -0,0 +1,250 @@
+package geometries;
+
+import geometries.Intersectable.Intersection;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link geometries.TriangleMesh}.
+ */
+class TriangleMeshTests {
+    /** Delta for comparing ray parameters */
+    private static final double DELTA = 1e-9;
+
+    /** A unit square in the z=0 plane made of two triangles sharing the diagonal */
+    private static final double[] SQUARE_VERTICES = { 0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0 };
+    /** Triangles of the square, counter-clockwise seen from +z */
+    private static final int[] SQUARE_INDICES = { 0, 1, 2, 0, 2, 3 };
+
+    /**
+     * Builds a random triangle soup, as a mesh and as separate {@link Triangle}s.
+     * @param count     amount of triangles
+     * @param triangles receives the separate triangles
+     * @return the mesh over the same triangles
+     */
+    private static TriangleMesh randomMesh(int count, List<Intersectable> triangles) {
+        Random rnd = new Random(31);
+        double[] vertices = new double[9 * count];
+        int[] indices = new int[3 * count];
+        for (int tri = 0; tri < count; tri++) {
+            Point[] p = new Point[3];
+            double cx = rnd.nextDouble() * 100 - 50, cy = rnd.nextDouble() * 100 - 50, cz = rnd.nextDouble() * 100 - 50;
+            for (int k = 0; k < 3; k++) {
+                p[k] = new Point(cx + rnd.nextDouble() * 4 - 2, cy + rnd.nextDouble() * 4 - 2, cz + rnd.nextDouble() * 4 - 2);
+                vertices[9 * tri + 3 * k]     = p[k].getX();
+                vertices[9 * tri + 3 * k + 1] = p[k].getY();
+                vertices[9 * tri + 3 * k + 2] = p[k].getZ();
+                indices[3 * tri + k] = 3 * tri + k;
+            }
+            triangles.add(new Triangle(p[0], p[1], p[2]));
+        }
+        return new TriangleMesh(vertices, indices,
+                new BVHBuildConfig().setStrategy(BVHSplitStrategy.SAH).setMaxLeafSize(4));
+    }
+
+    /**
+     * Test method for {@link TriangleMesh#TriangleMesh(double[], int[])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: correct mesh
+        TriangleMesh mesh = new TriangleMesh(SQUARE_VERTICES, SQUARE_INDICES);
+        assertEquals(2, mesh.getTriangleCount(), "Wrong triangle count");
+        assertEquals(4, mesh.getVertexCount(), "Wrong vertex count");
+        BoundingBox box = mesh.getBoundingBox();
+        assertEquals(new Point(0, 0, 0), box.min, "Wrong box minimum");
+        assertEquals(new Point(1, 1, 0), box.max, "Wrong box maximum");
+
+        // TC02: indices not in triples
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(SQUARE_VERTICES, new int[] { 0, 1 }), "Constructed a partial triangle");
+        // TC03: index out of range
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(SQUARE_VERTICES, new int[] { 0, 1, 4 }), "Constructed with a missing vertex");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: empty mesh
+        TriangleMesh empty = new TriangleMesh(new double[0], new int[0]);
+        assertNull(empty.findClosestIntersection(new Ray(Point.ZERO, new Vector(0, 0, 1))), "Empty mesh has hits");
+        assertFalse(empty.isOccluded(new Ray(Point.ZERO, new Vector(0, 0, 1)), 10), "Empty mesh occludes");
+    }
+
+    /**
+     * Test method for {@link TriangleMesh#getNormal(Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        TriangleMesh mesh = new TriangleMesh(SQUARE_VERTICES, SQUARE_INDICES);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: point inside a triangle
+        assertEquals(new Vector(0, 0, 1), mesh.getNormal(new Point(0.7, 0.2, 0)), "Wrong normal");
+        // TC02: point off the mesh
+        assertThrows(IllegalArgumentException.class, () -> mesh.getNormal(new Point(2, 2, 0)),
+                "Normal of a point outside the mesh");
+    }
+
+    /**
+     * Test method for {@link TriangleMesh#findClosestIntersection(Ray)}.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        TriangleMesh square = new TriangleMesh(SQUARE_VERTICES, SQUARE_INDICES);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: ray through a triangle
+        Intersection hit = square.findClosestIntersection(new Ray(new Point(0.25, 0.5, 2), new Vector(0, 0, -1)));
+        assertNotNull(hit, "Missed the square");
+        assertEquals(new Point(0.25, 0.5, 0), hit.point, "Wrong hit point");
+        assertEquals(2, hit.t, DELTA, "Wrong ray parameter");
+        assertEquals(new Vector(0, 0, 1), hit.normal, "Wrong hit normal");
+        // TC02: ray beside the mesh
+        assertNull(square.findClosestIntersection(new Ray(new Point(1.5, 0.5, 2), new Vector(0, 0, -1))),
+                "Hit outside the square");
+        // TC03: ray pointing away
+        assertNull(square.findClosestIntersection(new Ray(new Point(0.5, 0.5, 2), new Vector(0, 0, 1))),
+                "Hit behind the ray");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: ray through the shared diagonal does not slip through the seam
+        assertNotNull(square.findClosestIntersection(new Ray(new Point(0.5, 0.5, 2), new Vector(0, 0, -1))),
+                "Ray slipped through the seam");
+        // TC11: ray parallel to the mesh
+        assertNull(square.findClosestIntersection(new Ray(new Point(-1, 0.5, 0), new Vector(1, 0, 0))),
+                "Hit a parallel ray");
+
+        // TC12: random rays find the same closest hit as the separate triangles
+        List<Intersectable> triangles = new ArrayList<>();
+        TriangleMesh mesh = randomMesh(500, triangles);
+        Geometries flat = new Geometries(triangles.toArray(new Intersectable[0]));
+        Random rnd = new Random(37);
+        for (int i = 0; i < 500; i++) {
+            Ray ray = new Ray(Point.ZERO, new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5));
+            Intersection expected = flat.findClosestIntersection(ray);
+            Intersection actual   = mesh.findClosestIntersection(ray);
+            if (expected == null)
+                assertNull(actual, "Mesh found a hit that does not exist");
+            else {
+                assertNotNull(actual, "Mesh missed the closest hit");
+                assertEquals(expected.t, actual.t, DELTA, "Mesh returned a different hit");
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link TriangleMesh#isOccluded(Ray, double)} and
+     * {@link TriangleMesh#calculateIntersections(Ray)}.
+     */
+    @Test
+    void testIsOccluded() {
+        List<Intersectable> triangles = new ArrayList<>();
+        TriangleMesh mesh = randomMesh(500, triangles);
+        Geometries flat = new Geometries(triangles.toArray(new Intersectable[0]));
+        Random rnd = new Random(41);
+        for (int i = 0; i < 500; i++) {
+            Ray ray = new Ray(Point.ZERO, new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5));
+            double maxDistance = rnd.nextDouble() * 80;
+            assertEquals(flat.isOccluded(ray, maxDistance), mesh.isOccluded(ray, maxDistance),
+                    "Mesh occlusion differs from separate triangles");
+            List<Intersection> expected = flat.calculateIntersections(ray);
+            List<Intersection> actual   = mesh.calculateIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), actual == null ? 0 : actual.size(),
+                    "Mesh hit count differs from separate triangles");
+        }
+    }
+
+    /**
+     * Creates separate triangles over the vertices of a triangle soup.
+     * @param vertices vertex coordinates - three vertices per triangle, in order
+     * @return the triangles
+     */
+    static List<Intersectable> trianglesOf(double[] vertices) {
+        List<Intersectable> triangles = new ArrayList<>();
+        for (int v = 0; v < vertices.length; v += 9)
+            triangles.add(new Triangle(new Point(vertices[v], vertices[v + 1], vertices[v + 2]),
+                    new Point(vertices[v + 3], vertices[v + 4], vertices[v + 5]),
+                    new Point(vertices[v + 6], vertices[v + 7], vertices[v + 8])));
+        return triangles;
+    }
+
+    /**
+     * Checks the closest hits of a mesh against separate triangles.
+     * @param triangles the triangles
+     * @param mesh      the mesh over the same triangles
+     * @param seed      seed of the random rays
+     */
+    private static void assertSameClosest(List<Intersectable> triangles, Intersectable mesh, long seed) {
+        Geometries flat = new Geometries(triangles.toArray(new Intersectable[0]));
+        Random rnd = new Random(seed);
+        for (int i = 0; i < 300; i++) {
+            Ray ray = new Ray(new Point(rnd.nextDouble() * 20, 0, 0),
+                    new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5));
+            Intersection expected = flat.findClosestIntersection(ray);
+            Intersection actual   = mesh.findClosestIntersection(ray);
+            if (expected == null)
+                assertNull(actual, "Mesh found a hit that does not exist");
+            else {
+                assertNotNull(actual, "Mesh missed the closest hit");
+                assertEquals(expected.t, actual.t, DELTA, "Mesh returned a different hit");
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link TriangleMesh#refit()}.
+     */
+    @Test
+    void testRefit() {
+        double[] vertices = new double[9 * 500];
+        int[] indices = new int[3 * 500];
+        Random rnd = new Random(43);
+        for (int tri = 0; tri < 500; tri++) {
+            double cx = rnd.nextDouble() * 100 - 50, cy = rnd.nextDouble() * 100 - 50, cz = rnd.nextDouble() * 100 - 50;
+            for (int k = 0; k < 3; k++) {
+                vertices[9 * tri + 3 * k]     = cx + rnd.nextDouble() * 4 - 2;
+                vertices[9 * tri + 3 * k + 1] = cy + rnd.nextDouble() * 4 - 2;
+                vertices[9 * tri + 3 * k + 2] = cz + rnd.nextDouble() * 4 - 2;
+                indices[3 * tri + k] = 3 * tri + k;
+            }
+        }
+        TriangleMesh mesh = new TriangleMesh(vertices, indices, new BVHBuildConfig().setParallelThreshold(16));
+        double cost = mesh.getSahCost();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the whole mesh shifted - the boxes follow, the cost and the structure stay
+        for (int v = 0; v < vertices.length; v += 3) vertices[v] += 30;
+        mesh.refit();
+        assertEquals(cost, mesh.getSahCost(), 1e-6, "Shifted mesh changed its cost");
+        assertEquals(0, mesh.getRebuildCount(), "Shifted mesh was rebuilt");
+        assertEquals(80, mesh.getBoundingBox().max.getX(), 2, "Mesh box did not follow the vertices");
+        assertSameClosest(trianglesOf(vertices), mesh, 47);
+
+        // TC02: triangles scattered over the whole space - the hierarchy decays and is rebuilt
+        for (int tri = 0; tri < 500; tri++) {
+            double dx = rnd.nextDouble() * 400 - 200, dy = rnd.nextDouble() * 400 - 200;
+            for (int k = 0; k < 3; k++) {
+                vertices[9 * tri + 3 * k]     += dx;
+                vertices[9 * tri + 3 * k + 1] += dy;
+            }
+        }
+        mesh.refit();
+        assertEquals(1, mesh.getRebuildCount(), "Decayed mesh was not rebuilt");
+        assertSameClosest(trianglesOf(vertices), mesh, 53);
+
+        // =============== Boundary Values Tests ==================
+        // TC10: a mesh that never rebuilds keeps its structure through any motion
+        TriangleMesh stiff = new TriangleMesh(vertices, indices,
+                new BVHBuildConfig().setRebuildThreshold(Double.POSITIVE_INFINITY));
+        for (int v = 1; v < vertices.length; v += 3) vertices[v] = -vertices[v];
+        stiff.refit();
+        assertEquals(0, stiff.getRebuildCount(), "Mesh rebuilt against its config");
+        assertSameClosest(trianglesOf(vertices), stiff, 59);
+    }
+}
@@ -0,0 +1,113 @@
+package geometries;
+
+import geometries.Intersectable.Intersection;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link geometries.UniformGrid}.
+ */
+class UniformGridTests {
+
+    /**
+     * Checks the closest hit and the occlusion of a ray against brute force.
+     *
+     * @param flat        all the primitives, tested one by one
+     * @param grid        the grid over the same primitives
+     * @param ray         the ray
+     * @param maxDistance occlusion distance
+     */
+    private static void assertSameClosest(Geometries flat, UniformGrid grid, Ray ray, double maxDistance) {
+        Intersection expected = flat.findClosestIntersection(ray);
+        Intersection actual   = grid.findClosestIntersection(ray);
+        if (expected == null)
+            assertNull(actual, "Grid found a hit that does not exist");
+        else {
+            assertNotNull(actual, "Grid missed the closest hit");
+            assertEquals(expected.t, actual.t, 1e-9, "Grid returned a farther hit");
+        }
+        assertEquals(flat.isOccluded(ray, maxDistance), grid.isOccluded(ray, maxDistance),
+                "Grid occlusion differs from brute force");
+    }
+
+    /**
+     * Test method for {@link UniformGrid#calculateIntersections(Ray)}.
+     */
+    @Test
+    void testCalculateIntersections() {
+        List<Intersectable> prims = BVHNodeTests.randomScene(400);
+        BVHNodeTests.assertSameHits(prims, new UniformGrid(prims));
+    }
+
+    /**
+     * Test method for {@link UniformGrid#findClosestIntersection(Ray)} and
+     * {@link UniformGrid#isOccluded(Ray, double)}.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        List<Intersectable> prims = BVHNodeTests.randomScene(400);
+        Geometries flat = new Geometries(prims.toArray(new Intersectable[0]));
+        UniformGrid grid = new UniformGrid(prims);
+        Random rnd = new Random(31);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: rays starting inside the grid
+        for (int i = 0; i < 300; i++) {
+            Ray ray = new Ray(Point.ZERO, new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5));
+            assertSameClosest(flat, grid, ray, rnd.nextDouble() * 80);
+        }
+        // TC02: rays starting outside the grid
+        for (int i = 0; i < 300; i++) {
+            Point  from = new Point(rnd.nextDouble() * 400 - 200, rnd.nextDouble() * 400 - 200, 300);
+            Point  to   = new Point(rnd.nextDouble() * 100 - 50, rnd.nextDouble() * 100 - 50, rnd.nextDouble() * 100 - 50);
+            assertSameClosest(flat, grid, new Ray(from, to.subtract(from)), rnd.nextDouble() * 600);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC10: rays parallel to the axes
+        for (int i = 0; i < 100; i++) {
+            Point from = new Point(rnd.nextDouble() * 100 - 50, rnd.nextDouble() * 100 - 50, rnd.nextDouble() * 100 - 50);
+            for (Vector dir : List.of(new Vector(1, 0, 0), new Vector(0, -1, 0), new Vector(0, 0, 1)))
+                assertSameClosest(flat, grid, new Ray(from, dir), 50);
+        }
+        // TC11: empty grid
+        UniformGrid empty = new UniformGrid(new ArrayList<>());
+        assertNull(empty.findClosestIntersection(new Ray(Point.ZERO, new Vector(0, 0, 1))), "Empty grid has hits");
+        assertNull(empty.calculateIntersections(new Ray(Point.ZERO, new Vector(0, 0, 1))), "Empty grid has hits");
+        assertFalse(empty.isOccluded(new Ray(Point.ZERO, new Vector(0, 0, 1)), 100), "Empty grid occludes");
+        // TC12: a single flat primitive - one cell across its thin axis
+        UniformGrid flatGrid = new UniformGrid(List.of(
+                new Triangle(new Point(-10, -10, 0), new Point(10, -10, 0), new Point(0, 10, 0))));
+        assertEquals(1, flatGrid.getResolution()[2], "Flat box must have a single layer");
+        assertNotNull(flatGrid.findClosestIntersection(new Ray(new Point(0, 0, 5), new Vector(0, 0, -1))),
+                "Flat triangle was not hit");
+    }
+
+    /**
+     * Test method for {@link UniformGrid#UniformGrid(List)} with unbounded primitives.
+     */
+    @Test
+    void testUnbounded() {
+        List<Intersectable> prims = BVHNodeTests.randomScene(300);
+        prims.add(new Plane(new Point(0, -40, 0), new Vector(0, 1, 0)));
+        prims.add(new Tube(2, new Ray(new Point(0, 0, 30), new Vector(1, 0, 0))));
+        Geometries flat = new Geometries(prims.toArray(new Intersectable[0]));
+        UniformGrid grid = new UniformGrid(prims);
+
+        // TC01: the plane and the tube are still hit by every query
+        BVHNodeTests.assertSameHits(prims, grid);
+        Random rnd = new Random(37);
+        for (int i = 0; i < 300; i++) {
+            Ray ray = new Ray(Point.ZERO, new Vector(rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5, rnd.nextDouble() - 0.5));
+            assertSameClosest(flat, grid, ray, 60);
+        }
+    }
+}
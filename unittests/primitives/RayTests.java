@@ -48,4 +48,25 @@ public class RayTests {
         Point expected = new Point(1, 2, 3);
         assertEquals(expected, ray.getPoint(0), "Ray should return its origin point for t=0");
     }
+
+    /**
+     * Test case for the cached inverse direction and direction signs.
+     * <p>
+     * Verifies the inverse of each component, the infinite inverse of a zero
+     * component and that a negative zero component counts as negative.
+     */
+    @Test
+    public void testInverseDirection() {
+        Ray ray = new Ray(new Point(1, 2, 3), new Vector(0, -3, 4));
+        assertEquals(1, ray.getOrigin(0), 1e-12, "Wrong cached origin");
+        assertEquals(Double.POSITIVE_INFINITY, ray.getInverseDirection(0), "Zero component must invert to infinity");
+        assertEquals(-5d / 3, ray.getInverseDirection(1), 1e-12, "Wrong inverse direction");
+        assertEquals(5d / 4, ray.getInverseDirection(2), 1e-12, "Wrong inverse direction");
+        assertEquals(0, ray.getDirectionSign(0), "Positive zero component is not negative");
+        assertEquals(1, ray.getDirectionSign(1), "Negative component sign");
+        assertEquals(0, ray.getDirectionSign(2), "Positive component sign");
+
+        Ray negZero = new Ray(Point.ZERO, new Vector(-0.0, 0, 1));
+        assertEquals(1, negZero.getDirectionSign(0), "Negative zero component must count as negative");
+    }
 }
@@ -0,0 +1,72 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link primitives.Transform}.
+ */
+class TransformTests {
+    /** A point off every axis */
+    private static final Point P = new Point(1, 2, 3);
+
+    /**
+     * Test method for {@link Transform#transform(Point)} and {@link Transform#transform(Vector)}.
+     */
+    @Test
+    void testTransform() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: translation moves points but not directions
+        Transform move = Transform.translation(new Vector(1, -1, 2));
+        assertEquals(new Point(2, 1, 5), move.transform(P), "Wrong translated point");
+        assertEquals(new Vector(1, 2, 3), move.transform(new Vector(1, 2, 3)), "Translated a direction");
+        // TC02: scaling along the axes
+        assertEquals(new Point(2, -2, 9), Transform.scaling(2, -1, 3).transform(P), "Wrong scaled point");
+        // TC03: rotation agrees with Vector#rotate
+        Vector axis = new Vector(1, 1, 0);
+        assertEquals(new Vector(1, 2, 3).rotate(axis, 0.7),
+                Transform.rotation(axis, 0.7).transform(new Vector(1, 2, 3)), "Wrong rotated direction");
+        // TC04: composition applies the first transformation first
+        assertEquals(new Point(3, 3, 8), Transform.scaling(2).then(move).transform(P), "Wrong composition order");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: identity
+        assertEquals(P, Transform.IDENTITY.transform(P), "Identity moved the point");
+        // TC11: singular scaling
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 0, 1), "Built a singular transformation");
+    }
+
+    /**
+     * Test method for {@link Transform#inverseTransform(Point)} and {@link Transform#inverse()}.
+     */
+    @Test
+    void testInverse() {
+        Transform t = Transform.scaling(2, 3, 0.5)
+                .then(Transform.rotation(new Vector(1, 2, 3), 1.1))
+                .then(Transform.translation(new Vector(4, -5, 6)));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: inverse of a transformed point
+        assertEquals(P, t.inverseTransform(t.transform(P)), "Inverse did not restore the point");
+        // TC02: inverse of a transformed direction
+        Vector v = new Vector(-1, 0.5, 2);
+        assertEquals(v, t.inverseTransform(t.transform(v)), "Inverse did not restore the direction");
+        // TC03: inverse transformation
+        assertEquals(t.inverseTransform(P), t.inverse().transform(P), "Wrong inverse transformation");
+    }
+
+    /**
+     * Test method for {@link Transform#transformNormal(Vector)}.
+     */
+    @Test
+    void testTransformNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: normal stays perpendicular to a transformed tangent under non-uniform scaling
+        Transform t = Transform.rotation(new Vector(0, 0, 1), 0.3).then(Transform.scaling(1, 4, 0.2));
+        Vector normal  = new Vector(1, 1, 1);
+        Vector tangent = new Vector(1, -1, 0);
+        Vector n = t.transformNormal(normal);
+        assertEquals(1, n.length(), 1e-12, "Normal is not a unit vector");
+        assertEquals(0, n.dotProduct(t.transform(tangent)), 1e-12, "Normal is not perpendicular to the surface");
+    }
+}
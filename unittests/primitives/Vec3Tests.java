@@ -0,0 +1,59 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link Vec3} class.
+ * <p>
+ * The in-place operations must agree with the immutable {@link Vector} and
+ * {@link Color} arithmetic they replace on the hot paths.
+ */
+public class Vec3Tests {
+    private static final double DELTA = 1e-12;
+
+    /**
+     * Test case for the vector operations of {@link Vec3}.
+     */
+    @Test
+    public void testVectorOperations() {
+        Vector a = new Vector(1, 2, 3), b = new Vector(-2, 0.5, 4);
+        Vec3 va = new Vec3().set(a), vb = new Vec3().set(b);
+
+        // TC01: dot product
+        assertEquals(a.dotProduct(b), va.dot(vb), DELTA, "Wrong dot product");
+        assertEquals(a.dotProduct(b), va.dot(b), DELTA, "Wrong dot product with a vector");
+        assertEquals(a.dotProduct(b), Vec3.dot(1, 2, 3, -2, 0.5, 4), DELTA, "Wrong component dot product");
+        // TC02: cross product
+        assertEquals(a.crossProduct(b), new Vec3().cross(va, vb).toVector(), "Wrong cross product");
+        // TC03: chained in-place add, subtract and scale
+        assertEquals(a.add(b).scale(2).subtract(b), new Vec3().set(a).add(vb).scale(2).subtract(vb).toVector(),
+                "Wrong chained arithmetic");
+        // TC04: moving a point along a vector
+        assertEquals(new Point(1, 1, 1).add(b.scale(3)), new Vec3(1, 1, 1).addScaled(b, 3).toPoint(),
+                "Wrong scaled addition");
+        // TC05: normalization
+        assertEquals(a.normalize(), new Vec3().set(a).normalize().toVector(), "Wrong normalization");
+        assertEquals(a.lengthSquared(), va.lengthSquared(), DELTA, "Wrong squared length");
+        assertEquals(a.normalize(), new Vec3().set(a).toUnitVector(), "Wrong unit vector");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: zero triple stays zero and cannot become a vector
+        Vec3 zero = new Vec3().normalize();
+        assertEquals(0, zero.lengthSquared(), DELTA, "Zero triple must stay zero");
+        assertThrows(IllegalArgumentException.class, zero::toVector, "Zero vector is not allowed");
+        assertThrows(ArithmeticException.class, zero::toUnitVector, "Zero vector cannot be normalized");
+    }
+
+    /**
+     * Test case for the color accumulation of {@link Vec3}.
+     */
+    @Test
+    public void testColorAccumulation() {
+        Color c1 = new Color(10, 20, 30), c2 = new Color(100, 50, 0);
+        Double3 k = new Double3(0.5, 1, 2);
+        Color expected = c1.add(c2.scale(k));
+        assertEquals(expected, new Vec3().set(c1).addScaled(c2, k).toColor(), "Wrong color accumulation");
+    }
+}
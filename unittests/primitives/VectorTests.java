@@ -96,4 +96,19 @@ class VectorTests {
         Vector result = v.normalize();
         assertEquals(new Vector(0, 0.6, 0.8), result, "Normalization failed");
     }
+
+    /**
+     * Test method for the zero check of {@link primitives.Vector#scale(double)}.
+     * <p>
+     * Verifies that factors of magnitude 1 or more, which skip the check, still
+     * scale correctly, and that a factor below 1 that makes the vector vanish is
+     * still rejected.
+     */
+    @Test
+    void scaleZeroCheck() {
+        Vector v = new Vector(1e-9, 0, 0);
+        assertEquals(new Vector(-3e-9, 0, 0), v.scale(-3), "Unchecked scaling failed");
+        assertThrows(IllegalArgumentException.class, () -> v.scale(0.1), "Vanishing vector must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> new Vector(0, 0, 0), "Zero vector must be rejected");
+    }
 }
@@ -0,0 +1,116 @@
+package renderer;
+
+import geometries.BVHNode;
+import geometries.FlatBVH;
+import geometries.Geometries;
+import geometries.Intersectable;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Vector;
+import scene.Scene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Render tests of scenes held in a {@link FlatBVH}, against the same scenes in a
+ * {@link BVHNode} tree and in a plain {@link Geometries} list.
+ */
+class FlatBVHRenderTests {
+
+   /**
+    * Builds a small forest - trunks and crowns of random trees before a backdrop.
+    * @return the primitives, the backdrop last
+    */
+   private static List<Intersectable> forest() {
+      Random rnd = new Random(11);
+      Material bark  = new Material().setKD(0.6).setKS(0.2).setShininess(20);
+      Material leaves = new Material().setKD(0.5).setKS(0.3).setShininess(30).setKR(0.2);
+      List<Intersectable> prims = new ArrayList<>();
+      for (int i = 0; i < 60; i++) {
+         double x = rnd.nextDouble() * 300 - 150, z = -rnd.nextDouble() * 200 - 50;
+         prims.add(new Triangle(new Point(x - 4, -100, z), new Point(x + 4, -100, z), new Point(x, -40, z))
+               .setEmission(new Color(70, 40, 20)).setMaterial(bark));
+         prims.add(new Sphere(new Point(x, -30, z), 15 + rnd.nextDouble() * 10)
+               .setEmission(new Color(20, 90, 30)).setMaterial(leaves));
+      }
+      prims.add(new Plane(new Point(0, 0, -700), new Vector(0, 0, 1))
+            .setEmission(new Color(30, 30, 50)).setMaterial(new Material().setKD(0.5)));
+      return prims;
+   }
+
+   /**
+    * Renders the forest held in a structure.
+    * @param geometries the structure over the forest
+    * @param name       name of the image
+    * @return the image
+    */
+   private static BufferedImage render(Geometries geometries, String name) {
+      Scene scene = new Scene(name).setAmbientLight(new AmbientLight(new Color(30, 30, 30)));
+      scene.setGeometries(geometries);
+      scene.lights.add(new PointLight(new Color(600, 600, 600), new Point(0, 200, 0)).setKl(1E-4));
+      Camera.getBuilder()
+            .setRayTracer(scene, RayTracerType.SIMPLE)
+            .setLocation(new Point(0, -40, 300))
+            .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+            .setVpDistance(300).setVpSize(150, 150)
+            .setResolution(80, 80)
+            .setMultithreading(2)
+            .build()
+            .renderImage()
+            .writeToImage(name);
+      try {
+         return ImageIO.read(new File(System.getProperty("user.dir") + "/images/" + name + ".png"));
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   /**
+    * Checks that two images have the same pixels.
+    * @param expected the expected image
+    * @param actual   the image to check
+    */
+   private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+      for (int y = 0; y < expected.getHeight(); y++)
+         for (int x = 0; x < expected.getWidth(); x++)
+            assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "Wrong pixel " + x + "," + y);
+   }
+
+   /**
+    * Test method for rendering a scene held in a {@link FlatBVH}.
+    */
+   @Test
+   void testRender() {
+      List<Intersectable> prims = forest();
+      BufferedImage plain = render(new Geometries(prims.toArray(new Intersectable[0])), "flat bvh plain");
+      int trees = 0;
+      for (int y = 0; y < plain.getHeight(); y++)
+         for (int x = 0; x < plain.getWidth(); x++)
+            if (plain.getRGB(x, y) != plain.getRGB(0, 0)) trees++;
+      assertTrue(trees > plain.getWidth() * plain.getHeight() / 10, "The forest is not in view");
+
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: the flattened hierarchy renders the plain list image
+      assertSameImage(plain, render(new Geometries(FlatBVH.build(new ArrayList<>(prims))), "flat bvh built"));
+      // TC02: a flattened pointer tree renders the same image as the tree itself
+      BVHNode tree = BVHNode.build(new ArrayList<>(prims));
+      assertSameImage(plain, render(new Geometries(tree), "flat bvh tree"));
+      assertSameImage(plain, render(new Geometries(new FlatBVH(tree)), "flat bvh flattened"));
+   }
+}
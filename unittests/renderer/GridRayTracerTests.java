@@ -0,0 +1,114 @@
+package renderer;
+
+import geometries.Geometries;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Vector;
+import scene.Scene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link renderer.GridRayTracer}.
+ */
+class GridRayTracerTests {
+
+   /**
+    * Renders a scene with a ray tracer type.
+    * @param scene the scene
+    * @param type  the ray tracer type
+    * @return the image
+    */
+   private static BufferedImage render(Scene scene, RayTracerType type) {
+      return render(camera(scene, type), type);
+   }
+
+   /**
+    * Builds the test camera over a scene.
+    * @param scene the scene
+    * @param type  the ray tracer type
+    * @return the camera
+    */
+   private static Camera camera(Scene scene, RayTracerType type) {
+      return Camera.getBuilder()
+            .setRayTracer(scene, type)
+            .setLocation(new Point(0, 0, 1000))
+            .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+            .setVpDistance(1000).setVpSize(200, 200)
+            .setResolution(60, 60)
+            .setMultithreading(0)
+            .build();
+   }
+
+   /**
+    * Renders an image with a camera.
+    * @param camera the camera
+    * @param type   the ray tracer type, naming the image
+    * @return the image
+    */
+   private static BufferedImage render(Camera camera, RayTracerType type) {
+      camera.renderImage().writeToImage("grid " + type);
+      try {
+         return ImageIO.read(new File(System.getProperty("user.dir") + "/images/grid " + type + ".png"));
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   /**
+    * Test method for {@link GridRayTracer#traceRay(primitives.Ray)}.
+    */
+   @Test
+   void testTraceRay() {
+      Scene scene = new Scene("Grid test scene");
+      scene.geometries.add(
+            new Sphere(new Point(0, 0, -200), 60)
+                  .setEmission(new Color(java.awt.Color.BLUE))
+                  .setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(30).setKR(0.3)),
+            new Triangle(new Point(-150, -150, -300), new Point(150, -150, -300), new Point(75, 75, -300))
+                  .setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(30)),
+            new Plane(new Point(0, -100, 0), new Vector(0, 1, 0))
+                  .setEmission(new Color(20, 20, 20)));
+      scene.setAmbientLight(new AmbientLight(new Color(38, 38, 38)));
+      scene.lights.add(new SpotLight(new Color(400, 240, 0), new Point(40, 40, 115), new Vector(-1, -1, -4))
+            .setKl(4E-4).setKq(2E-5));
+
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: the grid tracer renders the same image as the simple tracer
+      var expected = render(scene, RayTracerType.SIMPLE);
+      var actual   = render(scene, RayTracerType.GRID);
+      for (int y = 0; y < expected.getHeight(); y++)
+         for (int x = 0; x < expected.getWidth(); x++)
+            assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "Wrong pixel " + x + "," + y);
+   }
+
+   /**
+    * Test method for a scene whose geometries are set after the ray tracer.
+    */
+   @Test
+   void testLateGeometries() {
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: both tracers see geometries set after the camera was built
+      for (RayTracerType type : new RayTracerType[] { RayTracerType.SIMPLE, RayTracerType.GRID }) {
+         Scene scene = new Scene("Late geometries scene");
+         Camera camera = camera(scene, type);
+         scene.setGeometries(new Geometries(
+               new Sphere(new Point(0, 0, -200), 60).setEmission(new Color(java.awt.Color.BLUE))));
+         BufferedImage image = render(camera, type);
+         assertNotEquals(image.getRGB(0, 0), image.getRGB(30, 30), type + " tracer missed the sphere");
+      }
+   }
+}
@@ -3,6 +3,7 @@ package renderer;
 import org.junit.jupiter.api.Test;
 import primitives.Color;
 import primitives.Point;
+import primitives.Vec3;
 
 import static java.awt.Color.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,4 +40,31 @@ class ImageWriterTest {
         // Write the image to a file
         imageWriter.writeToImage("yellow with red grid");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link ImageWriter#toImage()}.
+     */
+    @Test
+    void testToImage() {
+        for (boolean offHeap : new boolean[] { false, true }) {
+            ImageWriter imageWriter = new ImageWriter(4, 2, offHeap);
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: colors above white are kept in the framebuffer and clamped in the image
+            imageWriter.writePixel(1, 1, new Color(1000, 127.9999, 3));
+            assertEquals(1000, new Vec3().set(imageWriter.readPixel(1, 1)).x, "Framebuffer clamped the color");
+            java.awt.image.BufferedImage image = imageWriter.toImage();
+            assertEquals(new java.awt.Color(255, 127, 3).getRGB(), image.getRGB(1, 1), "Wrong quantization");
+            assertEquals(BLACK.getRGB(), image.getRGB(0, 0), "Unwritten pixel is not black");
+
+            // TC02: Reinhard tone mapping compresses the bright channel instead of clipping it
+            imageWriter.setToneMapping(ToneMapping.REINHARD);
+            image = imageWriter.toImage();
+            assertEquals((int) (255 * 1000 / 1255.0), image.getRGB(1, 1) >> 16 & 0xFF, "Wrong tone mapping");
+
+            // =============== Boundary Values Tests ==================
+            // TC10: a channel just below an integer is not rounded up by the framebuffer
+            imageWriter.setToneMapping(ToneMapping.CLAMP).writePixel(3, 0, new Color(0, 0, Math.nextDown(200.0)));
+            assertEquals(199, imageWriter.toImage().getRGB(3, 0) & 0xFF, "Channel rounded up");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package renderer;
+
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Vector;
+import renderer.sampling.SamplingConfig;
+import renderer.sampling.SamplingPattern;
+import renderer.sampling.TargetShape;
+import scene.Scene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Camera#renderProgressive(long, java.util.function.Consumer)}.
+ */
+class ProgressiveRenderTests {
+   /** Scene of the tests */
+   private final Scene scene = new Scene("Progressive test scene");
+
+   /** Creates a sphere with a shadow on a triangle */
+   ProgressiveRenderTests() {
+      scene.geometries.add(
+            new Sphere(new Point(0, 0, -200), 60)
+                  .setEmission(new Color(java.awt.Color.BLUE))
+                  .setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(30)),
+            new Triangle(new Point(-150, -150, -300), new Point(150, -150, -300), new Point(75, 75, -300))
+                  .setMaterial(new Material().setKD(0.5).setKS(0.5).setShininess(30)));
+      scene.setAmbientLight(new AmbientLight(new Color(38, 38, 38)));
+      scene.lights.add(new SpotLight(new Color(400, 240, 0), new Point(40, 40, 115), new Vector(-1, -1, -4))
+            .setKl(4E-4).setKq(2E-5));
+   }
+
+   /**
+    * Creates a camera over the scene.
+    * @param samples  samples per pixel
+    * @param nX       image width
+    * @param nY       image height
+    * @param threads  multithreading setting
+    * @return the camera
+    */
+   private Camera camera(int samples, int nX, int nY, int threads) {
+      return Camera.getBuilder()
+            .setRayTracer(scene, RayTracerType.SIMPLE)
+            .setLocation(new Point(0, 0, 1000))
+            .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+            .setVpDistance(1000).setVpSize(200, 200)
+            .setResolution(nX, nY)
+            .setMultithreading(threads)
+            .build()
+            .setSamplingConfig(new SamplingConfig(samples, TargetShape.RECTANGLE, SamplingPattern.JITTERED));
+   }
+
+   /**
+    * Writes the image of a camera and reads it back.
+    * @param camera the camera
+    * @param name   image name
+    * @return the image
+    * @throws IOException if the image cannot be read
+    */
+   private static BufferedImage image(Camera camera, String name) throws IOException {
+      camera.writeToImage(name);
+      return ImageIO.read(new File(System.getProperty("user.dir") + "/images/" + name + ".png"));
+   }
+
+   /**
+    * Checks that two images have the same pixels.
+    * @param expected the expected image
+    * @param actual   the image to check
+    */
+   private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+      for (int y = 0; y < expected.getHeight(); y++)
+         for (int x = 0; x < expected.getWidth(); x++)
+            assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "Wrong pixel " + x + "," + y);
+   }
+
+   /**
+    * Test method for {@link Camera#renderProgressive(long, java.util.function.Consumer)}.
+    * @throws IOException if an image cannot be written or read
+    */
+   @Test
+   void testRenderProgressive() throws IOException {
+      BufferedImage expected = image(camera(4, 50, 50, 0).renderImage(), "progressive fixed");
+
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: no budget - sparse passes, then one pass per sample, ending with the fixed image
+      List<Camera.Pass> passes = new ArrayList<>();
+      Camera camera = camera(4, 50, 50, 0).renderProgressive(0, passes::add);
+      assertEquals(List.of(8, 4, 2, 1, 1, 1, 1), passes.stream().map(Camera.Pass::step).toList(), "Wrong pass steps");
+      assertEquals(List.of(1, 1, 1, 1, 2, 3, 4), passes.stream().map(Camera.Pass::samplesPerPixel).toList(),
+            "Wrong samples per pixel");
+      assertEquals(List.of(false, false, false, false, false, false, true),
+            passes.stream().map(Camera.Pass::last).toList(), "Wrong last pass");
+      for (int k = 0; k < passes.size(); k++) assertEquals(k, passes.get(k).index(), "Wrong pass index");
+      assertSameImage(expected, image(camera, "progressive"));
+
+      // TC02: rows rendered in parallel give the same image
+      assertSameImage(expected, image(camera(4, 50, 50, -1).renderProgressive(0, null), "progressive"));
+
+      // TC03: time budget - the preview pass completes, the rendering stops early
+      passes.clear();
+      camera(400, 100, 100, 0).renderProgressive(1, passes::add);
+      assertEquals(8, passes.get(0).step(), "No preview pass");
+      assertTrue(passes.get(passes.size() - 1).last(), "Last pass not reported");
+      assertTrue(passes.size() < 4 + 399, "Time budget ignored");
+
+      // TC04: negative budget
+      assertThrows(IllegalArgumentException.class, () -> camera(1, 10, 10, 0).renderProgressive(-1, null),
+            "Negative time budget accepted");
+
+      // =============== Boundary Values Tests ==================
+      // TC10: a single sample per pixel ends with the pass of step 1
+      passes.clear();
+      camera = camera(1, 50, 50, 0).renderProgressive(0, passes::add);
+      assertEquals(4, passes.size(), "Wrong pass count");
+      assertTrue(passes.get(3).last(), "Last pass not reported");
+      assertSameImage(image(camera(1, 50, 50, 0).renderImage(), "progressive fixed"),
+            image(camera, "progressive"));
+
+      // TC11: the sampling configuration changed after it was set applies to the next render
+      SamplingConfig config = new SamplingConfig(1, TargetShape.RECTANGLE, SamplingPattern.JITTERED);
+      camera = camera(1, 50, 50, 0).setSamplingConfig(config);
+      config.setSampleCount(4);
+      passes.clear();
+      camera.renderProgressive(0, passes::add);
+      assertEquals(4, passes.get(passes.size() - 1).samplesPerPixel(), "Changed sample count ignored");
+      assertSameImage(expected, image(camera.renderImage(), "progressive"));
+   }
+}
@@ -0,0 +1,142 @@
+package renderer;
+
+import geometries.FlatBVH;
+import geometries.Geometries;
+import geometries.Intersectable;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.TriangleMesh;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Vector;
+import scene.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link renderer.RenderStats}.
+ */
+class RenderStatsTests {
+   /** Image width */
+   private static final int NX = 40;
+   /** Image height */
+   private static final int NY = 30;
+
+   /**
+    * Builds a small scene: a mirror sphere, a glass sphere and a floor, with one
+    * hard-shadow point light.
+    * @return the scene
+    */
+   private static Scene scene() {
+      List<Intersectable> prims = new ArrayList<>();
+      prims.add(new Sphere(new Point(-30, 0, -100), 25)
+            .setEmission(new Color(60, 20, 20)).setMaterial(new Material().setKD(0.5).setKR(0.5)));
+      prims.add(new Sphere(new Point(30, 0, -100), 25)
+            .setEmission(new Color(20, 20, 60)).setMaterial(new Material().setKD(0.5).setKT(0.5)));
+      prims.add(new Plane(new Point(0, -25, 0), new Vector(0, 1, 0))
+            .setEmission(new Color(30, 30, 30)).setMaterial(new Material().setKD(0.5)));
+      Scene scene = new Scene("stats").setAmbientLight(new AmbientLight(new Color(20, 20, 20)));
+      scene.setGeometries(FlatBVH.build(prims));
+      scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(0, 100, 0)));
+      return scene;
+   }
+
+   /**
+    * Creates a camera over the scene.
+    * @param scene the scene
+    * @return the camera builder
+    */
+   private static Camera.Builder camera(Scene scene) {
+      return Camera.getBuilder()
+            .setRayTracer(scene, RayTracerType.SIMPLE)
+            .setLocation(Point.ZERO)
+            .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+            .setVpDistance(100).setVpSize(160, 120)
+            .setResolution(NX, NY);
+   }
+
+   /**
+    * Test method for {@link Camera#getRenderStats()}.
+    */
+   @Test
+   void testRenderStats() {
+      Scene scene = scene();
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: single thread, every ray kind is counted
+      Camera camera = camera(scene).setStatistics(true).build();
+      RenderStats stats = camera.renderImage().getRenderStats();
+      assertNotNull(stats, "No statistics");
+      assertEquals(NX * NY, stats.getPrimaryRays(), "Wrong primary ray count");
+      assertTrue(stats.getShadowRays() > 0, "No shadow rays counted");
+      assertTrue(stats.getReflectionRays() > 0, "No reflection rays counted");
+      assertTrue(stats.getRefractionRays() > 0, "No refraction rays counted");
+      assertEquals(stats.getPrimaryRays() + stats.getShadowRays() + stats.getReflectionRays()
+            + stats.getRefractionRays(), stats.getTotalRays(), "Wrong total ray count");
+      assertTrue(stats.getNodesVisited() > 0, "No hierarchy nodes counted");
+      assertTrue(stats.getPrimitiveTests().get("Sphere") > 0, "No sphere tests counted");
+      assertTrue(stats.getPrimitiveTests().get("Plane") >= stats.getTotalRays(),
+            "The unbounded plane is tested by every ray");
+      assertFalse(stats.getPrimitiveTests().containsKey("FlatBVH"), "Hierarchy counted as a primitive");
+      assertTrue(stats.getElapsedNanos() > 0, "No time measured");
+      assertTrue(stats.getRaysPerSecond() > 0, "No ray rate");
+      assertEquals(0, java.util.Arrays.stream(stats.getTileHistogram()).sum(), "Tiles counted without tiles");
+      String json = stats.toJson();
+      assertTrue(json.startsWith("{") && json.endsWith("}"), "Not a JSON object");
+      assertTrue(json.contains("\"primary\":" + NX * NY), "Primary rays missing from the JSON");
+      assertTrue(json.contains("\"Sphere\":"), "Primitive tests missing from the JSON");
+
+      // TC02: tiles on threads count the same rays and every tile
+      RenderStats tiled = camera(scene).setStatistics(true).setMultithreading(3).setTiles(8, TileOrder.MORTON)
+            .build().renderImage().getRenderStats();
+      assertEquals(stats.getTotalRays(), tiled.getTotalRays(), "Threads changed the ray count");
+      assertEquals(stats.getNodesVisited(), tiled.getNodesVisited(), "Threads changed the node count");
+      assertEquals(5 * 4, java.util.Arrays.stream(tiled.getTileHistogram()).sum(), "Wrong tile count");
+      assertTrue(tiled.toJson().contains("\"tileMicros\":[{"), "Tile times missing from the JSON");
+
+      // TC03: statistics are off by default and stop counting after the render
+      Camera plain = camera(scene).build();
+      assertNull(plain.renderImage().getRenderStats(), "Statistics collected without being enabled");
+      long nodes = stats.getNodesVisited();
+      scene.getGeometries().findClosestIntersection(camera.constructRay(NX, NY, 0, 0));
+      assertEquals(nodes, stats.getNodesVisited(), "Statistics counted after the render");
+
+      // TC04: renders side by side count into their own statistics only
+      RenderStats[] side = new RenderStats[2];
+      Thread[] renders = new Thread[2];
+      for (int k = 0; k < 2; k++) {
+         int index = k;
+         renders[k] = new Thread(() -> side[index] = camera(scene).setStatistics(true).setMultithreading(2)
+               .setTiles(8, TileOrder.MORTON).build().renderImage().getRenderStats());
+         renders[k].start();
+      }
+      for (Thread t : renders) assertDoesNotThrow(() -> t.join(), "Render interrupted");
+      for (RenderStats s : side) {
+         assertEquals(stats.getTotalRays(), s.getTotalRays(), "Concurrent render changed the ray count");
+         assertEquals(stats.getNodesVisited(), s.getNodesVisited(), "Concurrent renders mixed their node counts");
+         assertEquals(stats.getPrimitiveTests(), s.getPrimitiveTests(), "Concurrent renders mixed their tests");
+      }
+   }
+
+   /**
+    * Test method for the primitive tests of a {@link TriangleMesh} in {@link RenderStats}.
+    */
+   @Test
+   void testMeshStats() {
+      Scene scene = new Scene("mesh stats");
+      scene.setGeometries(new Geometries(new TriangleMesh(
+            new double[] { -50, -50, -100, 50, -50, -100, 50, 50, -100, -50, 50, -100 }, new int[] { 0, 1, 2, 0, 2, 3 })
+            .setEmission(new Color(40, 40, 40))));
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: the mesh counts its triangle tests, not itself
+      RenderStats stats = camera(scene).setStatistics(true).build().renderImage().getRenderStats();
+      assertTrue(stats.getPrimitiveTests().get("Triangle") >= NX * NY, "Mesh triangles not counted");
+      assertFalse(stats.getPrimitiveTests().containsKey("TriangleMesh"), "Mesh counted on top of its triangles");
+   }
+}
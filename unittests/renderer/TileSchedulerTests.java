@@ -0,0 +1,88 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link renderer.TileScheduler}.
+ */
+class TileSchedulerTests {
+
+   /**
+    * Claims all the tiles from several threads and counts how many times each pixel
+    * was covered.
+    * @param scheduler the scheduler
+    * @param nX        image width
+    * @param nY        image height
+    * @return coverage count per pixel
+    */
+   private static int[] cover(TileScheduler scheduler, int nX, int nY) throws InterruptedException {
+      int[] covered = new int[nX * nY];
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+         threads.add(new Thread(() -> {
+            int tile;
+            while ((tile = scheduler.nextTile()) >= 0) {
+               for (int i = scheduler.firstRow(tile); i < scheduler.endRow(tile); i++)
+                  for (int j = scheduler.firstCol(tile); j < scheduler.endCol(tile); j++)
+                     synchronized (covered) { covered[i * nX + j]++; }
+               scheduler.tileDone(tile);
+            }
+         }));
+      }
+      threads.forEach(Thread::start);
+      for (Thread t : threads) t.join();
+      return covered;
+   }
+
+   /**
+    * Test method for {@link TileScheduler#nextTile()}.
+    */
+   @Test
+   void testNextTile() throws InterruptedException {
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: every order covers every pixel exactly once, with partial border tiles
+      for (TileOrder order : TileOrder.values()) {
+         TileScheduler scheduler = new TileScheduler(37, 53, 8, order, 0);
+         assertEquals(5 * 7, scheduler.tileCount(), "Wrong amount of tiles for " + order);
+         for (int c : cover(scheduler, 53, 37))
+            assertEquals(1, c, "Pixel not covered exactly once for " + order);
+         assertEquals(37L * 53, scheduler.donePixels(), "Wrong progress for " + order);
+         assertEquals(-1, scheduler.nextTile(), "Tiles handed out after the end");
+      }
+
+      // =============== Boundary Values Tests ==================
+      // TC10: tile larger than the image
+      TileScheduler single = new TileScheduler(5, 3, 64, TileOrder.SPIRAL, 0);
+      assertEquals(1, single.tileCount(), "Whole image must be one tile");
+      assertEquals(3, single.endCol(0), "Tile must be clipped to the image");
+      // TC11: bad tile size
+      assertThrows(IllegalArgumentException.class, () -> new TileScheduler(5, 5, 0, TileOrder.MORTON, 0),
+            "Zero tile size accepted");
+   }
+
+   /**
+    * Test method for the tile orders of {@link TileScheduler}.
+    */
+   @Test
+   void testOrder() {
+      // TC01: Morton code interleaves the coordinate bits
+      assertEquals(0b0111, TileScheduler.morton(0b11, 0b01), "Wrong Morton code");
+      // TC02: Morton order visits the first 2x2 block before moving right
+      TileScheduler morton = new TileScheduler(32, 32, 8, TileOrder.MORTON, 0);
+      assertEquals(8, morton.firstCol(1), "Second Morton tile must be right of the first");
+      assertEquals(8, morton.firstRow(2), "Third Morton tile must be below the first");
+      // TC03: spiral order starts at the image center
+      TileScheduler spiral = new TileScheduler(24, 24, 8, TileOrder.SPIRAL, 0);
+      assertEquals(8, spiral.firstCol(0), "Spiral must start at the center tile");
+      assertEquals(8, spiral.firstRow(0), "Spiral must start at the center tile");
+      // TC04: scanline order
+      TileScheduler scan = new TileScheduler(24, 24, 8, TileOrder.SCANLINE, 0);
+      assertEquals(16, scan.firstCol(2), "Scanline must fill a row first");
+      assertEquals(8, scan.firstRow(3), "Scanline must wrap to the next row");
+   }
+}
@@ -0,0 +1,70 @@
+package renderer;
+
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import scene.Scene;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link renderer.VirtualThreads}.
+ */
+class VirtualThreadsTests {
+
+   /**
+    * Test method for {@link VirtualThreads#newExecutor(int)}.
+    */
+   @Test
+   void testNewExecutor() throws InterruptedException {
+      // TC01: the executor runs every task, whether it is virtual or the fallback pool
+      ExecutorService executor = VirtualThreads.newExecutor(2);
+      AtomicInteger   done     = new AtomicInteger();
+      for (int i = 0; i < 100; i++) executor.execute(done::incrementAndGet);
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS), "Executor did not finish");
+      assertEquals(100, done.get(), "Not all the tasks ran");
+
+      // TC02: availability matches the running JDK
+      boolean hasFactory;
+      try {
+         java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+         hasFactory = true;
+      } catch (NoSuchMethodException e) {
+         hasFactory = false;
+      }
+      assertEquals(hasFactory, VirtualThreads.isAvailable(), "Wrong virtual thread detection");
+   }
+
+   /**
+    * Test method for rendering on virtual threads with a failing tile.
+    */
+   @Test
+   void testRenderFailure() {
+      // TC01: a tile that throws fails the render instead of leaving a hole in the image
+      Scene scene = new Scene("Failing scene");
+      scene.geometries.add(new Sphere(new Point(0, 0, -100), 50) {
+         @Override
+         protected Intersection findClosestIntersectionHelper(Ray ray, double tMin, double tMax) {
+            throw new IllegalStateException("Broken geometry");
+         }
+      });
+      Camera camera = Camera.getBuilder()
+            .setRayTracer(scene, RayTracerType.SIMPLE)
+            .setLocation(new Point(0, 0, 100))
+            .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+            .setVpDistance(100).setVpSize(100, 100)
+            .setResolution(64, 64)
+            .setVirtualThreads(4)
+            .build();
+      IllegalStateException e = assertThrows(IllegalStateException.class, camera::renderImage,
+            "Failing tile was ignored");
+      assertEquals("Broken geometry", e.getMessage(), "Wrong failure reported");
+   }
+}
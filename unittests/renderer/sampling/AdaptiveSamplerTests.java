@@ -0,0 +1,65 @@
+package renderer.sampling;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link renderer.sampling.AdaptiveSampler}.
+ */
+class AdaptiveSamplerTests {
+
+    /**
+     * Test method for {@link AdaptiveSampler#sample(double, double, AdaptiveSampler.SampleSource)}.
+     */
+    @Test
+    void testSample() {
+        AdaptiveSampler sampler = new AdaptiveSampler(10, 3);
+        AtomicInteger rays = new AtomicInteger();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: flat pixel costs corners and centre only
+        Color flat = sampler.sample(1, 1, (dx, dy) -> {
+            rays.incrementAndGet();
+            return new Color(100, 100, 100);
+        });
+        assertEquals(new Color(100, 100, 100), flat, "Flat pixel color changed");
+        assertEquals(5, rays.get(), "Flat pixel must not be refined");
+
+        // TC02: vertical edge through the pixel - refined along the edge only
+        rays.set(0);
+        Color edge = sampler.sample(1, 1, (dx, dy) -> {
+            rays.incrementAndGet();
+            return dx < 0.1 ? new Color(0, 0, 0) : new Color(255, 255, 255);
+        });
+        assertTrue(rays.get() > 5, "Edge pixel must be refined");
+        assertTrue(rays.get() < 145, "Edge pixel must not be fully refined");
+        assertEquals(new Color(0, 0, 0).difference(edge) / 255, 0.4, 0.1, "Wrong edge coverage");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: zero depth never refines
+        rays.set(0);
+        new AdaptiveSampler(0, 0).sample(1, 1, (dx, dy) -> {
+            rays.incrementAndGet();
+            return new Color(dx > 0 ? 255 : 0, 0, 0);
+        });
+        assertEquals(5, rays.get(), "Depth 0 must stop after the first level");
+        // TC11: bad parameters
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveSampler(-1, 2), "Negative threshold");
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveSampler(1, -2), "Negative depth");
+    }
+
+    /**
+     * Test method for {@link AdaptiveSampler#depthFor(int)}.
+     */
+    @Test
+    void testDepthFor() {
+        assertEquals(0, AdaptiveSampler.depthFor(1), "Single sample needs no refinement");
+        assertEquals(1, AdaptiveSampler.depthFor(9), "3x3 lattice");
+        assertEquals(3, AdaptiveSampler.depthFor(81), "9x9 lattice");
+        assertEquals(4, AdaptiveSampler.depthFor(82), "Denser than 9x9");
+    }
+}
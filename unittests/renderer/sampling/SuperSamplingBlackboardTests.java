@@ -0,0 +1,74 @@
+package renderer.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link renderer.sampling.SuperSamplingBlackboard}.
+ */
+class SuperSamplingBlackboardTests {
+
+    /**
+     * Test method for {@link SuperSamplingBlackboard#getSampleTable(int, int)}.
+     */
+    @Test
+    void testGetSampleTable() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: grid - one shared table with the cell centers
+        SuperSamplingBlackboard grid = new SuperSamplingBlackboard(
+                new SamplingConfig(9, TargetShape.RECTANGLE, SamplingPattern.GRID));
+        assertEquals(1, grid.getTableCount(), "Grid needs a single table");
+        double[] table = grid.getSampleTable(3, 7);
+        assertSame(table, grid.getSampleTable(100, 2), "Grid table must be shared");
+        assertEquals(18, table.length, "Wrong amount of grid samples");
+        assertEquals(-1d / 3, table[0], 1e-12, "Wrong first grid offset");
+        assertEquals(0, table[8], 1e-12, "Grid center offset");
+
+        // TC02: jittered - pool of tables, one sample per cell, inside the pixel
+        SuperSamplingBlackboard jittered = new SuperSamplingBlackboard(
+                new SamplingConfig(16, TargetShape.RECTANGLE, SamplingPattern.JITTERED));
+        assertEquals(SuperSamplingBlackboard.POOL_SIZE, jittered.getTableCount(), "Random patterns need a pool");
+        boolean varied = false;
+        for (int j = 0; j < 8; j++) {
+            double[] t = jittered.getSampleTable(j, 0);
+            assertEquals(32, t.length, "Wrong amount of jittered samples");
+            int[] cells = new int[16];
+            for (int k = 0; k < t.length; k += 2) {
+                assertTrue(Math.abs(t[k]) <= 0.5 && Math.abs(t[k + 1]) <= 0.5, "Offset outside the pixel");
+                cells[(int) ((t[k + 1] + 0.5) * 4) * 4 + (int) ((t[k] + 0.5) * 4)]++;
+            }
+            for (int c : cells) assertEquals(1, c, "Jittered cell without exactly one sample");
+            varied |= t != jittered.getSampleTable(0, 0);
+        }
+        assertTrue(varied, "Neighbouring pixels must rotate through the pool");
+
+        // TC03: circle - only offsets inside the inscribed circle
+        SuperSamplingBlackboard circle = new SuperSamplingBlackboard(
+                new SamplingConfig(81, TargetShape.CIRCLE, SamplingPattern.RANDOM));
+        double[] c = circle.getSampleTable(5, 5);
+        assertTrue(c.length > 0 && c.length < 162, "Circle must drop the corner samples");
+        for (int k = 0; k < c.length; k += 2)
+            assertTrue(4 * (c[k] * c[k] + c[k + 1] * c[k + 1]) <= 1, "Offset outside the circle");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: table is the same on every call for the same pixel
+        assertSame(circle.getSampleTable(-4, 9), circle.getSampleTable(-4, 9), "Pixel table must be stable");
+    }
+
+    /**
+     * Test method for {@link SuperSamplingBlackboard#getSampleOffsets(double, double)}.
+     */
+    @Test
+    void testGetSampleOffsets() {
+        SuperSamplingBlackboard grid = new SuperSamplingBlackboard(
+                new SamplingConfig(4, TargetShape.RECTANGLE, SamplingPattern.GRID));
+        List<Point2D.Double> offsets = grid.getSampleOffsets(2, 4);
+        assertEquals(4, offsets.size(), "Wrong amount of offsets");
+        assertEquals(-0.5, offsets.get(0).x, 1e-12, "Offsets must be scaled by the pixel width");
+        assertEquals(-1, offsets.get(0).y, 1e-12, "Offsets must be scaled by the pixel height");
+    }
+}
@@ -0,0 +1,179 @@
+package scene;
+
+import geometries.Intersectable.Intersection;
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link scene.MeshLoader}.
+ */
+class MeshLoaderTests {
+    /** Header of a PLY file with a unit quad, before the format is chosen */
+    private static final String PLY_ELEMENTS = """
+            comment a unit quad
+            element vertex 4
+            property float x
+            property float y
+            property float z
+            property uchar red
+            element face 1
+            property list uchar int vertex_indices
+            element edge 1
+            property int vertex1
+            property int vertex2
+            end_header
+            """;
+
+    /**
+     * Writes a temporary file.
+     * @param suffix  file extension
+     * @param content the bytes
+     * @return the file
+     * @throws IOException if it cannot be written
+     */
+    private static Path write(String suffix, byte[] content) throws IOException {
+        Path path = Files.createTempFile("mesh", suffix);
+        path.toFile().deleteOnExit();
+        return Files.write(path, content);
+    }
+
+    /**
+     * Checks that a mesh is the unit quad in the z=0 plane.
+     * @param mesh the mesh
+     */
+    private static void assertUnitQuad(TriangleMesh mesh) {
+        assertEquals(2, mesh.getTriangleCount(), "Wrong triangle count");
+        assertEquals(4, mesh.getVertexCount(), "Wrong vertex count");
+        assertEquals(new Point(0, 0, 0), mesh.getBoundingBox().min, "Wrong mesh extent");
+        assertEquals(new Point(1, 1, 0), mesh.getBoundingBox().max, "Wrong mesh extent");
+        Intersection hit = mesh.findClosestIntersection(new Ray(new Point(0.3, 0.6, 1), new Vector(0, 0, -1)));
+        assertNotNull(hit, "Missed the quad");
+        assertEquals(new Vector(0, 0, 1), hit.normal, "Wrong winding");
+    }
+
+    /**
+     * Test method for {@link MeshLoader#load(Path)} with OBJ files.
+     * @throws IOException if a file cannot be written or read
+     */
+    @Test
+    void testLoadObj() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: quad with comments, texture and normal references, negative indices and CRLF lines
+        String obj = """
+                # a unit quad
+                o quad
+                v 0 0 0
+                  v 1.0 0 0
+                v 1 1e0 0.0
+                v -0.0 +1 0 1
+                vt 0 0
+                vn 0 0 1
+                s off\r
+                f 1/1/1 2//1 -2 -1/1 # fan of two triangles\r
+                """;
+        assertUnitQuad(MeshLoader.load(write(".obj", obj.getBytes(StandardCharsets.US_ASCII))));
+
+        // TC02: numbers are converted exactly as Double.parseDouble does
+        Random rnd = new Random(3);
+        StringBuilder numbers = new StringBuilder();
+        double[] expected = new double[297];
+        for (int i = 0; i < expected.length; i++) {
+            String text = switch (i % 4) {
+                case 0 -> Double.toString((rnd.nextDouble() - 0.5) * 1000);
+                case 1 -> String.format(Locale.ROOT, "%.6f", rnd.nextGaussian());
+                case 2 -> String.format(Locale.ROOT, "%.4e", rnd.nextDouble() * 1e-30);
+                default -> Double.toString(rnd.nextDouble() * 1e25);
+            };
+            expected[i] = Double.parseDouble(text);
+            numbers.append(i % 3 == 0 ? "v " : " ").append(text).append(i % 3 == 2 ? "\n" : "");
+        }
+        double[] box = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (int i = 0; i < expected.length; i++) {
+            box[i % 3]     = Math.min(box[i % 3], expected[i]);
+            box[i % 3 + 3] = Math.max(box[i % 3 + 3], expected[i]);
+        }
+        for (int v = 1; v < expected.length / 3; v += 3)
+            numbers.append("f ").append(v).append(' ').append(v + 1).append(' ').append(v + 2).append('\n');
+        TriangleMesh mesh = MeshLoader.load(write(".obj", numbers.toString().getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(expected.length / 3, mesh.getVertexCount(), "Wrong vertex count");
+        for (int a = 0; a < 3; a++) {
+            assertEquals(box[a], mesh.getBoundingBox().getBound(a), 0, "Number converted inexactly");
+            assertEquals(box[a + 3], mesh.getBoundingBox().getBound(a + 3), 0, "Number converted inexactly");
+        }
+
+        // TC03: face referring to a missing vertex
+        assertThrows(IOException.class, () -> MeshLoader.load(write(".obj", "v 0 0 0\nf 1 2 3\n".getBytes())),
+                "Loaded a face without vertices");
+        // TC04: unknown extension
+        assertThrows(IOException.class, () -> MeshLoader.load(write(".stl", new byte[0])), "Loaded an unknown format");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: empty file
+        assertEquals(0, MeshLoader.load(write(".obj", new byte[0])).getTriangleCount(), "Empty file has triangles");
+        // TC11: face with two vertices
+        assertThrows(IOException.class, () -> MeshLoader.load(write(".obj", "v 0 0 0\nv 1 0 0\nf 1 2\n".getBytes())),
+                "Loaded a degenerate face");
+    }
+
+    /**
+     * Test method for {@link MeshLoader#load(Path)} with PLY files.
+     * @throws IOException if a file cannot be written or read
+     */
+    @Test
+    void testLoadPly() throws IOException {
+        float[][] vertices = { { 0, 0, 0 }, { 1, 0, 0 }, { 1, 1, 0 }, { 0, 1, 0 } };
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: binary little endian and big endian, with skipped properties and elements
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN }) {
+            String format = order == ByteOrder.LITTLE_ENDIAN ? "binary_little_endian" : "binary_big_endian";
+            byte[] header = ("ply\nformat " + format + " 1.0\n" + PLY_ELEMENTS).getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer data = ByteBuffer.allocate(header.length + 4 * 13 + 1 + 16 + 8).order(order);
+            data.put(header);
+            for (float[] v : vertices) data.putFloat(v[0]).putFloat(v[1]).putFloat(v[2]).put((byte) 200);
+            data.put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+            data.putInt(0).putInt(1);
+            assertUnitQuad(MeshLoader.load(write(".ply", data.array())));
+        }
+
+        // TC02: ASCII
+        String ascii = "ply\nformat ascii 1.0\n" + PLY_ELEMENTS
+                + "0 0 0 255\n1 0 0 255\n1 1 0 255\n0 1 0 255\n4 0 1 2 3\n0 1\n";
+        assertUnitQuad(MeshLoader.load(write(".ply", ascii.getBytes(StandardCharsets.US_ASCII))));
+
+        // TC03: not a PLY file
+        assertThrows(IOException.class, () -> MeshLoader.load(write(".ply", "v 0 0 0\n".getBytes())),
+                "Loaded an OBJ as PLY");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: data shorter than declared
+        byte[] header = ("ply\nformat binary_little_endian 1.0\n" + PLY_ELEMENTS).getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IOException.class, () -> MeshLoader.load(write(".ply", header)), "Loaded truncated data");
+    }
+
+    /**
+     * Test method for {@link SceneBuilder#loadMesh(java.io.File, String)}.
+     * @throws IOException if a file cannot be written or read
+     */
+    @Test
+    void testSceneMesh() throws IOException {
+        Path obj = write(".obj", "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nf 1 2 3 4\n".getBytes());
+        // TC01: mesh path relative to the scene file
+        Path scene = obj.resolveSibling("scene.xml");
+        assertUnitQuad(SceneBuilder.loadMesh(scene.toFile(), obj.getFileName().toString()));
+    }
+}
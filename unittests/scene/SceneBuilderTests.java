@@ -0,0 +1,136 @@
+package scene;
+
+import geometries.Geometries;
+import geometries.Intersectable;
+import geometries.Intersectable.Intersection;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link scene.SceneBuilder}.
+ */
+class SceneBuilderTests {
+
+    /**
+     * Writes a temporary scene file.
+     * @param xml the document
+     * @return the file
+     * @throws IOException if it cannot be written
+     */
+    private static File write(String xml) throws IOException {
+        Path path = Files.createTempFile("scene", ".xml");
+        path.toFile().deleteOnExit();
+        return Files.writeString(path, xml).toFile();
+    }
+
+    /**
+     * Test method for {@link SceneBuilder#loadSceneFromFile(File, java.util.function.Consumer)}.
+     * @throws Exception if the scene cannot be loaded
+     */
+    @Test
+    void testLoadSceneFromFile() throws Exception {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: every geometry and light type, grouped and ungrouped
+        String xml = """
+                <?xml version="1.0"?>
+                <scene background-color="10 20 30">
+                  <ambient-light color="5 5 5"/>
+                  <geometries>
+                    <sphere center="0 0 -100" radius="50" emission="100 0 0" kd="0.5" ks="0.2 0.3 0.4" shininess="30"/>
+                    <triangle p0="-10 0 0" p1="10 0 0" p2="0 10 0"/>
+                    <polygon p0="0 0 5" p1="1 0 5" p2="1 1 5" p3="0 1 5"/>
+                    <plane q0="0 -50 0" normal="0 1 0"/>
+                    <plane p0="0 0 -500" p1="1 0 -500" p2="0 1 -500"/>
+                    <tube radius="1" origin="0 0 0" direction="0 1 0"/>
+                    <cylinder radius="1" origin="5 0 0" direction="0 1 0" height="2"/>
+                  </geometries>
+                  <lights>
+                    <directional-light color="100 100 100" direction="1, -1, -1"/>
+                    <point-light color="200 200 200" position="0 50 0" kl="0.001" kq="0.0001" radius="2" samples="9"/>
+                    <spot-light color="300 300 300" position="0 0 50" direction="0 0 -1" narrow-beam="10"/>
+                  </lights>
+                  <unknown-extension/>
+                </scene>
+                """;
+        SceneBuilder.ParseReport[] report = new SceneBuilder.ParseReport[1];
+        Scene scene = SceneBuilder.loadSceneFromFile(write(xml), r -> report[0] = r);
+
+        assertEquals(new Color(10, 20, 30), scene.getBackground(), "Wrong background");
+        assertEquals(new Color(5, 5, 5), scene.getAmbientLight().getIntensity(), "Wrong ambient light");
+        assertEquals(3, scene.getLights().size(), "Wrong light count");
+        assertInstanceOf(DirectionalLight.class, scene.getLights().get(0), "Wrong light type");
+        assertInstanceOf(PointLight.class, scene.getLights().get(1), "Wrong light type");
+        assertEquals(9, ((PointLight) scene.getLights().get(1)).getNumSamples(), "Wrong light samples");
+        assertInstanceOf(SpotLight.class, scene.getLights().get(2), "Wrong light type");
+
+        Intersection hit = scene.getGeometries().findClosestIntersection(
+                new Ray(new Point(0, 20, -30), new Vector(0, -0.2, -1)));
+        assertNotNull(hit, "Missed the sphere");
+        assertEquals(new Color(100, 0, 0), hit.geometry.getEmission(), "Wrong emission");
+        assertEquals(new Double3(0.5), hit.material.getKD(), "Wrong diffuse factor");
+        assertEquals(new Double3(0.2, 0.3, 0.4), hit.material.getKS(), "Wrong specular factor");
+        assertEquals(30, hit.material.getShininess(), "Wrong shininess");
+
+        assertNotNull(report[0], "No parse report");
+        assertEquals(7, report[0].geometries(), "Wrong geometry count in the report");
+        assertEquals(3, report[0].lights(), "Wrong light count in the report");
+        assertEquals(15, report[0].elements(), "Wrong element count in the report");
+        assertTrue(report[0].megabytesPerSecond() > 0, "No throughput reported");
+
+        // TC02: missing attribute
+        assertThrows(XMLStreamException.class,
+                () -> SceneBuilder.loadSceneFromFile(write("<scene><sphere center=\"0 0 0\"/></scene>")),
+                "Loaded a sphere without a radius");
+        // TC03: malformed coordinates
+        assertThrows(XMLStreamException.class,
+                () -> SceneBuilder.loadSceneFromFile(write("<scene><sphere center=\"0 0\" radius=\"1\"/></scene>")),
+                "Loaded a point with two coordinates");
+        assertThrows(XMLStreamException.class,
+                () -> SceneBuilder.loadSceneFromFile(write("<scene><sphere center=\"0 0 0 0\" radius=\"1\"/></scene>")),
+                "Loaded a point with four coordinates");
+        // TC04: invalid geometry parameters
+        assertThrows(XMLStreamException.class,
+                () -> SceneBuilder.loadSceneFromFile(write("<scene><sphere center=\"0 0 0\" radius=\"-1\"/></scene>")),
+                "Loaded a sphere with a negative radius");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: empty scene keeps the defaults
+        Scene empty = SceneBuilder.loadSceneFromFile(write("<scene/>"));
+        assertEquals(Color.BLACK, empty.getBackground(), "Wrong default background");
+        assertTrue(empty.getLights().isEmpty(), "Empty scene has lights");
+        assertNull(empty.getGeometries().findClosestIntersection(new Ray(Point.ZERO, new Vector(0, 0, 1))),
+                "Empty scene has geometries");
+    }
+
+    /**
+     * Test method for {@link SceneBuilder#loadSceneFromFile(File)} with many elements.
+     * @throws Exception if the scene cannot be loaded
+     */
+    @Test
+    void testStreaming() throws Exception {
+        StringBuilder xml = new StringBuilder("<scene background-color=\"0 0 0\"><geometries>\n");
+        for (int i = 0; i < 20000; i++)
+            xml.append("<sphere center=\"").append(i).append(" 0 0\" radius=\"0.25\"/>\n");
+        xml.append("</geometries></scene>");
+        Geometries geometries = SceneBuilder.loadSceneFromFile(write(xml.toString())).getGeometries();
+        // a ray along the row of spheres crosses all of them
+        Intersectable row = geometries;
+        assertEquals(40000, row.calculateIntersections(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0))).size(),
+                "Wrong amount of spheres");
+    }
+}
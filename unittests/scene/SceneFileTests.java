@@ -0,0 +1,165 @@
+package scene;
+
+import geometries.Cylinder;
+import geometries.Geometries;
+import geometries.Intersectable.Intersection;
+import geometries.Plane;
+import geometries.Polygon;
+import geometries.Sphere;
+import geometries.Triangle;
+import geometries.TriangleMesh;
+import geometries.Tube;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link scene.SceneFile}.
+ */
+class SceneFileTests {
+
+    /**
+     * Creates a temporary file for a compiled scene.
+     * @return the file
+     * @throws IOException if it cannot be created
+     */
+    private static Path tempFile() throws IOException {
+        Path path = Files.createTempFile("scene", ".rtsc");
+        path.toFile().deleteOnExit();
+        return path;
+    }
+
+    /**
+     * Builds a scene with every geometry and light type.
+     * @return the scene
+     */
+    private static Scene sampleScene() {
+        Material shiny = new Material().setKD(0.5).setKS(new Double3(0.2, 0.3, 0.4)).setShininess(30).setKR(0.1);
+        Material glass = new Material().setKT(0.7).setKA(new Double3(0.1, 0.2, 0.3));
+        double[] vertices = new double[3 * 9];
+        int[] indices = new int[3 * 8];
+        for (int i = 0, v = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++, v++) {
+                vertices[3 * v] = 20 + j;
+                vertices[3 * v + 1] = i;
+                vertices[3 * v + 2] = -30 + 0.1 * i * j;
+            }
+        for (int i = 0, t = 0; i < 2; i++)
+            for (int j = 0; j < 2; j++) {
+                int v = 3 * i + j;
+                indices[3 * t] = v;     indices[3 * t + 1] = v + 1; indices[3 * t + 2] = v + 4; t++;
+                indices[3 * t] = v;     indices[3 * t + 1] = v + 4; indices[3 * t + 2] = v + 3; t++;
+            }
+        Geometries group = new Geometries(
+                new Triangle(new Point(-10, 0, -20), new Point(10, 0, -20), new Point(0, 10, -20)).setMaterial(glass),
+                new Polygon(new Point(-5, -5, -25), new Point(5, -5, -25), new Point(5, 5, -25), new Point(-5, 5, -25))
+                        .setMaterial(shiny));
+        Scene scene = new Scene("compiled")
+                .setBackground(new Color(10, 20, 30))
+                .setAmbientLight(new AmbientLight(new Color(5, 6, 7)));
+        scene.getGeometries().add(
+                new Sphere(new Point(0, 0, -100), 50).setEmission(new Color(100, 0, 0)).setMaterial(shiny),
+                group,
+                new Plane(new Point(0, -50, 0), new Vector(0, 1, 0)),
+                new Tube(1, new Ray(new Point(-20, 0, -40), new Vector(0, 1, 0))),
+                new Cylinder(2, new Ray(new Point(15, 0, -40), new Vector(0, 1, 1)), 3).setMaterial(glass),
+                new TriangleMesh(vertices, indices).setEmission(new Color(0, 50, 0)));
+        scene.addLight(new DirectionalLight(new Color(100, 100, 100), new Vector(1, -1, -1)))
+                .addLight(new PointLight(new Color(200, 200, 200), new Point(0, 50, 0))
+                        .setKl(0.001).setKq(0.0001).setRadius(2).setNumSamples(9))
+                .addLight(new SpotLight(new Color(300, 300, 300), new Point(0, 0, 50), new Vector(0, 0, -1))
+                        .setNarrowBeam(10.0));
+        return scene;
+    }
+
+    /**
+     * Test method for {@link SceneFile#write(Path, Scene, SceneFile.View)} and {@link SceneFile#read(Path)}.
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: every geometry and light type, with a stored view
+        Scene scene = sampleScene();
+        SceneFile.View view = new SceneFile.View(new Point(0, 0, 100), new Vector(0, 0, -1), new Vector(0, 1, 0),
+                100, 200, 150, 400, 300);
+        Path path = tempFile();
+        SceneFile.write(path, scene, view);
+        SceneFile.Compiled compiled = SceneFile.read(path);
+        Scene loaded = compiled.scene();
+
+        assertEquals(view, compiled.view(), "Wrong view");
+        assertEquals("compiled", loaded.getName(), "Wrong name");
+        assertEquals(scene.getBackground(), loaded.getBackground(), "Wrong background");
+        assertEquals(scene.getAmbientLight().getIntensity(), loaded.getAmbientLight().getIntensity(),
+                "Wrong ambient light");
+        assertEquals(3, loaded.getLights().size(), "Wrong light count");
+        assertInstanceOf(DirectionalLight.class, loaded.getLights().get(0), "Wrong light type");
+        PointLight point = (PointLight) loaded.getLights().get(1);
+        assertEquals(new Point(0, 50, 0), point.getPosition(), "Wrong light position");
+        assertEquals(0.0001, point.getKq(), "Wrong light attenuation");
+        assertEquals(9, point.getNumSamples(), "Wrong light samples");
+        SpotLight spot = (SpotLight) loaded.getLights().get(2);
+        assertEquals(new Vector(0, 0, -1), spot.getDirection(), "Wrong spot direction");
+        assertEquals(10, spot.getNarrowBeam(), "Wrong narrow beam");
+        assertEquals(7, Geometries.primitivesOf(loaded.getGeometries()).size(), "Wrong geometry count");
+
+        // TC02: the loaded scene is hit exactly as the original one
+        Random rnd = new Random(16);
+        for (int i = 0; i < 2000; i++) {
+            Point origin = new Point(rnd.nextDouble() * 60 - 30, rnd.nextDouble() * 60 - 30, rnd.nextDouble() * 40);
+            Vector direction = new Vector(rnd.nextGaussian(), rnd.nextGaussian(), -1 - rnd.nextDouble());
+            Ray ray = new Ray(origin, direction);
+            Intersection expected = scene.getGeometries().findClosestIntersection(ray);
+            Intersection actual = loaded.getGeometries().findClosestIntersection(ray);
+            if (expected == null) {
+                assertNull(actual, "Hit in the loaded scene only");
+                continue;
+            }
+            assertNotNull(actual, "Missed in the loaded scene");
+            assertEquals(expected.point, actual.point, "Wrong hit point");
+            assertEquals(expected.normal, actual.normal, "Wrong hit normal");
+            assertEquals(expected.geometry.getClass(), actual.geometry.getClass(), "Wrong hit geometry");
+            assertEquals(expected.geometry.getEmission(), actual.geometry.getEmission(), "Wrong emission");
+            assertEquals(expected.material.getKD(), actual.material.getKD(), "Wrong diffuse factor");
+            assertEquals(expected.material.getKS(), actual.material.getKS(), "Wrong specular factor");
+            assertEquals(expected.material.getKT(), actual.material.getKT(), "Wrong transparency");
+            assertEquals(expected.material.getKA(), actual.material.getKA(), "Wrong ambient factor");
+            assertEquals(expected.material.getShininess(), actual.material.getShininess(), "Wrong shininess");
+        }
+
+        // TC03: not a compiled scene
+        Path other = tempFile();
+        Files.write(other, "<scene/>".getBytes());
+        assertThrows(IOException.class, () -> SceneFile.read(other), "Loaded a file that is not compiled");
+
+        // =============== Boundary Values Tests ==================
+        // TC10: empty scene without a view
+        SceneFile.write(path, new Scene("empty"), null);
+        SceneFile.Compiled empty = SceneFile.read(path);
+        assertNull(empty.view(), "Empty scene has a view");
+        assertNull(empty.scene().getGeometries().findClosestIntersection(new Ray(Point.ZERO, new Vector(0, 0, 1))),
+                "Empty scene has geometries");
+        // TC11: truncated file
+        SceneFile.write(path, scene, view);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> SceneFile.read(path), "Loaded a truncated file");
+    }
+}